@@ -0,0 +1,89 @@
+package com.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic catalogs for the benchmarks.
+ *
+ * Like a real catalog, a fixed number of authors and publications repeat across the books, and a
+ * few of them account for most: each draw is skewed towards the low-numbered ones. The same seed
+ * always gives the same books, in either module's model.
+ */
+public final class BookGenerator {
+
+    private final long seed;
+    private final int authors;
+    private final int publications;
+
+    /**
+     * @param seed         Seed of the random draws.
+     * @param authors      Number of distinct authors.
+     * @param publications Number of distinct publications.
+     */
+    public BookGenerator(long seed, int authors, int publications) {
+        this.seed = seed;
+        this.authors = authors;
+        this.publications = publications;
+    }
+
+    /**
+     * @param count Number of books.
+     * @return Books for the client service, with ids 1 to count.
+     */
+    public List<com.client.client.model.BookDataModel> clientBooks(int count) {
+        Random random = new Random(seed);
+        List<com.client.client.model.BookDataModel> books = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            com.client.client.model.BookDataModel book = new com.client.client.model.BookDataModel(
+                    name(i), author(random), publication(random));
+            book.id = (long) i;
+            book.version = 1;
+            books.add(book);
+        }
+        return books;
+    }
+
+    /**
+     * @param count Number of books.
+     * @return The same books as {@link #clientBooks(int)}, as the frontend reads them.
+     */
+    public List<com.frontend.frontend.model.BookDataModel> frontendBooks(int count) {
+        Random random = new Random(seed);
+        List<com.frontend.frontend.model.BookDataModel> books = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            com.frontend.frontend.model.BookDataModel book = new com.frontend.frontend.model.BookDataModel(
+                    name(i), author(random), publication(random));
+            book.setId((long) i);
+            book.setVersion(1);
+            books.add(book);
+        }
+        return books;
+    }
+
+    /**
+     * @param random Source of the draw.
+     * @return One of the authors, skewed the same way the books' authors are.
+     */
+    public String author(Random random) {
+        return "Author " + skewed(random, authors);
+    }
+
+    /**
+     * @param random Source of the draw.
+     * @return One of the publications, skewed the same way the books' publications are.
+     */
+    public String publication(Random random) {
+        return "Publication " + skewed(random, publications);
+    }
+
+    private static String name(int i) {
+        return "The Collected Works Volume " + i;
+    }
+
+    private static int skewed(Random random, int bound) {
+        double draw = random.nextDouble();
+        return (int) (bound * draw * draw); // Squaring favours the low numbers
+    }
+}
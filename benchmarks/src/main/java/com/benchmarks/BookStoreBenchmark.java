@@ -0,0 +1,117 @@
+package com.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.store.BookStore;
+import com.client.client.store.BookStoreProperties;
+import com.client.client.store.CatalogCodec;
+import com.client.client.store.CatalogSnapshot;
+import com.client.client.store.SnapshotPersistence;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * What the client service's {@code BookController} costs below the HTTP layer: loading the catalog
+ * at startup, writing it back, and storing a changed book, at catalog sizes from 1K to 1M books.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g") // A million books and their copies don't fit the default heap
+public class BookStoreBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int books;
+
+    @Param({"JSON", "BINARY"})
+    public BookStoreProperties.Format format;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Path directory;
+    private BookStoreProperties properties;
+    private CatalogCodec codec;
+    private BookStore store; // Started over the catalog, for the save and update benchmarks
+    private Path saved;
+
+    @Setup(Level.Trial)
+    public void writeCatalog() throws IOException {
+        directory = Files.createTempDirectory("book-store-benchmark");
+        properties = new BookStoreProperties();
+        properties.setFormat(format);
+        properties.setFile(directory.resolve("items").toString());
+        properties.setFlushInterval(Duration.ofHours(1)); // Benchmarks flush explicitly, not in the background
+        codec = new CatalogCodec(objectMapper, format);
+        List<BookDataModel> catalog = new BookGenerator(42, 5_000, 300).clientBooks(books);
+        codec.write(Path.of(properties.getFile()), new CatalogSnapshot(0, catalog), false);
+
+        store = newStore();
+        store.start();
+        saved = directory.resolve("saved");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCatalog() throws IOException {
+        store.stop();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Startup: reading and decoding the catalog file into a new store.
+     */
+    @Benchmark
+    public int load() {
+        BookStore loaded = newStore();
+        loaded.start();
+        loaded.stop(); // Nothing changed, so nothing is written
+        return loaded.size();
+    }
+
+    /**
+     * A flush: a consistent snapshot of the store, encoded and written over the previous file.
+     */
+    @Benchmark
+    public void save() throws IOException {
+        codec.write(saved, store.snapshot(), true);
+    }
+
+    /**
+     * A single update of a random book, as a {@code PUT} makes it.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public BookDataModel update() {
+        long id = ThreadLocalRandom.current().nextLong(books) + 1;
+        return store.update(id, new BookDataModel("Revised Edition " + id, "Author 1", "Publication 1"));
+    }
+
+    private BookStore newStore() {
+        return new BookStore(new SnapshotPersistence(objectMapper, properties), properties, List.of());
+    }
+}
@@ -0,0 +1,85 @@
+package com.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.client.client.search.BookSearchIndex;
+import com.client.client.search.BookTextIndex;
+import com.frontend.frontend.utils.SearchUtils;
+
+/**
+ * The frontend's {@link SearchUtils#linearSearch} scan against the client service's indexes, for
+ * the same query over the same books.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SearchBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int books;
+
+    @Param({"5000"})
+    public int authors;
+
+    private List<com.frontend.frontend.model.BookDataModel> catalog;
+    private final BookSearchIndex searchIndex = new BookSearchIndex();
+    private final BookTextIndex textIndex = new BookTextIndex();
+    private String[] queries; // Authors to look up, drawn like the books' authors
+    private int next;
+
+    @Setup(Level.Trial)
+    public void buildIndexes() {
+        BookGenerator generator = new BookGenerator(42, authors, 300);
+        catalog = generator.frontendBooks(books);
+        List<com.client.client.model.BookDataModel> indexed = generator.clientBooks(books);
+        searchIndex.catalogLoaded(indexed);
+        textIndex.catalogLoaded(indexed);
+
+        Random random = new Random(7);
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = generator.author(random).toLowerCase(); // Both searches ignore case
+        }
+    }
+
+    private String nextQuery() {
+        return queries[next++ & (queries.length - 1)];
+    }
+
+    @Benchmark
+    public int linearSearchByAuthor() {
+        return SearchUtils.linearSearch(catalog, null, nextQuery(), null).size();
+    }
+
+    @Benchmark
+    public int indexedSearchByAuthor() {
+        return searchIndex.search(Map.of(BookSearchIndex.Field.BOOK_AUTHOR, nextQuery())).size();
+    }
+
+    /**
+     * Ranked full-text search, limited to a page of hits the way the REST endpoint limits it.
+     */
+    @Benchmark
+    public int textSearchByAuthor() {
+        return textIndex.search(nextQuery(), BookTextIndex.Mode.EXACT, 20).size();
+    }
+}
@@ -0,0 +1,70 @@
+package com.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Jackson reading and writing {@code BookDataModel} lists: the client service writes them in its
+ * responses, and the frontend reads them back, a page at a time or all at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "50", "10000"})
+    public int books;
+
+    private List<com.client.client.model.BookDataModel> clientBooks;
+    private byte[] json;
+    private ObjectWriter writer;
+    private ObjectReader clientReader;
+    private ObjectReader frontendReader;
+
+    @Setup(Level.Trial)
+    public void encode() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        clientBooks = new BookGenerator(42, 5_000, 300).clientBooks(books);
+        writer = objectMapper.writerFor(new TypeReference<List<com.client.client.model.BookDataModel>>() {});
+        clientReader = objectMapper.readerFor(new TypeReference<List<com.client.client.model.BookDataModel>>() {});
+        frontendReader = objectMapper.readerFor(new TypeReference<List<com.frontend.frontend.model.BookDataModel>>() {});
+        json = writer.writeValueAsBytes(clientBooks);
+    }
+
+    @Benchmark
+    public byte[] serializeClient() throws IOException {
+        return writer.writeValueAsBytes(clientBooks);
+    }
+
+    @Benchmark
+    public List<com.client.client.model.BookDataModel> deserializeClient() throws IOException {
+        return clientReader.readValue(json);
+    }
+
+    @Benchmark
+    public List<com.frontend.frontend.model.BookDataModel> deserializeFrontend() throws IOException {
+        return frontendReader.readValue(json);
+    }
+}
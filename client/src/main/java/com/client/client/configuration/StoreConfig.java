@@ -0,0 +1,40 @@
+package com.client.client.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.client.client.replica.ReplicationProperties;
+import com.client.client.shard.ShardProperties;
+import com.client.client.store.BookPersistence;
+import com.client.client.store.BookStoreProperties;
+import com.client.client.store.MappedPersistence;
+import com.client.client.store.MeteredPersistence;
+import com.client.client.store.SnapshotPersistence;
+import com.client.client.store.TransientPersistence;
+import com.client.client.store.WalPersistence;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@EnableConfigurationProperties({BookStoreProperties.class, ShardProperties.class, ReplicationProperties.class})
+public class StoreConfig {
+
+    // Picks how the book store persists mutations, based on book-store.persistence; a replica's copy is never persisted
+    @Bean
+    public BookPersistence bookPersistence(ObjectMapper objectMapper, BookStoreProperties properties,
+                                           ReplicationProperties replication, MeterRegistry meters) {
+        if (replication.getRole() == ReplicationProperties.Role.REPLICA) {
+            properties.setPersistence(BookStoreProperties.Persistence.NONE); // So nothing reports the primary's files as its own
+        }
+        BookPersistence persistence = switch (properties.getPersistence()) {
+            case SNAPSHOT -> new SnapshotPersistence(objectMapper, properties, meters);
+            case WAL -> new WalPersistence(objectMapper, properties, meters);
+            case MAPPED -> new MappedPersistence(objectMapper, properties, meters);
+            case NONE -> new TransientPersistence();
+        };
+        return new MeteredPersistence(persistence, properties.getPersistence(), meters);
+    }
+
+}
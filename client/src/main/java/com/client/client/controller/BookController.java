@@ -1,71 +1,143 @@
 package com.client.client.controller;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.client.client.model.BookChanges;
 import com.client.client.model.BookDataModel; // Ensure correct casing
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.client.client.model.BookImportResult;
+import com.client.client.model.BookOperation;
+import com.client.client.model.BookPage;
+import com.client.client.search.BookPager;
+import com.client.client.search.BookSearchIndex;
+import com.client.client.search.BookTextIndex;
+import com.client.client.store.BookChangeFeed;
+import com.client.client.store.BookStore;
+import com.client.client.store.NoSuchBookException;
+import com.client.client.store.StoreBusyException;
+import com.client.client.store.VersionConflictException;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/") // Base URL for the controller
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET) // The reactive mode serves the same API from BookRoutes
 public class BookController {
 
-    private final ObjectMapper objectMapper; // ObjectMapper for JSON serialization/deserialization
+    private static final int MAX_TEXT_RESULTS = 1000; // Upper bound on the limit of a free-text search
+    // Refusal of a write shaped like the positional calls that /{id} replaced
+    static final String POSITIONS_MOVED = "Books are addressed by id: send the book's version to delete it and its id "
+            + "to update it, or address it by position under /index/{index}";
+    static final int MAX_CHANGES = 1000; // Upper bound on the changes returned at once
+    static final int MAX_CHANGE_WAIT_SECONDS = 25; // Below the 30 second timeout of asynchronous requests
 
-    // Constructor for dependency injection of ObjectMapper
-    public BookController(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    private final BookStore bookStore; // Resident in-memory catalog
+    private final BookSearchIndex searchIndex; // Exact-match secondary indexes over the catalog
+    private final BookTextIndex textIndex; // Full-text index for partial and misspelled queries
+    private final BookPager pager; // Cursor and offset pagination over the catalog
+    private final BookStreamWriter streamWriter; // Writes books without materializing the full list
+    private final BookImportReader importReader; // Reads bulk imports batch by batch
+    private final CatalogETag catalogETag; // Lets callers revalidate cached reads cheaply
+    private final BookChangeFeed changeFeed; // Recent changes, for callers that keep copies of books
+
+    // Constructor for dependency injection of the BookStore, its indexes and the request and response codecs
+    public BookController(BookStore bookStore, BookSearchIndex searchIndex, BookTextIndex textIndex,
+                          BookPager pager, BookStreamWriter streamWriter, BookImportReader importReader,
+                          CatalogETag catalogETag, BookChangeFeed changeFeed) {
+        this.bookStore = bookStore;
+        this.searchIndex = searchIndex;
+        this.textIndex = textIndex;
+        this.pager = pager;
+        this.streamWriter = streamWriter;
+        this.importReader = importReader;
+        this.catalogETag = catalogETag;
+        this.changeFeed = changeFeed;
     }
 
     /**
-     * Saves the list of BookDataModel objects to a JSON file.
+     * Handles GET requests to retrieve the list of books.
+     * The JSON array is streamed straight from the store, without copying the catalog.
      *
-     * @param bookData List of books to be saved.
+     * @param request The request, checked against the catalog's entity tag.
+     * @return ResponseEntity streaming the list of BookDataModel objects with HTTP status OK,
+     *         or HTTP status 304 Not Modified if the caller's copy is current.
      */
-    private void saveData(List<BookDataModel> bookData) {
-        try {
-            objectMapper.writeValue(new File("items.json"), bookData); // Write data to items.json
-        } catch (IOException e) {
-            // Log the exception (consider using a logging framework)
-            e.printStackTrace();
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> getBooks(WebRequest request) {
+        if (request.checkNotModified(catalogETag.current())) {
+            return null; // 304 already set; nothing to stream
         }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> streamWriter.writeJsonArray(out, bookStore.inIdOrder()));
     }
 
     /**
-     * Loads the list of BookDataModel objects from a JSON file.
+     * Handles GET requests to stream the catalog as newline-delimited JSON, one book per line.
      *
-     * @return List of books loaded from the file, or an empty list if the file does not exist or an error occurs.
+     * @param request The request, checked against the catalog's entity tag.
+     * @return ResponseEntity streaming the books with HTTP status OK, or HTTP status 304 Not Modified.
      */
-    private List<BookDataModel> loadData() {
-        File file = new File("items.json"); // Define the file to load data from
-        if (!file.exists()) {
-            return new ArrayList<>(); // Return empty list if the file doesn't exist
-        }
-
-        try {
-            return objectMapper.readValue(file, new TypeReference<List<BookDataModel>>() {}); // Read data from items.json
-        } catch (IOException e) {
-            // Log the exception (consider using a logging framework)
-            e.printStackTrace();
-            return new ArrayList<>(); // Return an empty list in case of an error
+    @GetMapping(value = "/stream", produces = BookStreamWriter.APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamBooks(WebRequest request) {
+        if (request.checkNotModified(catalogETag.current())) {
+            return null;
         }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(BookStreamWriter.APPLICATION_NDJSON))
+                .body(out -> streamWriter.writeNdjson(out, bookStore.inIdOrder()));
     }
 
     /**
-     * Handles GET requests to retrieve the list of books.
+     * Handles GET requests for one page of the catalog.
+     * Pass the returned nextCursor as {@code after} to read the following page; {@code offset} is
+     * only used when no cursor is given.
      *
-     * @return ResponseEntity containing the list of BookDataModel objects and HTTP status OK.
+     * @param sort The field to sort by: id, bookName, bookAuthor or publicationName.
+     * @param direction asc or desc.
+     * @param after The cursor returned with the previous page.
+     * @param offset The number of books to skip.
+     * @param limit The maximum number of books on the page.
+     * @param bookName Only include books with this name, ignoring case.
+     * @param bookAuthor Only include books by this author, ignoring case.
+     * @param publicationName Only include books from this publication, ignoring case.
+     * @param request The request, checked against the catalog's entity tag.
+     * @return ResponseEntity containing the BookPage and HTTP status OK, 304 if the caller's copy is
+     *         current, or 400 for an invalid sort or cursor.
      */
-    @GetMapping
-    public ResponseEntity<List<BookDataModel>> getBooks() {
-        List<BookDataModel> bookData = loadData(); // Load the book data
-        return ResponseEntity.ok(bookData); // Return the loaded data with HTTP status 200 OK
+    @GetMapping("/page")
+    public ResponseEntity<BookPage> getPage(@RequestParam(defaultValue = "id") String sort,
+                                            @RequestParam(defaultValue = "asc") String direction,
+                                            @RequestParam(required = false) String after,
+                                            @RequestParam(defaultValue = "0") int offset,
+                                            @RequestParam(defaultValue = "50") int limit,
+                                            @RequestParam(required = false) String bookName,
+                                            @RequestParam(required = false) String bookAuthor,
+                                            @RequestParam(required = false) String publicationName,
+                                            WebRequest request) {
+        if (request.checkNotModified(catalogETag.current())) {
+            return null;
+        }
+        Map<BookSearchIndex.Field, String> filter = criteria(bookName, bookAuthor, publicationName);
+        try {
+            return ResponseEntity.ok(pager.page(sort, direction.equalsIgnoreCase("desc"), after, offset, limit, filter));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build(); // Unknown sort field or malformed cursor
+        }
     }
 
     /**
@@ -76,55 +148,346 @@ public class BookController {
      */
     @PostMapping
     public ResponseEntity<BookDataModel> addBook(@RequestBody BookDataModel bookDetails) {
-        List<BookDataModel> currentData = loadData(); // Load current book data
-        currentData.add(bookDetails); // Add the new book details to the list
-        saveData(currentData); // Save the updated list to the file
-        return ResponseEntity.status(HttpStatus.CREATED).body(bookDetails); // Return the added book with HTTP status 201 Created
+        BookDataModel added = bookStore.add(bookDetails); // Add the new book details under a server-assigned id
+        return ResponseEntity.status(HttpStatus.CREATED).body(added); // Return the added book with HTTP status 201 Created
     }
 
     /**
-     * Handles DELETE requests to remove a book by its index.
+     * Handles POST requests to apply several creates, updates and deletes as one unit.
+     * Either every operation is applied and persisted, or none is. Books may be addressed by
+     * index; indexes refer to the catalog as it was before the batch.
      *
-     * @param index The index of the book to be deleted.
-     * @return ResponseEntity containing a message indicating the result of the deletion and HTTP status.
+     * @param operations The operations, applied in order.
+     * @return ResponseEntity containing, per operation, the created, updated or deleted book and HTTP status OK;
+     *         404 if a book does not exist, 409 on a version conflict, or 400 for an incomplete operation.
      */
-    @DeleteMapping("/{index}")
-    public ResponseEntity<String> deleteBook(@PathVariable int index) {
-        List<BookDataModel> currentBookData = loadData(); // Load current book data
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookDataModel>> applyBatch(@RequestBody List<BookOperation> operations) {
+        try {
+            return ResponseEntity.ok(bookStore.applyBatch(operations));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 
-        // Check if the index is out of bounds
-        if (index < 0 || index >= currentBookData.size()) {
-            return ResponseEntity.badRequest().body("Index out of bounds"); // Return error message if index is invalid
+    /**
+     * Handles POST requests to import a JSON array of books.
+     * The body is parsed as it arrives and committed in batches, each waiting for a single persistence flush.
+     *
+     * @param mode insert to add every book under a new id, or upsert to replace the books whose id is already stored.
+     * @param body The request body.
+     * @return ResponseEntity containing the import counts and HTTP status OK, or 400 if the mode or body is invalid.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BookImportResult> importJson(@RequestParam(defaultValue = "insert") String mode, InputStream body) {
+        return importBooks(mode, sink -> importReader.readJsonArray(body, sink));
+    }
+
+    /**
+     * Handles POST requests to import books as CSV with a header row naming the columns
+     * (id, version, bookName, bookAuthor, publicationName; only the names are required).
+     * The body is parsed as it arrives and committed in batches, each waiting for a single persistence flush.
+     *
+     * @param mode insert to add every book under a new id, or upsert to replace the books whose id is already stored.
+     * @param body The request body.
+     * @return ResponseEntity containing the import counts and HTTP status OK, or 400 if the mode or body is invalid.
+     */
+    @PostMapping(value = "/bulk", consumes = BookImportReader.TEXT_CSV)
+    public ResponseEntity<BookImportResult> importCsv(@RequestParam(defaultValue = "insert") String mode, InputStream body) {
+        return importBooks(mode, sink -> importReader.readCsv(body, sink));
+    }
+
+    /**
+     * Handles GET requests to export the whole catalog, streamed from the store.
+     *
+     * @param format json, ndjson or csv; csv can be imported again through POST /bulk.
+     * @param request The request, checked against the catalog's entity tag.
+     * @return ResponseEntity streaming the books with HTTP status OK, 304 if the caller's copy is
+     *         current, or 400 for an unknown format.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBooks(@RequestParam(defaultValue = "json") String format,
+                                                             WebRequest request) {
+        if (request.checkNotModified(catalogETag.current())) {
+            return null;
         }
+        Iterable<BookDataModel> books = bookStore.inIdOrder();
+        return switch (format.toLowerCase(Locale.ROOT)) {
+            case "json" -> ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> streamWriter.writeJsonArray(out, books));
+            case "ndjson" -> ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(BookStreamWriter.APPLICATION_NDJSON))
+                    .body(out -> streamWriter.writeNdjson(out, books));
+            case "csv" -> ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(BookImportReader.TEXT_CSV))
+                    .header("Content-Disposition", "attachment; filename=\"books.csv\"")
+                    .body(out -> streamWriter.writeCsv(out, books));
+            default -> ResponseEntity.badRequest().build();
+        };
+    }
 
-        currentBookData.remove(index); // Remove the book at the specified index
-        saveData(currentBookData); // Save the updated list to the file
-        return ResponseEntity.ok("Deleted book at index: " + index); // Return success message
+    /**
+     * Handles GET requests to find books whose fields equal the given values, ignoring case.
+     * Blank parameters are ignored; with no parameters every book matches.
+     *
+     * @param bookName The book name to match.
+     * @param bookAuthor The author to match.
+     * @param publicationName The publication to match.
+     * @param request The request, checked against the catalog's entity tag.
+     * @return ResponseEntity containing the matching books and HTTP status OK, or HTTP status 304 Not Modified.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<BookDataModel>> searchBooks(@RequestParam(required = false) String bookName,
+                                                           @RequestParam(required = false) String bookAuthor,
+                                                           @RequestParam(required = false) String publicationName,
+                                                           WebRequest request) {
+        if (request.checkNotModified(catalogETag.current())) {
+            return null;
+        }
+        List<Long> ids = searchIndex.search(criteria(bookName, bookAuthor, publicationName));
+        if (ids == null) {
+            return ResponseEntity.ok(bookStore.findAll()); // No criteria given
+        }
+
+        List<BookDataModel> matches = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            BookDataModel book = bookStore.findById(id);
+            if (book != null) { // Skip books removed since the index was read
+                matches.add(book);
+            }
+        }
+        return ResponseEntity.ok(matches);
+    }
+
+    /**
+     * Handles GET requests for free-text search over book names, authors and publications.
+     * Every word of the query has to match; books matching in their name rank above books
+     * matching in their author or publication.
+     *
+     * @param q The text to search for.
+     * @param mode How loosely words may match: exact, prefix, substring or fuzzy (typo-tolerant).
+     * @param limit The maximum number of books to return.
+     * @param request The request, checked against the catalog's entity tag.
+     * @return ResponseEntity containing the best matching books, best first, and HTTP status OK,
+     *         or HTTP status 304 Not Modified.
+     */
+    @GetMapping("/search/text")
+    public ResponseEntity<List<BookDataModel>> searchText(@RequestParam String q,
+                                                          @RequestParam(defaultValue = "fuzzy") String mode,
+                                                          @RequestParam(defaultValue = "20") int limit,
+                                                          WebRequest request) {
+        if (request.checkNotModified(catalogETag.current())) {
+            return null;
+        }
+        BookTextIndex.Mode searchMode;
+        try {
+            searchMode = BookTextIndex.Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build(); // Unknown search mode
+        }
+
+        List<BookTextIndex.Hit> hits = textIndex.search(q, searchMode, Math.min(limit, MAX_TEXT_RESULTS));
+        List<BookDataModel> matches = new ArrayList<>(hits.size());
+        for (BookTextIndex.Hit hit : hits) {
+            BookDataModel book = bookStore.findById(hit.id());
+            if (book != null) { // Skip books removed since the index was read
+                matches.add(book);
+            }
+        }
+        return ResponseEntity.ok(matches);
+    }
+
+    /**
+     * Handles GET requests to follow the catalog's changes, as a long poll.
+     * Start without an epoch to get the current cursor, then pass the returned epoch and cursor
+     * to read the changes after it. A response with reset set means the changes since the
+     * cursor are no longer kept, or the service restarted: reread the books, then continue from
+     * the returned cursor.
+     *
+     * @param epoch The epoch returned with the cursor.
+     * @param after The cursor returned by the previous read.
+     * @param limit The maximum number of changes to return.
+     * @param wait How many seconds to wait for a change if there is none yet.
+     * @return The changes, oldest first, with the cursor to continue from and HTTP status OK.
+     */
+    @GetMapping("/changes")
+    public CompletableFuture<BookChanges> getChanges(@RequestParam(required = false) String epoch,
+                                                     @RequestParam(defaultValue = "0") long after,
+                                                     @RequestParam(defaultValue = "1000") int limit,
+                                                     @RequestParam(defaultValue = "0") int wait) {
+        return changeFeed.read(epoch, after, Math.min(limit, MAX_CHANGES),
+                Duration.ofSeconds(Math.max(0, Math.min(wait, MAX_CHANGE_WAIT_SECONDS))));
+    }
+
+    /**
+     * Handles GET requests to retrieve a single book by its id.
+     *
+     * @param id The id of the book.
+     * @return ResponseEntity containing the BookDataModel, or HTTP status 404 Not Found.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<BookDataModel> getBook(@PathVariable long id) {
+        BookDataModel book = bookStore.findById(id); // O(1) lookup by id
+        if (book == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(book);
     }
 
+    /**
+     * Handles DELETE requests to remove a book by its id.
+     * The version is required: a caller of the old {@code DELETE /{index}} sends none, and is
+     * refused rather than deleting the book whose id happens to equal the position.
+     *
+     * @param id The id of the book to be deleted.
+     * @param version The version the caller last read, or 0 to delete unconditionally.
+     * @return ResponseEntity containing a message indicating the result of the deletion and HTTP status.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<String> deleteBook(@PathVariable long id, @RequestParam(required = false) Long version) {
+        if (version == null) {
+            return ResponseEntity.badRequest().body(POSITIONS_MOVED);
+        }
+        if (bookStore.remove(id, version) == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No book with id: " + id);
+        }
 
+        return ResponseEntity.ok("Deleted book with id: " + id); // Return success message
+    }
 
+    /**
+     * Handles PUT requests to update an existing book by its id.
+     * The update only succeeds if the body's version is still current, or if it is 0. The body
+     * must carry the same id: a caller of the old {@code PUT /{index}} sends none, and is refused
+     * rather than replacing the book whose id happens to equal the position.
+     *
+     * @param id The id of the book to be updated.
+     * @param updatedBook The updated book details provided in the request body.
+     * @return ResponseEntity containing the updated BookDataModel and HTTP status.
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<?> updateBook(@PathVariable long id, @RequestBody BookDataModel updatedBook) {
+        if (updatedBook.id == null || updatedBook.id != id) {
+            return ResponseEntity.badRequest().body(POSITIONS_MOVED);
+        }
+        BookDataModel stored = bookStore.update(id, updatedBook);
+        if (stored == null) {
+            return ResponseEntity.notFound().build();
+        }
 
+        return ResponseEntity.ok(stored); // Return the updated book with HTTP status 200 OK
+    }
 
     /**
-     * Handles PUT requests to update an existing book by its index.
+     * Compatibility endpoint: removes the book currently at the given position.
+     * Positions shift as books are removed, so clients should delete by id instead.
+     *
+     * @param index The index of the book to be deleted.
+     * @return ResponseEntity containing a message indicating the result of the deletion and HTTP status.
+     */
+    @DeleteMapping("/index/{index}")
+    public ResponseEntity<String> deleteBookAt(@PathVariable int index) {
+        Long id = bookStore.findIdAt(index);
+        // Check if the index is out of bounds
+        if (id == null || bookStore.remove(id) == null) {
+            return ResponseEntity.badRequest().body("Index out of bounds"); // Return error message if index is invalid
+        }
+
+        return ResponseEntity.ok("Deleted book at index: " + index); // Return success message
+    }
+
+    /**
+     * Compatibility endpoint: replaces the book currently at the given position.
+     * Positions shift as books are removed, so clients should update by id instead.
      *
      * @param index The index of the book to be updated.
      * @param updatedBook The updated book details provided in the request body.
      * @return ResponseEntity containing the updated BookDataModel and HTTP status.
      */
-    @PutMapping("/{index}")
-    public ResponseEntity<BookDataModel> updateBook(@PathVariable int index, @RequestBody BookDataModel updatedBook) {
-        List<BookDataModel> currentBookData = loadData(); // Load current book data
-
+    @PutMapping("/index/{index}")
+    public ResponseEntity<BookDataModel> updateBookAt(@PathVariable int index, @RequestBody BookDataModel updatedBook) {
+        Long id = bookStore.findIdAt(index);
         // Check if the index is out of bounds
-        if (index < 0 || index >= currentBookData.size()) {
+        if (id == null || bookStore.update(id, updatedBook) == null) {
             return ResponseEntity.badRequest().body(null); // Return error message if index is invalid
         }
 
-        // Update the existing book details with the new data
-        currentBookData.set(index, updatedBook); // Replace the book at the specified index
-        saveData(currentBookData); // Save the updated list to the file
         return ResponseEntity.ok(updatedBook); // Return the updated book with HTTP status 200 OK
     }
+
+    @FunctionalInterface
+    private interface BatchSource {
+        void readInto(Consumer<List<BookDataModel>> sink) throws IOException;
+    }
+
+    // Commits each batch as soon as it is read; earlier batches stay committed if the body turns out malformed
+    private ResponseEntity<BookImportResult> importBooks(String mode, BatchSource source) {
+        boolean upsert;
+        switch (mode.toLowerCase(Locale.ROOT)) {
+            case "insert" -> upsert = false;
+            case "upsert" -> upsert = true;
+            default -> {
+                return ResponseEntity.badRequest().body(new BookImportResult(0, 0, "Unknown mode: " + mode));
+            }
+        }
+
+        AtomicLong added = new AtomicLong();
+        AtomicLong updated = new AtomicLong();
+        try {
+            source.readInto(batch -> {
+                if (upsert) {
+                    int replaced = bookStore.upsertAll(batch);
+                    updated.addAndGet(replaced);
+                    added.addAndGet(batch.size() - replaced);
+                } else {
+                    added.addAndGet(bookStore.addAll(batch).size());
+                }
+            });
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(new BookImportResult(added.get(), updated.get(), e.getMessage()));
+        }
+        return ResponseEntity.ok(new BookImportResult(added.get(), updated.get(), null));
+    }
+
+    static Map<BookSearchIndex.Field, String> criteria(String bookName, String bookAuthor, String publicationName) {
+        Map<BookSearchIndex.Field, String> criteria = new EnumMap<>(BookSearchIndex.Field.class);
+        criteria.put(BookSearchIndex.Field.BOOK_NAME, bookName);
+        criteria.put(BookSearchIndex.Field.BOOK_AUTHOR, bookAuthor);
+        criteria.put(BookSearchIndex.Field.PUBLICATION_NAME, publicationName);
+        return criteria;
+    }
+
+    /**
+     * Reports a batch operation naming a book that does not exist.
+     *
+     * @param e The error raised by the store.
+     * @return ResponseEntity containing the reason and HTTP status 404 Not Found.
+     */
+    @ExceptionHandler(NoSuchBookException.class)
+    public ResponseEntity<String> handleNoSuchBook(NoSuchBookException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+
+    /**
+     * Reports a write turned away because too many others are waiting for the store.
+     *
+     * @param e The error raised by the store.
+     * @return ResponseEntity containing the reason and HTTP status 503 Service Unavailable, asking the caller to retry shortly.
+     */
+    @ExceptionHandler(StoreBusyException.class)
+    public ResponseEntity<String> handleStoreBusy(StoreBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").body(e.getMessage());
+    }
+
+    /**
+     * Reports a conditional change that lost a race with another writer.
+     *
+     * @param e The conflict raised by the store.
+     * @return ResponseEntity containing the reason and HTTP status 409 Conflict.
+     */
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<String> handleVersionConflict(VersionConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
 }
@@ -0,0 +1,335 @@
+package com.client.client.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.model.BookImportResult;
+import com.client.client.model.BookOperation;
+import com.client.client.search.BookPager;
+import com.client.client.search.BookSearchIndex;
+import com.client.client.search.BookTextIndex;
+import com.client.client.store.BookChangeFeed;
+import com.client.client.store.BookStore;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking handlers serving the same API as {@link BookController}, for the reactive mode.
+ *
+ * Reads are answered from memory on the event loop. Writes take the store's locks, and wait for
+ * one of its bounded write slots, on the bounded elastic scheduler rather than an event loop;
+ * they return as soon as the change is in memory and respond once the persistence layer reports
+ * it durable, so no thread ever waits on the disk. Catalog streams are emitted on demand: the next books are only read from the
+ * store once the connection has taken the previous ones, so a slow reader costs no memory.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class BookHandler {
+
+    private static final int MAX_TEXT_RESULTS = 1000; // Upper bound on the limit of a free-text search
+    private static final int CHUNK_SIZE = 256; // Books per buffer of a streamed catalog; one buffer per book costs several times more
+
+    private final BookStore bookStore;
+    private final BookSearchIndex searchIndex;
+    private final BookTextIndex textIndex;
+    private final BookPager pager;
+    private final BookStreamWriter streamWriter;
+    private final BookImportReader importReader;
+    private final CatalogETag catalogETag;
+    private final BookChangeFeed changeFeed;
+
+    public BookHandler(BookStore bookStore, BookSearchIndex searchIndex, BookTextIndex textIndex,
+                       BookPager pager, BookStreamWriter streamWriter, BookImportReader importReader,
+                       CatalogETag catalogETag, BookChangeFeed changeFeed) {
+        this.bookStore = bookStore;
+        this.searchIndex = searchIndex;
+        this.textIndex = textIndex;
+        this.pager = pager;
+        this.streamWriter = streamWriter;
+        this.importReader = importReader;
+        this.catalogETag = catalogETag;
+        this.changeFeed = changeFeed;
+    }
+
+    public Mono<ServerResponse> getBooks(ServerRequest request) {
+        return unlessNotModified(request, tag -> ServerResponse.ok().eTag(tag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Flux.concat(
+                        text("["),
+                        chunks(bookStore.inIdOrder(), (out, chunk, first) -> streamWriter.writeJsonValues(out, chunk, !first)),
+                        text("]")), DataBuffer.class));
+    }
+
+    public Mono<ServerResponse> streamBooks(ServerRequest request) {
+        return unlessNotModified(request, tag -> ServerResponse.ok().eTag(tag)
+                .contentType(MediaType.parseMediaType(BookStreamWriter.APPLICATION_NDJSON))
+                .body(chunks(bookStore.inIdOrder(), (out, chunk, first) -> streamWriter.writeNdjson(out, chunk)), DataBuffer.class));
+    }
+
+    public Mono<ServerResponse> getPage(ServerRequest request) {
+        return unlessNotModified(request, tag -> ServerResponse.ok().eTag(tag).bodyValue(pager.page(
+                request.queryParam("sort").orElse("id"),
+                request.queryParam("direction").orElse("asc").equalsIgnoreCase("desc"),
+                request.queryParam("after").orElse(null),
+                intParam(request, "offset", 0),
+                intParam(request, "limit", 50),
+                criteria(request))));
+    }
+
+    public Mono<ServerResponse> addBook(ServerRequest request) {
+        return request.bodyToMono(BookDataModel.class)
+                .flatMap(book -> durable(() -> bookStore.addAsync(book)))
+                .flatMap(added -> ServerResponse.status(HttpStatus.CREATED).bodyValue(added));
+    }
+
+    public Mono<ServerResponse> applyBatch(ServerRequest request) {
+        return request.bodyToMono(new ParameterizedTypeReference<List<BookOperation>>() {})
+                .flatMap(operations -> durable(() -> bookStore.applyBatchAsync(operations)))
+                .flatMap(results -> ServerResponse.ok().bodyValue(results));
+    }
+
+    public Mono<ServerResponse> importJson(ServerRequest request) {
+        return importBooks(request, request.bodyToFlux(BookDataModel.class));
+    }
+
+    /**
+     * Imports CSV line by line. Unlike the servlet mode, quoted values cannot span lines.
+     */
+    public Mono<ServerResponse> importCsv(ServerRequest request) {
+        Flux<BookDataModel> books = request.bodyToFlux(String.class).switchOnFirst((first, lines) -> {
+            if (!first.hasValue()) {
+                return lines.thenMany(Flux.<BookDataModel>empty()); // Empty body, or an error to pass on
+            }
+            ObjectReader rowReader;
+            try {
+                rowReader = importReader.csvRowReader(first.get());
+            } catch (IOException e) {
+                return Flux.error(e);
+            }
+            return lines.skip(1).filter(line -> !line.isBlank()).handle((line, sink) -> {
+                try {
+                    sink.next(rowReader.<BookDataModel>readValue(line));
+                } catch (IOException e) {
+                    sink.error(e);
+                }
+            });
+        });
+        return importBooks(request, books);
+    }
+
+    public Mono<ServerResponse> exportBooks(ServerRequest request) {
+        String format = request.queryParam("format").orElse("json").toLowerCase(Locale.ROOT);
+        Iterable<BookDataModel> books = bookStore.inIdOrder();
+        return switch (format) {
+            case "json" -> getBooks(request);
+            case "ndjson" -> streamBooks(request);
+            case "csv" -> unlessNotModified(request, tag -> ServerResponse.ok().eTag(tag)
+                    .contentType(MediaType.parseMediaType(BookImportReader.TEXT_CSV))
+                    .header("Content-Disposition", "attachment; filename=\"books.csv\"")
+                    .body(chunks(books, streamWriter::writeCsv), DataBuffer.class));
+            default -> ServerResponse.badRequest().build();
+        };
+    }
+
+    public Mono<ServerResponse> searchBooks(ServerRequest request) {
+        return unlessNotModified(request, tag -> {
+            List<Long> ids = searchIndex.search(criteria(request));
+            if (ids == null) {
+                return ServerResponse.ok().eTag(tag).bodyValue(bookStore.findAll()); // No criteria given
+            }
+            List<BookDataModel> matches = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                BookDataModel book = bookStore.findById(id);
+                if (book != null) { // Skip books removed since the index was read
+                    matches.add(book);
+                }
+            }
+            return ServerResponse.ok().eTag(tag).bodyValue(matches);
+        });
+    }
+
+    public Mono<ServerResponse> searchText(ServerRequest request) {
+        String q = request.queryParam("q").orElse(null);
+        if (q == null) {
+            return ServerResponse.badRequest().build();
+        }
+        BookTextIndex.Mode mode = BookTextIndex.Mode.valueOf(request.queryParam("mode").orElse("fuzzy").toUpperCase(Locale.ROOT));
+        int limit = Math.min(intParam(request, "limit", 20), MAX_TEXT_RESULTS);
+        return unlessNotModified(request, tag -> {
+            List<BookTextIndex.Hit> hits = textIndex.search(q, mode, limit);
+            List<BookDataModel> matches = new ArrayList<>(hits.size());
+            for (BookTextIndex.Hit hit : hits) {
+                BookDataModel book = bookStore.findById(hit.id());
+                if (book != null) { // Skip books removed since the index was read
+                    matches.add(book);
+                }
+            }
+            return ServerResponse.ok().eTag(tag).bodyValue(matches);
+        });
+    }
+
+    // Waiting for a change holds no thread; the response is written once the feed completes the read
+    public Mono<ServerResponse> getChanges(ServerRequest request) {
+        int limit = Math.min(intParam(request, "limit", 1000), BookController.MAX_CHANGES);
+        int wait = Math.max(0, Math.min(intParam(request, "wait", 0), BookController.MAX_CHANGE_WAIT_SECONDS));
+        long after = request.queryParam("after").map(Long::parseLong).orElse(0L);
+        return Mono.fromFuture(() -> changeFeed.read(request.queryParam("epoch").orElse(null), after, limit, Duration.ofSeconds(wait)))
+                .flatMap(changes -> ServerResponse.ok().bodyValue(changes));
+    }
+
+    public Mono<ServerResponse> getBook(ServerRequest request) {
+        BookDataModel book = bookStore.findById(Long.parseLong(request.pathVariable("id")));
+        return book != null ? ServerResponse.ok().bodyValue(book) : ServerResponse.notFound().build();
+    }
+
+    public Mono<ServerResponse> deleteBook(ServerRequest request) {
+        long id = Long.parseLong(request.pathVariable("id"));
+        Long version = request.queryParam("version").map(Long::parseLong).orElse(null);
+        if (version == null) {
+            return ServerResponse.badRequest().bodyValue(BookController.POSITIONS_MOVED); // A caller of the old DELETE /{index}
+        }
+        return durable(() -> bookStore.removeAsync(id, version))
+                .flatMap(removed -> ServerResponse.ok().bodyValue("Deleted book with id: " + id))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.status(HttpStatus.NOT_FOUND).bodyValue("No book with id: " + id)));
+    }
+
+    public Mono<ServerResponse> updateBook(ServerRequest request) {
+        long id = Long.parseLong(request.pathVariable("id"));
+        return request.bodyToMono(BookDataModel.class)
+                .flatMap(book -> book.id == null || book.id != id
+                        ? ServerResponse.badRequest().bodyValue(BookController.POSITIONS_MOVED) // A caller of the old PUT /{index}
+                        : durable(() -> bookStore.updateAsync(id, book)).flatMap(stored -> ServerResponse.ok().bodyValue(stored)))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+    }
+
+    public Mono<ServerResponse> deleteBookAt(ServerRequest request) {
+        int index = Integer.parseInt(request.pathVariable("index"));
+        return durable(() -> {
+                    Long id = bookStore.findIdAt(index); // Walks the catalog up to the position, so off the event loop too
+                    return id != null ? bookStore.removeAsync(id, 0) : CompletableFuture.<BookDataModel>completedFuture(null);
+                })
+                .flatMap(book -> ServerResponse.ok().bodyValue("Deleted book at index: " + index))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.badRequest().bodyValue("Index out of bounds")));
+    }
+
+    public Mono<ServerResponse> updateBookAt(ServerRequest request) {
+        int index = Integer.parseInt(request.pathVariable("index"));
+        return request.bodyToMono(BookDataModel.class)
+                .flatMap(book -> durable(() -> {
+                    Long id = bookStore.findIdAt(index);
+                    return id != null ? bookStore.updateAsync(id, book) : CompletableFuture.<BookDataModel>completedFuture(null);
+                }))
+                .flatMap(stored -> ServerResponse.ok().bodyValue(stored))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.badRequest().build()));
+    }
+
+    /**
+     * Answers 304 Not Modified if the caller's copy of the catalog is current, and otherwise builds
+     * the response for the tag read before the body is produced.
+     */
+    private Mono<ServerResponse> unlessNotModified(ServerRequest request, Function<String, Mono<ServerResponse>> response) {
+        String tag = catalogETag.current();
+        return request.checkNotModified(tag).switchIfEmpty(Mono.defer(() -> response.apply(tag)));
+    }
+
+    /**
+     * Applies a store write on the bounded elastic scheduler, as one of the store's bounded number
+     * of pending writes, then waits for it without blocking and resumes off the persistence thread
+     * that completes it so serializing the response never delays the next disk write.
+     */
+    private <T> Mono<T> durable(Supplier<CompletableFuture<T>> write) {
+        return Mono.fromCallable(() -> bookStore.admit(write))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(Mono::fromFuture)
+                .publishOn(Schedulers.parallel());
+    }
+
+    // Commits one batch at a time: the next batch is only read from the body once the previous one is durable
+    private Mono<ServerResponse> importBooks(ServerRequest request, Flux<BookDataModel> books) {
+        String mode = request.queryParam("mode").orElse("insert");
+        boolean upsert;
+        switch (mode.toLowerCase(Locale.ROOT)) {
+            case "insert" -> upsert = false;
+            case "upsert" -> upsert = true;
+            default -> {
+                return ServerResponse.badRequest().bodyValue(new BookImportResult(0, 0, "Unknown mode: " + mode));
+            }
+        }
+
+        AtomicLong added = new AtomicLong();
+        AtomicLong updated = new AtomicLong();
+        return books.buffer(BookImportReader.BATCH_SIZE)
+                .concatMap(batch -> upsert
+                        ? durable(() -> bookStore.upsertAllAsync(batch)).doOnNext(replaced -> {
+                            updated.addAndGet(replaced);
+                            added.addAndGet(batch.size() - replaced);
+                        })
+                        : durable(() -> bookStore.addAllAsync(batch)).doOnNext(stored -> added.addAndGet(stored.size())), 1)
+                .then(Mono.defer(() -> ServerResponse.ok().bodyValue(new BookImportResult(added.get(), updated.get(), null))))
+                .onErrorResume(e -> e instanceof ServerWebInputException || e instanceof IOException,
+                        e -> ServerResponse.badRequest().bodyValue(new BookImportResult(added.get(), updated.get(), e.getMessage())));
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(OutputStream out, List<BookDataModel> chunk, boolean first) throws IOException;
+    }
+
+    /**
+     * Encodes the books a chunk at a time into buffers, pulling each chunk from the store only
+     * when the connection asks for more.
+     */
+    private static Flux<DataBuffer> chunks(Iterable<BookDataModel> books, ChunkWriter writer) {
+        return Flux.fromIterable(books).buffer(CHUNK_SIZE).index().map(chunk -> {
+            DataBuffer buffer = DefaultDataBufferFactory.sharedInstance.allocateBuffer(CHUNK_SIZE * 128);
+            try (OutputStream out = buffer.asOutputStream()) {
+                writer.write(out, chunk.getT2(), chunk.getT1() == 0);
+                return buffer;
+            } catch (IOException | RuntimeException e) {
+                DataBufferUtils.release(buffer);
+                throw new IllegalStateException("Failed to encode books", e);
+            }
+        });
+    }
+
+    private static Mono<DataBuffer> text(String text) {
+        return Mono.fromSupplier(() -> DefaultDataBufferFactory.sharedInstance.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Map<BookSearchIndex.Field, String> criteria(ServerRequest request) {
+        return BookController.criteria(
+                request.queryParam("bookName").orElse(null),
+                request.queryParam("bookAuthor").orElse(null),
+                request.queryParam("publicationName").orElse(null));
+    }
+
+    private static int intParam(ServerRequest request, String name, int defaultValue) {
+        return request.queryParam(name).map(Integer::parseInt).orElse(defaultValue);
+    }
+}
@@ -0,0 +1,121 @@
+package com.client.client.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import com.client.client.model.BookDataModel;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+/**
+ * Reads books from a request body one at a time and hands them on in fixed-size batches,
+ * so an import never holds more than one batch in memory however large the body is.
+ */
+@Component
+public class BookImportReader {
+
+    public static final String TEXT_CSV = "text/csv";
+    public static final int BATCH_SIZE = 1000; // Books per committed batch
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader bookReader;
+    private final ObjectReader csvReader;
+    private final CsvMapper csvMapper = new CsvMapper().enable(CsvParser.Feature.EMPTY_STRING_AS_NULL);
+
+    public BookImportReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.bookReader = objectMapper.readerFor(BookDataModel.class);
+        // Columns are matched by the header row; unknown columns and empty cells are ignored
+        this.csvReader = csvMapper
+                .readerFor(BookDataModel.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Reads a JSON array of books.
+     *
+     * @param in   The request body.
+     * @param sink Receives each full batch, and the final partial one.
+     * @throws IOException If the body is not a JSON array of books or cannot be read.
+     */
+    public void readJsonArray(InputStream in, Consumer<List<BookDataModel>> sink) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected a JSON array of books");
+            }
+            List<BookDataModel> batch = new ArrayList<>(BATCH_SIZE);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                batch.add(bookReader.readValue(parser));
+                batch = handOffIfFull(batch, sink);
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "Expected a book object or the end of the array");
+            }
+            handOff(batch, sink);
+        }
+    }
+
+    /**
+     * Reads CSV with a header row naming the columns, e.g. {@code bookName,bookAuthor,publicationName}.
+     *
+     * @param in   The request body.
+     * @param sink Receives each full batch, and the final partial one.
+     * @throws IOException If the body is not valid CSV or cannot be read.
+     */
+    public void readCsv(InputStream in, Consumer<List<BookDataModel>> sink) throws IOException {
+        try (MappingIterator<BookDataModel> rows = csvReader.readValues(in)) {
+            List<BookDataModel> batch = new ArrayList<>(BATCH_SIZE);
+            while (rows.hasNextValue()) {
+                batch.add(rows.nextValue());
+                batch = handOffIfFull(batch, sink);
+            }
+            handOff(batch, sink);
+        }
+    }
+
+    /**
+     * Builds a reader for single CSV rows, for bodies that arrive one line at a time rather than as a stream.
+     *
+     * @param header The header row naming the columns.
+     * @return A reader that turns each following row into a book.
+     * @throws IOException If the header is not a valid CSV row.
+     */
+    public ObjectReader csvRowReader(String header) throws IOException {
+        String[] columns = csvMapper.readerFor(String[].class).readValue(header);
+        CsvSchema.Builder schema = CsvSchema.builder();
+        for (String column : columns) {
+            schema.addColumn(column.trim());
+        }
+        return csvMapper.readerFor(BookDataModel.class)
+                .with(schema.build())
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    private static List<BookDataModel> handOffIfFull(List<BookDataModel> batch, Consumer<List<BookDataModel>> sink) {
+        if (batch.size() < BATCH_SIZE) {
+            return batch;
+        }
+        sink.accept(batch);
+        return new ArrayList<>(BATCH_SIZE);
+    }
+
+    private static void handOff(List<BookDataModel> batch, Consumer<List<BookDataModel>> sink) {
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.client.client.controller;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.client.client.store.NoSuchBookException;
+import com.client.client.store.StoreBusyException;
+import com.client.client.store.VersionConflictException;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Routes of the reactive mode, enabled with the {@code reactive} profile. They mirror the
+ * mappings of {@link BookController}, including its error statuses.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class BookRoutes {
+
+    /**
+     * Runs the reactive mode on Netty's event loops. Tomcat is on the classpath for the servlet
+     * mode and would otherwise be picked for reactive handlers too.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> bookRouter(BookHandler handler) {
+        return RouterFunctions.route()
+                .GET("/", handler::getBooks)
+                .GET("/stream", handler::streamBooks)
+                .GET("/page", handler::getPage)
+                .GET("/export", handler::exportBooks)
+                .GET("/search", handler::searchBooks)
+                .GET("/search/text", handler::searchText)
+                .GET("/changes", handler::getChanges)
+                .GET("/{id}", handler::getBook)
+                .POST("/", handler::addBook)
+                .POST("/batch", handler::applyBatch)
+                .POST("/bulk", contentType(MediaType.APPLICATION_JSON), handler::importJson)
+                .POST("/bulk", contentType(MediaType.parseMediaType(BookImportReader.TEXT_CSV)), handler::importCsv)
+                .PUT("/{id}", handler::updateBook)
+                .DELETE("/{id}", handler::deleteBook)
+                .PUT("/index/{index}", handler::updateBookAt)
+                .DELETE("/index/{index}", handler::deleteBookAt)
+                .filter(BookRoutes::mapErrors)
+                .build();
+    }
+
+    /**
+     * Maps store and request errors to the statuses {@link BookController}'s handlers use,
+     * including errors thrown before a handler has returned its response.
+     */
+    private static Mono<ServerResponse> mapErrors(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        return Mono.defer(() -> next.handle(request))
+                .onErrorResume(NoSuchBookException.class, e -> ServerResponse.status(HttpStatus.NOT_FOUND).bodyValue(e.getMessage()))
+                .onErrorResume(VersionConflictException.class, e -> ServerResponse.status(HttpStatus.CONFLICT).bodyValue(e.getMessage()))
+                .onErrorResume(StoreBusyException.class, e -> ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header("Retry-After", "1").bodyValue(e.getMessage()))
+                .onErrorResume(IllegalArgumentException.class, e -> ServerResponse.badRequest().build()); // Unknown sort or mode, malformed cursor, id or operation
+    }
+}
@@ -0,0 +1,131 @@
+package com.client.client.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.stereotype.Component;
+
+import com.client.client.model.BookDataModel;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+/**
+ * Writes books to a response one at a time through the Jackson streaming generator,
+ * so the response never needs a materialized list of the catalog.
+ */
+@Component
+public class BookStreamWriter {
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter bookWriter;
+    private final ObjectWriter csvWriter;
+    private final ObjectWriter csvRowWriter; // Same columns without the header, for every chunk but the first
+
+    public BookStreamWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        // Let the generator's buffer decide when to hit the socket instead of flushing after every book
+        this.bookWriter = objectMapper.writerFor(BookDataModel.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        CsvSchema schema = CsvSchema.builder()
+                .addNumberColumn("id")
+                .addNumberColumn("version")
+                .addColumn("bookName")
+                .addColumn("bookAuthor")
+                .addColumn("publicationName")
+                .build()
+                .withHeader();
+        this.csvWriter = new CsvMapper().writerFor(BookDataModel.class).with(schema)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.csvRowWriter = csvWriter.with(schema.withoutHeader());
+    }
+
+    /**
+     * Writes the books as a single JSON array.
+     *
+     * @param out   The response body.
+     * @param books The books to write, consumed lazily.
+     * @throws IOException If writing fails, for example because the client went away.
+     */
+    public void writeJsonArray(OutputStream out, Iterable<BookDataModel> books) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartArray();
+            for (BookDataModel book : books) {
+                bookWriter.writeValue(generator, book);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Writes the books as comma-separated JSON values, so a JSON array can be written in chunks
+     * between its brackets.
+     *
+     * @param out       The buffer holding one chunk of the array.
+     * @param books     The books to write, consumed lazily.
+     * @param continued Whether an earlier chunk of the same array precedes this one.
+     * @throws IOException If writing fails.
+     */
+    public void writeJsonValues(OutputStream out, Iterable<BookDataModel> books, boolean continued) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            boolean separate = continued;
+            for (BookDataModel book : books) {
+                if (separate) {
+                    generator.writeRaw(',');
+                }
+                bookWriter.writeValue(generator, book);
+                separate = true;
+            }
+        }
+    }
+
+    /**
+     * Writes the books as newline-delimited JSON, one book per line.
+     *
+     * @param out   The response body.
+     * @param books The books to write, consumed lazily.
+     * @throws IOException If writing fails, for example because the client went away.
+     */
+    public void writeNdjson(OutputStream out, Iterable<BookDataModel> books) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            for (BookDataModel book : books) {
+                bookWriter.writeValue(generator, book);
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    /**
+     * Writes the books as CSV with a header row, in the column layout bulk imports accept.
+     *
+     * @param out   The response body.
+     * @param books The books to write, consumed lazily.
+     * @throws IOException If writing fails, for example because the client went away.
+     */
+    public void writeCsv(OutputStream out, Iterable<BookDataModel> books) throws IOException {
+        writeCsv(out, books, true);
+    }
+
+    /**
+     * Writes the books as CSV, with or without the header row, so a catalog can be written in chunks.
+     *
+     * @param out    The response body, or the buffer holding one chunk of it.
+     * @param books  The books to write, consumed lazily.
+     * @param header Whether to start with the header row.
+     * @throws IOException If writing fails, for example because the client went away.
+     */
+    public void writeCsv(OutputStream out, Iterable<BookDataModel> books, boolean header) throws IOException {
+        try (SequenceWriter rows = (header ? csvWriter : csvRowWriter).writeValues(out)) {
+            for (BookDataModel book : books) {
+                rows.write(book);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.client.client.controller;
+
+import org.springframework.stereotype.Component;
+
+import com.client.client.store.BookStore;
+
+/**
+ * Entity tag of the whole catalog, shared by every read endpoint: any change to any book changes it.
+ *
+ * Read it before producing a response body, so a body is never older than the tag it is sent
+ * with. The tag counts the store's mutations only once they are applied and indexed, so a write
+ * still in progress cannot be missing from a body sent under a tag that includes it. The tag is weak because it identifies the content rather than its bytes; strong tags
+ * would also stop responses from being compressed.
+ */
+@Component
+public class CatalogETag {
+
+    private final BookStore bookStore;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36); // Tells tags of different runs apart
+
+    public CatalogETag(BookStore bookStore) {
+        this.bookStore = bookStore;
+    }
+
+    /**
+     * @return The tag of the catalog as of now.
+     */
+    public String current() {
+        return "W/\"" + epoch + "-" + bookStore.appliedChanges() + "\"";
+    }
+}
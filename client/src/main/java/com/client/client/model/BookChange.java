@@ -0,0 +1,16 @@
+package com.client.client.model;
+
+/**
+ * One change to the catalog, as published on the change feed.
+ *
+ * @param position Position of the change in the feed; changes are numbered from 1 in the order they were applied.
+ * @param type     The kind of change.
+ * @param id       Id of the affected book.
+ * @param book     The book as added or updated, or null for a deletion.
+ */
+public record BookChange(long position, Type type, long id, BookDataModel book) {
+
+    public enum Type {
+        ADD, UPDATE, DELETE
+    }
+}
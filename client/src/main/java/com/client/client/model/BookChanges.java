@@ -0,0 +1,17 @@
+package com.client.client.model;
+
+import java.util.List;
+
+/**
+ * A read of the change feed.
+ *
+ * @param epoch   Identifies the feed's history, which starts over whenever the service restarts.
+ * @param cursor  Position to pass as {@code after} next time: that of the last change included, or
+ *                of the newest change if none is.
+ * @param reset   True if the changes asked for are no longer kept or belong to another epoch: the
+ *                caller has missed changes, has to reread what it holds and can follow on from
+ *                {@code cursor}.
+ * @param changes The changes, oldest first.
+ */
+public record BookChanges(String epoch, long cursor, boolean reset, List<BookChange> changes) {
+}
@@ -1,13 +1,23 @@
 package com.client.client.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
 /**
  * Represents a book with details such as name, author, and publication.
  */
 public class BookDataModel {
 
-    // Fields to hold the details of the book
+    // Stable identifier assigned by the store when the book is first added
+    public Long id;
+
+    // Incremented by the store on every update; sending it back with a change makes the update conditional
+    public long version;
+
+    // Fields to hold the details of the book; authors and publications repeat, so copies read from JSON or CSV are pooled
     public String bookName;
+    @JsonDeserialize(using = PooledStringDeserializer.class)
     public String bookAuthor;
+    @JsonDeserialize(using = PooledStringDeserializer.class)
     public String publicationName;
 
     /**
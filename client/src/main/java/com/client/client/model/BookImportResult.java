@@ -0,0 +1,12 @@
+package com.client.client.model;
+
+/**
+ * Outcome of a bulk import. Batches are committed as they are read, so a failed import keeps the
+ * books counted here.
+ *
+ * @param added   Number of books added under new ids.
+ * @param updated Number of stored books that were replaced.
+ * @param error   Why the import stopped early, or null if the whole body was imported.
+ */
+public record BookImportResult(long added, long updated, String error) {
+}
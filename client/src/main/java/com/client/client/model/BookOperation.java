@@ -0,0 +1,30 @@
+package com.client.client.model;
+
+import java.util.Locale;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+/**
+ * One step of a batch of changes.
+ *
+ * A book is addressed either by {@code id} or by {@code index}, its position in the catalog.
+ * Positions are resolved against the catalog as it was before the batch, so deleting indexes
+ * 0 and 1 in one batch removes the first two books rather than the first and the third.
+ *
+ * @param op      What to do.
+ * @param id      Id of the book to update or delete.
+ * @param index   Position of the book to update or delete, used when no id is given.
+ * @param version The version the caller last read, or 0 to change the book unconditionally.
+ * @param book    The new book for creates and updates.
+ */
+public record BookOperation(Type op, Long id, Integer index, long version, BookDataModel book) {
+
+    public enum Type {
+        CREATE, UPDATE, DELETE;
+
+        @JsonCreator
+        public static Type of(String value) {
+            return valueOf(value.toUpperCase(Locale.ROOT)); // Accept create as well as CREATE
+        }
+    }
+}
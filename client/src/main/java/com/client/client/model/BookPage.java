@@ -0,0 +1,14 @@
+package com.client.client.model;
+
+import java.util.List;
+
+/**
+ * One page of the book catalog.
+ *
+ * @param items      The books on this page, in the requested order.
+ * @param total      The number of books matching the request across all pages.
+ * @param nextCursor Opaque cursor to pass as {@code after} for the following page, or null on the last page.
+ */
+public record BookPage(List<BookDataModel> items, long total, String nextCursor) {
+
+}
@@ -0,0 +1,51 @@
+package com.client.client.model;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Canonicalizes strings that repeat across many books, such as authors and publications, so
+ * every book carrying the same value shares one String.
+ *
+ * The pool is a fixed-size table of weak references addressed by hash: a value whose slot holds
+ * an equal string gets that string back, anything else takes over the slot. Its size is therefore
+ * bounded, values stay only while some book still uses them, and a collision costs no more than a
+ * duplicate. Values that repeat keep winning their slot back, which is what makes them worth
+ * sharing. Shared values also compare as equal by reference, before any character is looked at.
+ */
+public final class StringPool {
+
+    /** Pool for the fields of {@link BookDataModel} deserialized from JSON or CSV. */
+    public static final StringPool SHARED = new StringPool(1 << 16);
+
+    private final AtomicReferenceArray<WeakReference<String>> slots;
+    private final int mask;
+
+    /**
+     * @param capacity Number of slots, rounded up to a power of two.
+     */
+    public StringPool(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * @param value A string, or null.
+     * @return A pooled string equal to the value, or the value itself, which is pooled from then on.
+     */
+    public String canonicalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        int hash = value.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        WeakReference<String> pooled = slots.get(slot);
+        String existing = pooled != null ? pooled.get() : null;
+        if (value.equals(existing)) {
+            return existing;
+        }
+        slots.set(slot, new WeakReference<>(value)); // Racing writers may each win briefly; the loser is just a duplicate
+        return value;
+    }
+}
@@ -0,0 +1,40 @@
+package com.client.client.replica;
+
+/**
+ * A position in the primary's change feed, which replicas and callers use to say how recent a
+ * copy of the catalog is. Written as {@code epoch:cursor} in the {@link #HEADER} of responses to
+ * writes, and in the {@link #MIN_HEADER} of reads that must see the catalog at least as of then.
+ *
+ * @param epoch  The epoch of the primary's run.
+ * @param cursor The position of a change in that run.
+ */
+public record FeedPosition(String epoch, long cursor) {
+
+    public static final String HEADER = "X-Book-Position";
+    public static final String MIN_HEADER = "X-Book-Min-Position";
+
+    /**
+     * @param value A position as written by {@link #toString()}.
+     * @return The position.
+     * @throws IllegalArgumentException If the value is not a position.
+     */
+    public static FeedPosition parse(String value) {
+        int separator = value.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Malformed position: " + value);
+        }
+        return new FeedPosition(value.substring(0, separator), Long.parseLong(value.substring(separator + 1)));
+    }
+
+    /**
+     * @return Whether this position is in the same run as the other and not before it.
+     */
+    public boolean reaches(FeedPosition other) {
+        return epoch.equals(other.epoch) && cursor >= other.cursor;
+    }
+
+    @Override
+    public String toString() {
+        return epoch + ":" + cursor;
+    }
+}
@@ -0,0 +1,54 @@
+package com.client.client.replica;
+
+import java.io.IOException;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.client.client.store.BookChangeFeed;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Tells the writer on a primary how far the change feed had got once its write was applied, in
+ * the {@link FeedPosition#HEADER} of the response. A caller that later reads from a replica
+ * passes it back so the replica only answers once it has applied the write too.
+ */
+@Component
+@ConditionalOnProperty(prefix = "book-replication", name = "role", havingValue = "primary", matchIfMissing = true)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PositionHeaderFilter extends OncePerRequestFilter {
+
+    private final BookChangeFeed changeFeed;
+
+    public PositionHeaderFilter(BookChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (isRead(request.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        // Held back so the header can follow the write; responses to writes are small
+        ContentCachingResponseWrapper held = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, held);
+            held.setHeader(FeedPosition.HEADER, new FeedPosition(changeFeed.epoch(), changeFeed.cursor()).toString());
+        } finally {
+            held.copyBodyToResponse();
+        }
+    }
+
+    static boolean isRead(String method) {
+        return method.equals("GET") || method.equals("HEAD") || method.equals("OPTIONS");
+    }
+}
@@ -0,0 +1,343 @@
+package com.client.client.replica;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.client.client.model.BookChange;
+import com.client.client.model.BookChanges;
+import com.client.client.model.BookDataModel;
+import com.client.client.store.BookStore;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps a replica's catalog a copy of the primary's by shipping the primary's change log.
+ *
+ * On start, and whenever the primary's change feed says to reset, it notes where the feed stands,
+ * streams the whole catalog and drops the books the primary no longer has. From then on it
+ * long-polls the feed from that position and applies each change under the id and version the
+ * primary gave it; replaying a change the copied catalog already had leaves the book as it is.
+ * The replica is as recent as the position it has applied, and while a poll is waiting the
+ * primary has nothing newer, so reads can be held to a staleness bound or to a position.
+ */
+@Component
+@ConditionalOnProperty(prefix = "book-replication", name = "role", havingValue = "replica")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET) // Routing is a servlet filter
+public class ReplicaFollower {
+
+    /** Instance metadata key every instance registers its {@link ReplicationProperties.Role} under. */
+    public static final String ROLE_METADATA = "book-role";
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaFollower.class);
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final BookStore bookStore;
+    private final ReplicationProperties properties;
+    private final DiscoveryClient discoveryClient;
+    private final String serviceId;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader bookReader;
+    private final HttpClient http;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition advanced = lock.newCondition(); // Signalled whenever the applied position moves
+    private volatile FeedPosition applied; // Null until the first copy is complete
+    private volatile long freshAsOf; // System.nanoTime() the copy was last known to be current
+    private volatile long pollingSince; // When the waiting read of the feed was sent, 0 if none is waiting
+    private Thread follower;
+    private volatile boolean stopped;
+
+    public ReplicaFollower(BookStore bookStore, ReplicationProperties properties, DiscoveryClient discoveryClient,
+                           @Value("${spring.application.name}") String serviceId, ObjectMapper objectMapper) {
+        this.bookStore = bookStore;
+        this.properties = properties;
+        this.discoveryClient = discoveryClient;
+        this.serviceId = serviceId;
+        this.objectMapper = objectMapper;
+        this.bookReader = objectMapper.readerFor(BookDataModel.class);
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+    }
+
+    // Started once the application is up, rather than while the context is still being refreshed
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (follower == null) {
+            follower = new Thread(this::follow, "book-replica-follower");
+            follower.setDaemon(true);
+            follower.start();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        stopped = true;
+        if (follower != null) {
+            follower.interrupt();
+            follower = null;
+        }
+    }
+
+    /**
+     * @return The base URI of the primary: {@code book-replication.primary-url}, or else the
+     *         instance of this service registered as primary.
+     * @throws IllegalStateException If no primary is registered.
+     */
+    public URI primary() {
+        if (properties.getPrimaryUrl() != null && !properties.getPrimaryUrl().isBlank()) {
+            return URI.create(properties.getPrimaryUrl());
+        }
+        for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+            if (ReplicationProperties.Role.PRIMARY.name().equalsIgnoreCase(instance.getMetadata().get(ROLE_METADATA))) {
+                return instance.getUri();
+            }
+        }
+        throw new IllegalStateException("No primary registered for " + serviceId);
+    }
+
+    /**
+     * @return How far behind the primary the copy may be, or null before the first copy is complete.
+     */
+    public Duration staleness() {
+        if (applied == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        long since = pollingSince;
+        if (since != 0) {
+            // The poll returns as soon as the primary has a change, so the copy is current until it overruns its wait
+            return Duration.ofNanos(Math.max(0, now - since - properties.getFollowWait().toNanos()));
+        }
+        return Duration.ofNanos(now - freshAsOf);
+    }
+
+    /**
+     * Waits until the copy includes a position.
+     *
+     * @param position A position in the primary's change feed.
+     * @param timeout  How long to wait.
+     * @return Whether the copy includes it; false at once if it is from another run of the primary
+     *         than the copy.
+     */
+    public boolean awaitPosition(FeedPosition position, Duration timeout) {
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            while (true) {
+                FeedPosition current = applied;
+                if (current == null || !current.epoch().equals(position.epoch())) {
+                    return false;
+                }
+                if (current.reaches(position)) {
+                    return true;
+                }
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = advanced.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void follow() {
+        Duration backoff = MIN_BACKOFF;
+        boolean warned = false;
+        boolean reset = true;
+        while (!stopped) {
+            try {
+                URI primary = primary();
+                if (reset) {
+                    copy(primary);
+                    reset = false;
+                } else {
+                    reset = !poll(primary);
+                }
+                backoff = MIN_BACKOFF;
+                if (warned) {
+                    log.info("Following the primary again");
+                    warned = false;
+                }
+            } catch (IOException | RuntimeException e) {
+                long since = pollingSince;
+                pollingSince = 0;
+                if (stopped) {
+                    return;
+                }
+                if (since != 0 && !warned) {
+                    // The poll would have ended with any change made before it failed, or before it overran its wait
+                    freshAsOf = Math.min(System.nanoTime(), since + properties.getFollowWait().toNanos());
+                }
+                if (!warned) {
+                    log.warn("Cannot follow the primary, retrying: {}", e.toString());
+                    warned = true;
+                } else {
+                    log.debug("Cannot follow the primary", e);
+                }
+                try {
+                    Thread.sleep(backoff.toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoff = backoff.multipliedBy(2).compareTo(MAX_BACKOFF) < 0 ? backoff.multipliedBy(2) : MAX_BACKOFF;
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // Copies the whole catalog, keeping the books already here that are still current
+    private void copy(URI primary) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        BookChanges from = readChanges(primary, null, 0, Duration.ZERO); // Changes from here on are replayed
+        BitSet copied = new BitSet();
+        int count = 0;
+        HttpResponse<InputStream> response = send(primary, "/stream", properties.getRequestTimeout(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            check(response.statusCode(), body);
+            MappingIterator<BookDataModel> books = bookReader.readValues(body);
+            List<BookDataModel> batch = new ArrayList<>();
+            while (books.hasNext()) {
+                BookDataModel book = books.next();
+                copied.set(Math.toIntExact(book.id));
+                BookDataModel held = bookStore.findById(book.id);
+                if (held != null && held.version > book.version) {
+                    bookStore.remove(book.id); // From before the primary lost its latest writes
+                }
+                batch.add(book);
+                if (batch.size() >= properties.getFollowBatch()) {
+                    count += batch.size();
+                    bookStore.adoptAll(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            count += batch.size();
+            bookStore.adoptAll(batch);
+        }
+
+        List<Long> dropped = new ArrayList<>();
+        for (BookDataModel book : bookStore.inIdOrder()) {
+            if (!copied.get(Math.toIntExact(book.id))) {
+                dropped.add(book.id);
+            }
+        }
+        dropped.forEach(bookStore::remove);
+        freshAsOf = started;
+        advance(new FeedPosition(from.epoch(), from.cursor()));
+        log.info("Copied {} books from the primary at {} in {} ms", count, applied, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Reads and applies the primary's next changes, waiting for them if there are none yet.
+     *
+     * @return False if the feed says to copy the catalog again.
+     */
+    private boolean poll(URI primary) throws IOException, InterruptedException {
+        FeedPosition position = applied;
+        pollingSince = System.nanoTime();
+        BookChanges read = readChanges(primary, position.epoch(), position.cursor(), properties.getFollowWait());
+        long received = System.nanoTime();
+        pollingSince = 0;
+        if (read.reset()) {
+            log.info("The primary's change feed was reset, copying its catalog again");
+            return false;
+        }
+        apply(read.changes());
+        if (read.changes().size() < properties.getFollowBatch()) {
+            freshAsOf = received; // Everything the primary had when it answered
+        }
+        advance(new FeedPosition(read.epoch(), read.cursor()));
+        return true;
+    }
+
+    // Adds and updates are adopted in runs, keeping their order with the removals between them
+    private void apply(List<BookChange> changes) {
+        List<BookDataModel> run = new ArrayList<>();
+        for (BookChange change : changes) {
+            if (change.type() == BookChange.Type.DELETE) {
+                bookStore.adoptAll(run);
+                run = new ArrayList<>();
+                bookStore.remove(change.id());
+            } else {
+                run.add(change.book());
+            }
+        }
+        bookStore.adoptAll(run);
+    }
+
+    private void advance(FeedPosition position) {
+        lock.lock();
+        try {
+            applied = position;
+            advanced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private BookChanges readChanges(URI primary, String epoch, long after, Duration wait)
+            throws IOException, InterruptedException {
+        UriComponentsBuilder path = UriComponentsBuilder.fromPath("/changes");
+        if (epoch != null) {
+            path.queryParam("epoch", epoch)
+                    .queryParam("after", after)
+                    .queryParam("limit", properties.getFollowBatch())
+                    .queryParam("wait", wait.toSeconds());
+        }
+        HttpResponse<byte[]> response = send(primary, path.encode().build().toUriString(),
+                wait.plus(properties.getRequestTimeout()), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Primary answered " + response.statusCode() + ": "
+                    + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        return objectMapper.readValue(response.body(), BookChanges.class);
+    }
+
+    private <T> HttpResponse<T> send(URI primary, String pathAndQuery, Duration timeout, HttpResponse.BodyHandler<T> body)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(ReplicaRoutingFilter.resolve(primary, pathAndQuery))
+                .timeout(timeout)
+                .GET()
+                .build();
+        return http.send(request, body);
+    }
+
+    private static void check(int status, InputStream body) throws IOException {
+        if (status / 100 != 2) {
+            throw new IOException("Primary answered " + status + ": " + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
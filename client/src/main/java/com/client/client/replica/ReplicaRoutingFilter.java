@@ -0,0 +1,154 @@
+package com.client.client.replica;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Decides on a replica which requests its copy of the catalog answers and which go to the primary.
+ *
+ * Reads are answered here while the copy is no staler than {@code book-replication.max-staleness}
+ * and, if the read carries {@link FeedPosition#MIN_HEADER}, once the copy has reached that
+ * position; a read that would wait longer than {@code book-replication.read-your-writes-wait}
+ * goes to the primary instead. Writes and the change feed always go to the primary. A write's
+ * response is held until the copy has the write, so the writer's next read here sees it.
+ */
+@Component
+@ConditionalOnProperty(prefix = "book-replication", name = "role", havingValue = "replica")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ReplicaRoutingFilter extends OncePerRequestFilter {
+
+    /** Request headers passed on to the instance that answers; the HTTP client sets the connection's own. */
+    public static final List<String> FORWARDED_REQUEST_HEADERS = List.of("Content-Type", "Accept", "If-None-Match");
+    /** Response headers passed back from the instance that answered. */
+    public static final List<String> FORWARDED_RESPONSE_HEADERS = List.of("Content-Type", "ETag", "Content-Disposition",
+            "Retry-After", FeedPosition.HEADER);
+
+    private final ReplicaFollower follower;
+    private final ReplicationProperties properties;
+    private final HttpClient http;
+
+    public ReplicaRoutingFilter(ReplicaFollower follower, ReplicationProperties properties) {
+        this.follower = follower;
+        this.properties = properties;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/actuator")) {
+            chain.doFilter(request, response); // This instance's own health and metrics
+            return;
+        }
+        boolean read = PositionHeaderFilter.isRead(request.getMethod()) && !path.equals("/changes");
+        FeedPosition wanted;
+        try {
+            String header = request.getHeader(FeedPosition.MIN_HEADER);
+            wanted = header != null ? FeedPosition.parse(header) : null;
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+        if (read && isServable(wanted)) {
+            chain.doFilter(request, response);
+        } else {
+            forward(request, response, path, !read);
+        }
+    }
+
+    private boolean isServable(FeedPosition wanted) {
+        Duration staleness = follower.staleness();
+        if (staleness == null || staleness.compareTo(properties.getMaxStaleness()) > 0) {
+            return false;
+        }
+        return wanted == null || follower.awaitPosition(wanted, properties.getReadYourWritesWait());
+    }
+
+    private void forward(HttpServletRequest request, HttpServletResponse response, String path, boolean write)
+            throws IOException {
+        String pathAndQuery = path + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+        HttpRequest.Builder forwarded;
+        try {
+            forwarded = HttpRequest.newBuilder(resolve(follower.primary(), pathAndQuery))
+                    .timeout(properties.getRequestTimeout().plus(properties.getFollowWait()))
+                    .method(request.getMethod(), write
+                            ? HttpRequest.BodyPublishers.ofInputStream(() -> body(request)) // Streamed, for bulk imports
+                            : HttpRequest.BodyPublishers.noBody());
+        } catch (IllegalStateException e) {
+            unavailable(response, e.getMessage());
+            return;
+        }
+        for (String name : FORWARDED_REQUEST_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                forwarded.header(name, value);
+            }
+        }
+
+        HttpResponse<InputStream> answer;
+        try {
+            answer = http.send(forwarded.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            unavailable(response, "Primary unreachable: " + e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unavailable(response, "Interrupted");
+            return;
+        }
+
+        try (InputStream body = answer.body()) {
+            String position = answer.headers().firstValue(FeedPosition.HEADER).orElse(null);
+            if (write && position != null) {
+                follower.awaitPosition(FeedPosition.parse(position), properties.getReadYourWritesWait());
+            }
+            response.setStatus(answer.statusCode());
+            for (String name : FORWARDED_RESPONSE_HEADERS) {
+                answer.headers().firstValue(name).ifPresent(value -> response.setHeader(name, value));
+            }
+            body.transferTo(response.getOutputStream()); // Streamed, for exports
+        }
+    }
+
+    private static InputStream body(HttpServletRequest request) {
+        try {
+            return request.getInputStream();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void unavailable(HttpServletResponse response, String message) throws IOException {
+        response.setHeader("Retry-After", "1");
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), message);
+    }
+
+    /**
+     * @return The URI of a path on an instance, given its base URI.
+     */
+    static URI resolve(URI base, String pathAndQuery) {
+        String root = base.toString();
+        return URI.create((root.endsWith("/") ? root.substring(0, root.length() - 1) : root) + pathAndQuery);
+    }
+}
@@ -0,0 +1,97 @@
+package com.client.client.replica;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for serving reads from replicas that copy a primary's catalog, bound from the
+ * {@code book-replication.*} properties.
+ */
+@ConfigurationProperties(prefix = "book-replication")
+public class ReplicationProperties {
+
+    public enum Role {
+        /** Own the catalog: persist it, take writes and publish the changes. */
+        PRIMARY,
+        /** Keep an in-memory copy of the primary's catalog, serve reads from it and pass writes on. */
+        REPLICA
+    }
+
+    // What this instance is; every instance registers its role with service discovery
+    private Role role = Role.PRIMARY;
+
+    // Base URL of the primary; when unset, a replica looks for the instance of its service registered as primary
+    private String primaryUrl;
+
+    // Oldest state a replica serves reads from; older than that, it passes them on to the primary
+    private Duration maxStaleness = Duration.ofSeconds(5);
+
+    // How long a read asking for a later catalog than a replica has waits for it before going to the primary instead
+    private Duration readYourWritesWait = Duration.ofSeconds(1);
+
+    // How long one read of the primary's change feed waits for a change
+    private Duration followWait = Duration.ofSeconds(20);
+
+    // Changes read from the primary at once
+    private int followBatch = 1000;
+
+    // How long a request passed on to the primary may take, besides a read of its change feed
+    private Duration requestTimeout = Duration.ofSeconds(30);
+
+    public Role getRole() {
+        return role;
+    }
+
+    public void setRole(Role role) {
+        this.role = role;
+    }
+
+    public String getPrimaryUrl() {
+        return primaryUrl;
+    }
+
+    public void setPrimaryUrl(String primaryUrl) {
+        this.primaryUrl = primaryUrl;
+    }
+
+    public Duration getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    public void setMaxStaleness(Duration maxStaleness) {
+        this.maxStaleness = maxStaleness;
+    }
+
+    public Duration getReadYourWritesWait() {
+        return readYourWritesWait;
+    }
+
+    public void setReadYourWritesWait(Duration readYourWritesWait) {
+        this.readYourWritesWait = readYourWritesWait;
+    }
+
+    public Duration getFollowWait() {
+        return followWait;
+    }
+
+    public void setFollowWait(Duration followWait) {
+        this.followWait = followWait;
+    }
+
+    public int getFollowBatch() {
+        return followBatch;
+    }
+
+    public void setFollowBatch(int followBatch) {
+        this.followBatch = followBatch;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public void setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+}
@@ -0,0 +1,205 @@
+package com.client.client.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import org.springframework.stereotype.Component;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.model.BookPage;
+import com.client.client.store.BookStore;
+
+/**
+ * Serves the catalog one page at a time, in id order or sorted by a field, optionally filtered.
+ *
+ * Unfiltered pages are read straight off the store's id-ordered map or a {@link BookSortIndex}, so
+ * a page costs O(log n + limit) with a cursor and O(offset + limit) with an offset, and never
+ * copies or sorts the whole catalog. Filtered pages start from the {@link BookSearchIndex} matches
+ * and only ever sort those. Without a sort index, an unfiltered page in field order is picked in
+ * one pass over the catalog that holds no more books than the page and the books it skips.
+ */
+@Component
+public class BookPager {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final Map<String, BookSearchIndex.Field> SORT_FIELDS = Map.of(
+            "bookName", BookSearchIndex.Field.BOOK_NAME,
+            "bookAuthor", BookSearchIndex.Field.BOOK_AUTHOR,
+            "publicationName", BookSearchIndex.Field.PUBLICATION_NAME);
+
+    private final BookStore bookStore;
+    private final BookSearchIndex searchIndex;
+    private final BookSortIndex sortIndex;
+
+    public BookPager(BookStore bookStore, BookSearchIndex searchIndex, BookSortIndex sortIndex) {
+        this.bookStore = bookStore;
+        this.searchIndex = searchIndex;
+        this.sortIndex = sortIndex;
+    }
+
+    /**
+     * Reads one page.
+     *
+     * @param sort       "id", "bookName", "bookAuthor" or "publicationName".
+     * @param descending Whether to sort from the largest value down.
+     * @param after      Cursor returned with the previous page, or null.
+     * @param offset     Number of books to skip; ignored when a cursor is given.
+     * @param limit      Maximum number of books on the page, capped at {@link #MAX_PAGE_SIZE}.
+     * @param filter     Exact, case-insensitive values the books must have per field; blank values are ignored.
+     * @return The page; its total counts the books matching the filter.
+     * @throws IllegalArgumentException If the sort field or cursor is invalid.
+     */
+    public BookPage page(String sort, boolean descending, String after, int offset, int limit,
+                         Map<BookSearchIndex.Field, String> filter) {
+        BookSearchIndex.Field field = sortField(sort);
+        BookSortIndex.SortKey cursor = after == null || after.isBlank() ? null : BookSortIndex.SortKey.fromCursor(after);
+        int pageSize = Math.max(0, Math.min(limit, MAX_PAGE_SIZE));
+
+        List<Long> matchingIds = searchIndex.search(filter);
+        long total = matchingIds == null ? bookStore.size() : matchingIds.size();
+        Iterator<BookDataModel> books;
+        if (matchingIds != null) {
+            books = filtered(matchingIds, field, descending, cursor);
+        } else if (field == null) {
+            books = byId(descending, cursor);
+        } else if (sortIndex.isBuilt()) {
+            books = byField(field, descending, cursor);
+        } else {
+            books = scanned(field, descending, cursor, (cursor == null ? offset : 0) + pageSize + 1);
+        }
+        for (int skipped = 0; cursor == null && skipped < offset && books.hasNext(); skipped++) {
+            books.next();
+        }
+
+        List<BookDataModel> items = new ArrayList<>(pageSize);
+        while (items.size() < pageSize && books.hasNext()) {
+            items.add(books.next());
+        }
+
+        String nextCursor = null;
+        if (!items.isEmpty() && books.hasNext()) {
+            BookDataModel last = items.get(items.size() - 1);
+            nextCursor = (field == null ? new BookSortIndex.SortKey("", last.id) : BookSortIndex.keyOf(field, last)).toCursor();
+        }
+        return new BookPage(items, total, nextCursor);
+    }
+
+    /**
+     * Same as {@link #page(String, boolean, String, int, int, Map)} without a filter.
+     */
+    public BookPage page(String sort, boolean descending, String after, int offset, int limit) {
+        return page(sort, descending, after, offset, limit, Map.of());
+    }
+
+    private Iterator<BookDataModel> filtered(List<Long> ids, BookSearchIndex.Field field, boolean descending,
+                                             BookSortIndex.SortKey cursor) {
+        Comparator<BookSortIndex.SortKey> order = field == null
+                ? Comparator.comparingLong(BookSortIndex.SortKey::id)
+                : BookSortIndex.SortKey.ORDER;
+        if (descending) {
+            order = order.reversed();
+        }
+
+        // Only the matches are sorted, never the whole catalog
+        List<BookSortIndex.SortKey> keys = new ArrayList<>(ids.size());
+        Map<Long, BookDataModel> books = new HashMap<>();
+        for (Long id : ids) {
+            BookDataModel book = bookStore.findById(id);
+            if (book != null) { // Skip books removed since the index was read
+                keys.add(field == null ? new BookSortIndex.SortKey("", id) : BookSortIndex.keyOf(field, book));
+                books.put(id, book);
+            }
+        }
+        keys.sort(order);
+
+        int start = 0;
+        if (cursor != null) {
+            int position = Collections.binarySearch(keys, cursor, order);
+            start = position >= 0 ? position + 1 : -position - 1;
+        }
+        return keys.subList(start, keys.size()).stream().map(key -> books.get(key.id())).iterator();
+    }
+
+    // The first books in field order past the cursor, at most count of them, from a scan of the catalog
+    private Iterator<BookDataModel> scanned(BookSearchIndex.Field field, boolean descending, BookSortIndex.SortKey cursor,
+                                            int count) {
+        Comparator<BookSortIndex.SortKey> order = descending ? BookSortIndex.SortKey.ORDER.reversed() : BookSortIndex.SortKey.ORDER;
+        Comparator<Map.Entry<BookSortIndex.SortKey, BookDataModel>> byKey = Map.Entry.comparingByKey(order);
+        PriorityQueue<Map.Entry<BookSortIndex.SortKey, BookDataModel>> first = new PriorityQueue<>(byKey.reversed()); // Last kept on top
+        for (BookDataModel book : bookStore.inIdOrder()) {
+            BookSortIndex.SortKey key = BookSortIndex.keyOf(field, book);
+            if (cursor != null && order.compare(key, cursor) <= 0) {
+                continue;
+            }
+            if (first.size() < count) {
+                first.add(Map.entry(key, book));
+            } else if (order.compare(key, first.peek().getKey()) < 0) {
+                first.poll();
+                first.add(Map.entry(key, book));
+            }
+        }
+        List<Map.Entry<BookSortIndex.SortKey, BookDataModel>> page = new ArrayList<>(first);
+        page.sort(byKey);
+        return page.stream().map(Map.Entry::getValue).iterator();
+    }
+
+    private Iterator<BookDataModel> byId(boolean descending, BookSortIndex.SortKey cursor) {
+        return bookStore.iterate(descending, cursor == null ? null : cursor.id());
+    }
+
+    private Iterator<BookDataModel> byField(BookSearchIndex.Field field, boolean descending, BookSortIndex.SortKey cursor) {
+        Iterator<BookSortIndex.SortKey> keys = sortIndex.iterate(field, descending, cursor);
+        return new Iterator<>() {
+            private BookDataModel next = advance();
+
+            private BookDataModel advance() {
+                while (keys.hasNext()) {
+                    BookDataModel book = bookStore.findById(keys.next().id());
+                    if (book != null) { // Skip books removed since the key was read
+                        return book;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public BookDataModel next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                BookDataModel current = next;
+                next = advance();
+                return current;
+            }
+        };
+    }
+
+    /**
+     * @param sort "id", "bookName", "bookAuthor" or "publicationName"; blank means id.
+     * @return The field to sort by, or null for id order.
+     * @throws IllegalArgumentException If the sort field is unknown.
+     */
+    public static BookSearchIndex.Field sortField(String sort) {
+        if (sort == null || sort.isBlank() || sort.equals("id")) {
+            return null;
+        }
+        BookSearchIndex.Field field = SORT_FIELDS.get(sort);
+        if (field == null) {
+            throw new IllegalArgumentException("Unknown sort field: " + sort);
+        }
+        return field;
+    }
+}
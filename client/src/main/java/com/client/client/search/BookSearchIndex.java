@@ -0,0 +1,193 @@
+package com.client.client.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.store.BookStoreListener;
+import com.client.client.store.BookStoreProperties;
+
+/**
+ * Case-folded hash indexes over {@code bookName}, {@code bookAuthor} and {@code publicationName}.
+ *
+ * Each index maps a folded field value to the ids of the books carrying it. An exact-match query
+ * looks up one posting set per given field and intersects them starting from the smallest, so its
+ * cost depends on the size of the result rather than the size of the catalog.
+ *
+ * Where the store is told not to keep indexes, this one stays empty and a query scans the
+ * catalog instead, holding only the matching ids.
+ */
+@Component
+public class BookSearchIndex implements BookStoreListener {
+
+    public enum Field {
+        BOOK_NAME(book -> book.bookName, false),
+        BOOK_AUTHOR(book -> book.bookAuthor, true),
+        PUBLICATION_NAME(book -> book.publicationName, true);
+
+        private final Function<BookDataModel, String> accessor;
+        private final boolean repeats; // Whether many books share a value, making it worth pooling
+
+        Field(Function<BookDataModel, String> accessor, boolean repeats) {
+            this.accessor = accessor;
+            this.repeats = repeats;
+        }
+
+        public String valueOf(BookDataModel book) {
+            return accessor.apply(book);
+        }
+
+        public boolean repeats() {
+            return repeats;
+        }
+    }
+
+    private final Map<Field, ConcurrentHashMap<String, Set<Long>>> indexes = new EnumMap<>(Field.class);
+    private final BookStoreProperties properties;
+    private volatile boolean built = true; // Decided once the catalog is loaded
+    private volatile Collection<BookDataModel> catalog = List.of(); // Scanned instead while not built
+
+    public BookSearchIndex() {
+        this(new BookStoreProperties());
+    }
+
+    @Autowired
+    public BookSearchIndex(BookStoreProperties properties) {
+        this.properties = properties;
+        for (Field field : Field.values()) {
+            indexes.put(field, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * @return Whether the index is kept; otherwise searches scan the catalog.
+     */
+    public boolean isBuilt() {
+        return built;
+    }
+
+    /**
+     * Normalizes a value the way the indexes compare it: trimmed and lower-cased.
+     *
+     * @param value The raw value.
+     * @return The folded value, or null for a null value.
+     */
+    public static String fold(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Finds the ids of books whose fields equal all given values, ignoring case.
+     *
+     * @param criteria The value to match per field; blank values are ignored.
+     * @return The matching ids, or null if no criterion was given.
+     */
+    public List<Long> search(Map<Field, String> criteria) {
+        Map<Field, String> folded = new EnumMap<>(Field.class);
+        criteria.forEach((field, value) -> {
+            if (value != null && !value.isBlank()) {
+                folded.put(field, fold(value));
+            }
+        });
+        if (folded.isEmpty()) {
+            return null;
+        }
+        if (!built) {
+            return scan(folded);
+        }
+
+        List<Set<Long>> postings = new ArrayList<>();
+        for (Map.Entry<Field, String> criterion : folded.entrySet()) {
+            Set<Long> ids = indexes.get(criterion.getKey()).get(criterion.getValue());
+            if (ids == null) {
+                return List.of(); // One field has no match at all, so neither does the conjunction
+            }
+            postings.add(ids);
+        }
+
+        // Walk the smallest posting set and probe the others
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<Long> smallest = postings.get(0);
+        List<Set<Long>> others = postings.subList(1, postings.size());
+        List<Long> matches = new ArrayList<>();
+        for (Long id : smallest) {
+            if (others.stream().allMatch(ids -> ids.contains(id))) {
+                matches.add(id);
+            }
+        }
+        matches.sort(null); // Same order as the catalog
+        return matches;
+    }
+
+    // One pass over the catalog, which it walks in id order
+    private List<Long> scan(Map<Field, String> folded) {
+        List<Long> matches = new ArrayList<>();
+        for (BookDataModel book : catalog) {
+            if (folded.entrySet().stream().allMatch(criterion -> criterion.getValue().equals(fold(criterion.getKey().valueOf(book))))) {
+                matches.add(book.id);
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public void catalogLoaded(Collection<BookDataModel> books) {
+        indexes.values().forEach(Map::clear);
+        catalog = books;
+        built = properties.keepsIndexes();
+        if (built) {
+            books.forEach(this::bookAdded);
+        }
+    }
+
+    @Override
+    public void bookAdded(BookDataModel book) {
+        if (!built) {
+            return;
+        }
+        for (Field field : Field.values()) {
+            String key = fold(field.valueOf(book));
+            if (key != null) {
+                indexes.get(field).compute(key, (k, ids) -> {
+                    Set<Long> result = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                    result.add(book.id);
+                    return result;
+                });
+            }
+        }
+    }
+
+    @Override
+    public void bookUpdated(BookDataModel previous, BookDataModel current) {
+        bookRemoved(previous);
+        bookAdded(current);
+    }
+
+    @Override
+    public void bookRemoved(BookDataModel book) {
+        if (!built) {
+            return;
+        }
+        for (Field field : Field.values()) {
+            String key = fold(field.valueOf(book));
+            if (key != null) {
+                // Drop the posting set once empty, atomically with respect to concurrent adds of the same value
+                indexes.get(field).computeIfPresent(key, (k, ids) -> {
+                    ids.remove(book.id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+}
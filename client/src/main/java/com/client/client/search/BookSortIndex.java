@@ -0,0 +1,155 @@
+package com.client.client.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.model.StringPool;
+import com.client.client.store.BookStoreListener;
+import com.client.client.store.BookStoreProperties;
+
+/**
+ * Sorted indexes over {@code bookName}, {@code bookAuthor} and {@code publicationName}.
+ *
+ * Each index is a skip list of (folded value, id) keys, so a page in field order is a range scan
+ * starting at the previous page's last key, with no sorting and no copy of the catalog. Where the
+ * store is told not to keep indexes, these stay empty and {@link BookPager} scans for each page.
+ */
+@Component
+public class BookSortIndex implements BookStoreListener {
+
+    /**
+     * Position of a book in a field's sort order. Ties on the value are broken by id.
+     */
+    public record SortKey(String value, long id) {
+
+        // Written out rather than composed from key extractors: it runs on every skip list step of every index update
+        public static final Comparator<SortKey> ORDER = (a, b) -> {
+            int byValue = a.value.compareTo(b.value);
+            return byValue != 0 ? byValue : Long.compare(a.id, b.id);
+        };
+
+        /**
+         * @return An opaque, URL-safe cursor for this key.
+         */
+        public String toCursor() {
+            String raw = id + ":" + value;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @param cursor A cursor produced by {@link #toCursor()}.
+         * @return The key it encodes.
+         * @throws IllegalArgumentException If the cursor is malformed.
+         */
+        public static SortKey fromCursor(String cursor) {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new SortKey(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+        }
+    }
+
+    // Folded values of the repeating fields; apart from StringPool.SHARED, whose values they would keep evicting
+    private static final StringPool FOLDED_VALUES = new StringPool(1 << 16);
+
+    private final Map<BookSearchIndex.Field, ConcurrentSkipListSet<SortKey>> indexes = new EnumMap<>(BookSearchIndex.Field.class);
+    private final BookStoreProperties properties;
+    private volatile boolean built = true; // Decided once the catalog is loaded
+
+    public BookSortIndex() {
+        this(new BookStoreProperties());
+    }
+
+    @Autowired
+    public BookSortIndex(BookStoreProperties properties) {
+        this.properties = properties;
+        for (BookSearchIndex.Field field : BookSearchIndex.Field.values()) {
+            indexes.put(field, new ConcurrentSkipListSet<>(SortKey.ORDER));
+        }
+    }
+
+    /**
+     * @return Whether the index is kept; {@link #iterate} is only available if so.
+     */
+    public boolean isBuilt() {
+        return built;
+    }
+
+    /**
+     * Iterates keys in field order, starting just past a cursor.
+     *
+     * @param field      The field to sort by.
+     * @param descending Whether to walk from the largest value down.
+     * @param after      The last key of the previous page, or null to start at the beginning.
+     * @return The keys following {@code after}, lazily.
+     * @throws IllegalStateException If the index is not kept.
+     */
+    public Iterator<SortKey> iterate(BookSearchIndex.Field field, boolean descending, SortKey after) {
+        if (!built) {
+            throw new IllegalStateException("Sort indexes are not kept");
+        }
+        NavigableSet<SortKey> keys = indexes.get(field);
+        if (descending) {
+            keys = keys.descendingSet();
+        }
+        return (after == null ? keys : keys.tailSet(after, false)).iterator();
+    }
+
+    /**
+     * @param field The field the key is for.
+     * @param book  The book.
+     * @return The book's key in that field's index, for looking it up or comparing; not pooled.
+     */
+    public static SortKey keyOf(BookSearchIndex.Field field, BookDataModel book) {
+        String value = BookSearchIndex.fold(field.valueOf(book));
+        return new SortKey(value == null ? "" : value, book.id);
+    }
+
+    // The key stored in the index, sharing its folded value with other books' keys where values repeat
+    private static SortKey storedKeyOf(BookSearchIndex.Field field, BookDataModel book) {
+        SortKey key = keyOf(field, book);
+        return field.repeats() ? new SortKey(FOLDED_VALUES.canonicalize(key.value()), key.id()) : key; // Folding copies the book's pooled value
+    }
+
+    @Override
+    public void catalogLoaded(Collection<BookDataModel> books) {
+        indexes.values().forEach(ConcurrentSkipListSet::clear);
+        built = properties.keepsIndexes();
+        if (built) {
+            books.forEach(this::bookAdded);
+        }
+    }
+
+    @Override
+    public void bookAdded(BookDataModel book) {
+        if (built) {
+            indexes.forEach((field, keys) -> keys.add(storedKeyOf(field, book)));
+        }
+    }
+
+    @Override
+    public void bookUpdated(BookDataModel previous, BookDataModel current) {
+        bookRemoved(previous);
+        bookAdded(current);
+    }
+
+    @Override
+    public void bookRemoved(BookDataModel book) {
+        if (built) {
+            indexes.forEach((field, keys) -> keys.remove(keyOf(field, book)));
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.client.client.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.store.BookStoreListener;
+import com.client.client.store.BookStoreProperties;
+
+/**
+ * Inverted full-text index over {@code bookName}, {@code bookAuthor} and {@code publicationName}.
+ *
+ * Field values are split into lower-cased terms. Each term maps to the books containing it, along
+ * with a bit mask of the fields it occurs in. Two smaller structures sit over the term dictionary:
+ * a sorted map answers prefix queries with a range scan, and a trigram index finds the terms that
+ * contain a substring or lie within a few typos of a query term. Queries therefore touch matching
+ * terms and their books, never the whole catalog, and every change updates only the terms of the
+ * affected book.
+ *
+ * Where the store is told not to keep indexes, none of this is built. A query then scores every
+ * book in one pass over the catalog, the same way the index would, and holds only the best hits.
+ */
+@Component
+public class BookTextIndex implements BookStoreListener {
+
+    public enum Mode {
+        /** Terms equal to a query term. */
+        EXACT,
+        /** Terms starting with a query term. */
+        PREFIX,
+        /** Terms containing a query term. */
+        SUBSTRING,
+        /** All of the above, plus terms within a small edit distance of a query term. */
+        FUZZY
+    }
+
+    /**
+     * A matching book and its relevance; higher scores rank first.
+     */
+    public record Hit(long id, double score) {
+    }
+
+    private static final Pattern TERM_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int GRAM = 3;
+    private static final Comparator<Hit> RANK = Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::id);
+
+    // Field bits used in the posting masks, and how much a match in each field weighs
+    private static final int NAME = 1;
+    private static final int AUTHOR = 2;
+    private static final int PUBLICATION = 4;
+
+    // term -> (book id -> mask of the fields containing the term)
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Long, Integer>> postings = new ConcurrentHashMap<>();
+    // Sorted view of the term dictionary, for prefix ranges
+    private final ConcurrentSkipListMap<String, Boolean> terms = new ConcurrentSkipListMap<>();
+    // trigram of a padded term -> terms containing it, for substring and fuzzy lookups
+    private final ConcurrentHashMap<String, Set<String>> gramTerms = new ConcurrentHashMap<>();
+    private final BookStoreProperties properties;
+    private volatile boolean built = true; // Decided once the catalog is loaded
+    private volatile Collection<BookDataModel> catalog = List.of(); // Scanned instead while not built
+
+    public BookTextIndex() {
+        this(new BookStoreProperties());
+    }
+
+    @Autowired
+    public BookTextIndex(BookStoreProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @return Whether the index is kept; otherwise searches scan the catalog.
+     */
+    public boolean isBuilt() {
+        return built;
+    }
+
+    /**
+     * Finds books matching every term of the query, ranked by how well and where they match.
+     *
+     * @param query Free text; split into terms the same way the indexed fields are.
+     * @param mode  The loosest kind of term match allowed.
+     * @param limit The maximum number of hits to return.
+     * @return The best hits, highest score first and then by id.
+     */
+    public List<Hit> search(String query, Mode mode, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (!built) {
+            return scan(queryTerms, mode, limit);
+        }
+
+        // Score each query term separately, then keep only books matching all of them
+        List<Map<Long, Double>> perTerm = new ArrayList<>();
+        for (String queryTerm : queryTerms) {
+            Map<Long, Double> scores = scoreTerm(queryTerm, mode);
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+            perTerm.add(scores);
+        }
+        perTerm.sort(Comparator.comparingInt(Map::size));
+
+        List<Hit> hits = new ArrayList<>();
+        for (Map.Entry<Long, Double> candidate : perTerm.get(0).entrySet()) {
+            double score = candidate.getValue();
+            boolean matchesAll = true;
+            for (int i = 1; i < perTerm.size() && matchesAll; i++) {
+                Double other = perTerm.get(i).get(candidate.getKey());
+                matchesAll = other != null;
+                score += matchesAll ? other : 0;
+            }
+            if (matchesAll) {
+                hits.add(new Hit(candidate.getKey(), score));
+            }
+        }
+
+        hits.sort(RANK);
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    // Scores each book as scoreTerm would score it, keeping the best hits in a heap with the worst on top
+    private List<Hit> scan(List<String> queryTerms, Mode mode, int limit) {
+        PriorityQueue<Hit> best = new PriorityQueue<>(RANK.reversed());
+        for (BookDataModel book : catalog) {
+            Map<String, Integer> masks = termMasks(book);
+            double score = 0;
+            for (String queryTerm : queryTerms) {
+                double termScore = 0;
+                for (Map.Entry<String, Integer> term : masks.entrySet()) {
+                    termScore = Math.max(termScore, termScore(queryTerm, term.getKey(), mode) * fieldWeight(term.getValue()));
+                }
+                if (termScore == 0) {
+                    score = 0;
+                    break;
+                }
+                score += termScore;
+            }
+            if (score > 0) {
+                best.add(new Hit(book.id, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(RANK);
+        return hits;
+    }
+
+    @Override
+    public void catalogLoaded(Collection<BookDataModel> books) {
+        postings.clear();
+        terms.clear();
+        gramTerms.clear();
+        catalog = books;
+        built = properties.keepsIndexes();
+        if (built) {
+            books.forEach(this::bookAdded);
+        }
+    }
+
+    @Override
+    public void bookAdded(BookDataModel book) {
+        if (!built) {
+            return;
+        }
+        termMasks(book).forEach((term, mask) -> postings.compute(term, (key, ids) -> {
+            ConcurrentHashMap<Long, Integer> result = ids;
+            if (result == null) {
+                // First book with this term: register it in the dictionaries while the term's bin is locked
+                result = new ConcurrentHashMap<>();
+                terms.put(term, Boolean.TRUE);
+                for (String gram : grams(term)) {
+                    gramTerms.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(term);
+                }
+            }
+            result.merge(book.id, mask, (a, b) -> a | b);
+            return result;
+        }));
+    }
+
+    @Override
+    public void bookUpdated(BookDataModel previous, BookDataModel current) {
+        bookRemoved(previous);
+        bookAdded(current);
+    }
+
+    @Override
+    public void bookRemoved(BookDataModel book) {
+        if (!built) {
+            return;
+        }
+        termMasks(book).forEach((term, mask) -> postings.computeIfPresent(term, (key, ids) -> {
+            ids.computeIfPresent(book.id, (id, existing) -> (existing & ~mask) == 0 ? null : existing & ~mask);
+            if (!ids.isEmpty()) {
+                return ids;
+            }
+            // Last book with this term is gone: drop it from the dictionaries too
+            terms.remove(term);
+            for (String gram : grams(term)) {
+                gramTerms.computeIfPresent(gram, (g, owners) -> {
+                    owners.remove(term);
+                    return owners.isEmpty() ? null : owners;
+                });
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Scores every book containing a term that matches {@code queryTerm} under the given mode.
+     * A book keeps the best score among its matching terms.
+     */
+    private Map<Long, Double> scoreTerm(String queryTerm, Mode mode) {
+        Map<String, Double> matchingTerms = new HashMap<>();
+        if (postings.containsKey(queryTerm)) {
+            matchingTerms.put(queryTerm, 4.0);
+        }
+        if (mode.compareTo(Mode.PREFIX) >= 0) {
+            for (String term : terms.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).keySet()) {
+                matchingTerms.putIfAbsent(term, 3.0);
+            }
+        }
+        if (mode.compareTo(Mode.SUBSTRING) >= 0) {
+            for (String term : termsContaining(queryTerm)) {
+                matchingTerms.putIfAbsent(term, 2.0);
+            }
+        }
+        if (mode == Mode.FUZZY) {
+            int maxEdits = queryTerm.length() <= 4 ? 1 : 2;
+            for (String term : termsNear(queryTerm, maxEdits)) {
+                int distance = editDistance(queryTerm, term, maxEdits);
+                matchingTerms.putIfAbsent(term, 1.0 / (1 + distance));
+            }
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        matchingTerms.forEach((term, termScore) -> {
+            Map<Long, Integer> ids = postings.get(term);
+            if (ids != null) {
+                ids.forEach((id, mask) -> scores.merge(id, termScore * fieldWeight(mask), Math::max));
+            }
+        });
+        return scores;
+    }
+
+    /**
+     * The score a term of a book earns against a query term without the index: what
+     * {@link #scoreTerm} gives the term, or 0 where it would not find it.
+     */
+    private static double termScore(String queryTerm, String term, Mode mode) {
+        if (term.equals(queryTerm)) {
+            return 4.0;
+        }
+        if (mode.compareTo(Mode.PREFIX) >= 0 && term.startsWith(queryTerm)) {
+            return 3.0;
+        }
+        if (mode.compareTo(Mode.SUBSTRING) >= 0 && term.contains(queryTerm)) {
+            return 2.0;
+        }
+        if (mode == Mode.FUZZY) {
+            int maxEdits = queryTerm.length() <= 4 ? 1 : 2;
+            int distance = editDistance(queryTerm, term, maxEdits);
+            if (distance <= maxEdits && sharedGrams(queryTerm, term) >= requiredGrams(queryTerm, maxEdits)) {
+                return 1.0 / (1 + distance);
+            }
+        }
+        return 0;
+    }
+
+    private Set<String> termsContaining(String fragment) {
+        Set<String> result = new HashSet<>();
+        if (fragment.length() < GRAM) {
+            // Too short for the trigram index; the term dictionary is far smaller than the catalog
+            for (String term : terms.keySet()) {
+                if (term.contains(fragment)) {
+                    result.add(term);
+                }
+            }
+            return result;
+        }
+
+        // Candidates must contain every inner trigram of the fragment; verify to rule out false positives
+        List<Set<String>> owners = new ArrayList<>();
+        for (int i = 0; i + GRAM <= fragment.length(); i++) {
+            Set<String> gramOwners = gramTerms.get(fragment.substring(i, i + GRAM));
+            if (gramOwners == null) {
+                return result;
+            }
+            owners.add(gramOwners);
+        }
+        owners.sort(Comparator.comparingInt(Set::size));
+        for (String term : owners.get(0)) {
+            if (term.contains(fragment)) {
+                result.add(term);
+            }
+        }
+        return result;
+    }
+
+    private Set<String> termsNear(String queryTerm, int maxEdits) {
+        // Each edit destroys at most GRAM trigrams, so close terms must share enough of them
+        Set<String> queryGrams = grams(queryTerm);
+        int required = requiredGrams(queryTerm, maxEdits);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            Set<String> gramOwners = gramTerms.get(gram);
+            if (gramOwners != null) {
+                gramOwners.forEach(term -> shared.merge(term, 1, Integer::sum));
+            }
+        }
+
+        Set<String> result = new HashSet<>();
+        shared.forEach((term, count) -> {
+            if (count >= required && Math.abs(term.length() - queryTerm.length()) <= maxEdits
+                    && editDistance(queryTerm, term, maxEdits) <= maxEdits) {
+                result.add(term);
+            }
+        });
+        return result;
+    }
+
+    // Trigrams a term must share with the query term to be considered within maxEdits of it
+    private static int requiredGrams(String queryTerm, int maxEdits) {
+        return Math.max(1, grams(queryTerm).size() - GRAM * maxEdits);
+    }
+
+    private static int sharedGrams(String queryTerm, String term) {
+        Set<String> shared = grams(queryTerm);
+        shared.retainAll(grams(term));
+        return shared.size();
+    }
+
+    private static double fieldWeight(int mask) {
+        if ((mask & NAME) != 0) {
+            return 3;
+        }
+        return (mask & AUTHOR) != 0 ? 2 : 1;
+    }
+
+    private static Map<String, Integer> termMasks(BookDataModel book) {
+        Map<String, Integer> masks = new HashMap<>();
+        tokenize(book.bookName).forEach(term -> masks.merge(term, NAME, (a, b) -> a | b));
+        tokenize(book.bookAuthor).forEach(term -> masks.merge(term, AUTHOR, (a, b) -> a | b));
+        tokenize(book.publicationName).forEach(term -> masks.merge(term, PUBLICATION, (a, b) -> a | b));
+        return masks;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> result = new ArrayList<>();
+        if (text == null) {
+            return result;
+        }
+        for (String term : TERM_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!term.isEmpty()) {
+                result.add(term);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Trigrams of the term padded with boundary markers, so short terms still have grams
+     * and grams at the edges of a term are distinguishable from inner ones.
+     */
+    private static Set<String> grams(String term) {
+        String padded = "$" + term + "$";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * Levenshtein distance between two strings, giving up early once it exceeds {@code max}.
+     *
+     * @return The distance, or {@code max + 1} if it is larger than {@code max}.
+     */
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
@@ -0,0 +1,12 @@
+package com.client.client.shard;
+
+import java.net.URI;
+
+/**
+ * One instance of the client service holding part of a sharded catalog.
+ *
+ * @param id  The instance id it is registered under; it decides the instance's place on the ring.
+ * @param uri The base URI to reach it at.
+ */
+public record Shard(String id, URI uri) {
+}
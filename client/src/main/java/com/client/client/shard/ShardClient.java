@@ -0,0 +1,180 @@
+package com.client.client.shard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Sends requests to the other shards, asking each to answer from its own books only.
+ *
+ * Every request carries {@link #LOCAL_HEADER}, which stops the receiving instance from routing it
+ * again. Requests are asynchronous so a scatter reaches all shards at once; each one fails with a
+ * {@link ShardException} after {@code book-shards.request-timeout} or on an unexpected status.
+ */
+@Component
+@ConditionalOnProperty(prefix = "book-shards", name = "enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ShardClient {
+
+    public static final String LOCAL_HEADER = "X-Book-Shard-Local";
+
+    private final HttpClient http;
+    private final ObjectMapper objectMapper;
+    private final ShardProperties properties;
+
+    public ShardClient(ObjectMapper objectMapper, ShardProperties properties) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1) // Tomcat serves cleartext HTTP/1.1; skip the h2c upgrade attempt
+                .connectTimeout(properties.getRequestTimeout())
+                .build();
+    }
+
+    /**
+     * Sends a request and returns the response whatever its status.
+     *
+     * @param shard        The shard to ask.
+     * @param method       The HTTP method.
+     * @param pathAndQuery The path, with its query string if any.
+     * @param contentType  The type of the body, or null if there is none.
+     * @param body         The body, or null.
+     * @return The response; fails with a {@link ShardException} if the shard cannot be reached in time.
+     */
+    public CompletableFuture<HttpResponse<byte[]>> send(Shard shard, String method, String pathAndQuery,
+                                                        String contentType, byte[] body) {
+        return send(shard, method, pathAndQuery, contentType != null ? Map.of("Content-Type", contentType) : Map.of(), body);
+    }
+
+    /**
+     * Sends a request with the given headers and returns the response whatever its status.
+     *
+     * @param headers Headers of the request, such as its {@code Content-Type}.
+     * @see #send(Shard, String, String, String, byte[])
+     */
+    public CompletableFuture<HttpResponse<byte[]>> send(Shard shard, String method, String pathAndQuery,
+                                                        Map<String, String> headers, byte[] body) {
+        HttpRequest.Builder request = request(shard, pathAndQuery)
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
+        headers.forEach(request::header);
+        return http.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .exceptionallyCompose(e -> CompletableFuture.failedFuture(unreachable(shard, e)));
+    }
+
+    /**
+     * Reads a JSON response.
+     *
+     * @return The parsed body; fails with a {@link ShardException} unless the status is 2xx.
+     */
+    public <T> CompletableFuture<T> getJson(Shard shard, String pathAndQuery, JavaType type) {
+        return send(shard, "GET", pathAndQuery, Map.of(), null).thenApply(response -> parse(shard, response, type));
+    }
+
+    /**
+     * Reads a JSON response the shard may hold back for a while, such as a long poll.
+     *
+     * @param held How long the shard may take beyond {@code book-shards.request-timeout}.
+     * @see #getJson(Shard, String, JavaType)
+     */
+    public <T> CompletableFuture<T> getJson(Shard shard, String pathAndQuery, JavaType type, Duration held) {
+        HttpRequest request = request(shard, pathAndQuery, properties.getRequestTimeout().plus(held)).GET().build();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .exceptionallyCompose(e -> CompletableFuture.failedFuture(unreachable(shard, e)))
+                .thenApply(response -> parse(shard, response, type));
+    }
+
+    /**
+     * Posts a JSON body and reads a JSON response.
+     *
+     * @return The parsed body; fails with a {@link ShardException} unless the status is 2xx.
+     */
+    public <T> CompletableFuture<T> postJson(Shard shard, String pathAndQuery, Object body, JavaType type) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return send(shard, "POST", pathAndQuery, MediaType.APPLICATION_JSON_VALUE, json)
+                .thenApply(response -> parse(shard, response, type));
+    }
+
+    /**
+     * Opens a streamed response, for reading more books than should be held at once.
+     *
+     * @return The body as it arrives; fails with a {@link ShardException} unless the status is 2xx.
+     */
+    public CompletableFuture<InputStream> stream(Shard shard, String pathAndQuery) {
+        return http.sendAsync(request(shard, pathAndQuery).GET().build(), HttpResponse.BodyHandlers.ofInputStream())
+                .exceptionallyCompose(e -> CompletableFuture.failedFuture(unreachable(shard, e)))
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        try (InputStream body = response.body()) {
+                            throw new ShardException(shard, response.statusCode(), new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                        } catch (IOException e) {
+                            throw new ShardException(shard, response.statusCode(), "");
+                        }
+                    }
+                    return response.body();
+                });
+    }
+
+    /**
+     * @return The type for Jackson to read a response as.
+     */
+    public JavaType type(Class<?> type) {
+        return objectMapper.constructType(type);
+    }
+
+    /**
+     * @return The type of a JSON array of the given elements.
+     */
+    public JavaType listOf(Class<?> elementType) {
+        return objectMapper.getTypeFactory().constructCollectionType(List.class, elementType);
+    }
+
+    private HttpRequest.Builder request(Shard shard, String pathAndQuery) {
+        return request(shard, pathAndQuery, properties.getRequestTimeout());
+    }
+
+    private HttpRequest.Builder request(Shard shard, String pathAndQuery, Duration timeout) {
+        String base = shard.uri().toString();
+        return HttpRequest.newBuilder(URI.create((base.endsWith("/") ? base.substring(0, base.length() - 1) : base) + pathAndQuery))
+                .timeout(timeout)
+                .header(LOCAL_HEADER, "true");
+    }
+
+    private <T> T parse(Shard shard, HttpResponse<byte[]> response, JavaType type) {
+        if (response.statusCode() / 100 != 2) {
+            throw new ShardException(shard, response.statusCode(), new String(response.body(), StandardCharsets.UTF_8));
+        }
+        try {
+            return objectMapper.readValue(response.body(), type);
+        } catch (IOException e) {
+            throw new ShardException(shard, 502, "Unreadable response: " + e.getMessage());
+        }
+    }
+
+    private static ShardException unreachable(Shard shard, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return new ShardException(shard, 0, cause.toString());
+    }
+}
@@ -0,0 +1,38 @@
+package com.client.client.shard;
+
+/**
+ * A request to another shard failed: it could not be reached in time, or answered with an
+ * unexpected status.
+ */
+public class ShardException extends RuntimeException {
+
+    private final Shard shard;
+    private final int status;
+    private final String body;
+
+    /**
+     * @param status The status the shard answered with, or 0 if it did not answer.
+     * @param body   The body of its answer, or a description of the failure.
+     */
+    public ShardException(Shard shard, int status, String body) {
+        super(status == 0 ? "Shard " + shard.id() + " unreachable: " + body : "Shard " + shard.id() + " answered " + status);
+        this.shard = shard;
+        this.status = status;
+        this.body = body;
+    }
+
+    public Shard getShard() {
+        return shard;
+    }
+
+    /**
+     * @return The status the shard answered with, or 0 if it did not answer.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    public String getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,165 @@
+package com.client.client.shard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.client.client.store.BookIdPolicy;
+import com.client.client.store.StoreBusyException;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Which client instances share the catalog, as the {@link ShardRing} over the instances that
+ * service discovery reports UP, this one always included.
+ *
+ * The ring is rebuilt whenever the registry is fetched and the members differ. Instances see a
+ * new member only once their own registry copy has it, so for a fetch interval they may disagree
+ * on owners; writes made meanwhile land on an instance that no longer owns the book and are
+ * moved by the {@link ShardRebalancer}. As the store's {@link BookIdPolicy}, it only lets this
+ * instance give new books ids it owns, so adds never leave the instance they arrive at.
+ *
+ * Ids don't depend on the instances agreeing on the ring: each instance has its own slot,
+ * {@code book-shards.instance-slot}, advertised in its registry metadata, and only gives new
+ * books ids in that slot. Two instances that disagree on an owner may both hold a book under the
+ * ring they see, but never two books under one id. Adds are refused until the rebalancer's first
+ * pass has moved this instance's ids past its peers', so a restarted instance doesn't reuse an
+ * id it handed out before, and while another member advertises the same slot.
+ */
+@Component
+@ConditionalOnProperty(prefix = "book-shards", name = "enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET) // Routing is a servlet filter
+public class ShardMembership implements BookIdPolicy {
+
+    /**
+     * Registry metadata key under which each instance advertises its id slot.
+     */
+    public static final String SLOT_METADATA = "book-shard-slot";
+
+    private static final Logger log = LoggerFactory.getLogger(ShardMembership.class);
+
+    private final DiscoveryClient discoveryClient;
+    private final String serviceId;
+    private final Shard self;
+    private final int virtualNodes;
+    private final int slot;
+    private final int idSlots;
+    private volatile ShardRing ring;
+    private volatile boolean peerIdsSkipped; // Whether the rebalancer has moved the ids past every peer's
+    private volatile String slotConflict; // Why adds are refused while another member has this slot, or null
+
+    public ShardMembership(DiscoveryClient discoveryClient, Registration registration,
+                           @Value("${spring.application.name}") String serviceId, ShardProperties properties) {
+        this.discoveryClient = discoveryClient;
+        this.serviceId = serviceId;
+        this.self = new Shard(registration.getInstanceId(), registration.getUri());
+        this.virtualNodes = properties.getVirtualNodes();
+        this.slot = properties.getInstanceSlot();
+        this.idSlots = properties.getIdSlots();
+        if (idSlots < 1 || slot < 0 || slot >= idSlots) {
+            throw new IllegalStateException("Set book-shards.instance-slot to a number from 0 to " + (idSlots - 1)
+                    + " that no other instance uses");
+        }
+        this.ring = ShardRing.of(List.of(self), virtualNodes);
+    }
+
+    /**
+     * Builds the first ring from the registry fetched while the discovery client started.
+     */
+    @PostConstruct
+    public void start() {
+        refresh();
+    }
+
+    /**
+     * @return This instance's shard.
+     */
+    public Shard self() {
+        return self;
+    }
+
+    /**
+     * @return The current ring.
+     */
+    public ShardRing ring() {
+        return ring;
+    }
+
+    /**
+     * @param id A book id.
+     * @return Whether this instance owns the book.
+     */
+    public boolean isLocal(long id) {
+        return ring.owner(id).id().equals(self.id());
+    }
+
+    @Override
+    public boolean mayAssign(long id) {
+        return Math.floorMod(id, idSlots) == slot && isLocal(id);
+    }
+
+    @Override
+    public void checkAssignable() {
+        if (!peerIdsSkipped) {
+            throw new StoreBusyException("This shard is not accepting new books until it has its peers' ids");
+        }
+        String conflict = slotConflict;
+        if (conflict != null) {
+            throw new StoreBusyException(conflict);
+        }
+    }
+
+    /**
+     * Called by the {@link ShardRebalancer} once this instance's ids are past every member's,
+     * which lets it add books.
+     */
+    public void peerIdsSkipped() {
+        peerIdsSkipped = true;
+    }
+
+    @EventListener(HeartbeatEvent.class)
+    public void onRegistryFetched() {
+        refresh();
+    }
+
+    /**
+     * Rebuilds the ring from the registry.
+     *
+     * @return Whether the members changed.
+     */
+    public synchronized boolean refresh() {
+        List<Shard> members = new ArrayList<>();
+        members.add(self); // Before this instance shows up in the registry, it still serves its own books
+        String conflict = null;
+        for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+            if (instance.getInstanceId() != null && !instance.getInstanceId().equals(self.id())) {
+                members.add(new Shard(instance.getInstanceId(), instance.getUri()));
+                if (Integer.toString(slot).equals(instance.getMetadata().get(SLOT_METADATA))) {
+                    conflict = "Instance " + instance.getInstanceId() + " also has book-shards.instance-slot " + slot;
+                }
+            }
+        }
+        if (conflict != null && !conflict.equals(slotConflict)) {
+            log.error("{}; not accepting new books until one of them is given another slot", conflict);
+        }
+        slotConflict = conflict;
+        ShardRing updated = ShardRing.of(members, virtualNodes);
+        if (updated.equals(ring)) {
+            return false;
+        }
+        log.info("Shard members changed from {} to {}", ring.members().size(), updated.members().size());
+        ring = updated;
+        return true;
+    }
+}
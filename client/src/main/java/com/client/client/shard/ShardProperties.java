@@ -0,0 +1,90 @@
+package com.client.client.shard;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for partitioning the catalog across the registered client instances, bound from
+ * the {@code book-shards.*} properties.
+ */
+@ConfigurationProperties(prefix = "book-shards")
+public class ShardProperties {
+
+    // Whether this instance holds one shard of a catalog spread over every instance registered under its service name
+    private boolean enabled = false;
+
+    // This instance's id slot, unique among the instances; new books here take ids in this slot only. Required
+    private int instanceSlot = -1;
+
+    // Slots ids are dealt into, an upper bound on the instances; id n is in slot n % idSlots
+    private int idSlots = 16;
+
+    // Points each instance takes on the hash ring; more even out the shares at the cost of a larger ring
+    private int virtualNodes = 128;
+
+    // How long a request to another shard may take before the whole request fails
+    private Duration requestTimeout = Duration.ofSeconds(5);
+
+    // How often books this instance no longer owns are handed to their owners, besides right after the members change
+    private Duration rebalanceInterval = Duration.ofSeconds(30);
+
+    // Books per request when handing books over
+    private int handoffBatch = 1000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getInstanceSlot() {
+        return instanceSlot;
+    }
+
+    public void setInstanceSlot(int instanceSlot) {
+        this.instanceSlot = instanceSlot;
+    }
+
+    public int getIdSlots() {
+        return idSlots;
+    }
+
+    public void setIdSlots(int idSlots) {
+        this.idSlots = idSlots;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public void setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    public Duration getRebalanceInterval() {
+        return rebalanceInterval;
+    }
+
+    public void setRebalanceInterval(Duration rebalanceInterval) {
+        this.rebalanceInterval = rebalanceInterval;
+    }
+
+    public int getHandoffBatch() {
+        return handoffBatch;
+    }
+
+    public void setHandoffBatch(int handoffBatch) {
+        this.handoffBatch = handoffBatch;
+    }
+}
@@ -0,0 +1,156 @@
+package com.client.client.shard;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.store.BookStore;
+import com.client.client.store.VersionConflictException;
+import com.fasterxml.jackson.databind.JavaType;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Hands the books this instance holds but no longer owns to the shards that own them.
+ *
+ * Runs every {@code book-shards.rebalance-interval}, and soon after the members change. It first
+ * moves this instance's ids past the largest id on any shard, so no new book reuses an id given
+ * out before, say by this instance before it lost its file, and only then lets it add books. It
+ * then walks the catalog in id order and posts the books owned elsewhere to
+ * their owners in batches. A book is only removed here once its owner has it, and only at the
+ * version that was sent; one changed meanwhile is sent again on the next pass.
+ */
+@Component
+@ConditionalOnProperty(prefix = "book-shards", name = "enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private final ShardMembership membership;
+    private final ShardClient client;
+    private final BookStore bookStore;
+    private final ShardProperties properties;
+    private final JavaType countType;
+    private final JavaType maxIdType;
+    private ScheduledExecutorService rebalancer;
+    private ShardRing rebalanced; // The ring of the last complete pass
+    private long lastPass;
+
+    public ShardRebalancer(ShardMembership membership, ShardClient client, BookStore bookStore, ShardProperties properties) {
+        this.membership = membership;
+        this.client = client;
+        this.bookStore = bookStore;
+        this.properties = properties;
+        this.countType = client.type(Integer.class);
+        this.maxIdType = client.type(Long.class);
+    }
+
+    // Started once the application is up, so peers can already reach this instance
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (rebalancer != null) {
+            return;
+        }
+        rebalancer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-shard-rebalancer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebalancer.scheduleWithFixedDelay(this::rebalanceIfDue, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (rebalancer != null) {
+            rebalancer.shutdownNow();
+            rebalancer = null;
+        }
+    }
+
+    // Checked every second; passes run when the ring changed or the interval is up
+    private void rebalanceIfDue() {
+        ShardRing ring = membership.ring();
+        long now = System.nanoTime();
+        if (ring.equals(rebalanced) && now - lastPass < properties.getRebalanceInterval().toNanos()) {
+            return;
+        }
+        try {
+            rebalance(ring);
+            rebalanced = ring;
+        } catch (RuntimeException e) {
+            log.warn("Could not hand books over, retrying on the next pass: {}", e.getMessage());
+        }
+        lastPass = now;
+    }
+
+    /**
+     * Moves every book owned elsewhere under the given ring to its owner.
+     *
+     * @return The number of books handed over.
+     * @throws ShardException If a shard cannot be reached; books handed over until then stay moved.
+     */
+    public int rebalance(ShardRing ring) {
+        Shard self = membership.self();
+        List<CompletableFuture<Long>> maxIds = new ArrayList<>();
+        for (Shard shard : ring.members()) {
+            if (!shard.id().equals(self.id())) {
+                maxIds.add(client.getJson(shard, "/shard/max-id", maxIdType));
+            }
+        }
+        for (CompletableFuture<Long> maxId : maxIds) {
+            bookStore.skipIdsThrough(ShardRouter.await(maxId));
+        }
+        membership.peerIdsSkipped();
+
+        int moved = 0;
+        Map<Shard, List<BookDataModel>> batches = new HashMap<>(); // Owners' ids interleave, so each gets its own batch
+        for (BookDataModel book : bookStore.inIdOrder()) {
+            Shard owner = ring.owner(book.id);
+            if (owner.id().equals(self.id())) {
+                continue;
+            }
+            List<BookDataModel> batch = batches.computeIfAbsent(owner, shard -> new ArrayList<>());
+            batch.add(book);
+            if (batch.size() >= properties.getHandoffBatch()) {
+                moved += handOver(owner, batch);
+                batch.clear();
+            }
+        }
+        for (Map.Entry<Shard, List<BookDataModel>> batch : batches.entrySet()) {
+            if (!batch.getValue().isEmpty()) {
+                moved += handOver(batch.getKey(), batch.getValue());
+            }
+        }
+        if (moved > 0) {
+            log.info("Handed {} books over to their shards", moved);
+        }
+        return moved;
+    }
+
+    private int handOver(Shard owner, List<BookDataModel> books) {
+        ShardRouter.<Integer>await(client.postJson(owner, "/shard/adopt", books, countType));
+        for (BookDataModel book : books) {
+            try {
+                bookStore.remove(book.id, book.version);
+            } catch (VersionConflictException e) {
+                // Changed since it was sent; the next pass sends the new version
+            }
+        }
+        return books.size();
+    }
+}
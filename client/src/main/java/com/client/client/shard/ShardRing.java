@@ -0,0 +1,119 @@
+package com.client.client.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Consistent hash ring assigning every book id to one {@link Shard}.
+ *
+ * Each shard is placed on the ring at many points derived from its id, and a book belongs to the
+ * first point at or after the hash of its id. When a shard joins or leaves, only the ids next to
+ * its points change owner, about 1/n of the catalog, and every instance that sees the same
+ * members computes the same owners without talking to the others. Immutable.
+ */
+public final class ShardRing {
+
+    private final List<Shard> members; // Sorted by id
+    private final long[] points; // Ascending
+    private final Shard[] owners; // Owner of each point
+
+    private ShardRing(List<Shard> members, long[] points, Shard[] owners) {
+        this.members = members;
+        this.points = points;
+        this.owners = owners;
+    }
+
+    /**
+     * @param members      The shards; duplicates by id are dropped.
+     * @param virtualNodes Points per shard; more spread the ids more evenly.
+     * @return The ring.
+     */
+    public static ShardRing of(Collection<Shard> members, int virtualNodes) {
+        List<Shard> sorted = new ArrayList<>();
+        members.stream()
+                .sorted(Comparator.comparing(Shard::id))
+                .forEach(shard -> {
+                    if (sorted.isEmpty() || !sorted.get(sorted.size() - 1).id().equals(shard.id())) {
+                        sorted.add(shard);
+                    }
+                });
+
+        int perShard = Math.max(1, virtualNodes);
+        long[][] entries = new long[sorted.size() * perShard][]; // {point, member index}
+        for (int m = 0; m < sorted.size(); m++) {
+            for (int v = 0; v < perShard; v++) {
+                entries[m * perShard + v] = new long[] {hash(sorted.get(m).id() + "#" + v), m};
+            }
+        }
+        // Ties, however unlikely, go to the smaller id on every instance alike
+        Arrays.sort(entries, Comparator.<long[]>comparingLong(entry -> entry[0]).thenComparingLong(entry -> entry[1]));
+
+        long[] points = new long[entries.length];
+        Shard[] owners = new Shard[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = sorted.get((int) entries[i][1]);
+        }
+        return new ShardRing(List.copyOf(sorted), points, owners);
+    }
+
+    /**
+     * @param id A book id.
+     * @return The shard the book belongs to.
+     * @throws IllegalStateException If the ring has no members.
+     */
+    public Shard owner(long id) {
+        if (points.length == 0) {
+            throw new IllegalStateException("No shards");
+        }
+        int position = Arrays.binarySearch(points, mix(id));
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return owners[position == points.length ? 0 : position]; // Past the last point wraps to the first
+    }
+
+    /**
+     * @return The shards, sorted by id.
+     */
+    public List<Shard> members() {
+        return members;
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes, finished with the same mix as ids
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // SplitMix64's finalizer: consecutive ids land far apart on the ring
+    static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ShardRing ring && ring.members.equals(members) && ring.points.length == points.length;
+    }
+
+    @Override
+    public int hashCode() {
+        return members.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ShardRing" + members.stream().map(Shard::id).toList();
+    }
+}
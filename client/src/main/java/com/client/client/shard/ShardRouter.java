@@ -0,0 +1,593 @@
+package com.client.client.shard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.client.client.model.BookChange;
+import com.client.client.model.BookChanges;
+import com.client.client.model.BookDataModel;
+import com.client.client.model.BookImportResult;
+import com.client.client.model.BookOperation;
+import com.client.client.model.BookPage;
+import com.client.client.search.BookPager;
+import com.client.client.search.BookSearchIndex;
+import com.client.client.search.BookSortIndex;
+import com.client.client.replica.FeedPosition;
+import com.client.client.search.BookTextIndex;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Answers requests that span shards by scattering them to every shard and merging the answers.
+ *
+ * Each shard answers from its own books in the requested order, so merging is a k-way merge
+ * that only reads as far into each answer as the result needs: the whole catalog streams
+ * through with one book per shard in memory, and a page reads its shards a chunk at a time.
+ * Free-text hits are ranked again over the union, which gives the same scores a single catalog
+ * would. Writes go to the shard owning each book; new books are spread over the shards. The
+ * shards' change feeds are read as one, under an epoch that holds every shard's own position.
+ */
+@Component
+@ConditionalOnProperty(prefix = "book-shards", name = "enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ShardRouter {
+
+    private final ShardMembership membership;
+    private final ShardClient client;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader bookReader;
+    private final JavaType feedPositions; // Shard id -> position in its feed, as held in a combined epoch
+
+    public ShardRouter(ShardMembership membership, ShardClient client, ObjectMapper objectMapper) {
+        this.membership = membership;
+        this.client = client;
+        this.objectMapper = objectMapper;
+        this.bookReader = objectMapper.readerFor(BookDataModel.class);
+        this.feedPositions = objectMapper.getTypeFactory().constructMapType(TreeMap.class, String.class, FeedPosition.class);
+    }
+
+    /**
+     * Streams the whole catalog in id order.
+     *
+     * @return The books, read from the shards as they are consumed; close it to release the connections.
+     */
+    public MergedBooks allBooks() {
+        List<CompletableFuture<InputStream>> streams = new ArrayList<>();
+        for (Shard shard : membership.ring().members()) {
+            streams.add(client.stream(shard, "/stream"));
+        }
+        List<Iterator<BookDataModel>> sources = new ArrayList<>();
+        List<InputStream> opened = new ArrayList<>();
+        try {
+            for (CompletableFuture<InputStream> stream : streams) {
+                InputStream in = await(stream);
+                opened.add(in);
+                MappingIterator<BookDataModel> books = bookReader.readValues(in);
+                sources.add(books);
+            }
+        } catch (IOException | RuntimeException e) {
+            closeAll(opened);
+            streams.forEach(stream -> stream.thenAccept(ShardRouter::closeQuietly));
+            throw e instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) e;
+        }
+        return new MergedBooks(merge(sources, book -> book.id, Comparator.<Long>naturalOrder()), opened);
+    }
+
+    /**
+     * Finds the books whose fields equal the given values, ignoring case, on every shard.
+     *
+     * @return The matches in id order.
+     */
+    public List<BookDataModel> search(String bookName, String bookAuthor, String publicationName) {
+        String path = UriComponentsBuilder.fromPath("/search")
+                .queryParam("bookName", nullToEmpty(bookName))
+                .queryParam("bookAuthor", nullToEmpty(bookAuthor))
+                .queryParam("publicationName", nullToEmpty(publicationName))
+                .encode().build().toUriString();
+        List<BookDataModel> matches = new ArrayList<>();
+        scatter(path).forEach(matches::addAll);
+        matches.sort(Comparator.comparingLong(book -> book.id));
+        return matches;
+    }
+
+    /**
+     * Runs a free-text search on every shard and ranks the union of their hits.
+     *
+     * @return The best matching books, best first.
+     * @throws IllegalArgumentException If the mode is unknown.
+     */
+    public List<BookDataModel> searchText(String q, String mode, int limit) {
+        BookTextIndex.Mode searchMode = BookTextIndex.Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        String path = UriComponentsBuilder.fromPath("/search/text")
+                .queryParam("q", q)
+                .queryParam("mode", mode)
+                .queryParam("limit", limit)
+                .encode().build().toUriString();
+        Map<Long, BookDataModel> hits = new HashMap<>();
+        scatter(path).forEach(books -> books.forEach(book -> hits.put(book.id, book)));
+
+        // Scores only depend on the query and the book, so ranking the union again matches a single catalog
+        BookTextIndex ranking = new BookTextIndex();
+        ranking.catalogLoaded(hits.values());
+        List<BookDataModel> ranked = new ArrayList<>();
+        for (BookTextIndex.Hit hit : ranking.search(q, searchMode, limit)) {
+            ranked.add(hits.get(hit.id()));
+        }
+        return ranked;
+    }
+
+    /**
+     * Reads one page of the catalog across the shards; see {@link BookPager#page}.
+     * Skipping an offset reads that many books off the shards, so deep pages cost more than with a cursor.
+     *
+     * @throws IllegalArgumentException If the sort field or cursor is invalid.
+     */
+    public BookPage page(String sort, boolean descending, String after, int offset, int limit,
+                         String bookName, String bookAuthor, String publicationName) {
+        BookSearchIndex.Field field = BookPager.sortField(sort);
+        boolean byCursor = after != null && !after.isBlank();
+        if (byCursor) {
+            BookSortIndex.SortKey.fromCursor(after); // Reject a malformed cursor here rather than once per shard
+        }
+        int pageSize = Math.max(0, Math.min(limit, BookPager.MAX_PAGE_SIZE));
+        int chunk = Math.max(1, Math.min(BookPager.MAX_PAGE_SIZE, (byCursor ? 0 : offset) + pageSize + 1));
+
+        List<ShardPages> shards = new ArrayList<>();
+        for (Shard shard : membership.ring().members()) {
+            shards.add(new ShardPages(shard, UriComponentsBuilder.fromPath("/page")
+                    .queryParam("sort", field == null ? "id" : sort)
+                    .queryParam("direction", descending ? "desc" : "asc")
+                    .queryParam("limit", chunk)
+                    .queryParam("bookName", nullToEmpty(bookName))
+                    .queryParam("bookAuthor", nullToEmpty(bookAuthor))
+                    .queryParam("publicationName", nullToEmpty(publicationName)), byCursor ? after : null));
+        }
+        shards.forEach(ShardPages::request); // The first chunks are read from all shards at once
+        long total = 0;
+        List<Iterator<BookDataModel>> sources = new ArrayList<>();
+        for (ShardPages pages : shards) {
+            pages.await();
+            total += pages.total;
+            sources.add(pages);
+        }
+
+        Function<BookDataModel, BookSortIndex.SortKey> key = field == null
+                ? book -> new BookSortIndex.SortKey("", book.id)
+                : book -> BookSortIndex.keyOf(field, book);
+        Iterator<BookDataModel> books = merge(sources, key,
+                descending ? BookSortIndex.SortKey.ORDER.reversed() : BookSortIndex.SortKey.ORDER);
+        for (int skipped = 0; !byCursor && skipped < offset && books.hasNext(); skipped++) {
+            books.next();
+        }
+        List<BookDataModel> items = new ArrayList<>(pageSize);
+        while (items.size() < pageSize && books.hasNext()) {
+            items.add(books.next());
+        }
+
+        String nextCursor = null;
+        if (!items.isEmpty() && books.hasNext()) {
+            BookDataModel last = items.get(items.size() - 1);
+            nextCursor = (field == null ? new BookSortIndex.SortKey("", last.id) : BookSortIndex.keyOf(field, last)).toCursor();
+        }
+        return new BookPage(items, total, nextCursor);
+    }
+
+    /**
+     * Applies a batch, sending each operation to the shard owning its book; creates stay on this
+     * instance. A batch within one shard is applied completely or not at all, as on a single
+     * catalog; across shards, each shard's part is, but one shard may apply its part while
+     * another refuses.
+     *
+     * @return The resulting book of each operation, in order.
+     * @throws IllegalArgumentException If an operation addresses its book by position.
+     * @throws ShardException If a shard refuses its part or cannot be reached.
+     */
+    public List<BookDataModel> applyBatch(List<BookOperation> operations) {
+        ShardRing ring = membership.ring();
+        Map<Shard, List<Integer>> positions = new LinkedHashMap<>(); // Shard -> indexes of its operations
+        for (int i = 0; i < operations.size(); i++) {
+            BookOperation operation = operations.get(i);
+            if (operation.op() == null) {
+                throw new IllegalArgumentException("Operation " + i + " has no op");
+            }
+            Shard target;
+            if (operation.op() == BookOperation.Type.CREATE) {
+                target = membership.self();
+            } else if (operation.id() != null) {
+                target = ring.owner(operation.id());
+            } else {
+                throw new IllegalArgumentException("Operation " + i + " needs an id; positions span shards");
+            }
+            positions.computeIfAbsent(target, shard -> new ArrayList<>()).add(i);
+        }
+
+        Map<Shard, CompletableFuture<List<BookDataModel>>> parts = new LinkedHashMap<>();
+        positions.forEach((shard, indexes) -> parts.put(shard, client.postJson(shard, "/batch",
+                indexes.stream().map(operations::get).toList(), client.listOf(BookDataModel.class))));
+        BookDataModel[] results = new BookDataModel[operations.size()];
+        ShardException failure = null;
+        for (Map.Entry<Shard, CompletableFuture<List<BookDataModel>>> part : parts.entrySet()) {
+            try {
+                List<BookDataModel> applied = await(part.getValue());
+                List<Integer> indexes = positions.get(part.getKey());
+                for (int j = 0; j < indexes.size(); j++) {
+                    results[indexes.get(j)] = applied.get(j);
+                }
+            } catch (ShardException e) {
+                failure = failure == null ? e : failure; // Wait for the other parts before reporting
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return List.of(results);
+    }
+
+    /**
+     * Reads the shards' change feeds as one feed, so a caller can follow the catalog through any
+     * instance. The epoch returned holds every shard's epoch and cursor, and the cursor is the sum
+     * of the shards' cursors, so positions count on from it. Each shard's changes keep their order;
+     * changes on different shards may come in another order than they were made. The read resets
+     * when a shard's feed does, when the members change, or when the epoch is not one this returned.
+     *
+     * @param epoch The epoch returned by the previous read, or null to learn where the feeds stand.
+     * @param after The cursor returned with it.
+     * @param limit The maximum number of changes to return.
+     * @param wait  How long to wait for a change if no shard has one yet.
+     * @return The changes, taken from the shards in turn.
+     * @throws ShardException If a shard cannot be reached.
+     */
+    public BookChanges changes(String epoch, long after, int limit, Duration wait) {
+        List<Shard> members = membership.ring().members();
+        Map<String, FeedPosition> from = epoch != null ? decodeEpoch(epoch) : null;
+        if (from == null || sum(from) != after
+                || !from.keySet().equals(members.stream().map(Shard::id).collect(Collectors.toSet()))) {
+            Map<String, FeedPosition> current = new TreeMap<>();
+            Map<Shard, CompletableFuture<BookChanges>> reads = new LinkedHashMap<>();
+            members.forEach(shard -> reads.put(shard, client.getJson(shard, "/changes", client.type(BookChanges.class))));
+            reads.forEach((shard, read) -> {
+                BookChanges stands = await(read);
+                current.put(shard.id(), new FeedPosition(stands.epoch(), stands.cursor()));
+            });
+            return new BookChanges(encodeEpoch(current), sum(current), epoch != null, List.of());
+        }
+
+        Map<String, BookChanges> answers = new LinkedHashMap<>();
+        Map<Shard, CompletableFuture<BookChanges>> reads = readChanges(members, from, limit, Duration.ZERO);
+        reads.forEach((shard, read) -> answers.put(shard.id(), await(read)));
+        if (!wait.isZero() && answers.values().stream().noneMatch(read -> read.reset() || !read.changes().isEmpty())) {
+            // Waits on every shard at once and answers with the first to have news
+            answers.clear();
+            reads = readChanges(members, from, limit, wait);
+            CompletableFuture<Void> news = new CompletableFuture<>();
+            reads.values().forEach(read -> read.whenComplete((changes, error) -> {
+                if (error != null || changes.reset() || !changes.changes().isEmpty()) {
+                    news.complete(null);
+                }
+            }));
+            CompletableFuture.allOf(reads.values().toArray(CompletableFuture[]::new)).whenComplete((all, error) -> news.complete(null));
+            news.join();
+            reads.forEach((shard, read) -> {
+                if (read.isDone()) {
+                    answers.put(shard.id(), await(read)); // Shards still waiting keep their position
+                }
+            });
+        }
+        return combine(from, after, answers, Math.max(1, limit));
+    }
+
+    /**
+     * Starts a bulk import spread over the shards: books with an id go to their owner when
+     * upserting, and the rest are split evenly between the shards, which give them ids they own.
+     *
+     * @param upsert Whether books carrying an id replace the stored ones.
+     * @return Takes the batches as they are read; each is committed before the next is taken.
+     */
+    public BulkImport importer(boolean upsert) {
+        return new BulkImport(upsert);
+    }
+
+    /**
+     * Feeds a bulk import to the shards one batch at a time.
+     */
+    public final class BulkImport implements Consumer<List<BookDataModel>> {
+
+        private final boolean upsert;
+        private final ShardRing ring = membership.ring();
+        private int next = ThreadLocalRandom.current().nextInt(ring.members().size()); // Shard taking the next slice
+        private long added;
+        private long updated;
+
+        private BulkImport(boolean upsert) {
+            this.upsert = upsert;
+        }
+
+        @Override
+        public void accept(List<BookDataModel> batch) {
+            List<Shard> members = ring.members();
+            Map<Shard, List<BookDataModel>> parts = new LinkedHashMap<>();
+            List<BookDataModel> unplaced = new ArrayList<>();
+            for (BookDataModel book : batch) {
+                if (upsert && book.id != null) {
+                    parts.computeIfAbsent(ring.owner(book.id), shard -> new ArrayList<>()).add(book);
+                } else {
+                    unplaced.add(book);
+                }
+            }
+            int slice = (unplaced.size() + members.size() - 1) / members.size();
+            for (int from = 0; from < unplaced.size(); from += slice) {
+                Shard shard = members.get(next++ % members.size());
+                parts.computeIfAbsent(shard, key -> new ArrayList<>())
+                        .addAll(unplaced.subList(from, Math.min(unplaced.size(), from + slice)));
+            }
+
+            String path = "/bulk?mode=" + (upsert ? "upsert" : "insert");
+            List<CompletableFuture<BookImportResult>> results = new ArrayList<>();
+            parts.forEach((shard, books) -> results.add(client.postJson(shard, path, books, client.type(BookImportResult.class))));
+            ShardException failure = null;
+            for (CompletableFuture<BookImportResult> result : results) {
+                try {
+                    BookImportResult counts = await(result);
+                    added += counts.added();
+                    updated += counts.updated();
+                } catch (ShardException e) {
+                    failure = failure == null ? e : failure;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        /**
+         * @param error Why the import stopped early, or null.
+         * @return The counts of the batches committed so far.
+         */
+        public BookImportResult result(String error) {
+            return new BookImportResult(added, updated, error);
+        }
+    }
+
+    /**
+     * The whole catalog merged from the shards' streams.
+     */
+    public static final class MergedBooks implements Iterable<BookDataModel>, AutoCloseable {
+
+        private final Iterator<BookDataModel> books;
+        private final List<InputStream> streams;
+
+        private MergedBooks(Iterator<BookDataModel> books, List<InputStream> streams) {
+            this.books = books;
+            this.streams = streams;
+        }
+
+        @Override
+        public Iterator<BookDataModel> iterator() {
+            return books; // Single use: the shards' streams are read once
+        }
+
+        @Override
+        public void close() {
+            closeAll(streams);
+        }
+    }
+
+    // One shard's answer to a page request, read on a chunk at a time with its cursor
+    private final class ShardPages implements Iterator<BookDataModel> {
+
+        private final Shard shard;
+        private final UriComponentsBuilder query;
+        private final Deque<BookDataModel> buffer = new ArrayDeque<>();
+        private String after;
+        private boolean more = true; // Whether the shard has books past the buffer
+        private CompletableFuture<BookPage> pending;
+        private long total;
+
+        ShardPages(Shard shard, UriComponentsBuilder query, String after) {
+            this.shard = shard;
+            this.query = query;
+            this.after = after;
+        }
+
+        void request() {
+            UriComponentsBuilder next = query.cloneBuilder();
+            if (after != null) {
+                next.queryParam("after", after);
+            }
+            pending = client.getJson(shard, next.encode().build().toUriString(), client.type(BookPage.class));
+        }
+
+        void await() {
+            BookPage page = ShardRouter.await(pending);
+            pending = null;
+            total = page.total();
+            buffer.addAll(page.items());
+            after = page.nextCursor();
+            more = after != null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (buffer.isEmpty() && more) {
+                request();
+                await();
+            }
+            return !buffer.isEmpty();
+        }
+
+        @Override
+        public BookDataModel next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return buffer.poll();
+        }
+    }
+
+    private Map<Shard, CompletableFuture<BookChanges>> readChanges(List<Shard> members, Map<String, FeedPosition> from,
+                                                                    int limit, Duration wait) {
+        Map<Shard, CompletableFuture<BookChanges>> reads = new LinkedHashMap<>();
+        for (Shard shard : members) {
+            FeedPosition position = from.get(shard.id());
+            String path = UriComponentsBuilder.fromPath("/changes")
+                    .queryParam("epoch", position.epoch())
+                    .queryParam("after", position.cursor())
+                    .queryParam("limit", limit)
+                    .queryParam("wait", wait.toSeconds())
+                    .encode().build().toUriString();
+            reads.put(shard, client.getJson(shard, path, client.type(BookChanges.class), wait));
+        }
+        return reads;
+    }
+
+    // Takes the shards' changes in turn up to the limit, moving each shard's position past the changes taken
+    private BookChanges combine(Map<String, FeedPosition> from, long after, Map<String, BookChanges> answers, int limit) {
+        Map<String, FeedPosition> to = new TreeMap<>(from);
+        if (answers.values().stream().anyMatch(BookChanges::reset)) {
+            answers.forEach((id, read) -> to.put(id, new FeedPosition(read.epoch(), read.cursor())));
+            return new BookChanges(encodeEpoch(to), sum(to), true, List.of());
+        }
+        Deque<Map.Entry<String, Iterator<BookChange>>> turns = new ArrayDeque<>();
+        answers.forEach((id, read) -> turns.add(Map.entry(id, read.changes().iterator())));
+        List<BookChange> changes = new ArrayList<>();
+        long position = after;
+        while (changes.size() < limit && !turns.isEmpty()) {
+            Map.Entry<String, Iterator<BookChange>> turn = turns.poll();
+            if (turn.getValue().hasNext()) {
+                BookChange change = turn.getValue().next();
+                FeedPosition shardPosition = to.get(turn.getKey());
+                position += change.position() - shardPosition.cursor();
+                to.put(turn.getKey(), new FeedPosition(shardPosition.epoch(), change.position()));
+                changes.add(new BookChange(position, change.type(), change.id(), change.book()));
+                turns.add(turn);
+            }
+        }
+        return new BookChanges(encodeEpoch(to), position, false, changes);
+    }
+
+    // A combined epoch is the shards' positions as URL-safe JSON, so any instance can read it
+    private String encodeEpoch(Map<String, FeedPosition> positions) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(positions));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Returns null for an epoch this didn't hand out, such as one from before sharding
+    private Map<String, FeedPosition> decodeEpoch(String epoch) {
+        try {
+            Map<String, FeedPosition> positions = objectMapper.readValue(Base64.getUrlDecoder().decode(epoch), feedPositions);
+            return positions.values().stream().allMatch(position -> position != null && position.epoch() != null) ? positions : null;
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    private static long sum(Map<String, FeedPosition> positions) {
+        return positions.values().stream().mapToLong(FeedPosition::cursor).sum();
+    }
+
+    private List<List<BookDataModel>> scatter(String path) {
+        List<CompletableFuture<List<BookDataModel>>> answers = new ArrayList<>();
+        for (Shard shard : membership.ring().members()) {
+            answers.add(client.getJson(shard, path, client.listOf(BookDataModel.class)));
+        }
+        List<List<BookDataModel>> results = new ArrayList<>(answers.size());
+        for (CompletableFuture<List<BookDataModel>> answer : answers) {
+            results.add(await(answer));
+        }
+        return results;
+    }
+
+    // Lazily merges sources that are each already in the order of their books' keys; each key is computed once
+    private static <K> Iterator<BookDataModel> merge(List<Iterator<BookDataModel>> sources,
+                                                     Function<BookDataModel, K> key, Comparator<K> order) {
+        record Head<K>(K key, BookDataModel book, Iterator<BookDataModel> source) {
+        }
+        PriorityQueue<Head<K>> heads = new PriorityQueue<>(Math.max(1, sources.size()), Comparator.comparing(Head::key, order));
+        for (Iterator<BookDataModel> source : sources) {
+            if (source.hasNext()) {
+                BookDataModel book = source.next();
+                heads.add(new Head<>(key.apply(book), book, source));
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public BookDataModel next() {
+                Head<K> head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                if (head.source().hasNext()) {
+                    BookDataModel book = head.source().next();
+                    heads.add(new Head<>(key.apply(book), book, head.source()));
+                }
+                return head.book();
+            }
+        };
+    }
+
+    // Unwraps a failed future's cause, such as a ShardException
+    static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void closeAll(List<InputStream> streams) {
+        streams.forEach(ShardRouter::closeQuietly);
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // Nothing left to read from it
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
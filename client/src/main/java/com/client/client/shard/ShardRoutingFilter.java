@@ -0,0 +1,241 @@
+package com.client.client.shard;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.client.client.controller.BookImportReader;
+import com.client.client.controller.BookStreamWriter;
+import com.client.client.model.BookDataModel;
+import com.client.client.model.BookOperation;
+import com.client.client.replica.ReplicaRoutingFilter;
+import com.client.client.store.BookStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Routing layer of a sharded catalog: every instance accepts the whole API and sends each request
+ * where the books it needs are.
+ *
+ * Requests for one book go to the shard owning its id, or on to this instance's controller if
+ * that is here. Adds stay here, under an id this instance owns. Listings, searches, pages,
+ * exports, batches, bulk imports and the change feed are handed to the {@link ShardRouter}.
+ * Requests another shard sends carry {@link ShardClient#LOCAL_HEADER} and are answered from this
+ * instance's books only. Position-addressed endpoints have no meaning across shards and are
+ * refused. Two internal endpoints serve the {@link ShardRebalancer}: {@code POST /shard/adopt}
+ * and {@code GET /shard/max-id}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "book-shards", name = "enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ShardRoutingFilter extends OncePerRequestFilter {
+
+    private static final Pattern BOOK_PATH = Pattern.compile("/\\d+");
+    private static final int MAX_TEXT_RESULTS = 1000; // Same bound as a single catalog's free-text search
+    private static final int MAX_CHANGES = 1000; // Same bounds as a single catalog's change feed
+    private static final int MAX_CHANGE_WAIT_SECONDS = 25;
+    private static final TypeReference<List<BookOperation>> OPERATIONS = new TypeReference<>() {};
+    private static final TypeReference<List<BookDataModel>> BOOKS = new TypeReference<>() {};
+
+    private final ShardMembership membership;
+    private final ShardRouter router;
+    private final ShardClient client;
+    private final BookStore bookStore;
+    private final BookStreamWriter streamWriter;
+    private final BookImportReader importReader;
+    private final ObjectMapper objectMapper;
+
+    public ShardRoutingFilter(ShardMembership membership, ShardRouter router, ShardClient client, BookStore bookStore,
+                              BookStreamWriter streamWriter, BookImportReader importReader, ObjectMapper objectMapper) {
+        this.membership = membership;
+        this.router = router;
+        this.client = client;
+        this.bookStore = bookStore;
+        this.streamWriter = streamWriter;
+        this.importReader = importReader;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        boolean local = request.getHeader(ShardClient.LOCAL_HEADER) != null;
+        try {
+            if (local) {
+                if (path.startsWith("/shard/")) {
+                    serveInternal(method, path, request, response);
+                } else {
+                    chain.doFilter(request, response);
+                }
+            } else if (BOOK_PATH.matcher(path).matches()) {
+                routeToOwner(Long.parseLong(path.substring(1)), method, request, response, chain);
+            } else if (!route(method, path, request, response)) {
+                chain.doFilter(request, response); // Adds, actuator and anything unknown
+            }
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            if (!response.isCommitted()) {
+                response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            }
+        } catch (ShardException e) {
+            if (!response.isCommitted()) {
+                relay(e, response);
+            }
+        }
+    }
+
+    // Answers the requests that span shards; returns false for those served here as on a single catalog
+    private boolean route(String method, String path, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        switch (method + " " + path) {
+            case "GET /" -> streamAll(response, "json");
+            case "GET /stream" -> streamAll(response, "ndjson");
+            case "GET /export" -> streamAll(response, param(request, "format", "json").toLowerCase(Locale.ROOT));
+            case "GET /search" -> writeJson(response, router.search(request.getParameter("bookName"),
+                    request.getParameter("bookAuthor"), request.getParameter("publicationName")));
+            case "GET /search/text" -> {
+                String q = request.getParameter("q");
+                if (q == null) {
+                    throw new IllegalArgumentException("Missing q");
+                }
+                int limit = Math.min(Integer.parseInt(param(request, "limit", "20")), MAX_TEXT_RESULTS);
+                writeJson(response, router.searchText(q, param(request, "mode", "fuzzy"), limit));
+            }
+            case "GET /page" -> writeJson(response, router.page(param(request, "sort", "id"),
+                    param(request, "direction", "asc").equalsIgnoreCase("desc"), request.getParameter("after"),
+                    Integer.parseInt(param(request, "offset", "0")), Integer.parseInt(param(request, "limit", "50")),
+                    request.getParameter("bookName"), request.getParameter("bookAuthor"), request.getParameter("publicationName")));
+            case "GET /changes" -> writeJson(response, router.changes(request.getParameter("epoch"),
+                    Long.parseLong(param(request, "after", "0")), Math.min(Integer.parseInt(param(request, "limit", "1000")), MAX_CHANGES),
+                    Duration.ofSeconds(Math.max(0, Math.min(Integer.parseInt(param(request, "wait", "0")), MAX_CHANGE_WAIT_SECONDS)))));
+            case "POST /batch" -> writeJson(response, router.applyBatch(objectMapper.readValue(request.getInputStream(), OPERATIONS)));
+            case "POST /bulk" -> importBooks(request, response);
+            default -> {
+                if (path.startsWith("/index/")) {
+                    throw new IllegalArgumentException("Positions span shards; address books by id");
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void routeToOwner(long id, String method, HttpServletRequest request, HttpServletResponse response,
+                              FilterChain chain) throws ServletException, IOException {
+        Shard owner = membership.ring().owner(id);
+        if (owner.id().equals(membership.self().id())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String pathAndQuery = "/" + id + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+        byte[] body = request.getInputStream().readAllBytes();
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : ReplicaRoutingFilter.FORWARDED_REQUEST_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                headers.put(name, value); // Conditional reads revalidate against the owner's ETag
+            }
+        }
+        HttpResponse<byte[]> answer = ShardRouter.await(client.send(owner, method, pathAndQuery, headers,
+                body.length > 0 ? body : null));
+        response.setStatus(answer.statusCode());
+        for (String name : ReplicaRoutingFilter.FORWARDED_RESPONSE_HEADERS) {
+            answer.headers().firstValue(name).ifPresent(value -> response.setHeader(name, value));
+        }
+        response.getOutputStream().write(answer.body());
+    }
+
+    private void streamAll(HttpServletResponse response, String format) throws IOException {
+        String contentType = switch (format) {
+            case "json" -> MediaType.APPLICATION_JSON_VALUE;
+            case "ndjson" -> BookStreamWriter.APPLICATION_NDJSON;
+            case "csv" -> BookImportReader.TEXT_CSV;
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        try (ShardRouter.MergedBooks books = router.allBooks()) {
+            response.setContentType(contentType);
+            OutputStream out = response.getOutputStream();
+            switch (format) {
+                case "json" -> streamWriter.writeJsonArray(out, books);
+                case "ndjson" -> streamWriter.writeNdjson(out, books);
+                default -> {
+                    response.setHeader("Content-Disposition", "attachment; filename=\"books.csv\"");
+                    streamWriter.writeCsv(out, books);
+                }
+            }
+        }
+    }
+
+    private void importBooks(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String mode = param(request, "mode", "insert").toLowerCase(Locale.ROOT);
+        if (!mode.equals("insert") && !mode.equals("upsert")) {
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        ShardRouter.BulkImport importer = router.importer(mode.equals("upsert"));
+        String contentType = request.getContentType() != null ? request.getContentType() : "";
+        try {
+            if (contentType.startsWith(BookImportReader.TEXT_CSV)) {
+                importReader.readCsv(request.getInputStream(), importer);
+            } else {
+                importReader.readJsonArray(request.getInputStream(), importer);
+            }
+        } catch (IOException | ShardException e) {
+            response.setStatus(e instanceof ShardException ? HttpStatus.BAD_GATEWAY.value() : HttpStatus.BAD_REQUEST.value());
+            writeJson(response, importer.result(e.getMessage())); // Batches committed before the failure stay
+            return;
+        }
+        writeJson(response, importer.result(null));
+    }
+
+    // The rebalancer's endpoints, only answered to other shards
+    private void serveInternal(String method, String path, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        switch (method + " " + path) {
+            case "POST /shard/adopt" -> writeJson(response, bookStore.adoptAll(objectMapper.readValue(request.getInputStream(), BOOKS)));
+            case "GET /shard/max-id" -> writeJson(response, bookStore.maxId());
+            default -> response.sendError(HttpStatus.NOT_FOUND.value());
+        }
+    }
+
+    // Passes on a shard's refusal as is; a shard that can't be reached makes the whole request unavailable
+    private void relay(ShardException e, HttpServletResponse response) throws IOException {
+        if (e.getStatus() >= 400 && e.getStatus() < 500) {
+            response.setStatus(e.getStatus());
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write(e.getBody());
+        } else {
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage());
+        }
+    }
+
+    private void writeJson(HttpServletResponse response, Object body) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static String param(HttpServletRequest request, String name, String defaultValue) {
+        String value = request.getParameter(name);
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,168 @@
+package com.client.client.store;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.stereotype.Component;
+
+import com.client.client.model.BookChange;
+import com.client.client.model.BookChanges;
+import com.client.client.model.BookDataModel;
+
+/**
+ * The catalog's recent changes, numbered in the order they were applied, for callers that keep
+ * copies of books to follow instead of rereading the catalog.
+ *
+ * The newest {@code book-store.change-feed-capacity} changes are kept in a ring. A follower
+ * passes the position of the last change it has seen and gets the ones after it; when there are
+ * none yet its read waits for the next change, which makes a long poll. A follower that falls
+ * further behind than the ring reaches, or whose position is from before a restart, is told to
+ * reset instead. Changes to one book are numbered in the order the store applied them.
+ */
+@Component
+public class BookChangeFeed implements BookStoreListener {
+
+    private record Waiter(long after, int limit, CompletableFuture<BookChanges> result) {
+    }
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final BookChange[] ring; // The change at position p is in slot p % length
+    private final ReentrantLock lock = new ReentrantLock();
+    private long newest; // Position of the newest change, 0 before the first
+    private List<Waiter> waiting = new ArrayList<>(); // Reads waiting for the next change
+
+    public BookChangeFeed(BookStoreProperties properties) {
+        this.ring = new BookChange[Math.max(1, properties.getChangeFeedCapacity())];
+    }
+
+    /**
+     * Reads the changes after a position, or waits for the next ones if there are none yet.
+     *
+     * @param epoch The epoch the position belongs to, or null to start following the feed.
+     * @param after Position of the last change the caller has seen.
+     * @param limit The maximum number of changes to return.
+     * @param wait  How long to wait for a change if there is none to return.
+     * @return The changes; completed at once if there are some, if the caller has to reset or if
+     *         it is starting to follow, and otherwise with the next changes or, after the wait,
+     *         with none.
+     */
+    public CompletableFuture<BookChanges> read(String epoch, long after, int limit, Duration wait) {
+        lock.lock();
+        try {
+            if (epoch == null) {
+                return CompletableFuture.completedFuture(new BookChanges(this.epoch, newest, false, List.of()));
+            }
+            if (!epoch.equals(this.epoch) || after > newest || after < newest - ring.length) {
+                return CompletableFuture.completedFuture(new BookChanges(this.epoch, newest, true, List.of()));
+            }
+            if (after < newest || wait.isZero()) {
+                return CompletableFuture.completedFuture(slice(after, limit));
+            }
+
+            Waiter waiter = new Waiter(after, Math.max(1, limit), new CompletableFuture<>());
+            waiting.add(waiter);
+            waiter.result()
+                    .completeOnTimeout(new BookChanges(this.epoch, after, false, List.of()), wait.toMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((changes, error) -> forget(waiter));
+            return waiter.result();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The epoch of this run's positions.
+     */
+    public String epoch() {
+        return epoch;
+    }
+
+    /**
+     * @return The position of the newest change, 0 before the first.
+     */
+    public long cursor() {
+        lock.lock();
+        try {
+            return newest;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void catalogLoaded(Collection<BookDataModel> books) {
+        // Followers of an earlier run reset on the new epoch
+    }
+
+    @Override
+    public void bookAdded(BookDataModel book) {
+        publish(BookChange.Type.ADD, book.id, book);
+    }
+
+    @Override
+    public void bookUpdated(BookDataModel previous, BookDataModel current) {
+        publish(BookChange.Type.UPDATE, current.id, current);
+    }
+
+    @Override
+    public void bookRemoved(BookDataModel book) {
+        publish(BookChange.Type.DELETE, book.id, null);
+    }
+
+    private void publish(BookChange.Type type, long id, BookDataModel book) {
+        List<Waiter> woken;
+        lock.lock();
+        try {
+            newest++;
+            ring[(int) (newest % ring.length)] = new BookChange(newest, type, id, book);
+            if (waiting.isEmpty()) {
+                return;
+            }
+            woken = waiting;
+            waiting = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+        // Answered off the writing thread, by which time the rest of a batch has usually been published too
+        for (Waiter waiter : woken) {
+            CompletableFuture.runAsync(() -> waiter.result().complete(sliceLocked(waiter.after(), waiter.limit())));
+        }
+    }
+
+    private BookChanges sliceLocked(long after, int limit) {
+        lock.lock();
+        try {
+            if (after < newest - ring.length) {
+                return new BookChanges(epoch, newest, true, List.of()); // Overtaken while waking up
+            }
+            return slice(after, limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held, for a position the ring still covers
+    private BookChanges slice(long after, int limit) {
+        long last = Math.min(newest, after + Math.max(1, limit));
+        List<BookChange> changes = new ArrayList<>((int) (last - after));
+        for (long position = after + 1; position <= last; position++) {
+            changes.add(ring[(int) (position % ring.length)]);
+        }
+        return new BookChanges(epoch, last, false, changes);
+    }
+
+    private void forget(Waiter waiter) {
+        lock.lock();
+        try {
+            waiting.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.client.client.store;
+
+/**
+ * Decides which ids the {@link BookStore} may give the books it adds. Unrestricted unless the
+ * catalog is sharded, where an instance only assigns ids it owns and only once it knows its peers'
+ * ids.
+ */
+@FunctionalInterface
+public interface BookIdPolicy {
+
+    BookIdPolicy ANY = id -> true;
+
+    /**
+     * @param id A candidate id, not yet used by this store.
+     * @return Whether a new book may take it.
+     */
+    boolean mayAssign(long id);
+
+    /**
+     * Called before a new book is given an id.
+     *
+     * @throws StoreBusyException If no new book may be given an id yet.
+     */
+    default void checkAssignable() {
+    }
+}
@@ -0,0 +1,33 @@
+package com.client.client.store;
+
+import java.util.Map;
+
+import com.client.client.model.BookDataModel;
+
+/**
+ * A single change to the catalog, numbered with the store's mutation sequence.
+ *
+ * @param sequence Position of the change in the store's history, starting at 1.
+ * @param type     The kind of change.
+ * @param id       Id of the affected book.
+ * @param book     The added or replacement book, or null for deletions.
+ */
+public record BookMutation(long sequence, Type type, long id, BookDataModel book) {
+
+    public enum Type {
+        ADD, UPDATE, DELETE
+    }
+
+    /**
+     * Replays this change onto books keyed by id. Replaying is idempotent: applying a change
+     * the map already reflects leaves it unchanged.
+     *
+     * @param books The catalog to modify, in insertion order.
+     */
+    public void applyTo(Map<Long, BookDataModel> books) {
+        switch (type) {
+            case ADD, UPDATE -> books.put(id, book);
+            case DELETE -> books.remove(id);
+        }
+    }
+}
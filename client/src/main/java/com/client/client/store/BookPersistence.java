@@ -0,0 +1,64 @@
+package com.client.client.store;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Strategy used by {@link BookStore} to make the in-memory catalog durable.
+ */
+public interface BookPersistence {
+
+    /**
+     * Creates the table the store keeps its books in. Called once, before {@link #load()}.
+     *
+     * @return A table on the heap, unless this persistence stores the books itself.
+     */
+    default BookTable createTable() {
+        return new HeapBookTable();
+    }
+
+    /**
+     * Recovers the catalog as it was last persisted.
+     *
+     * @return The recovered books and the sequence number of the last mutation they include. The
+     *         books are those the store has to add to its table: none if the table already holds them.
+     * @throws IOException If the persisted state cannot be read.
+     */
+    CatalogSnapshot load() throws IOException;
+
+    /**
+     * Starts any background work, such as periodic flushing or compaction.
+     *
+     * @param state Supplies consistent snapshots of the live catalog.
+     */
+    void start(Supplier<CatalogSnapshot> state);
+
+    /**
+     * Records a mutation. Called while the book's stripe lock is held, so the mutations of one book
+     * arrive in sequence order. Writers of different books append concurrently, so across books a
+     * mutation may arrive before one with a lower sequence; implementations must not assume otherwise,
+     * for example when tracking the last sequence they hold.
+     *
+     * @param mutation The change that was just applied to the catalog.
+     * @return A future that completes once the mutation is as durable as this persistence promises.
+     */
+    CompletableFuture<Void> append(BookMutation mutation);
+
+    /**
+     * Records mutations that must survive or be lost together. Called while the store excludes
+     * all other writers, so no other mutation is numbered in between.
+     *
+     * @param mutations Changes that were just applied to the catalog, in sequence order.
+     * @return A future that completes once all of them are as durable as this persistence promises.
+     */
+    default CompletableFuture<Void> appendAll(List<BookMutation> mutations) {
+        return CompletableFuture.allOf(mutations.stream().map(this::append).toArray(CompletableFuture<?>[]::new));
+    }
+
+    /**
+     * Stops background work and durably writes anything still pending.
+     */
+    void close();
+}
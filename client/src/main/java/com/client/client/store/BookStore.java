@@ -0,0 +1,728 @@
+package com.client.client.store;
+
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.model.BookOperation;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Resident copy of the book catalog.
+ *
+ * The catalog is recovered once at startup and every read is served from the {@link BookTable}
+ * the persistence provides: objects on the heap, or records in a memory-mapped file. Books are
+ * keyed by a stable, store-assigned id, so lookups, updates and deletes are O(1). Each mutation
+ * is numbered and handed to the configured {@link BookPersistence}, which decides how and when
+ * it reaches disk.
+ *
+ * Reads never block. Writes to the same book are serialized by one of a fixed set of striped
+ * locks, so writes to different books proceed in parallel. Every stored book carries a version
+ * that is bumped on update; a caller that passes the version it last read gets a
+ * {@link VersionConflictException} instead of silently overwriting someone else's change.
+ * Registered {@link BookStoreListener}s see every change, in order per book.
+ *
+ * The blocking write methods, and asynchronous writes run through {@link #admit(Supplier)}, admit
+ * a bounded number of callers at a time and turn the rest away with a {@link StoreBusyException}
+ * once {@code book-store.pending-write-timeout} passes. A thread pool used to provide that
+ * bound; with virtual threads every request gets its own thread, and reactive writes hold none,
+ * so the store has to bound its waiting writers itself.
+ */
+@Component
+public class BookStore {
+
+    private static final Logger log = LoggerFactory.getLogger(BookStore.class);
+
+    private final BookPersistence persistence;
+    private final List<BookStoreListener> listeners;
+    private final BookTable table; // The books, keyed by id and in id order
+    private final ReentrantLock[] stripes; // Serialize writers of the same id
+    private final ReentrantReadWriteLock commitLock = new ReentrantReadWriteLock(); // Writers share it; snapshots exclude them
+    private final AtomicLong sequence = new AtomicLong(); // Number of the last applied mutation
+    private final AtomicLong applied = new AtomicLong(); // Mutations the table and every listener have finished with
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final BookIdPolicy idPolicy; // Which ids new books may take
+    private final Semaphore pendingWrites; // Admits the blocking writers allowed to wait for persistence at once
+    private final long pendingWriteTimeoutNanos;
+
+    public BookStore(BookPersistence persistence, BookStoreProperties properties, List<BookStoreListener> listeners) {
+        this(persistence, properties, listeners, BookIdPolicy.ANY);
+    }
+
+    @Autowired
+    public BookStore(BookPersistence persistence, BookStoreProperties properties, List<BookStoreListener> listeners,
+                     ObjectProvider<BookIdPolicy> idPolicy) {
+        this(persistence, properties, listeners, idPolicy.getIfAvailable(() -> BookIdPolicy.ANY));
+    }
+
+    public BookStore(BookPersistence persistence, BookStoreProperties properties, List<BookStoreListener> listeners,
+                     BookIdPolicy idPolicy) {
+        this.persistence = persistence;
+        this.idPolicy = idPolicy;
+        this.table = persistence.createTable();
+        this.listeners = List.copyOf(listeners);
+        this.stripes = new ReentrantLock[Math.max(1, properties.getLockStripes())];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.pendingWrites = new Semaphore(Math.max(1, properties.getMaxPendingWrites()), true);
+        this.pendingWriteTimeoutNanos = properties.getPendingWriteTimeout().toNanos();
+    }
+
+    /**
+     * Recovers the catalog and starts the persistence's background work.
+     */
+    @PostConstruct
+    public void start() {
+        CatalogSnapshot recovered;
+        long started = System.nanoTime();
+        try {
+            recovered = persistence.load();
+        } catch (IOException e) {
+            log.error("Failed to load books, starting with an empty catalog", e);
+            recovered = new CatalogSnapshot(0, new ArrayList<>());
+        }
+
+        long read = System.nanoTime();
+        commitLock.writeLock().lock();
+        try {
+            for (BookDataModel book : recovered.books()) { // Empty if the table keeps the books itself
+                if (book.version == 0) {
+                    book.version = 1; // Books saved before versioning start at the first version
+                }
+                table.apply(new BookMutation(recovered.sequence(), BookMutation.Type.ADD, book.id, book));
+            }
+            nextId.set(table.maxId() + 1);
+            sequence.set(recovered.sequence());
+            recovered = null; // Books seeded into a table off the heap can go before the listeners index it
+            Collection<BookDataModel> loaded = new AbstractCollection<>() {
+                @Override
+                public Iterator<BookDataModel> iterator() {
+                    return table.iterate(false, null);
+                }
+
+                @Override
+                public int size() {
+                    return table.size();
+                }
+            };
+            listeners.forEach(listener -> listener.catalogLoaded(loaded));
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+        log.info("Loaded {} books: {} ms reading, {} ms indexing", table.size(),
+                (read - started) / 1_000_000, (System.nanoTime() - read) / 1_000_000);
+        persistence.start(this::snapshot);
+    }
+
+    /**
+     * Stops background work and durably writes any pending changes.
+     */
+    @PreDestroy
+    public void stop() {
+        persistence.close();
+    }
+
+    /**
+     * @return All books in id order. Concurrent changes may or may not be reflected.
+     */
+    public List<BookDataModel> findAll() {
+        List<BookDataModel> all = new ArrayList<>(table.size());
+        inIdOrder().forEach(all::add);
+        return all;
+    }
+
+    /**
+     * @return All books in id order, read lazily, for streaming without copying the catalog.
+     *         Iteration is weakly consistent.
+     */
+    public Iterable<BookDataModel> inIdOrder() {
+        return () -> table.iterate(false, null);
+    }
+
+    /**
+     * Range scan in id order. Iteration is weakly consistent.
+     *
+     * @param descending Whether to walk from the largest id down.
+     * @param after      Only books past this id in the walking direction, or null to start at the end.
+     * @return The books, lazily.
+     */
+    public Iterator<BookDataModel> iterate(boolean descending, Long after) {
+        return table.iterate(descending, after);
+    }
+
+    /**
+     * @param id The id of the book.
+     * @return The book, or null if there is no book with that id.
+     */
+    public BookDataModel findById(long id) {
+        return table.get(id);
+    }
+
+    /**
+     * Resolves a position in the catalog to the id of the book currently there.
+     * Positions shift as books are removed, so this only backs the index-based compatibility endpoints.
+     *
+     * @param index The position of the book.
+     * @return The id of the book, or null if the index is out of bounds.
+     */
+    public Long findIdAt(int index) {
+        if (index < 0) {
+            return null;
+        }
+        Iterator<BookDataModel> books = table.iterate(false, null);
+        for (int i = 0; i < index && books.hasNext(); i++) {
+            books.next();
+        }
+        return books.hasNext() ? books.next().id : null;
+    }
+
+    /**
+     * @return The number of books in the catalog.
+     */
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * @return The largest id in the catalog, or 0 if it is empty.
+     */
+    public long maxId() {
+        return table.maxId();
+    }
+
+    /**
+     * Makes sure ids up to the given one are never assigned again, e.g. because another instance
+     * may have given them to its books.
+     *
+     * @param id The id to move past.
+     */
+    public void skipIdsThrough(long id) {
+        nextId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    /**
+     * @return The sequence number of the last applied mutation.
+     */
+    public long sequence() {
+        return sequence.get();
+    }
+
+    /**
+     * Counts mutations only once the table and every listener have them, unlike {@link #sequence()},
+     * which numbers a mutation before it is applied. A read that starts after this count has
+     * reached some value therefore sees every mutation counted in it.
+     *
+     * @return The number of mutations applied in full since startup.
+     */
+    public long appliedChanges() {
+        return applied.get();
+    }
+
+    /**
+     * Briefly blocks writers to take a consistent copy of the catalog.
+     *
+     * @return The books and the sequence number of the last mutation they include.
+     */
+    public CatalogSnapshot snapshot() {
+        commitLock.writeLock().lock();
+        try {
+            return new CatalogSnapshot(sequence.get(), findAll());
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a book to the catalog under a newly assigned id.
+     *
+     * @param book The book to add; any id or version it carries is replaced.
+     * @return The added book.
+     */
+    public BookDataModel add(BookDataModel book) {
+        return awaitDurable(() -> addAsync(book)); // Wait outside the locks so concurrent writers share a group commit
+    }
+
+    /**
+     * Same as {@link #add(BookDataModel)}, but returns as soon as the book is in memory instead of
+     * waiting for it to become durable.
+     *
+     * @return A future completed with the added book once it is durable.
+     */
+    public CompletableFuture<BookDataModel> addAsync(BookDataModel book) {
+        return applyAdd(book).thenApply(durable -> book);
+    }
+
+    /**
+     * Appends many books, each under a newly assigned id, and waits once for the whole batch to
+     * become durable instead of once per book.
+     *
+     * @param batch The books to add; any ids or versions they carry are replaced.
+     * @return The added books.
+     */
+    public List<BookDataModel> addAll(List<BookDataModel> batch) {
+        return awaitDurable(() -> addAllAsync(batch));
+    }
+
+    /**
+     * Same as {@link #addAll(List)}, without waiting for the batch to become durable.
+     *
+     * @return A future completed with the added books once all of them are durable.
+     */
+    public CompletableFuture<List<BookDataModel>> addAllAsync(List<BookDataModel> batch) {
+        List<CompletableFuture<Void>> durable = new ArrayList<>(batch.size());
+        for (BookDataModel book : batch) {
+            durable.add(applyAdd(book));
+        }
+        return allOf(durable).thenApply(done -> batch);
+    }
+
+    /**
+     * Replaces the books whose id is already stored and appends the rest under newly assigned ids,
+     * waiting once for the whole batch to become durable. Replacements are unconditional.
+     *
+     * @param batch The books to store.
+     * @return The number of books that replaced a stored one; the others were added.
+     */
+    public int upsertAll(List<BookDataModel> batch) {
+        return awaitDurable(() -> upsertAllAsync(batch));
+    }
+
+    /**
+     * Same as {@link #upsertAll(List)}, without waiting for the batch to become durable.
+     *
+     * @return A future completed with the number of replaced books once all changes are durable.
+     */
+    public CompletableFuture<Integer> upsertAllAsync(List<BookDataModel> batch) {
+        List<CompletableFuture<Void>> durable = new ArrayList<>(batch.size());
+        int updated = 0;
+        for (BookDataModel book : batch) {
+            CompletableFuture<Void> done = book.id != null ? applyUpdate(book.id, book, 0) : null;
+            if (done != null) {
+                updated++;
+            } else {
+                done = applyAdd(book);
+            }
+            durable.add(done);
+        }
+        int replaced = updated;
+        return allOf(durable).thenApply(done -> replaced);
+    }
+
+    /**
+     * Stores books handed over by another instance under the ids and versions they carry, waiting
+     * once for the whole batch to become durable. A stored book is only replaced by a later version.
+     *
+     * @param batch The books, each with an id and a version.
+     * @return The number of books stored; the others were already here at the same or a later version.
+     */
+    public int adoptAll(List<BookDataModel> batch) {
+        return awaitDurable(() -> {
+            List<CompletableFuture<Void>> durable = new ArrayList<>(batch.size());
+            for (BookDataModel book : batch) {
+                CompletableFuture<Void> done = applyAdopt(book);
+                if (done != null) {
+                    durable.add(done);
+                }
+            }
+            int adopted = durable.size();
+            return allOf(durable).thenApply(done -> adopted);
+        });
+    }
+
+    /**
+     * Removes a book.
+     *
+     * @param id The id of the book to remove.
+     * @param expectedVersion The version the caller last saw, or 0 to remove unconditionally.
+     * @return The removed book, or null if there is no book with that id.
+     * @throws VersionConflictException If the book has changed since {@code expectedVersion}.
+     */
+    public BookDataModel remove(long id, long expectedVersion) {
+        return awaitDurable(() -> removeAsync(id, expectedVersion));
+    }
+
+    /**
+     * Same as {@link #remove(long, long)}, without waiting for the removal to become durable.
+     *
+     * @return A future completed with the removed book, or null if there is no book with that id.
+     * @throws VersionConflictException If the book has changed since {@code expectedVersion}.
+     */
+    public CompletableFuture<BookDataModel> removeAsync(long id, long expectedVersion) {
+        BookDataModel removed;
+        CompletableFuture<Void> durable;
+        ReentrantLock stripe = stripeFor(id);
+        stripe.lock();
+        commitLock.readLock().lock();
+        try {
+            removed = table.get(id);
+            if (removed == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            checkVersion(removed, expectedVersion);
+            BookMutation mutation = new BookMutation(sequence.incrementAndGet(), BookMutation.Type.DELETE, id, null);
+            table.apply(mutation);
+            for (BookStoreListener listener : listeners) {
+                listener.bookRemoved(removed);
+            }
+            applied.incrementAndGet();
+            durable = persistence.append(mutation);
+        } finally {
+            commitLock.readLock().unlock();
+            stripe.unlock();
+        }
+        return durable.thenApply(done -> removed);
+    }
+
+    /**
+     * Removes a book unconditionally.
+     *
+     * @param id The id of the book to remove.
+     * @return The removed book, or null if there is no book with that id.
+     */
+    public BookDataModel remove(long id) {
+        return remove(id, 0);
+    }
+
+    /**
+     * Replaces a book, keeping its id and position and bumping its version.
+     * The update is conditional when {@code book.version} is set to the version the caller last read.
+     *
+     * @param id The id of the book to replace.
+     * @param book The new book details; any id it carries is replaced.
+     * @return The stored book, or null if there is no book with that id.
+     * @throws VersionConflictException If the book has changed since {@code book.version}.
+     */
+    public BookDataModel update(long id, BookDataModel book) {
+        return awaitDurable(() -> updateAsync(id, book));
+    }
+
+    /**
+     * Same as {@link #update(long, BookDataModel)}, without waiting for the update to become durable.
+     *
+     * @return A future completed with the stored book, or null if there is no book with that id.
+     * @throws VersionConflictException If the book has changed since {@code book.version}.
+     */
+    public CompletableFuture<BookDataModel> updateAsync(long id, BookDataModel book) {
+        CompletableFuture<Void> durable = applyUpdate(id, book, book.version);
+        if (durable == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return durable.thenApply(done -> book);
+    }
+
+    /**
+     * Applies a list of creates, updates and deletes as one unit: either every operation is applied
+     * and persisted together, or none is. Other writers wait while the batch is applied.
+     *
+     * The whole batch is checked before anything changes. Positions are resolved against the
+     * catalog as it was before the batch, and versions are checked as if the earlier operations
+     * of the batch had already been applied.
+     *
+     * @param operations The operations, applied in order.
+     * @return For each operation, the created or updated book, or the deleted one.
+     * @throws NoSuchBookException If an operation names a book that does not exist.
+     * @throws VersionConflictException If an operation names a version that is not current.
+     * @throws IllegalArgumentException If an operation is incomplete.
+     */
+    public List<BookDataModel> applyBatch(List<BookOperation> operations) {
+        return awaitDurable(() -> applyBatchAsync(operations));
+    }
+
+    /**
+     * Same as {@link #applyBatch(List)}, without waiting for the batch to become durable.
+     *
+     * @return A future completed with the result of each operation once the batch is durable.
+     * @throws NoSuchBookException If an operation names a book that does not exist.
+     * @throws VersionConflictException If an operation names a version that is not current.
+     * @throws IllegalArgumentException If an operation is incomplete.
+     */
+    public CompletableFuture<List<BookDataModel>> applyBatchAsync(List<BookOperation> operations) {
+        List<BookDataModel> results = new ArrayList<>(operations.size());
+        CompletableFuture<Void> durable;
+        commitLock.writeLock().lock(); // Excludes every other writer, and snapshots, for the whole batch
+        try {
+            long[] ids = resolveIds(operations);
+            validate(operations, ids);
+            if (operations.stream().anyMatch(operation -> operation.op() == BookOperation.Type.CREATE)) {
+                idPolicy.checkAssignable(); // Before any operation takes a sequence number
+            }
+
+            List<BookMutation> mutations = new ArrayList<>(operations.size());
+            List<Runnable> notifications = new ArrayList<>(operations.size());
+            Map<Long, BookDataModel> staged = new HashMap<>(); // Books as the earlier operations left them; null once deleted
+            for (int i = 0; i < operations.size(); i++) {
+                BookOperation operation = operations.get(i);
+                switch (operation.op()) {
+                    case CREATE -> {
+                        BookDataModel book = operation.book();
+                        book.id = assignId();
+                        book.version = 1;
+                        mutations.add(new BookMutation(sequence.incrementAndGet(), BookMutation.Type.ADD, book.id, book));
+                        notifications.add(() -> listeners.forEach(listener -> listener.bookAdded(book)));
+                        staged.put(book.id, book);
+                        results.add(book);
+                    }
+                    case UPDATE -> {
+                        BookDataModel current = staged.containsKey(ids[i]) ? staged.get(ids[i]) : table.get(ids[i]);
+                        BookDataModel book = operation.book();
+                        book.id = ids[i];
+                        book.version = current.version + 1;
+                        mutations.add(new BookMutation(sequence.incrementAndGet(), BookMutation.Type.UPDATE, book.id, book));
+                        notifications.add(() -> listeners.forEach(listener -> listener.bookUpdated(current, book)));
+                        staged.put(book.id, book);
+                        results.add(book);
+                    }
+                    case DELETE -> {
+                        BookDataModel removed = staged.containsKey(ids[i]) ? staged.get(ids[i]) : table.get(ids[i]);
+                        mutations.add(new BookMutation(sequence.incrementAndGet(), BookMutation.Type.DELETE, ids[i], null));
+                        notifications.add(() -> listeners.forEach(listener -> listener.bookRemoved(removed)));
+                        staged.put(ids[i], null);
+                        results.add(removed);
+                    }
+                }
+            }
+            table.applyAll(mutations);
+            notifications.forEach(Runnable::run);
+            applied.addAndGet(mutations.size());
+            durable = persistence.appendAll(mutations);
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+        return durable.thenApply(done -> results);
+    }
+
+    /**
+     * Runs one of the asynchronous writes as one of the bounded number of writers allowed to wait
+     * for persistence at once, for callers that wait for the returned future without blocking.
+     * May block briefly for locks and for a free slot, so don't call it on an event loop.
+     *
+     * @param write The write, such as {@code () -> addAsync(book)}.
+     * @return The write's future; its slot is freed when it completes.
+     * @throws StoreBusyException If no slot frees up within {@code book-store.pending-write-timeout}.
+     */
+    public <T> CompletableFuture<T> admit(Supplier<CompletableFuture<T>> write) {
+        try {
+            if (!pendingWrites.tryAcquire(pendingWriteTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new StoreBusyException("Too many writes are waiting for persistence");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StoreBusyException("Interrupted while waiting to write");
+        }
+        CompletableFuture<T> durable;
+        try {
+            durable = write.get();
+        } catch (RuntimeException e) {
+            pendingWrites.release();
+            throw e;
+        }
+        return durable.whenComplete((result, error) -> pendingWrites.release());
+    }
+
+    // Applies a write and waits for it to become durable, as one of a bounded number of waiting writers
+    private <T> T awaitDurable(Supplier<CompletableFuture<T>> write) {
+        return admit(write).join();
+    }
+
+    // Turns each operation's id or position into an id, reading positions off the pre-batch catalog in one pass
+    private long[] resolveIds(List<BookOperation> operations) {
+        long[] ids = new long[operations.size()];
+        TreeMap<Integer, List<Integer>> byIndex = new TreeMap<>(); // position -> operations naming it
+        for (int i = 0; i < operations.size(); i++) {
+            BookOperation operation = operations.get(i);
+            if (operation.op() == null) {
+                throw new IllegalArgumentException("Operation " + i + " has no op");
+            }
+            if (operation.op() == BookOperation.Type.CREATE) {
+                continue;
+            }
+            if (operation.id() != null) {
+                ids[i] = operation.id();
+            } else if (operation.index() != null && operation.index() >= 0) {
+                byIndex.computeIfAbsent(operation.index(), index -> new ArrayList<>()).add(i);
+            } else {
+                throw new IllegalArgumentException("Operation " + i + " names neither an id nor a valid index");
+            }
+        }
+
+        Iterator<BookDataModel> catalog = table.iterate(false, null);
+        int position = 0;
+        for (Map.Entry<Integer, List<Integer>> wanted : byIndex.entrySet()) {
+            while (position < wanted.getKey() && catalog.hasNext()) {
+                catalog.next();
+                position++;
+            }
+            if (!catalog.hasNext()) {
+                throw new NoSuchBookException("No book at index " + wanted.getKey());
+            }
+            long id = catalog.next().id;
+            position++;
+            wanted.getValue().forEach(i -> ids[i] = id);
+        }
+        return ids;
+    }
+
+    // Replays the batch against versions only, so a failing operation is caught before anything is applied
+    private void validate(List<BookOperation> operations, long[] ids) {
+        Map<Long, Long> versions = new HashMap<>(); // id -> version after the earlier operations; null once deleted
+        for (int i = 0; i < operations.size(); i++) {
+            BookOperation operation = operations.get(i);
+            if (operation.op() != BookOperation.Type.DELETE && operation.book() == null) {
+                throw new IllegalArgumentException("Operation " + i + " has no book");
+            }
+            if (operation.op() == BookOperation.Type.CREATE) {
+                continue;
+            }
+
+            long id = ids[i];
+            Long version;
+            if (versions.containsKey(id)) {
+                version = versions.get(id);
+            } else {
+                BookDataModel current = table.get(id);
+                version = current != null ? current.version : null;
+            }
+            if (version == null) {
+                throw new NoSuchBookException("No book with id " + id);
+            }
+            if (operation.version() != 0 && operation.version() != version) {
+                throw new VersionConflictException(id, operation.version(), version);
+            }
+            versions.put(id, operation.op() == BookOperation.Type.UPDATE ? version + 1 : null);
+        }
+    }
+
+    /**
+     * Adds a book in memory and hands the mutation to the persistence, without waiting for it.
+     *
+     * @return A future completed once the addition is durable.
+     */
+    private CompletableFuture<Void> applyAdd(BookDataModel book) {
+        book.id = assignId();
+        book.version = 1;
+        ReentrantLock stripe = stripeFor(book.id);
+        stripe.lock();
+        commitLock.readLock().lock();
+        try {
+            BookMutation mutation = new BookMutation(sequence.incrementAndGet(), BookMutation.Type.ADD, book.id, book);
+            table.apply(mutation);
+            listeners.forEach(listener -> listener.bookAdded(book));
+            applied.incrementAndGet();
+            return persistence.append(mutation);
+        } finally {
+            commitLock.readLock().unlock();
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Replaces a book in memory and hands the mutation to the persistence, without waiting for it.
+     *
+     * @return A future completed once the update is durable, or null if there is no book with that id.
+     * @throws VersionConflictException If the book has changed since {@code expectedVersion}.
+     */
+    private CompletableFuture<Void> applyUpdate(long id, BookDataModel book, long expectedVersion) {
+        ReentrantLock stripe = stripeFor(id);
+        stripe.lock();
+        commitLock.readLock().lock();
+        try {
+            BookDataModel current = table.get(id);
+            if (current == null) {
+                return null;
+            }
+            checkVersion(current, expectedVersion);
+            book.id = id;
+            book.version = current.version + 1;
+            BookMutation mutation = new BookMutation(sequence.incrementAndGet(), BookMutation.Type.UPDATE, id, book);
+            table.apply(mutation);
+            listeners.forEach(listener -> listener.bookUpdated(current, book));
+            applied.incrementAndGet();
+            return persistence.append(mutation);
+        } finally {
+            commitLock.readLock().unlock();
+            stripe.unlock();
+        }
+    }
+
+    // Next unused id the policy allows; every id is only ever offered once
+    private long assignId() {
+        idPolicy.checkAssignable();
+        long id;
+        do {
+            id = nextId.getAndIncrement();
+        } while (!idPolicy.mayAssign(id) || table.get(id) != null);
+        return id;
+    }
+
+    /**
+     * Stores a book under its own id and version, unless the stored copy is as recent.
+     *
+     * @return A future completed once the change is durable, or null if nothing changed.
+     */
+    private CompletableFuture<Void> applyAdopt(BookDataModel book) {
+        if (book.id == null) {
+            throw new IllegalArgumentException("A handed over book needs an id");
+        }
+        ReentrantLock stripe = stripeFor(book.id);
+        stripe.lock();
+        commitLock.readLock().lock();
+        try {
+            BookDataModel current = table.get(book.id);
+            if (current != null && current.version >= book.version) {
+                return null;
+            }
+            book.version = Math.max(1, book.version);
+            BookMutation mutation = new BookMutation(sequence.incrementAndGet(),
+                    current == null ? BookMutation.Type.ADD : BookMutation.Type.UPDATE, book.id, book);
+            table.apply(mutation);
+            if (current == null) {
+                listeners.forEach(listener -> listener.bookAdded(book));
+            } else {
+                listeners.forEach(listener -> listener.bookUpdated(current, book));
+            }
+            applied.incrementAndGet();
+            return persistence.append(mutation);
+        } finally {
+            commitLock.readLock().unlock();
+            stripe.unlock();
+        }
+    }
+
+    private static CompletableFuture<Void> allOf(List<CompletableFuture<Void>> durable) {
+        // Consecutive appends share group commits, so this typically waits for a single flush
+        return CompletableFuture.allOf(durable.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private static void checkVersion(BookDataModel current, long expectedVersion) {
+        if (expectedVersion != 0 && expectedVersion != current.version) {
+            throw new VersionConflictException(current.id, expectedVersion, current.version);
+        }
+    }
+
+    private ReentrantLock stripeFor(long id) {
+        return stripes[(Long.hashCode(id) & 0x7fffffff) % stripes.length];
+    }
+}
@@ -0,0 +1,29 @@
+package com.client.client.store;
+
+import java.util.Collection;
+
+import com.client.client.model.BookDataModel;
+
+/**
+ * Receives every change applied to the {@link BookStore}, for example to maintain secondary indexes.
+ *
+ * Callbacks run on the writing thread while the book's stripe lock is held, so changes to one book
+ * arrive in order. Changes to different books may arrive concurrently. Implementations must be
+ * thread-safe and fast.
+ */
+public interface BookStoreListener {
+
+    /**
+     * Called once with the recovered catalog, before any other callback.
+     *
+     * @param books All books in the catalog, as a weakly consistent view that stays live for the life
+     *              of the store, so a listener that keeps nothing of its own can scan it later.
+     */
+    void catalogLoaded(Collection<BookDataModel> books);
+
+    void bookAdded(BookDataModel book);
+
+    void bookUpdated(BookDataModel previous, BookDataModel current);
+
+    void bookRemoved(BookDataModel book);
+}
@@ -0,0 +1,60 @@
+package com.client.client.store;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Gauges for the size of the catalog and of the files the configured persistence keeps it in.
+ */
+@Component
+public class BookStoreMetrics implements MeterBinder {
+
+    private final BookStore bookStore;
+    private final BookStoreProperties properties;
+
+    public BookStoreMetrics(BookStore bookStore, BookStoreProperties properties) {
+        this.bookStore = bookStore;
+        this.properties = properties;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meters) {
+        Gauge.builder("book.store.books", bookStore, BookStore::size)
+                .description("Books in the catalog")
+                .register(meters);
+        for (String file : files()) {
+            Gauge.builder("book.store.file.size", Path.of(file), BookStoreMetrics::sizeOf)
+                    .description("Size of a file the catalog is persisted in")
+                    .tag("file", file)
+                    .baseUnit(BaseUnits.BYTES)
+                    .strongReference(true) // Nothing else holds on to the path
+                    .register(meters);
+        }
+    }
+
+    private List<String> files() {
+        return switch (properties.getPersistence()) {
+            case SNAPSHOT -> List.of(properties.getFile());
+            case WAL -> List.of(properties.getWal().getFile(), properties.getWal().getSnapshotFile());
+            case MAPPED -> List.of(properties.getMapped().getFile(), properties.getMapped().getFile() + ".idx");
+            case NONE -> List.of();
+        };
+    }
+
+    private static double sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return Double.NaN; // Not written yet
+        }
+    }
+}
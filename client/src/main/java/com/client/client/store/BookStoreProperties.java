@@ -0,0 +1,274 @@
+package com.client.client.store;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration for the in-memory book store, bound from the {@code book-store.*} properties.
+ */
+@ConfigurationProperties(prefix = "book-store")
+public class BookStoreProperties {
+
+    public enum Persistence {
+        /** Rewrite the whole catalog file in coalesced, write-behind batches. */
+        SNAPSHOT,
+        /** Append each mutation to a write-ahead log and compact it into snapshots in the background. */
+        WAL,
+        /**
+         * Keep the books themselves in a memory-mapped file, off the heap; see {@link MappedBookTable}. The
+         * search, sort and text indexes stay on the heap unless {@code book-store.mapped.heap-indexes} is false.
+         */
+        MAPPED,
+        /** Keep nothing, so every run starts empty; a read replica copies the catalog from its primary instead. */
+        NONE
+    }
+
+    public enum Format {
+        /** Jackson JSON, readable by hand. */
+        JSON,
+        /** Length-prefixed records with a shared dictionary of authors and publications; see {@link CatalogCodec}. */
+        BINARY
+    }
+
+    // File the catalog is loaded from at startup and flushed back to
+    private String file = "items.json";
+
+    // How often pending mutations are written to disk in one coalesced batch
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    // How mutations are made durable
+    private Persistence persistence = Persistence.SNAPSHOT;
+
+    // Format catalog files and snapshots are written in; either format is read
+    private Format format = Format.JSON;
+
+    // Number of locks that writes are striped over; writes to books on different stripes run in parallel
+    private int lockStripes = 64;
+
+    // Most blocking writers that may wait for persistence at once; virtual threads leave no pool to bound them
+    private int maxPendingWrites = 256;
+
+    // How long a blocking writer waits for one of those slots before it is turned away as busy
+    private Duration pendingWriteTimeout = Duration.ofSeconds(2);
+
+    // Recent changes the change feed keeps for followers that fall behind; older ones make them reread the catalog
+    private int changeFeedCapacity = 10_000;
+
+    private final Wal wal = new Wal();
+
+    private final Mapped mapped = new Mapped();
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public Persistence getPersistence() {
+        return persistence;
+    }
+
+    public void setPersistence(Persistence persistence) {
+        this.persistence = persistence;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    public int getLockStripes() {
+        return lockStripes;
+    }
+
+    public void setLockStripes(int lockStripes) {
+        this.lockStripes = lockStripes;
+    }
+
+    public int getMaxPendingWrites() {
+        return maxPendingWrites;
+    }
+
+    public void setMaxPendingWrites(int maxPendingWrites) {
+        this.maxPendingWrites = maxPendingWrites;
+    }
+
+    public Duration getPendingWriteTimeout() {
+        return pendingWriteTimeout;
+    }
+
+    public void setPendingWriteTimeout(Duration pendingWriteTimeout) {
+        this.pendingWriteTimeout = pendingWriteTimeout;
+    }
+
+    public int getChangeFeedCapacity() {
+        return changeFeedCapacity;
+    }
+
+    public void setChangeFeedCapacity(int changeFeedCapacity) {
+        this.changeFeedCapacity = changeFeedCapacity;
+    }
+
+    public Wal getWal() {
+        return wal;
+    }
+
+    public Mapped getMapped() {
+        return mapped;
+    }
+
+    /**
+     * @return Whether the search, sort and text indexes are built; only the mapped mode can go without them.
+     */
+    public boolean keepsIndexes() {
+        return persistence != Persistence.MAPPED || mapped.isHeapIndexes();
+    }
+
+    /**
+     * Settings for {@link Persistence#WAL}.
+     */
+    public static class Wal {
+
+        // Append-only log of mutations since the last snapshot
+        private String file = "items.wal";
+
+        // Snapshot the log is compacted into, tagged with the last sequence it contains
+        private String snapshotFile = "items.snapshot.json";
+
+        // When appended records are forced to disk
+        private WriteAheadLog.FsyncPolicy fsync = WriteAheadLog.FsyncPolicy.INTERVAL;
+
+        // Upper bound on unsynced time under the INTERVAL policy
+        private Duration fsyncInterval = Duration.ofMillis(100);
+
+        // Compact at least this often while the log is non-empty
+        private Duration compactionInterval = Duration.ofMinutes(5);
+
+        // Compact early once the log grows past this size
+        private DataSize compactionThreshold = DataSize.ofMegabytes(64);
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public String getSnapshotFile() {
+            return snapshotFile;
+        }
+
+        public void setSnapshotFile(String snapshotFile) {
+            this.snapshotFile = snapshotFile;
+        }
+
+        public WriteAheadLog.FsyncPolicy getFsync() {
+            return fsync;
+        }
+
+        public void setFsync(WriteAheadLog.FsyncPolicy fsync) {
+            this.fsync = fsync;
+        }
+
+        public Duration getFsyncInterval() {
+            return fsyncInterval;
+        }
+
+        public void setFsyncInterval(Duration fsyncInterval) {
+            this.fsyncInterval = fsyncInterval;
+        }
+
+        public Duration getCompactionInterval() {
+            return compactionInterval;
+        }
+
+        public void setCompactionInterval(Duration compactionInterval) {
+            this.compactionInterval = compactionInterval;
+        }
+
+        public DataSize getCompactionThreshold() {
+            return compactionThreshold;
+        }
+
+        public void setCompactionThreshold(DataSize compactionThreshold) {
+            this.compactionThreshold = compactionThreshold;
+        }
+    }
+
+    /**
+     * Settings for {@link Persistence#MAPPED}.
+     */
+    public static class Mapped {
+
+        // Data file of the mapped table; its index sits next to it with an .idx suffix
+        private String file = "items.books";
+
+        // Bytes mapped at a time when the file is created; bounds the size of a single book
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        // When written records are forced to disk
+        private WriteAheadLog.FsyncPolicy fsync = WriteAheadLog.FsyncPolicy.INTERVAL;
+
+        // Upper bound on unforced time under the INTERVAL policy
+        private Duration fsyncInterval = Duration.ofMillis(100);
+
+        // Whether to build the search, sort and text indexes on the heap; without them those queries scan the table
+        private boolean heapIndexes = true;
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public WriteAheadLog.FsyncPolicy getFsync() {
+            return fsync;
+        }
+
+        public void setFsync(WriteAheadLog.FsyncPolicy fsync) {
+            this.fsync = fsync;
+        }
+
+        public Duration getFsyncInterval() {
+            return fsyncInterval;
+        }
+
+        public void setFsyncInterval(Duration fsyncInterval) {
+            this.fsyncInterval = fsyncInterval;
+        }
+
+        public boolean isHeapIndexes() {
+            return heapIndexes;
+        }
+
+        public void setHeapIndexes(boolean heapIndexes) {
+            this.heapIndexes = heapIndexes;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.client.client.store;
+
+import java.util.Iterator;
+import java.util.List;
+
+import com.client.client.model.BookDataModel;
+
+/**
+ * Where the {@link BookStore} keeps its books: keyed by id and iterable in id order.
+ *
+ * The store applies changes under its locks, so changes to one id never race. Readers may call
+ * any method concurrently with a change and see the book either before or after it.
+ */
+public interface BookTable {
+
+    /**
+     * @param id The id of the book.
+     * @return The book, or null if there is no book with that id.
+     */
+    BookDataModel get(long id);
+
+    /**
+     * Adds, replaces or removes the book the mutation names.
+     *
+     * @param mutation The change, already numbered by the store.
+     */
+    void apply(BookMutation mutation);
+
+    /**
+     * Applies the mutations of a batch in order. A table that keeps its books on disk recovers
+     * either all of them or none after a crash.
+     *
+     * @param mutations The changes, already numbered by the store.
+     */
+    default void applyAll(List<BookMutation> mutations) {
+        mutations.forEach(this::apply);
+    }
+
+    /**
+     * @return The number of books.
+     */
+    int size();
+
+    /**
+     * @return The largest id in the table, or 0 if it is empty.
+     */
+    long maxId();
+
+    /**
+     * Iterates books in id order. Iteration is weakly consistent.
+     *
+     * @param descending Whether to walk from the largest id down.
+     * @param after      Only books past this id in the walking direction, or null to start at the end.
+     * @return The books, lazily.
+     */
+    Iterator<BookDataModel> iterate(boolean descending, Long after);
+}
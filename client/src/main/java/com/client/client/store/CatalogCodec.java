@@ -0,0 +1,202 @@
+package com.client.client.store;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.model.StringPool;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads and writes catalog files, as JSON or in a compact binary format.
+ *
+ * Reading detects the format from the file's first bytes, so a catalog in either format loads
+ * whatever {@code book-store.format} says; writing uses the configured format. Switching the
+ * setting therefore migrates a catalog the next time it is written.
+ *
+ * The binary format is big-endian:
+ * <pre>
+ * header      int magic "BKCT", short format version, short flags (0), long sequence
+ * dictionary  int count, then count strings
+ * books       int count, then per book: long id, long version, string bookName,
+ *             int bookAuthor and int publicationName as dictionary indexes, -1 for null
+ * string      int UTF-8 length, -1 for null, then the UTF-8 bytes
+ * </pre>
+ * Authors and publications repeat across many books, so each distinct value is stored once in
+ * the dictionary, and every book read from the file shares the same, pooled String for it.
+ */
+public class CatalogCodec {
+
+    static final int MAGIC = 0x424B4354; // "BKCT"
+    static final short FORMAT_VERSION = 1;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final BookStoreProperties.Format format;
+
+    public CatalogCodec(ObjectMapper objectMapper, BookStoreProperties.Format format) {
+        this.objectMapper = objectMapper;
+        this.format = format;
+    }
+
+    /**
+     * Reads a catalog in either format. JSON may be a plain array of books or a
+     * {@link CatalogSnapshot} object; a plain array has sequence 0.
+     *
+     * @param file The catalog file.
+     * @return The catalog, or null if the file does not exist.
+     * @throws IOException If the file cannot be read or is in neither format.
+     */
+    public CatalogSnapshot read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_BYTES)) {
+            in.mark(Integer.BYTES);
+            byte[] head = in.readNBytes(Integer.BYTES); // JSON as short as "[]" has no room for a header
+            in.reset();
+            return isBinary(head) ? readBinary(in) : readJson(in);
+        }
+    }
+
+    /**
+     * Replaces a catalog file atomically with the catalog in the configured format.
+     *
+     * @param file         The catalog file.
+     * @param snapshot     The catalog.
+     * @param withSequence Whether JSON keeps the snapshot's sequence, as an object, rather than
+     *                     being a plain array of books. Binary files always keep it.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path file, CatalogSnapshot snapshot, boolean withSequence) throws IOException {
+        CatalogFiles.writeAtomically(file, out -> {
+            if (format == BookStoreProperties.Format.BINARY) {
+                writeBinary(out, snapshot);
+            } else {
+                objectMapper.writeValue(out, withSequence ? snapshot : snapshot.books());
+            }
+        });
+    }
+
+    private CatalogSnapshot readJson(InputStream in) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            if (parser.nextToken() == JsonToken.START_ARRAY) {
+                List<BookDataModel> books = objectMapper.readValue(parser, new TypeReference<List<BookDataModel>>() {});
+                return new CatalogSnapshot(0, books);
+            }
+            return objectMapper.readValue(parser, CatalogSnapshot.class);
+        }
+    }
+
+    private static boolean isBinary(byte[] head) {
+        return head.length == Integer.BYTES
+                && ((head[0] & 0xFF) << 24 | (head[1] & 0xFF) << 16 | (head[2] & 0xFF) << 8 | (head[3] & 0xFF)) == MAGIC;
+    }
+
+    static void writeBinary(OutputStream target, CatalogSnapshot snapshot) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> entries = new ArrayList<>();
+        for (BookDataModel book : snapshot.books()) {
+            for (String value : new String[] {book.bookAuthor, book.publicationName}) {
+                if (value != null && dictionary.putIfAbsent(value, entries.size()) == null) {
+                    entries.add(value);
+                }
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(target);
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.writeShort(0);
+        out.writeLong(snapshot.sequence());
+        out.writeInt(entries.size());
+        for (String entry : entries) {
+            writeString(out, entry);
+        }
+        out.writeInt(snapshot.books().size());
+        for (BookDataModel book : snapshot.books()) {
+            out.writeLong(book.id != null ? book.id : 0);
+            out.writeLong(book.version);
+            writeString(out, book.bookName);
+            out.writeInt(book.bookAuthor != null ? dictionary.get(book.bookAuthor) : -1);
+            out.writeInt(book.publicationName != null ? dictionary.get(book.publicationName) : -1);
+        }
+        out.flush();
+    }
+
+    static CatalogSnapshot readBinary(InputStream source) throws IOException {
+        DataInputStream in = new DataInputStream(source);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a binary catalog");
+        }
+        short version = in.readShort();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported binary catalog version " + version);
+        }
+        in.readShort(); // Flags, reserved
+        long sequence = in.readLong();
+
+        byte[] scratch = new byte[256];
+        String[] dictionary = new String[in.readInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = StringPool.SHARED.canonicalize(readString(in, scratch)); // Shared with books read later as JSON too
+        }
+        int count = in.readInt();
+        List<BookDataModel> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = in.readLong();
+            long bookVersion = in.readLong();
+            String bookName = readString(in, scratch);
+            BookDataModel book = new BookDataModel(bookName, lookup(dictionary, in.readInt()), lookup(dictionary, in.readInt()));
+            book.id = id;
+            book.version = bookVersion;
+            books.add(book);
+        }
+        return new CatalogSnapshot(sequence, books);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, byte[] scratch) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        in.readFully(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static String lookup(String[] dictionary, int index) throws IOException {
+        if (index < 0) {
+            return null;
+        }
+        if (index >= dictionary.length) {
+            throw new IOException("Dictionary index " + index + " out of range");
+        }
+        return dictionary[index];
+    }
+}
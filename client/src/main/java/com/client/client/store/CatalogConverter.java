@@ -0,0 +1,50 @@
+package com.client.client.store;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Command-line converter between the JSON and binary catalog formats, for migrating a catalog
+ * ahead of a restart rather than on its first write. From the packaged application:
+ *
+ * <pre>
+ * java -cp client.jar -Dloader.main=com.client.client.store.CatalogConverter \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher items.json items.bin [binary|json]
+ * </pre>
+ *
+ * The input may be in either format and may be a plain catalog or a write-ahead log snapshot.
+ */
+public final class CatalogConverter {
+
+    private CatalogConverter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: CatalogConverter <input> <output> [binary|json]");
+            System.exit(2);
+        }
+        BookStoreProperties.Format format = args.length == 3
+                ? BookStoreProperties.Format.valueOf(args[2].toUpperCase(Locale.ROOT))
+                : BookStoreProperties.Format.BINARY;
+        CatalogCodec codec = new CatalogCodec(new ObjectMapper(), format);
+        Path input = Path.of(args[0]);
+        Path output = Path.of(args[1]);
+
+        long started = System.nanoTime();
+        CatalogSnapshot catalog = codec.read(input);
+        if (catalog == null) {
+            System.err.println("No such file: " + input);
+            System.exit(1);
+        }
+        CatalogSnapshot.assignMissingIds(catalog.books());
+        codec.write(output, catalog, catalog.sequence() > 0); // Keep a log snapshot's sequence; plain catalogs have none
+        System.out.printf("Converted %d books to %s in %d ms: %d -> %d bytes%n", catalog.books().size(),
+                format.name().toLowerCase(Locale.ROOT), (System.nanoTime() - started) / 1_000_000,
+                Files.size(input), Files.size(output));
+    }
+}
@@ -0,0 +1,59 @@
+package com.client.client.store;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File helpers shared by the persistence implementations.
+ */
+final class CatalogFiles {
+
+    @FunctionalInterface
+    interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private CatalogFiles() {
+    }
+
+    /**
+     * Writes a file through a temporary sibling that is synced and then moved into place,
+     * so readers only ever see the previous or the complete new content.
+     *
+     * @param target The file to replace.
+     * @param writer Produces the new content.
+     * @throws IOException If the file cannot be written.
+     */
+    static void writeAtomically(Path target, Writer writer) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Writers such as Jackson close the stream they are given; keep the channel open for the sync
+            OutputStream out = new FilterOutputStream(Channels.newOutputStream(channel)) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    this.out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+            BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+            writer.write(buffered);
+            buffered.flush();
+            channel.force(true);
+        }
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,33 @@
+package com.client.client.store;
+
+import java.util.List;
+
+import com.client.client.model.BookDataModel;
+
+/**
+ * A consistent copy of the catalog together with the last mutation it includes.
+ *
+ * @param sequence The sequence number of the last mutation reflected in {@code books}.
+ * @param books    The books, in catalog order.
+ */
+public record CatalogSnapshot(long sequence, List<BookDataModel> books) {
+
+    /**
+     * Gives every book without an id the next free one, in catalog order. Catalogs written before
+     * books had ids therefore get the same ids on every load until they are rewritten.
+     *
+     * @param books The books to complete.
+     */
+    public static void assignMissingIds(List<BookDataModel> books) {
+        long nextId = books.stream()
+                .filter(book -> book.id != null)
+                .mapToLong(book -> book.id)
+                .max()
+                .orElse(0) + 1;
+        for (BookDataModel book : books) {
+            if (book.id == null) {
+                book.id = nextId++;
+            }
+        }
+    }
+}
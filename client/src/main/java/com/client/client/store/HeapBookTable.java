@@ -0,0 +1,55 @@
+package com.client.client.store;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.client.client.model.BookDataModel;
+
+/**
+ * Table holding every book as an object on the heap, for the persistence modes that recover
+ * the whole catalog into memory.
+ */
+public class HeapBookTable implements BookTable {
+
+    private final ConcurrentHashMap<Long, BookDataModel> books = new ConcurrentHashMap<>(); // Keyed by id for O(1) access
+    private final ConcurrentSkipListMap<Long, BookDataModel> ordered = new ConcurrentSkipListMap<>(); // Same books in id order
+
+    @Override
+    public BookDataModel get(long id) {
+        return books.get(id);
+    }
+
+    @Override
+    public void apply(BookMutation mutation) {
+        switch (mutation.type()) {
+            case ADD, UPDATE -> {
+                books.put(mutation.id(), mutation.book());
+                ordered.put(mutation.id(), mutation.book());
+            }
+            case DELETE -> {
+                books.remove(mutation.id());
+                ordered.remove(mutation.id());
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return books.size();
+    }
+
+    @Override
+    public long maxId() {
+        Map.Entry<Long, BookDataModel> last = ordered.lastEntry();
+        return last != null ? last.getKey() : 0;
+    }
+
+    @Override
+    public Iterator<BookDataModel> iterate(boolean descending, Long after) {
+        NavigableMap<Long, BookDataModel> view = descending ? ordered.descendingMap() : ordered;
+        return (after == null ? view : view.tailMap(after, false)).values().iterator();
+    }
+}
@@ -0,0 +1,573 @@
+package com.client.client.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.model.StringPool;
+
+/**
+ * Table keeping every book as a record in a memory-mapped file, outside the Java heap.
+ *
+ * The data file is an append-only sequence of records, one per mutation, all big-endian:
+ * <pre>
+ * header  64 bytes: int magic "BKMP", short format version, short clean flag, long end of the
+ *         records, long last sequence, long live books, long live bytes, long dead bytes,
+ *         int segment size
+ * record  int payload length, int crc32 of the payload, then the payload: long sequence,
+ *         byte type (high bit set while a batch continues), long id, long version, and the
+ *         book's name, author and publication as strings
+ * string  int UTF-8 length, -1 for null, then the UTF-8 bytes
+ * </pre>
+ * The file is mapped in fixed-size segments and no record spans two of them; a length of -1, or
+ * too little room left for a record header, moves on to the next segment. A second mapped file,
+ * the index, holds the offset of each id's latest record in a slot addressed by the id, so a
+ * lookup is one slot read and one record decode, and iterating in id order walks the slots.
+ * Nothing of a book lives on the heap until it is read, and every read decodes a fresh copy,
+ * sharing its author and publication with other copies through {@link StringPool#SHARED}.
+ *
+ * A clean close marks the header, and the next open trusts the index as it is. After a crash the
+ * index is rebuilt by scanning the records, stopping at the first torn one and dropping a batch
+ * that did not finish. Once superseded records outweigh live ones, opening compacts the file.
+ */
+public class MappedBookTable implements BookTable, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedBookTable.class);
+
+    static final int MAGIC = 0x424B4D50; // "BKMP"
+    static final short FORMAT_VERSION = 1;
+    static final long MAX_ID = Integer.MAX_VALUE; // Bounds the index file at 16 GB of address space
+
+    private static final int HEADER_BYTES = 64;
+    private static final int CLEAN = 6, END = 8, LAST_SEQUENCE = 16, LIVE_BOOKS = 24, LIVE_BYTES = 32, DEAD_BYTES = 40, SEGMENT_SIZE = 48;
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int MIN_PAYLOAD = 3 * Long.BYTES + 1 + 3 * Integer.BYTES;
+    private static final byte BATCH_CONTINUES = (byte) 0x80;
+    private static final int INDEX_SEGMENT_BYTES = 8 * 1024 * 1024;
+    private static final int SLOTS_PER_INDEX_SEGMENT = INDEX_SEGMENT_BYTES / Long.BYTES;
+    private static final VarHandle SLOT = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Path file;
+    private final Path indexFile;
+    private int segmentSize; // Taken from the header of an existing file
+    private final ReentrantLock appendLock = new ReentrantLock(); // Serializes appends; reads take no lock
+    private FileChannel data;
+    private FileChannel index;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0]; // Replaced, never modified, as the file grows
+    private volatile MappedByteBuffer[] indexSegments = new MappedByteBuffer[0];
+    private volatile int liveBooks;
+    private volatile long highestId; // Highest id ever stored; slots above it are empty
+    private long end; // Where the next record goes; the fields below are also guarded by appendLock
+    private long lastSequence;
+    private long liveBytes;
+    private long deadBytes;
+    private int dirtyFrom = Integer.MAX_VALUE; // First segment written since the last force
+    private boolean closed;
+
+    /**
+     * @param file        The data file; the index is kept next to it, with an {@code .idx} suffix.
+     * @param segmentSize Bytes mapped at a time, for a new file. Bounds the size of a single book.
+     */
+    public MappedBookTable(Path file, int segmentSize) {
+        this.file = file;
+        this.indexFile = indexFileOf(file);
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Maps the files, creating them if needed, and recovers the index if the table was not
+     * closed cleanly. Must be called before any other method.
+     *
+     * @throws IOException If the files cannot be opened or are not a mapped book table.
+     */
+    public void open() throws IOException {
+        map();
+        if (deadBytes > Math.max(liveBytes, segmentSize)) {
+            compact();
+            map();
+        }
+        segments[0].putShort(CLEAN, (short) 0); // Until the next clean close, the index is only as good as a scan
+        segments[0].force();
+    }
+
+    private void map() throws IOException {
+        data = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments = new MappedByteBuffer[0];
+        indexSegments = new MappedByteBuffer[0];
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        data.read(header, 0);
+        if (header.position() < HEADER_BYTES) { // New, or torn before its header was ever written
+            data.truncate(0);
+            ensureSegment(0);
+            end = HEADER_BYTES;
+            lastSequence = liveBytes = deadBytes = highestId = liveBooks = 0;
+            writeHeader(false);
+            return;
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a mapped book table");
+        }
+        if (header.getShort(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported mapped book table version " + header.getShort(4) + " in " + file);
+        }
+        segmentSize = header.getInt(SEGMENT_SIZE);
+        for (int i = 0; (long) i * segmentSize < data.size(); i++) {
+            ensureSegment(i);
+        }
+
+        if (header.getShort(CLEAN) == 1 && index.size() > 0) {
+            end = header.getLong(END);
+            lastSequence = header.getLong(LAST_SEQUENCE);
+            liveBooks = (int) header.getLong(LIVE_BOOKS);
+            liveBytes = header.getLong(LIVE_BYTES);
+            deadBytes = header.getLong(DEAD_BYTES);
+            for (int i = 0; (long) i * INDEX_SEGMENT_BYTES < index.size(); i++) {
+                ensureIndexSegment(i);
+            }
+            long id = (long) indexSegments.length * SLOTS_PER_INDEX_SEGMENT - 1;
+            while (id > 0 && readSlot(id) == 0) {
+                id--;
+            }
+            highestId = id;
+        } else {
+            log.warn("{} was not closed cleanly, rebuilding its index", file);
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the records, keeping each batch only if its last record is intact,
+     * and wipes whatever follows the last intact record so it can never be mistaken for one.
+     */
+    private void rebuild() throws IOException {
+        index.truncate(0);
+        indexSegments = new MappedByteBuffer[0];
+        lastSequence = liveBytes = deadBytes = highestId = liveBooks = 0;
+
+        CRC32 crc = new CRC32();
+        List<Long> batch = new ArrayList<>(); // Positions of a batch whose last record has not been seen yet
+        long position = HEADER_BYTES;
+        long committed = HEADER_BYTES;
+        while (segmentOf(position) < segments.length) {
+            MappedByteBuffer segment = segments[segmentOf(position)];
+            int at = offsetIn(position);
+            int length = segmentSize - at >= RECORD_HEADER_BYTES ? segment.getInt(at) : -1;
+            if (length == -1) {
+                position = (segmentOf(position) + 1L) * segmentSize;
+                continue;
+            }
+            if (length < MIN_PAYLOAD || length > segmentSize - at - RECORD_HEADER_BYTES) {
+                break; // Unwritten space, or a torn length
+            }
+            crc.reset();
+            crc.update(segment.slice(at + RECORD_HEADER_BYTES, length));
+            if ((int) crc.getValue() != segment.getInt(at + Integer.BYTES)) {
+                break; // Torn payload
+            }
+            batch.add(position);
+            position += RECORD_HEADER_BYTES + length;
+            if ((segment.get(at + RECORD_HEADER_BYTES + Long.BYTES) & BATCH_CONTINUES) == 0) {
+                for (long record : batch) {
+                    indexRecord(record);
+                }
+                batch.clear();
+                committed = position;
+            }
+        }
+        if (!batch.isEmpty()) {
+            log.warn("Dropping a batch of {} records torn at the end of {}", batch.size(), file);
+        }
+
+        end = committed;
+        int last = segmentOf(end);
+        if (last < segments.length) {
+            MappedByteBuffer segment = segments[last];
+            segment.put(offsetIn(end), new byte[segmentSize - offsetIn(end)]);
+            segment.force();
+            segments = Arrays.copyOf(segments, last + 1);
+        }
+        data.truncate((long) segments.length * segmentSize);
+        log.info("Rebuilt the index of {}: {} books up to sequence {}", file, liveBooks, lastSequence);
+    }
+
+    /**
+     * Rewrites the file with only the latest record of each live book, in id order.
+     */
+    private void compact() throws IOException {
+        log.info("Compacting {}: {} dead bytes, {} live bytes", file, deadBytes, liveBytes);
+        Path target = file.resolveSibling(file.getFileName() + ".compact");
+        Files.deleteIfExists(target);
+        Files.deleteIfExists(indexFileOf(target));
+        try (MappedBookTable compacted = new MappedBookTable(target, segmentSize)) {
+            compacted.open();
+            for (Iterator<BookDataModel> books = iterate(false, null); books.hasNext(); ) {
+                BookDataModel book = books.next();
+                compacted.apply(new BookMutation(lastSequence, BookMutation.Type.ADD, book.id, book));
+            }
+            compacted.lastSequence = lastSequence; // Deletions past the last surviving record still count
+        }
+        data.close();
+        index.close();
+        Files.delete(indexFile); // Without it, a crash before both moves leaves a table whose index is rebuilt
+        Files.move(target, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(indexFileOf(target), indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public BookDataModel get(long id) {
+        long slot = id > 0 && id <= highestId ? readSlot(id) : 0;
+        return slot != 0 ? decode(slot - 1) : null;
+    }
+
+    @Override
+    public void apply(BookMutation mutation) {
+        byte[] payload = encode(mutation, false);
+        appendLock.lock();
+        try {
+            append(payload);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void applyAll(List<BookMutation> mutations) {
+        List<byte[]> payloads = new ArrayList<>(mutations.size()); // Rejects a bad mutation before any of the batch is written
+        for (int i = 0; i < mutations.size(); i++) {
+            payloads.add(encode(mutations.get(i), i < mutations.size() - 1));
+        }
+        appendLock.lock();
+        try {
+            payloads.forEach(this::append);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return liveBooks;
+    }
+
+    @Override
+    public long maxId() {
+        long id = highestId;
+        while (id > 0 && readSlot(id) == 0) {
+            id--;
+        }
+        return id;
+    }
+
+    @Override
+    public Iterator<BookDataModel> iterate(boolean descending, Long after) {
+        long first;
+        if (descending) {
+            first = after == null ? highestId : Math.min(after - 1, highestId);
+        } else {
+            first = after == null ? 1 : Math.max(1, Math.min(after, MAX_ID) + 1);
+        }
+        return new Iterator<>() {
+            private long id = first;
+            private BookDataModel next = advance();
+
+            private BookDataModel advance() {
+                while (descending ? id > 0 : id <= highestId) {
+                    long slot = readSlot(id);
+                    id += descending ? -1 : 1;
+                    if (slot != 0) {
+                        return decode(slot - 1);
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public BookDataModel next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                BookDataModel book = next;
+                next = advance();
+                return book;
+            }
+        };
+    }
+
+    /**
+     * @return The sequence number of the last mutation in the table, 0 if there is none.
+     */
+    public long lastSequence() {
+        appendLock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Forces the records written since the last call to disk. The index is not forced: a crash
+     * rebuilds it from the records.
+     */
+    public void force() {
+        int from;
+        MappedByteBuffer[] written;
+        appendLock.lock();
+        try {
+            from = dirtyFrom;
+            dirtyFrom = Integer.MAX_VALUE;
+            written = segments;
+        } finally {
+            appendLock.unlock();
+        }
+        for (int i = from; i < written.length; i++) {
+            written[i].force();
+        }
+    }
+
+    /**
+     * Forces both files to disk and marks the table clean, so the next open skips the scan.
+     */
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (MappedByteBuffer segment : indexSegments) {
+                segment.force();
+            }
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+            writeHeader(true);
+            segments[0].force();
+            data.close();
+            index.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void append(byte[] payload) {
+        if (closed) {
+            throw new IllegalStateException(file + " is closed");
+        }
+        long position = reserve(RECORD_HEADER_BYTES + payload.length);
+        MappedByteBuffer segment = segments[segmentOf(position)];
+        int at = offsetIn(position);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        segment.put(at + RECORD_HEADER_BYTES, payload);
+        segment.putInt(at + Integer.BYTES, (int) crc.getValue());
+        segment.putInt(at, payload.length);
+        end = position + RECORD_HEADER_BYTES + payload.length;
+        indexRecord(position); // Publishes the record to readers
+    }
+
+    /**
+     * @return Where a record of the given size goes, past a skip marker if it does not fit the
+     *         current segment.
+     */
+    private long reserve(int size) {
+        int at = offsetIn(end);
+        if (segmentSize - at < size) {
+            if (segmentSize - at >= Integer.BYTES) {
+                segments[segmentOf(end)].putInt(at, -1);
+            }
+            dirtyFrom = Math.min(dirtyFrom, segmentOf(end));
+            end = (segmentOf(end) + 1L) * segmentSize;
+        }
+        try {
+            ensureSegment(segmentOf(end));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to grow " + file, e);
+        }
+        dirtyFrom = Math.min(dirtyFrom, segmentOf(end));
+        return end;
+    }
+
+    /**
+     * Points the record's id at it, or clears the id for a deletion, and accounts for the bytes
+     * the record makes dead.
+     */
+    private void indexRecord(long position) {
+        MappedByteBuffer segment = segments[segmentOf(position)];
+        int at = offsetIn(position);
+        int size = RECORD_HEADER_BYTES + segment.getInt(at);
+        long sequence = segment.getLong(at + RECORD_HEADER_BYTES);
+        byte type = (byte) (segment.get(at + RECORD_HEADER_BYTES + Long.BYTES) & ~BATCH_CONTINUES);
+        long id = segment.getLong(at + RECORD_HEADER_BYTES + Long.BYTES + 1);
+
+        long previous = readSlot(id);
+        if (previous != 0) {
+            int previousSize = RECORD_HEADER_BYTES + segments[segmentOf(previous - 1)].getInt(offsetIn(previous - 1));
+            liveBytes -= previousSize;
+            deadBytes += previousSize;
+            liveBooks--;
+        }
+        if (type == BookMutation.Type.DELETE.ordinal()) {
+            deadBytes += size;
+            writeSlot(id, 0);
+        } else {
+            liveBytes += size;
+            liveBooks++;
+            writeSlot(id, position + 1);
+            highestId = Math.max(highestId, id);
+        }
+        lastSequence = Math.max(lastSequence, sequence); // Writers of different books may append out of order
+    }
+
+    private byte[] encode(BookMutation mutation, boolean continues) {
+        if (mutation.id() < 1 || mutation.id() > MAX_ID) {
+            throw new IllegalArgumentException("Id " + mutation.id() + " is outside what the mapped index addresses");
+        }
+        BookDataModel book = mutation.book();
+        byte[][] strings = book == null ? new byte[3][]
+                : new byte[][] {utf8(book.bookName), utf8(book.bookAuthor), utf8(book.publicationName)};
+        int size = 3 * Long.BYTES + 1;
+        for (byte[] string : strings) {
+            size += Integer.BYTES + (string != null ? string.length : 0);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(size);
+        payload.putLong(mutation.sequence());
+        payload.put((byte) (mutation.type().ordinal() | (continues ? BATCH_CONTINUES : 0)));
+        payload.putLong(mutation.id());
+        payload.putLong(book != null ? book.version : 0);
+        for (byte[] string : strings) {
+            payload.putInt(string != null ? string.length : -1);
+            if (string != null) {
+                payload.put(string);
+            }
+        }
+        if (RECORD_HEADER_BYTES + size > segmentSize - HEADER_BYTES) {
+            throw new IllegalArgumentException("A book of " + size + " bytes does not fit a segment of " + segmentSize);
+        }
+        return payload.array();
+    }
+
+    private BookDataModel decode(long position) {
+        MappedByteBuffer segment = segments[segmentOf(position)];
+        int at = offsetIn(position) + RECORD_HEADER_BYTES + Long.BYTES + 1;
+        long id = segment.getLong(at);
+        long version = segment.getLong(at + Long.BYTES);
+        at += 2 * Long.BYTES;
+        String bookName = readString(segment, at);
+        at += Integer.BYTES + Math.max(0, segment.getInt(at));
+        String bookAuthor = StringPool.SHARED.canonicalize(readString(segment, at));
+        at += Integer.BYTES + Math.max(0, segment.getInt(at));
+        BookDataModel book = new BookDataModel(bookName, bookAuthor, StringPool.SHARED.canonicalize(readString(segment, at)));
+        book.id = id;
+        book.version = version;
+        return book;
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static String readString(ByteBuffer segment, int at) {
+        int length = segment.getInt(at);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        segment.get(at + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeHeader(boolean clean) {
+        MappedByteBuffer header = segments[0];
+        header.putInt(0, MAGIC);
+        header.putShort(4, FORMAT_VERSION);
+        header.putShort(CLEAN, (short) (clean ? 1 : 0));
+        header.putLong(END, end);
+        header.putLong(LAST_SEQUENCE, lastSequence);
+        header.putLong(LIVE_BOOKS, liveBooks);
+        header.putLong(LIVE_BYTES, liveBytes);
+        header.putLong(DEAD_BYTES, deadBytes);
+        header.putInt(SEGMENT_SIZE, segmentSize);
+    }
+
+    private long readSlot(long id) {
+        MappedByteBuffer[] slots = indexSegments;
+        int segment = (int) (id / SLOTS_PER_INDEX_SEGMENT);
+        return segment < slots.length ? (long) SLOT.getAcquire(slots[segment], (int) (id % SLOTS_PER_INDEX_SEGMENT) * Long.BYTES) : 0;
+    }
+
+    private void writeSlot(long id, long value) {
+        int segment = (int) (id / SLOTS_PER_INDEX_SEGMENT);
+        try {
+            ensureIndexSegment(segment);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to grow " + indexFile, e);
+        }
+        SLOT.setRelease(indexSegments[segment], (int) (id % SLOTS_PER_INDEX_SEGMENT) * Long.BYTES, value);
+    }
+
+    private void ensureSegment(int segment) throws IOException {
+        MappedByteBuffer[] mapped = segments;
+        if (segment < mapped.length) {
+            return;
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(mapped, segment + 1);
+        for (int i = mapped.length; i <= segment; i++) {
+            grown[i] = data.map(FileChannel.MapMode.READ_WRITE, (long) i * segmentSize, segmentSize);
+        }
+        segments = grown;
+    }
+
+    private void ensureIndexSegment(int segment) throws IOException {
+        MappedByteBuffer[] mapped = indexSegments;
+        if (segment < mapped.length) {
+            return;
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(mapped, segment + 1);
+        for (int i = mapped.length; i <= segment; i++) {
+            grown[i] = index.map(FileChannel.MapMode.READ_WRITE, (long) i * INDEX_SEGMENT_BYTES, INDEX_SEGMENT_BYTES);
+        }
+        indexSegments = grown;
+    }
+
+    private int segmentOf(long position) {
+        return (int) (position / segmentSize);
+    }
+
+    private int offsetIn(long position) {
+        return (int) (position % segmentSize);
+    }
+
+    private static Path indexFileOf(Path file) {
+        return file.resolveSibling(file.getFileName() + ".idx");
+    }
+}
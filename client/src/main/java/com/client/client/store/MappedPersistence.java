@@ -0,0 +1,181 @@
+package com.client.client.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.client.client.model.BookDataModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Persistence whose books live in a {@link MappedBookTable} rather than on the heap.
+ *
+ * The table's records are the catalog, so there is nothing to load at startup and no snapshot to
+ * write: a mutation is on disk as soon as the OS writes back the mapped pages, and this class only
+ * decides when to force them. A catalog in the plain {@code book-store.file} format seeds an empty
+ * table.
+ *
+ * Only the books are off the heap. The search, sort and text indexes are built on the heap as in
+ * the other modes, and take most of the memory a large catalog needs, unless
+ * {@code book-store.mapped.heap-indexes} is false; then nothing grows with the catalog on the heap,
+ * and the queries those indexes serve scan the table instead.
+ */
+public class MappedPersistence implements BookPersistence {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedPersistence.class);
+
+    private static final CompletableFuture<Void> SHUTDOWN = new CompletableFuture<>();
+
+    private final BookStoreProperties properties;
+    private final CatalogCodec codec;
+    private final MappedBookTable table;
+    private final WriteAheadLog.FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final BlockingQueue<CompletableFuture<Void>> waiting = new LinkedBlockingQueue<>(); // Appends waiting for a force under ALWAYS
+    private volatile boolean unforced; // Appends not yet forced under INTERVAL
+    private Thread flusher;
+    private final Timer flushTimer;
+
+    public MappedPersistence(ObjectMapper objectMapper, BookStoreProperties properties) {
+        this(objectMapper, properties, Metrics.globalRegistry);
+    }
+
+    public MappedPersistence(ObjectMapper objectMapper, BookStoreProperties properties, MeterRegistry meters) {
+        this.properties = properties;
+        this.codec = new CatalogCodec(objectMapper, properties.getFormat());
+        BookStoreProperties.Mapped config = properties.getMapped();
+        this.table = new MappedBookTable(Path.of(config.getFile()), (int) config.getSegmentSize().toBytes());
+        this.fsyncPolicy = config.getFsync();
+        this.fsyncIntervalNanos = config.getFsyncInterval().toNanos();
+        this.flushTimer = Timer.builder("book.persistence.flush")
+                .description("Writes of the catalog to disk")
+                .tag("persistence", "mapped")
+                .register(meters);
+    }
+
+    @Override
+    public BookTable createTable() {
+        return table;
+    }
+
+    /**
+     * Opens the table. Its books stay where they are, so the catalog returned is empty, unless an
+     * empty table is seeded from {@code book-store.file}.
+     *
+     * @throws IllegalStateException If the table cannot be opened; starting empty would bury it.
+     */
+    @Override
+    public CatalogSnapshot load() throws IOException {
+        try {
+            table.open();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open mapped book table " + properties.getMapped().getFile(), e);
+        }
+        log.info("Opened {} books at sequence {} from {}", table.size(), table.lastSequence(), properties.getMapped().getFile());
+        if (table.size() > 0 || table.lastSequence() > 0) {
+            return new CatalogSnapshot(table.lastSequence(), new ArrayList<>());
+        }
+
+        CatalogSnapshot seed = codec.read(Path.of(properties.getFile()));
+        if (seed == null) {
+            return new CatalogSnapshot(0, new ArrayList<>());
+        }
+        CatalogSnapshot.assignMissingIds(seed.books());
+        return new CatalogSnapshot(0, seed.books());
+    }
+
+    @Override
+    public void start(Supplier<CatalogSnapshot> state) {
+        table.force(); // Books seeded from the catalog file
+        if (fsyncPolicy != WriteAheadLog.FsyncPolicy.NEVER) {
+            flusher = new Thread(this::flushLoop, "book-mapped-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    /**
+     * The table already holds the mutation; this waits for it to be forced under
+     * {@link WriteAheadLog.FsyncPolicy#ALWAYS} and returns at once otherwise.
+     */
+    @Override
+    public CompletableFuture<Void> append(BookMutation mutation) {
+        if (fsyncPolicy == WriteAheadLog.FsyncPolicy.ALWAYS) {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            waiting.add(done);
+            return done;
+        }
+        unforced = true;
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> appendAll(List<BookMutation> mutations) {
+        return append(mutations.get(mutations.size() - 1)); // The table wrote them as one batch
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            waiting.add(SHUTDOWN);
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            table.close();
+        } catch (IOException e) {
+            log.error("Failed to close mapped book table {}", properties.getMapped().getFile(), e);
+        }
+    }
+
+    /**
+     * Group commit: one force covers every append that arrived while the previous one ran.
+     */
+    private void flushLoop() {
+        List<CompletableFuture<Void>> batch = new ArrayList<>();
+        while (true) {
+            try {
+                CompletableFuture<Void> first = waiting.poll(Math.max(fsyncIntervalNanos, TimeUnit.MILLISECONDS.toNanos(10)), TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    waiting.drainTo(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            boolean shutdown = batch.remove(SHUTDOWN);
+            if (!batch.isEmpty() || unforced) {
+                unforced = false;
+                try {
+                    flushTimer.record(table::force);
+                    batch.forEach(done -> done.complete(null));
+                } catch (RuntimeException e) {
+                    log.error("Failed to force {}", properties.getMapped().getFile(), e);
+                    batch.forEach(done -> done.completeExceptionally(e));
+                }
+            }
+            batch.clear();
+            if (shutdown) {
+                return; // Closing the table forces the rest
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.client.client.store;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times another {@link BookPersistence}: how long recovery takes, and how long each write waits
+ * until the persistence reports it durable. Under write-behind persistence that wait is close to
+ * zero; the background flushes are timed by the persistence itself.
+ */
+public class MeteredPersistence implements BookPersistence {
+
+    private final BookPersistence delegate;
+    private final Timer loadTimer;
+    private final Timer appendTimer;
+    private final Timer batchTimer;
+
+    public MeteredPersistence(BookPersistence delegate, BookStoreProperties.Persistence mode, MeterRegistry meters) {
+        this.delegate = delegate;
+        String persistence = mode.name().toLowerCase();
+        this.loadTimer = Timer.builder("book.persistence.load")
+                .description("Recovery of the catalog at startup")
+                .tag("persistence", persistence)
+                .register(meters);
+        this.appendTimer = Timer.builder("book.persistence.append")
+                .description("Time from a write to its durability")
+                .tags("persistence", persistence, "kind", "single")
+                .register(meters);
+        this.batchTimer = Timer.builder("book.persistence.append")
+                .description("Time from a write to its durability")
+                .tags("persistence", persistence, "kind", "batch")
+                .register(meters);
+    }
+
+    @Override
+    public BookTable createTable() {
+        return delegate.createTable();
+    }
+
+    @Override
+    public CatalogSnapshot load() throws IOException {
+        long started = System.nanoTime();
+        try {
+            return delegate.load();
+        } finally {
+            loadTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void start(Supplier<CatalogSnapshot> state) {
+        delegate.start(state);
+    }
+
+    @Override
+    public CompletableFuture<Void> append(BookMutation mutation) {
+        return timed(delegate.append(mutation), appendTimer, System.nanoTime());
+    }
+
+    @Override
+    public CompletableFuture<Void> appendAll(List<BookMutation> mutations) {
+        return timed(delegate.appendAll(mutations), batchTimer, System.nanoTime());
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private static CompletableFuture<Void> timed(CompletableFuture<Void> durable, Timer timer, long started) {
+        durable.whenComplete((done, error) -> timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+        return durable;
+    }
+}
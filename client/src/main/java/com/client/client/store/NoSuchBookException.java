@@ -0,0 +1,11 @@
+package com.client.client.store;
+
+/**
+ * Thrown when a batch names a book id or position that does not exist.
+ */
+public class NoSuchBookException extends RuntimeException {
+
+    public NoSuchBookException(String message) {
+        super(message);
+    }
+}
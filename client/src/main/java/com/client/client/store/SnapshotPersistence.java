@@ -0,0 +1,117 @@
+package com.client.client.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Write-behind persistence that rewrites the whole catalog file.
+ *
+ * Mutations only mark the catalog dirty; a background task writes it back every
+ * {@code book-store.flush-interval}, so a burst of writes costs a single flush.
+ */
+public class SnapshotPersistence implements BookPersistence {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotPersistence.class);
+
+    private final CatalogCodec codec;
+    private final BookStoreProperties properties;
+    private final AtomicBoolean dirty = new AtomicBoolean(); // True while there are unflushed mutations
+    private final ReentrantLock flushLock = new ReentrantLock(); // Serializes writers of the catalog file; unlike a monitor, it doesn't pin a virtual thread during the write
+    private Supplier<CatalogSnapshot> state;
+    private ScheduledExecutorService flusher;
+    private final Timer flushTimer;
+
+    public SnapshotPersistence(ObjectMapper objectMapper, BookStoreProperties properties) {
+        this(objectMapper, properties, Metrics.globalRegistry);
+    }
+
+    public SnapshotPersistence(ObjectMapper objectMapper, BookStoreProperties properties, MeterRegistry meters) {
+        this.codec = new CatalogCodec(objectMapper, properties.getFormat());
+        this.properties = properties;
+        this.flushTimer = Timer.builder("book.persistence.flush")
+                .description("Writes of the catalog to disk")
+                .tag("persistence", "snapshot")
+                .register(meters);
+    }
+
+    @Override
+    public CatalogSnapshot load() throws IOException {
+        CatalogSnapshot catalog = codec.read(Path.of(properties.getFile()));
+        if (catalog == null) {
+            return new CatalogSnapshot(0, new ArrayList<>()); // Start with an empty catalog if the file doesn't exist
+        }
+        CatalogSnapshot.assignMissingIds(catalog.books());
+        return catalog;
+    }
+
+    @Override
+    public void start(Supplier<CatalogSnapshot> state) {
+        this.state = state;
+        long intervalMillis = properties.getFlushInterval().toMillis();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-store-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public CompletableFuture<Void> append(BookMutation mutation) {
+        dirty.set(true);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(properties.getFlushInterval().toMillis() + 5000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Writes the catalog to disk if it changed since the last flush.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (state == null || !dirty.getAndSet(false)) {
+                return;
+            }
+            long started = System.nanoTime();
+            CatalogSnapshot snapshot = state.get();
+            try {
+                codec.write(Path.of(properties.getFile()), snapshot, false);
+            } catch (IOException e) {
+                log.error("Failed to flush {} books to {}", snapshot.books().size(), properties.getFile(), e);
+                dirty.set(true); // Retry on the next tick
+            }
+            flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+}
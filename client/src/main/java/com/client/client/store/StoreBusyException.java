@@ -0,0 +1,12 @@
+package com.client.client.store;
+
+/**
+ * Thrown when a blocking write finds the store at its limit of writers waiting for persistence
+ * and no slot frees up in time.
+ */
+public class StoreBusyException extends RuntimeException {
+
+    public StoreBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,35 @@
+package com.client.client.store;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Persistence that keeps nothing: every run starts with an empty catalog and mutations are
+ * durable as soon as they are applied. Meant for a read replica, which copies its catalog from
+ * the primary whenever it starts.
+ */
+public class TransientPersistence implements BookPersistence {
+
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    @Override
+    public CatalogSnapshot load() {
+        return new CatalogSnapshot(0, new ArrayList<>());
+    }
+
+    @Override
+    public void start(Supplier<CatalogSnapshot> state) {
+        // Nothing runs in the background
+    }
+
+    @Override
+    public CompletableFuture<Void> append(BookMutation mutation) {
+        return DONE;
+    }
+
+    @Override
+    public void close() {
+        // Nothing is pending
+    }
+}
@@ -0,0 +1,30 @@
+package com.client.client.store;
+
+/**
+ * Thrown when a conditional change names a version of a book that is no longer current.
+ */
+public class VersionConflictException extends RuntimeException {
+
+    private final long id;
+    private final long expectedVersion;
+    private final long currentVersion;
+
+    public VersionConflictException(long id, long expectedVersion, long currentVersion) {
+        super("Book " + id + " is at version " + currentVersion + ", not " + expectedVersion);
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,240 @@
+package com.client.client.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.client.client.model.BookDataModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Persistence that appends each mutation to a {@link WriteAheadLog} instead of rewriting the catalog.
+ *
+ * Write cost no longer depends on catalog size. A background task periodically compacts the log:
+ * it writes a snapshot tagged with the last mutation sequence it contains, then drops every log
+ * record at or below that sequence. Startup loads the snapshot and replays the newer records.
+ * A catalog in the plain {@code book-store.file} format seeds the first snapshot.
+ */
+public class WalPersistence implements BookPersistence {
+
+    private static final Logger log = LoggerFactory.getLogger(WalPersistence.class);
+
+    private static final int RECORD_HEADER_BYTES = Long.BYTES + 1 + Long.BYTES;
+    private static final byte BATCH = Byte.MAX_VALUE; // Record type of a batch; single records use the mutation type's ordinal
+
+    private final ObjectMapper objectMapper;
+    private final BookStoreProperties properties;
+    private final CatalogCodec codec;
+    private final WriteAheadLog wal;
+    private Supplier<CatalogSnapshot> state;
+    private ScheduledExecutorService compactor;
+    private volatile long lastCompactionNanos = System.nanoTime();
+    private final Timer compactionTimer;
+
+    public WalPersistence(ObjectMapper objectMapper, BookStoreProperties properties) {
+        this(objectMapper, properties, Metrics.globalRegistry);
+    }
+
+    public WalPersistence(ObjectMapper objectMapper, BookStoreProperties properties, MeterRegistry meters) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.codec = new CatalogCodec(objectMapper, properties.getFormat());
+        BookStoreProperties.Wal config = properties.getWal();
+        this.wal = new WriteAheadLog(Path.of(config.getFile()), config.getFsync(), config.getFsyncInterval());
+        this.compactionTimer = Timer.builder("book.persistence.compaction")
+                .description("Compactions of the write-ahead log into a snapshot")
+                .tag("persistence", "wal")
+                .register(meters);
+    }
+
+    @Override
+    public CatalogSnapshot load() throws IOException {
+        CatalogSnapshot base = readSnapshot();
+        CatalogSnapshot.assignMissingIds(base.books());
+        Map<Long, BookDataModel> books = new LinkedHashMap<>();
+        base.books().forEach(book -> books.put(book.id, book));
+        long[] sequence = {base.sequence()};
+
+        int replayed = wal.replay(payload -> {
+            for (BookMutation mutation : decode(payload)) {
+                if (mutation.sequence() > base.sequence()) { // Records at or below the snapshot are already in it
+                    mutation.applyTo(books);
+                    sequence[0] = Math.max(sequence[0], mutation.sequence()); // Writers of different books may append out of order
+                }
+            }
+        });
+        log.info("Recovered {} books from snapshot at sequence {} and {} log records", books.size(), base.sequence(), replayed);
+        return new CatalogSnapshot(sequence[0], new ArrayList<>(books.values()));
+    }
+
+    @Override
+    public void start(Supplier<CatalogSnapshot> state) {
+        this.state = state;
+        try {
+            wal.start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open write-ahead log " + properties.getWal().getFile(), e);
+        }
+
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-wal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactIfDue, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public CompletableFuture<Void> append(BookMutation mutation) {
+        return wal.append(encode(mutation));
+    }
+
+    /**
+     * Writes the mutations as a single log record, so a crash part way through leaves a torn
+     * record that replay discards as a whole.
+     */
+    @Override
+    public CompletableFuture<Void> appendAll(List<BookMutation> mutations) {
+        if (mutations.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<byte[]> records = new ArrayList<>(mutations.size());
+        int length = Long.BYTES + 1 + Integer.BYTES;
+        for (BookMutation mutation : mutations) {
+            byte[] record = encode(mutation);
+            records.add(record);
+            length += Integer.BYTES + record.length;
+        }
+
+        // [long last sequence][byte BATCH][int count] then [int length][record] per mutation;
+        // the leading sequence lets compaction treat the batch like any other record
+        ByteBuffer batch = ByteBuffer.allocate(length);
+        batch.putLong(mutations.get(mutations.size() - 1).sequence()).put(BATCH).putInt(records.size());
+        for (byte[] record : records) {
+            batch.putInt(record.length).put(record);
+        }
+        return wal.append(batch.array());
+    }
+
+    @Override
+    public void close() {
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        wal.close();
+    }
+
+    /**
+     * Writes a snapshot of the live catalog and truncates the log records it covers.
+     */
+    public void compact() {
+        long started = System.nanoTime();
+        CatalogSnapshot snapshot = state.get();
+        try {
+            codec.write(Path.of(properties.getWal().getSnapshotFile()), snapshot, true);
+        } catch (IOException e) {
+            log.error("Failed to write snapshot at sequence {}", snapshot.sequence(), e);
+            return;
+        }
+        wal.retain(payload -> payload.getLong(0) > snapshot.sequence()).join();
+        lastCompactionNanos = System.nanoTime();
+        compactionTimer.record(lastCompactionNanos - started, TimeUnit.NANOSECONDS);
+        log.debug("Compacted write-ahead log at sequence {}, {} bytes remain", snapshot.sequence(), wal.size());
+    }
+
+    private void compactIfDue() {
+        try {
+            BookStoreProperties.Wal config = properties.getWal();
+            long size = wal.size();
+            boolean overThreshold = size >= config.getCompactionThreshold().toBytes();
+            boolean intervalElapsed = System.nanoTime() - lastCompactionNanos >= config.getCompactionInterval().toNanos();
+            if (size > 0 && (overThreshold || intervalElapsed)) {
+                compact();
+            }
+        } catch (RuntimeException e) {
+            log.error("Write-ahead log compaction failed", e);
+        }
+    }
+
+    private CatalogSnapshot readSnapshot() throws IOException {
+        CatalogSnapshot snapshot = codec.read(Path.of(properties.getWal().getSnapshotFile()));
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        CatalogSnapshot seed = codec.read(Path.of(properties.getFile()));
+        if (seed != null) {
+            return new CatalogSnapshot(0, seed.books()); // Log records are numbered independently of the seed
+        }
+        return new CatalogSnapshot(0, new ArrayList<>());
+    }
+
+    /**
+     * Encodes a mutation as {@code [long sequence][byte type][long id][book JSON]}.
+     */
+    private byte[] encode(BookMutation mutation) {
+        try {
+            byte[] book = mutation.book() != null ? objectMapper.writeValueAsBytes(mutation.book()) : new byte[0];
+            ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + book.length);
+            record.putLong(mutation.sequence())
+                    .put((byte) mutation.type().ordinal())
+                    .putLong(mutation.id())
+                    .put(book);
+            return record.array();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode mutation " + mutation.sequence(), e);
+        }
+    }
+
+    private List<BookMutation> decode(ByteBuffer payload) {
+        if (payload.get(Long.BYTES) != BATCH) {
+            return List.of(decodeOne(payload));
+        }
+        payload.position(payload.position() + Long.BYTES + 1);
+        int count = payload.getInt();
+        List<BookMutation> mutations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = payload.getInt();
+            ByteBuffer record = payload.slice(payload.position(), length);
+            payload.position(payload.position() + length);
+            mutations.add(decodeOne(record));
+        }
+        return mutations;
+    }
+
+    private BookMutation decodeOne(ByteBuffer record) {
+        long sequence = record.getLong();
+        BookMutation.Type type = BookMutation.Type.values()[record.get()];
+        long id = record.getLong();
+        BookDataModel book = null;
+        if (record.hasRemaining()) {
+            try {
+                book = objectMapper.readValue(record.array(), record.arrayOffset() + record.position(), record.remaining(), BookDataModel.class);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to decode mutation " + sequence, e);
+            }
+        }
+        return new BookMutation(sequence, type, id, book);
+    }
+}
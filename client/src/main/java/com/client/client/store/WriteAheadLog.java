@@ -0,0 +1,378 @@
+package com.client.client.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of framed records written through a {@link FileChannel}.
+ *
+ * Each frame is {@code [int length][int crc32][payload]}. Appends are queued and written by a
+ * single writer thread that drains everything pending into one gathering write, so concurrent
+ * callers share a write (and an fsync) instead of paying for one each. The queue is bounded, so
+ * appenders that outrun the disk wait for it instead of piling up frames. A torn frame at the end of
+ * the file, left behind by a crash, is detected by its length or checksum and cut off on replay.
+ */
+public class WriteAheadLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_BATCH = 1024;
+    private static final int MAX_QUEUED = 64 * MAX_BATCH; // Appenders wait beyond this, so a burst can't outgrow the heap
+
+    public enum FsyncPolicy {
+        /** Force to disk after every group commit; appends complete only once they are on disk. */
+        ALWAYS,
+        /** Force to disk at most once per fsync interval; appends complete once written to the OS. */
+        INTERVAL,
+        /** Leave syncing to the operating system. */
+        NEVER
+    }
+
+    private record Append(ByteBuffer frame, CompletableFuture<Void> done) {
+    }
+
+    private record Task(Runnable action, CompletableFuture<Void> done) {
+    }
+
+    private static final Object SHUTDOWN = new Object();
+
+    private final Path path;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>(MAX_QUEUED);
+    private FileChannel channel; // Owned by the writer thread once started
+    private Thread writer;
+    private volatile long size;
+    private long lastForceNanos = System.nanoTime();
+    private boolean unforced;
+
+    public WriteAheadLog(Path path, FsyncPolicy fsyncPolicy, Duration fsyncInterval) {
+        this.path = path;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+    }
+
+    /**
+     * Reads every intact record in the log and cuts off a torn tail, if there is one.
+     * Must be called before {@link #start()}.
+     *
+     * @param consumer Receives each record's payload, in append order.
+     * @return The number of records replayed.
+     * @throws IOException If the log cannot be read.
+     */
+    public int replay(Consumer<ByteBuffer> consumer) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int[] count = {0};
+            long validEnd = readFrames(in, payload -> {
+                consumer.accept(payload);
+                count[0]++;
+            });
+            if (validEnd < in.size()) {
+                log.warn("Truncating {} bytes of torn records at the end of {}", in.size() - validEnd, path);
+                in.truncate(validEnd);
+                in.force(true);
+            }
+            return count[0];
+        }
+    }
+
+    /**
+     * Opens the log for appending and starts the writer thread.
+     *
+     * @throws IOException If the log cannot be opened.
+     */
+    public void start() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        channel.position(channel.size());
+        size = channel.size();
+        writer = new Thread(this::writeLoop, "book-wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a record for the next group commit.
+     *
+     * @param payload The record body.
+     * @return A future completed when the record is written, or synced under {@link FsyncPolicy#ALWAYS}.
+     */
+    public CompletableFuture<Void> append(byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        enqueue(new Append(frame, done));
+        return done;
+    }
+
+    /**
+     * Rewrites the log keeping only the records accepted by the filter. Runs on the writer thread
+     * between group commits, so no append can interleave with the rewrite.
+     *
+     * @param keep Decides, from its payload, whether a record survives.
+     * @return A future completed once the log has been rewritten.
+     */
+    public CompletableFuture<Void> retain(Predicate<ByteBuffer> keep) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        enqueue(new Task(() -> rewrite(keep), done));
+        return done;
+    }
+
+    /**
+     * @return The current size of the log file in bytes.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Writes and syncs everything queued, then stops the writer thread and closes the file.
+     */
+    @Override
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        enqueue(SHUTDOWN);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.error("Failed to close {}", path, e);
+        }
+        writer = null;
+    }
+
+    // Waits while the queue is full; the writer thread drains it without taking any lock of the caller's
+    private void enqueue(Object entry) {
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing for " + path, e);
+        }
+    }
+
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>();
+        while (true) {
+            try {
+                Object first = queue.poll(Math.max(fsyncIntervalNanos, TimeUnit.MILLISECONDS.toNanos(10)), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    forceIfDue(); // Idle: make sure the last batch does not stay unsynced forever
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+
+                boolean shutdown = processBatch(batch);
+                batch.clear();
+                if (shutdown) {
+                    channel.force(false); // Shutdown is always durable, whatever the policy
+                    return;
+                }
+            } catch (IOException e) {
+                log.error("Failed to sync {} on shutdown", path, e);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes consecutive appends with a single gathering write, running tasks in queue order.
+     *
+     * @return true if the shutdown marker was reached.
+     */
+    private boolean processBatch(List<Object> batch) {
+        List<Append> pending = new ArrayList<>();
+        for (Object item : batch) {
+            if (item instanceof Append append) {
+                pending.add(append);
+                continue;
+            }
+            commit(pending);
+            if (item == SHUTDOWN) {
+                return true;
+            }
+            Task task = (Task) item;
+            try {
+                task.action().run();
+                task.done().complete(null);
+            } catch (RuntimeException e) {
+                task.done().completeExceptionally(e);
+            }
+        }
+        commit(pending);
+        return false;
+    }
+
+    private void commit(List<Append> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] frames = new ByteBuffer[pending.size()];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = pending.get(i).frame();
+        }
+
+        try {
+            long remaining = 0;
+            for (ByteBuffer frame : frames) {
+                remaining += frame.remaining();
+            }
+            while (remaining > 0) {
+                remaining -= channel.write(frames);
+            }
+            size = channel.position();
+            unforced = true;
+
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                force();
+            } else {
+                forceIfDue();
+            }
+            pending.forEach(append -> append.done().complete(null));
+        } catch (IOException e) {
+            log.error("Failed to append {} records to {}", pending.size(), path, e);
+            pending.forEach(append -> append.done().completeExceptionally(e));
+        }
+        pending.clear();
+    }
+
+    private void forceIfDue() {
+        if (fsyncPolicy == FsyncPolicy.INTERVAL && unforced && System.nanoTime() - lastForceNanos >= fsyncIntervalNanos) {
+            force();
+        }
+    }
+
+    private void force() {
+        if (!unforced || fsyncPolicy == FsyncPolicy.NEVER) {
+            return;
+        }
+        try {
+            channel.force(false);
+            unforced = false;
+            lastForceNanos = System.nanoTime();
+        } catch (IOException e) {
+            log.error("Failed to sync {}", path, e);
+        }
+    }
+
+    private void rewrite(Predicate<ByteBuffer> keep) {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                readFrames(channel, payload -> {
+                    if (keep.test(payload.duplicate())) {
+                        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payload.remaining());
+                        CRC32 crc = new CRC32();
+                        crc.update(payload.duplicate());
+                        frame.putInt(payload.remaining()).putInt((int) crc.getValue()).put(payload).flip();
+                        try {
+                            while (frame.hasRemaining()) {
+                                out.write(frame);
+                            }
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+                out.force(true);
+            }
+            channel.close();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | IllegalStateException e) {
+            throw new IllegalStateException("Failed to rewrite " + path, e);
+        } finally {
+            reopen();
+        }
+    }
+
+    private void reopen() {
+        try {
+            if (!channel.isOpen()) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+            }
+            channel.position(channel.size());
+            size = channel.size();
+            unforced = false;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to reopen " + path, e);
+        }
+    }
+
+    /**
+     * Reads frames from the start of the channel until the first missing or corrupt one.
+     *
+     * @return The offset just past the last intact frame.
+     */
+    private static long readFrames(FileChannel in, Consumer<ByteBuffer> consumer) throws IOException {
+        long fileSize = in.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= fileSize) {
+            header.clear();
+            readFully(in, header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length < 0 || position + HEADER_BYTES + length > fileSize) {
+                break; // Incomplete frame
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(in, payload, position + HEADER_BYTES);
+            payload.flip();
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                break; // Corrupt frame
+            }
+
+            consumer.accept(payload);
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of log");
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.client.client.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.store.BookStore;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "book-store.persistence=none", "eureka.client.enabled=false" })
+class BookControllerTests {
+
+	@Autowired
+	private TestRestTemplate rest;
+
+	@Autowired
+	private BookStore bookStore;
+
+	@Test
+	void refusesWritesShapedLikeThePositionalCalls() {
+		BookDataModel first = bookStore.add(new BookDataModel("Godan", "Premchand", "Rajkamal"));
+		BookDataModel second = bookStore.add(new BookDataModel("Gaban", "Premchand", "Rajkamal"));
+
+		// Callers of DELETE /{index} and PUT /{index} send neither the version nor the id
+		assertEquals(HttpStatus.BAD_REQUEST,
+				rest.exchange("/" + first.id, HttpMethod.DELETE, null, String.class).getStatusCode());
+		BookDataModel replacement = new BookDataModel("Nirmala", "Premchand", "Rajkamal");
+		assertEquals(HttpStatus.BAD_REQUEST,
+				rest.exchange("/" + second.id, HttpMethod.PUT, new HttpEntity<>(replacement), String.class).getStatusCode());
+		assertEquals("Gaban", bookStore.findById(second.id).bookName);
+
+		replacement.id = second.id;
+		assertEquals(HttpStatus.OK,
+				rest.exchange("/" + second.id, HttpMethod.PUT, new HttpEntity<>(replacement), String.class).getStatusCode());
+		assertEquals(HttpStatus.OK, rest.exchange("/index/0", HttpMethod.DELETE, null, String.class).getStatusCode());
+		assertNull(bookStore.findById(first.id));
+		assertNotNull(bookStore.findById(second.id));
+		assertEquals(HttpStatus.OK,
+				rest.exchange("/" + second.id + "?version=0", HttpMethod.DELETE, null, String.class).getStatusCode());
+		assertNull(bookStore.findById(second.id));
+	}
+}
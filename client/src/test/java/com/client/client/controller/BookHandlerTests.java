@@ -0,0 +1,103 @@
+package com.client.client.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.model.BookOperation;
+import com.client.client.store.BookStoreListener;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.main.web-application-type=reactive", "book-store.persistence=none", "eureka.client.enabled=false" })
+class BookHandlerTests {
+
+	// Names of the threads the store applied writes on
+	private static final Set<String> WRITER_THREADS = ConcurrentHashMap.newKeySet();
+
+	@TestConfiguration
+	static class WriterThreads {
+
+		@Bean
+		BookStoreListener writerThreads() {
+			return new BookStoreListener() {
+				@Override
+				public void catalogLoaded(Collection<BookDataModel> books) {
+				}
+
+				@Override
+				public void bookAdded(BookDataModel book) {
+					WRITER_THREADS.add(Thread.currentThread().getName());
+				}
+
+				@Override
+				public void bookUpdated(BookDataModel previous, BookDataModel current) {
+					WRITER_THREADS.add(Thread.currentThread().getName());
+				}
+
+				@Override
+				public void bookRemoved(BookDataModel book) {
+					WRITER_THREADS.add(Thread.currentThread().getName());
+				}
+			};
+		}
+	}
+
+	@Autowired
+	private WebTestClient client;
+
+	private BookDataModel add(String name) {
+		return client.post().uri("/").bodyValue(new BookDataModel(name, "Premchand", "Rajkamal"))
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBody(BookDataModel.class).returnResult().getResponseBody();
+	}
+
+	@Test
+	void servesTheBookApiAndWritesOffTheEventLoops() {
+		BookDataModel godan = add("Godan");
+		BookDataModel gaban = add("Gaban");
+		client.get().uri("/" + godan.id).exchange()
+				.expectStatus().isOk()
+				.expectBody(BookDataModel.class).value(book -> assertEquals("Godan", book.bookName));
+
+		godan.bookName = "Godan, revised";
+		client.put().uri("/" + godan.id).bodyValue(godan).exchange()
+				.expectStatus().isOk()
+				.expectBody(BookDataModel.class).value(book -> assertEquals(2, book.version));
+		client.put().uri("/" + godan.id).bodyValue(godan).exchange() // At a version that is no longer current
+				.expectStatus().isEqualTo(HttpStatus.CONFLICT);
+		client.delete().uri("/" + gaban.id).exchange() // No version, as an old positional call sends
+				.expectStatus().isBadRequest();
+
+		List<BookDataModel> results = client.post().uri("/batch")
+				.bodyValue(List.of(
+						new BookOperation(BookOperation.Type.CREATE, null, null, 0, new BookDataModel("Nirmala", "Premchand", "Rajkamal")),
+						new BookOperation(BookOperation.Type.DELETE, gaban.id, null, gaban.version, null)))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(BookDataModel.class).returnResult().getResponseBody();
+		assertNotNull(results);
+		assertEquals("Nirmala", results.get(0).bookName);
+		client.get().uri("/" + gaban.id).exchange().expectStatus().isNotFound();
+		client.delete().uri("/index/0").exchange().expectStatus().isOk();
+		client.get().uri("/" + godan.id).exchange().expectStatus().isNotFound();
+
+		assertFalse(WRITER_THREADS.isEmpty());
+		assertTrue(WRITER_THREADS.stream().allMatch(name -> name.startsWith("boundedElastic")), WRITER_THREADS::toString);
+	}
+}
@@ -0,0 +1,66 @@
+package com.client.client.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.store.BookStore;
+import com.client.client.store.BookStoreListener;
+import com.client.client.store.BookStoreProperties;
+import com.client.client.store.TransientPersistence;
+
+class CatalogETagTests {
+
+	@Test
+	void theTagChangesOnlyOnceAWriteIsApplied() throws Exception {
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch resume = new CountDownLatch(1);
+		BookStoreListener pausing = new BookStoreListener() { // Holds the writer after its sequence is taken
+			@Override
+			public void catalogLoaded(Collection<BookDataModel> books) {
+			}
+
+			@Override
+			public void bookAdded(BookDataModel book) {
+				writing.countDown();
+				try {
+					resume.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			@Override
+			public void bookUpdated(BookDataModel previous, BookDataModel current) {
+			}
+
+			@Override
+			public void bookRemoved(BookDataModel book) {
+			}
+		};
+		BookStore store = new BookStore(new TransientPersistence(), new BookStoreProperties(), List.of(pausing));
+		store.start();
+		CatalogETag etag = new CatalogETag(store);
+		String before = etag.current();
+
+		CompletableFuture<BookDataModel> added = CompletableFuture.supplyAsync(
+				() -> store.add(new BookDataModel("Godan", "Premchand", "Rajkamal")));
+		assertTrue(writing.await(10, TimeUnit.SECONDS));
+		assertEquals(1, store.sequence()); // Numbered, but the indexes don't have it yet
+		assertEquals(before, etag.current());
+
+		resume.countDown();
+		added.get(10, TimeUnit.SECONDS);
+		assertNotEquals(before, etag.current());
+		store.stop();
+	}
+}
@@ -0,0 +1,78 @@
+package com.client.client.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.client.client.model.BookDataModel;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Runs on a Java 21+ JDK only, for example with {@code mvn test -Pjava21}; the build's own
+ * release is 17, so {@code Thread.isVirtual()} is called reflectively.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@ActiveProfiles("virtual-threads")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "book-store.persistence=none", "eureka.client.enabled=false" })
+class VirtualThreadsTests {
+
+	// Threads that requests were handled on
+	private static final Set<Thread> REQUEST_THREADS = ConcurrentHashMap.newKeySet();
+
+	@TestConfiguration
+	static class RequestThreads {
+
+		@Bean
+		OncePerRequestFilter requestThreads() {
+			return new OncePerRequestFilter() {
+				@Override
+				protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+						FilterChain chain) throws ServletException, IOException {
+					REQUEST_THREADS.add(Thread.currentThread());
+					chain.doFilter(request, response);
+				}
+			};
+		}
+	}
+
+	@Autowired
+	private TestRestTemplate rest;
+
+	private static boolean isVirtual(Thread thread) {
+		try {
+			return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Test
+	void handlesEachRequestOnAVirtualThread() {
+		BookDataModel added = rest.postForObject("/", new BookDataModel("Godan", "Premchand", "Rajkamal"), BookDataModel.class);
+		assertEquals(HttpStatus.OK, rest.getForEntity("/" + added.id, BookDataModel.class).getStatusCode());
+
+		assertFalse(REQUEST_THREADS.isEmpty());
+		assertTrue(REQUEST_THREADS.stream().allMatch(VirtualThreadsTests::isVirtual), REQUEST_THREADS::toString);
+	}
+}
@@ -0,0 +1,42 @@
+package com.client.client.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class StringPoolTests {
+
+	@Test
+	void repeatedAuthorsAndPublicationsShareOneString() throws Exception {
+		List<BookDataModel> books = new ObjectMapper().readValue(
+				"[{\"bookName\":\"Godan\",\"bookAuthor\":\"Premchand\",\"publicationName\":\"Rajkamal\"},"
+						+ "{\"bookName\":\"Godan\",\"bookAuthor\":\"Premchand\",\"publicationName\":null}]",
+				new TypeReference<List<BookDataModel>>() {});
+
+		assertSame(books.get(0).bookAuthor, books.get(1).bookAuthor);
+		assertNotSame(books.get(0).bookName, books.get(1).bookName); // Titles are not pooled
+		assertNull(books.get(1).publicationName);
+	}
+
+	@Test
+	void aCollisionReplacesTheSlotInsteadOfGrowingThePool() {
+		StringPool pool = new StringPool(1);
+		String first = new String("Premchand");
+		String second = new String("Tagore");
+
+		assertSame(first, pool.canonicalize(first));
+		assertSame(first, pool.canonicalize(new String("Premchand")));
+		assertSame(second, pool.canonicalize(second)); // Takes over the only slot
+		String again = new String("Premchand");
+		assertSame(again, pool.canonicalize(again));
+		assertEquals("Tagore", pool.canonicalize(new String("Tagore")));
+	}
+}
@@ -0,0 +1,29 @@
+package com.client.client.replica;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class FeedPositionTests {
+
+	@Test
+	void readsWhatItWrites() {
+		FeedPosition position = new FeedPosition("k3x9", 42);
+		assertEquals(position, FeedPosition.parse(position.toString()));
+		assertThrows(IllegalArgumentException.class, () -> FeedPosition.parse("42"));
+		assertThrows(IllegalArgumentException.class, () -> FeedPosition.parse("k3x9:next"));
+	}
+
+	@Test
+	void onlyReachesPositionsOfTheSameRun() {
+		FeedPosition position = new FeedPosition("k3x9", 42);
+		assertTrue(position.reaches(new FeedPosition("k3x9", 42)));
+		assertTrue(position.reaches(new FeedPosition("k3x9", 7)));
+		assertFalse(position.reaches(new FeedPosition("k3x9", 43)));
+		assertFalse(position.reaches(new FeedPosition("other", 7))); // The primary restarted
+	}
+
+}
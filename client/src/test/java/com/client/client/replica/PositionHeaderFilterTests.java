@@ -0,0 +1,36 @@
+package com.client.client.replica;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.store.BookChangeFeed;
+import com.client.client.store.BookStoreProperties;
+
+class PositionHeaderFilterTests {
+
+	@Test
+	void answersWritesWithTheFeedPositionAfterThem() throws Exception {
+		BookChangeFeed feed = new BookChangeFeed(new BookStoreProperties());
+		PositionHeaderFilter filter = new PositionHeaderFilter(feed);
+		BookDataModel book = new BookDataModel("Godan", "Premchand", "Rajkamal");
+		book.id = 1L;
+
+		MockHttpServletResponse write = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("POST", "/"), write, (request, response) -> {
+			feed.bookAdded(book);
+			response.getWriter().write("added");
+		});
+		assertEquals(new FeedPosition(feed.epoch(), 1).toString(), write.getHeader(FeedPosition.HEADER));
+		assertEquals("added", write.getContentAsString());
+
+		MockHttpServletResponse read = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", "/1"), read, (request, response) -> response.getWriter().write("book"));
+		assertNull(read.getHeader(FeedPosition.HEADER));
+		assertEquals("book", read.getContentAsString());
+	}
+}
@@ -0,0 +1,205 @@
+package com.client.client.replica;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import com.client.client.model.BookChanges;
+import com.client.client.model.BookDataModel;
+import com.client.client.store.BookChangeFeed;
+import com.client.client.store.BookStore;
+import com.client.client.store.BookStoreProperties;
+import com.client.client.store.TransientPersistence;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A primary for replicas to follow: a store and its change feed, served on a local port the way
+ * the client service serves {@code /changes}, {@code /stream}, {@code GET /{id}} and {@code POST /}.
+ *
+ * Changes made through {@link #atomically(Supplier)} reach a follower in one read of the feed, and
+ * {@link #stall(boolean)} holds reads of the feed back, as a primary that stopped answering would.
+ */
+final class PrimaryStub implements AutoCloseable {
+
+	private static final Duration POLL_STEP = Duration.ofMillis(20);
+
+	private final ObjectMapper objectMapper;
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final ReentrantReadWriteLock changing = new ReentrantReadWriteLock();
+	private final AtomicInteger reads = new AtomicInteger(); // GET /{id} answered here
+	private volatile BookStore store;
+	private volatile BookChangeFeed feed;
+	private volatile boolean stalled;
+
+	PrimaryStub(ObjectMapper objectMapper, List<BookDataModel> catalog) throws IOException {
+		this.objectMapper = objectMapper;
+		restart(catalog);
+		executor = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "primary-stub");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(executor); // Long polls mustn't hold up other requests
+		server.createContext("/", this::handle);
+		server.start();
+	}
+
+	URI uri() {
+		return URI.create("http://localhost:" + server.getAddress().getPort());
+	}
+
+	BookStore store() {
+		return store;
+	}
+
+	FeedPosition position() {
+		BookChangeFeed current = feed;
+		return new FeedPosition(current.epoch(), current.cursor());
+	}
+
+	int reads() {
+		return reads.get();
+	}
+
+	/**
+	 * Starts a new run of the primary, with a new epoch and the given books under their own ids
+	 * and versions, as after a restart that lost its change feed.
+	 */
+	void restart(List<BookDataModel> catalog) {
+		BookChangeFeed restartedFeed = new BookChangeFeed(new BookStoreProperties());
+		BookStore restarted = new BookStore(new TransientPersistence(), new BookStoreProperties(), List.of(restartedFeed));
+		restarted.start();
+		restarted.adoptAll(catalog);
+		restarted.skipIdsThrough(restarted.maxId()); // As loading them from its file would
+		changing.writeLock().lock();
+		try {
+			store = restarted;
+			feed = restartedFeed;
+		} finally {
+			changing.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Makes changes that no read of the feed sees only some of.
+	 */
+	<T> T atomically(Supplier<T> changes) {
+		changing.writeLock().lock();
+		try {
+			return changes.get();
+		} finally {
+			changing.writeLock().unlock();
+		}
+	}
+
+	void stall(boolean stalled) {
+		this.stalled = stalled;
+	}
+
+	@Override
+	public void close() {
+		stalled = false;
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getPath();
+		Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+		try {
+			if (path.equals("/changes")) {
+				writeJson(exchange, 200, changes(query));
+			} else if (path.equals("/stream")) {
+				exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+				exchange.sendResponseHeaders(200, 0);
+				try (OutputStream out = exchange.getResponseBody()) {
+					for (BookDataModel book : store.inIdOrder()) {
+						out.write(objectMapper.writeValueAsBytes(book));
+						out.write('\n');
+					}
+				}
+			} else if (exchange.getRequestMethod().equals("POST") && path.equals("/")) {
+				BookDataModel book = store.add(objectMapper.readValue(exchange.getRequestBody(), BookDataModel.class));
+				exchange.getResponseHeaders().set(FeedPosition.HEADER, position().toString());
+				writeJson(exchange, 200, book);
+			} else if (exchange.getRequestMethod().equals("GET") && path.matches("/\\d+")) {
+				reads.incrementAndGet();
+				BookDataModel book = store.findById(Long.parseLong(path.substring(1)));
+				if (book == null) {
+					exchange.sendResponseHeaders(404, -1);
+				} else {
+					exchange.getResponseHeaders().set("ETag", "\"" + book.version + "\"");
+					writeJson(exchange, 200, book);
+				}
+			} else {
+				exchange.sendResponseHeaders(404, -1);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			exchange.sendResponseHeaders(503, -1);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	// Waits for changes in steps rather than in the feed, so a change made atomically is read whole
+	private BookChanges changes(Map<String, String> query) throws InterruptedException {
+		String epoch = query.get("epoch");
+		long after = Long.parseLong(query.getOrDefault("after", "0"));
+		int limit = Integer.parseInt(query.getOrDefault("limit", "1000"));
+		long deadline = System.nanoTime() + Duration.ofSeconds(Long.parseLong(query.getOrDefault("wait", "0"))).toNanos();
+		while (true) {
+			if (!stalled) {
+				BookChanges read;
+				changing.readLock().lock();
+				try {
+					read = feed.read(epoch, after, limit, Duration.ZERO).join();
+				} finally {
+					changing.readLock().unlock();
+				}
+				if (epoch == null || read.reset() || !read.changes().isEmpty() || System.nanoTime() >= deadline) {
+					return read;
+				}
+			}
+			Thread.sleep(POLL_STEP.toMillis());
+		}
+	}
+
+	private void writeJson(HttpExchange exchange, int status, Object body) throws IOException {
+		byte[] json = objectMapper.writeValueAsBytes(body);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, json.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(json);
+		}
+	}
+
+	private static Map<String, String> query(String raw) {
+		Map<String, String> query = new HashMap<>();
+		if (raw != null) {
+			for (String pair : raw.split("&")) {
+				int equals = pair.indexOf('=');
+				if (equals > 0) {
+					query.put(pair.substring(0, equals), URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+				}
+			}
+		}
+		return query;
+	}
+}
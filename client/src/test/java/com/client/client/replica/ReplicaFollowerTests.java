@@ -0,0 +1,123 @@
+package com.client.client.replica;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.store.BookStore;
+import com.client.client.store.BookStoreProperties;
+import com.client.client.store.TransientPersistence;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ReplicaFollowerTests {
+
+	private static final Duration PATIENCE = Duration.ofSeconds(10);
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private PrimaryStub primary;
+	private BookStore replica;
+	private ReplicaFollower follower;
+
+	static BookDataModel book(long id, long version, String name) {
+		BookDataModel book = new BookDataModel(name, "Premchand", "Rajkamal");
+		book.id = id;
+		book.version = version;
+		return book;
+	}
+
+	static void eventually(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + PATIENCE.toNanos();
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "Timed out");
+			Thread.sleep(10);
+		}
+	}
+
+	static ReplicationProperties properties(PrimaryStub primary) {
+		ReplicationProperties properties = new ReplicationProperties();
+		properties.setRole(ReplicationProperties.Role.REPLICA);
+		properties.setPrimaryUrl(primary.uri().toString());
+		properties.setFollowWait(Duration.ofSeconds(1));
+		properties.setRequestTimeout(Duration.ofSeconds(5));
+		return properties;
+	}
+
+	@BeforeEach
+	void startFollowing() throws IOException, InterruptedException {
+		primary = new PrimaryStub(objectMapper, List.of(book(1, 1, "Godan"), book(2, 1, "Gaban"), book(3, 1, "Nirmala")));
+		replica = new BookStore(new TransientPersistence(), new BookStoreProperties(), List.of());
+		replica.start();
+		follower = new ReplicaFollower(replica, properties(primary), null, "client", objectMapper);
+		follower.start();
+		eventually(() -> follower.staleness() != null);
+	}
+
+	@AfterEach
+	void stopFollowing() {
+		follower.stop();
+		primary.close();
+		replica.stop();
+	}
+
+	@Test
+	void copiesTheCatalogThenAppliesChangesInOrder() {
+		assertEquals(3, replica.size());
+		assertEquals("Gaban", replica.findById(2).bookName);
+
+		// One read of the feed: the removal has to come after the update it follows, and before the add
+		BookDataModel added = primary.atomically(() -> {
+			BookStore store = primary.store();
+			store.update(1, book(1, 0, "Godan, revised"));
+			store.update(2, book(2, 0, "Gaban, revised"));
+			store.remove(2);
+			return store.add(book(0, 0, "Karmabhoomi"));
+		});
+		assertTrue(follower.awaitPosition(primary.position(), PATIENCE));
+
+		assertEquals(3, replica.size());
+		assertEquals("Godan, revised", replica.findById(1).bookName);
+		assertEquals(2, replica.findById(1).version);
+		assertNull(replica.findById(2));
+		assertEquals("Karmabhoomi", replica.findById(added.id).bookName);
+	}
+
+	@Test
+	void copiesTheCatalogAgainWhenTheFeedResets() throws InterruptedException {
+		primary.store().update(3, book(3, 0, "Nirmala, revised"));
+		assertTrue(follower.awaitPosition(primary.position(), PATIENCE));
+		FeedPosition before = primary.position();
+
+		// The primary comes back without book 2, with a newer book 1 and without the revision of book 3
+		primary.restart(List.of(book(1, 3, "Godan, third"), book(3, 1, "Nirmala"), book(5, 1, "Sevasadan")));
+		FeedPosition after = primary.position();
+		eventually(() -> follower.awaitPosition(after, Duration.ZERO));
+
+		assertEquals(List.of(1L, 3L, 5L), replica.findAll().stream().map(book -> book.id).toList());
+		assertEquals("Godan, third", replica.findById(1).bookName);
+		assertEquals("Nirmala", replica.findById(3).bookName);
+		assertEquals(1, replica.findById(3).version);
+		assertFalse(follower.awaitPosition(before, Duration.ZERO)); // A position of the previous run
+	}
+
+	@Test
+	void isStaleOnceThePrimaryStopsAnswering() throws InterruptedException {
+		assertTrue(follower.staleness().compareTo(Duration.ofMillis(100)) < 0);
+		primary.stall(true);
+		eventually(() -> follower.staleness().compareTo(Duration.ofMillis(500)) > 0);
+		primary.stall(false);
+		primary.store().add(book(0, 0, "Pratigya"));
+		assertTrue(follower.awaitPosition(primary.position(), PATIENCE));
+		assertTrue(follower.staleness().compareTo(Duration.ofMillis(100)) < 0);
+	}
+}
@@ -0,0 +1,133 @@
+package com.client.client.replica;
+
+import static com.client.client.replica.ReplicaFollowerTests.book;
+import static com.client.client.replica.ReplicaFollowerTests.eventually;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.store.BookStore;
+import com.client.client.store.BookStoreProperties;
+import com.client.client.store.TransientPersistence;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.ServletException;
+
+class ReplicaRoutingFilterTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private PrimaryStub primary;
+	private BookStore replica;
+	private ReplicationProperties properties;
+	private ReplicaFollower follower;
+	private ReplicaRoutingFilter filter;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		primary = new PrimaryStub(objectMapper, List.of(book(1, 1, "Godan")));
+		replica = new BookStore(new TransientPersistence(), new BookStoreProperties(), List.of());
+		replica.start();
+		properties = ReplicaFollowerTests.properties(primary);
+		properties.setMaxStaleness(Duration.ofMillis(500));
+		properties.setReadYourWritesWait(Duration.ofMillis(300));
+		follower = new ReplicaFollower(replica, properties, null, "client", objectMapper);
+		filter = new ReplicaRoutingFilter(follower, properties);
+	}
+
+	@AfterEach
+	void tearDown() {
+		follower.stop();
+		primary.close();
+		replica.stop();
+	}
+
+	// Runs a request through the filter; whether it was answered here is recorded in servedHere
+	private MockHttpServletResponse send(MockHttpServletRequest request, AtomicBoolean servedHere)
+			throws ServletException, IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, (req, res) -> servedHere.set(true));
+		return response;
+	}
+
+	private MockHttpServletResponse read(FeedPosition minPosition, AtomicBoolean servedHere)
+			throws ServletException, IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/1");
+		if (minPosition != null) {
+			request.addHeader(FeedPosition.MIN_HEADER, minPosition.toString());
+		}
+		return send(request, servedHere);
+	}
+
+	@Test
+	void readsGoToThePrimaryWhileTheCopyIsMissingOrStale() throws Exception {
+		AtomicBoolean servedHere = new AtomicBoolean();
+		MockHttpServletResponse response = read(null, servedHere);
+		assertFalse(servedHere.get()); // Nothing copied yet
+		assertEquals(200, response.getStatus());
+		assertEquals("\"1\"", response.getHeader("ETag"));
+		assertEquals("Godan", objectMapper.readValue(response.getContentAsByteArray(), BookDataModel.class).bookName);
+
+		follower.start();
+		eventually(() -> follower.staleness() != null);
+		read(null, servedHere);
+		assertTrue(servedHere.get());
+
+		primary.stall(true);
+		eventually(() -> follower.staleness().compareTo(properties.getMaxStaleness()) > 0);
+		servedHere.set(false);
+		int reads = primary.reads();
+		assertEquals(200, read(null, servedHere).getStatus());
+		assertFalse(servedHere.get());
+		assertEquals(reads + 1, primary.reads());
+	}
+
+	@Test
+	void aReadGoesToThePrimaryIfTheCopyDoesNotReachItsPositionInTime() throws Exception {
+		follower.start();
+		eventually(() -> follower.staleness() != null);
+		FeedPosition current = primary.position();
+		AtomicBoolean servedHere = new AtomicBoolean();
+		read(current, servedHere);
+		assertTrue(servedHere.get());
+
+		servedHere.set(false);
+		long started = System.nanoTime();
+		MockHttpServletResponse response = read(new FeedPosition(current.epoch(), current.cursor() + 1), servedHere);
+		assertTrue(Duration.ofNanos(System.nanoTime() - started).compareTo(properties.getReadYourWritesWait()) >= 0);
+		assertFalse(servedHere.get());
+		assertEquals(200, response.getStatus());
+		assertEquals(1, primary.reads());
+	}
+
+	@Test
+	void aForwardedWriteReturnsOnceTheCopyHasIt() throws Exception {
+		properties.setReadYourWritesWait(Duration.ofSeconds(10));
+		follower.start();
+		eventually(() -> follower.staleness() != null);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+		request.setContentType("application/json");
+		request.setContent(objectMapper.writeValueAsBytes(new BookDataModel("Gaban", "Premchand", "Rajkamal")));
+		AtomicBoolean servedHere = new AtomicBoolean();
+		MockHttpServletResponse response = send(request, servedHere);
+
+		assertFalse(servedHere.get());
+		assertEquals(200, response.getStatus());
+		assertEquals(primary.position().toString(), response.getHeader(FeedPosition.HEADER));
+		BookDataModel added = objectMapper.readValue(response.getContentAsByteArray(), BookDataModel.class);
+		assertNotNull(replica.findById(added.id)); // Already applied, so the writer's next read here sees it
+	}
+}
@@ -0,0 +1,143 @@
+package com.client.client.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.model.BookPage;
+import com.client.client.store.BookStore;
+import com.client.client.store.BookStoreProperties;
+import com.client.client.store.MappedPersistence;
+import com.client.client.store.SnapshotPersistence;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class BookPagerTests {
+
+	@TempDir
+	Path dir;
+
+	private BookStore store;
+	private BookPager pager;
+	private BookTextIndex textIndex;
+
+	@BeforeEach
+	void setUp() {
+		BookStoreProperties properties = new BookStoreProperties();
+		properties.setFile(dir.resolve("items.json").toString());
+		BookSearchIndex searchIndex = new BookSearchIndex();
+		BookSortIndex sortIndex = new BookSortIndex();
+		textIndex = new BookTextIndex();
+		store = new BookStore(new SnapshotPersistence(new ObjectMapper(), properties), properties, List.of(searchIndex, sortIndex, textIndex));
+		store.start();
+		pager = new BookPager(store, searchIndex, sortIndex);
+		addBooks(store);
+	}
+
+	private static void addBooks(BookStore store) {
+		for (String name : List.of("Delta", "alpha", "Charlie", "bravo", "Echo")) {
+			store.add(new BookDataModel(name, name.length() == 5 ? "Five" : "Other", "Publisher"));
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		store.stop();
+	}
+
+	private List<String> readAll(String sort, boolean descending, int limit) {
+		return readAll(pager, sort, descending, limit);
+	}
+
+	private static List<String> readAll(BookPager pager, String sort, boolean descending, int limit) {
+		List<String> names = new ArrayList<>();
+		String cursor = null;
+		do {
+			BookPage page = pager.page(sort, descending, cursor, 0, limit);
+			page.items().forEach(book -> names.add(book.bookName));
+			cursor = page.nextCursor();
+		} while (cursor != null);
+		return names;
+	}
+
+	@Test
+	void cursorsWalkEveryBookOnceInSortOrder() {
+		assertEquals(List.of("Delta", "alpha", "Charlie", "bravo", "Echo"), readAll("id", false, 2));
+		assertEquals(List.of("Echo", "bravo", "Charlie", "alpha", "Delta"), readAll("id", true, 3));
+		assertEquals(List.of("alpha", "bravo", "Charlie", "Delta", "Echo"), readAll("bookName", false, 2));
+		assertEquals(List.of("Echo", "Delta", "Charlie", "bravo", "alpha"), readAll("bookName", true, 4));
+	}
+
+	@Test
+	void offsetsSkipAndTheLastPageHasNoCursor() {
+		BookPage page = pager.page("bookName", false, null, 3, 10);
+		assertEquals(List.of("Delta", "Echo"), page.items().stream().map(book -> book.bookName).toList());
+		assertEquals(5, page.total());
+		assertNull(page.nextCursor());
+	}
+
+	@Test
+	void filtersArePushedDownBeforePaging() {
+		Map<BookSearchIndex.Field, String> filter = Map.of(BookSearchIndex.Field.BOOK_AUTHOR, "five");
+		BookPage first = pager.page("bookName", true, null, 0, 2, filter);
+		assertEquals(List.of("Delta", "bravo"), first.items().stream().map(book -> book.bookName).toList());
+		assertEquals(3, first.total());
+
+		BookPage second = pager.page("bookName", true, first.nextCursor(), 0, 2, filter);
+		assertEquals(List.of("alpha"), second.items().stream().map(book -> book.bookName).toList());
+		assertNull(second.nextCursor());
+	}
+
+	@Test
+	void aMappedCatalogWithoutIndexesAnswersTheSame() {
+		BookStoreProperties properties = new BookStoreProperties();
+		properties.setFile(dir.resolve("unindexed.json").toString());
+		properties.setPersistence(BookStoreProperties.Persistence.MAPPED);
+		properties.getMapped().setFile(dir.resolve("unindexed.books").toString());
+		properties.getMapped().setHeapIndexes(false);
+		BookSearchIndex searchIndex = new BookSearchIndex(properties);
+		BookSortIndex sortIndex = new BookSortIndex(properties);
+		BookTextIndex unindexedText = new BookTextIndex(properties);
+		BookStore unindexed = new BookStore(new MappedPersistence(new ObjectMapper(), properties), properties,
+				List.of(searchIndex, sortIndex, unindexedText));
+		unindexed.start();
+		try {
+			addBooks(unindexed);
+			assertFalse(searchIndex.isBuilt() || sortIndex.isBuilt() || unindexedText.isBuilt());
+			BookPager scanning = new BookPager(unindexed, searchIndex, sortIndex);
+			for (String sort : List.of("id", "bookName", "bookAuthor")) {
+				for (boolean descending : List.of(false, true)) {
+					assertEquals(readAll(sort, descending, 2), readAll(scanning, sort, descending, 2), sort);
+				}
+			}
+			BookPage page = scanning.page("bookName", false, null, 3, 10);
+			assertEquals(List.of("Delta", "Echo"), page.items().stream().map(book -> book.bookName).toList());
+			assertEquals(5, page.total());
+			assertNull(page.nextCursor());
+			BookPage filtered = scanning.page("bookName", true, null, 0, 2, Map.of(BookSearchIndex.Field.BOOK_AUTHOR, " FIVE"));
+			assertEquals(List.of("Delta", "bravo"), filtered.items().stream().map(book -> book.bookName).toList());
+			assertEquals(3, filtered.total());
+
+			unindexed.update(2, new BookDataModel("Alpha, revised", "Five", "Publisher"));
+			store.update(2, new BookDataModel("Alpha, revised", "Five", "Publisher"));
+			for (String query : List.of("alpha", "revsied", "publ", "five alph", "ublis")) {
+				for (BookTextIndex.Mode mode : BookTextIndex.Mode.values()) {
+					assertEquals(textIndex.search(query, mode, 3), unindexedText.search(query, mode, 3), query + " " + mode);
+				}
+			}
+		} finally {
+			unindexed.stop();
+		}
+	}
+
+}
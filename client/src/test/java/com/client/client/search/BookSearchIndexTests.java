@@ -0,0 +1,58 @@
+package com.client.client.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.client.client.model.BookDataModel;
+
+class BookSearchIndexTests {
+
+	private static BookDataModel book(long id, String name, String author, String publication) {
+		BookDataModel book = new BookDataModel(name, author, publication);
+		book.id = id;
+		return book;
+	}
+
+	private static Map<BookSearchIndex.Field, String> criteria(String name, String author, String publication) {
+		Map<BookSearchIndex.Field, String> criteria = new EnumMap<>(BookSearchIndex.Field.class);
+		criteria.put(BookSearchIndex.Field.BOOK_NAME, name);
+		criteria.put(BookSearchIndex.Field.BOOK_AUTHOR, author);
+		criteria.put(BookSearchIndex.Field.PUBLICATION_NAME, publication);
+		return criteria;
+	}
+
+	@Test
+	void intersectsFieldsIgnoringCase() {
+		BookSearchIndex index = new BookSearchIndex();
+		index.catalogLoaded(List.of(
+				book(1, "Godan", "Premchand", "Rajkamal"),
+				book(2, "Gaban", "Premchand", "Rajkamal"),
+				book(3, "Gaban", "Premchand", "Penguin")));
+
+		assertEquals(List.of(1L, 2L, 3L), index.search(criteria(null, " premchand ", "")));
+		assertEquals(List.of(2L), index.search(criteria("GABAN", "Premchand", "rajkamal")));
+		assertEquals(List.of(), index.search(criteria("Godan", null, "Penguin")));
+		assertNull(index.search(criteria(" ", null, null)));
+	}
+
+	@Test
+	void followsUpdatesAndRemovals() {
+		BookSearchIndex index = new BookSearchIndex();
+		BookDataModel godan = book(1, "Godan", "Premchand", "Rajkamal");
+		index.bookAdded(godan);
+		index.bookUpdated(godan, book(1, "Godan", "Munshi Premchand", "Rajkamal"));
+
+		assertEquals(List.of(), index.search(criteria(null, "Premchand", null)));
+		assertEquals(List.of(1L), index.search(criteria(null, "Munshi Premchand", null)));
+
+		index.bookRemoved(book(1, "Godan", "Munshi Premchand", "Rajkamal"));
+		assertEquals(List.of(), index.search(criteria("Godan", null, null)));
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.client.client.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.model.StringPool;
+
+class BookSortIndexTests {
+
+	private static BookDataModel book(long id, String name, String author) {
+		BookDataModel book = new BookDataModel(name, author, "Rajkamal");
+		book.id = id;
+		return book;
+	}
+
+	@Test
+	void sharesFoldedValuesWithoutTouchingTheBooksPool() {
+		BookSortIndex index = new BookSortIndex();
+		index.catalogLoaded(List.of(book(2, "Gaban", "Sort Key Author"), book(1, "Godan", "SORT KEY AUTHOR")));
+
+		Iterator<BookSortIndex.SortKey> keys = index.iterate(BookSearchIndex.Field.BOOK_AUTHOR, false, null);
+		BookSortIndex.SortKey first = keys.next();
+		BookSortIndex.SortKey second = keys.next();
+		assertEquals(List.of(1L, 2L), List.of(first.id(), second.id()));
+		assertSame(first.value(), second.value());
+
+		String probe = new String("sort key author"); // A copy the pool hasn't seen
+		assertSame(probe, StringPool.SHARED.canonicalize(probe));
+	}
+}
@@ -0,0 +1,59 @@
+package com.client.client.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.client.client.model.BookDataModel;
+
+class BookTextIndexTests {
+
+	private static BookDataModel book(long id, String name, String author, String publication) {
+		BookDataModel book = new BookDataModel(name, author, publication);
+		book.id = id;
+		return book;
+	}
+
+	private static List<Long> ids(List<BookTextIndex.Hit> hits) {
+		return hits.stream().map(BookTextIndex.Hit::id).toList();
+	}
+
+	private final BookTextIndex index = new BookTextIndex();
+
+	BookTextIndexTests() {
+		index.catalogLoaded(List.of(
+				book(1, "What The CEO Wants You To Know", "Ram Charan", "Business Books"),
+				book(2, "Execution", "Larry Bossidy, Ram Charan", "Crown Business"),
+				book(3, "Mahabharat", "Ved Vyas", "Penguin")));
+	}
+
+	@Test
+	void matchesPrefixesAndSubstrings() {
+		assertEquals(List.of(1L, 2L), ids(index.search("busi", BookTextIndex.Mode.PREFIX, 10)));
+		assertEquals(List.of(), ids(index.search("bharat", BookTextIndex.Mode.PREFIX, 10)));
+		assertEquals(List.of(3L), ids(index.search("bharat", BookTextIndex.Mode.SUBSTRING, 10)));
+	}
+
+	@Test
+	void toleratesTyposAndRanksNameMatchesFirst() {
+		assertEquals(List.of(3L), ids(index.search("mahabarat", BookTextIndex.Mode.FUZZY, 10)));
+		assertEquals(List.of(), ids(index.search("mahabarat", BookTextIndex.Mode.SUBSTRING, 10)));
+		// "charan" is only an author, "execution" a title word: both have to match
+		assertEquals(List.of(2L), ids(index.search("charan executoin", BookTextIndex.Mode.FUZZY, 10)));
+		assertEquals(List.of(1L), ids(index.search("ram charan", BookTextIndex.Mode.EXACT, 1)));
+	}
+
+	@Test
+	void followsUpdatesAndRemovals() {
+		BookDataModel mahabharat = book(3, "Mahabharat", "Ved Vyas", "Penguin");
+		index.bookUpdated(mahabharat, book(3, "Ramayan", "Valmiki", "Penguin"));
+		assertEquals(List.of(), ids(index.search("mahabharat", BookTextIndex.Mode.FUZZY, 10)));
+		assertEquals(List.of(3L), ids(index.search("ramay", BookTextIndex.Mode.PREFIX, 10)));
+
+		index.bookRemoved(book(3, "Ramayan", "Valmiki", "Penguin"));
+		assertEquals(List.of(), ids(index.search("penguin", BookTextIndex.Mode.EXACT, 10)));
+	}
+
+}
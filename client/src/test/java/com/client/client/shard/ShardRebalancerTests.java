@@ -0,0 +1,177 @@
+package com.client.client.shard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.store.BookStore;
+import com.client.client.store.BookStoreProperties;
+import com.client.client.store.StoreBusyException;
+import com.client.client.store.TransientPersistence;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+class ShardRebalancerTests {
+
+	private static final String SERVICE = "client";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final List<ServiceInstance> registry = new CopyOnWriteArrayList<>();
+	private final List<Member> members = new ArrayList<>();
+
+	private final DiscoveryClient discovery = new DiscoveryClient() {
+		@Override
+		public String description() {
+			return "test registry";
+		}
+
+		@Override
+		public List<ServiceInstance> getInstances(String serviceId) {
+			return SERVICE.equals(serviceId) ? List.copyOf(registry) : List.of();
+		}
+
+		@Override
+		public List<String> getServices() {
+			return List.of(SERVICE);
+		}
+	};
+
+	// The registration of an instance, as the Eureka client would make it
+	private static final class Instance extends DefaultServiceInstance implements Registration {
+		Instance(String id, int port, int slot) {
+			super(id, SERVICE, "localhost", port, false, Map.of(ShardMembership.SLOT_METADATA, Integer.toString(slot)));
+		}
+	}
+
+	// One client instance with its store and shard beans, answering the internal shard requests at its address
+	private final class Member {
+		final HttpServer server;
+		final ShardMembership membership;
+		final BookStore store;
+		final ShardRebalancer rebalancer;
+		final Instance registration;
+
+		Member(String id, int slot) throws IOException {
+			server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+			registration = new Instance(id, server.getAddress().getPort(), slot);
+			ShardProperties properties = new ShardProperties();
+			properties.setInstanceSlot(slot);
+			membership = new ShardMembership(discovery, registration, SERVICE, properties);
+			membership.start();
+			store = new BookStore(new TransientPersistence(), new BookStoreProperties(), List.of(), membership);
+			store.start();
+			rebalancer = new ShardRebalancer(membership, new ShardClient(objectMapper, properties), store, properties);
+			server.createContext("/shard/adopt", exchange -> answer(exchange,
+					body -> store.adoptAll(objectMapper.readValue(body, new TypeReference<List<BookDataModel>>() { }))));
+			server.createContext("/shard/max-id", exchange -> answer(exchange, body -> store.maxId()));
+			server.start();
+			members.add(this);
+		}
+
+		void register() {
+			registry.add(registration);
+		}
+
+		List<Long> add(int count) {
+			List<Long> ids = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				ids.add(store.add(new BookDataModel("Book " + i, "Author", "Publisher")).id);
+			}
+			return ids;
+		}
+
+		void close() {
+			server.stop(0);
+			store.stop();
+		}
+	}
+
+	private interface Answer {
+		Object apply(InputStream body) throws IOException;
+	}
+
+	private void answer(HttpExchange exchange, Answer answer) throws IOException {
+		byte[] json = objectMapper.writeValueAsBytes(answer.apply(exchange.getRequestBody()));
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, json.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(json);
+		}
+	}
+
+	@AfterEach
+	void stopMembers() {
+		members.forEach(Member::close);
+	}
+
+	@Test
+	void aJoiningMemberNeverGivesOutAnIdInUse() throws IOException {
+		Member a = new Member("a", 0);
+		a.register();
+		a.membership.refresh();
+		assertThrows(StoreBusyException.class, () -> a.add(1)); // Not before its first pass
+		a.rebalancer.rebalance(a.membership.ring());
+		List<Long> ids = new ArrayList<>(a.add(100));
+
+		Member b = new Member("b", 1);
+		b.register(); // b sees both members; a has yet to fetch the registry
+		assertThrows(StoreBusyException.class, () -> b.add(1));
+		assertEquals(0, b.rebalancer.rebalance(b.membership.ring()));
+		assertEquals(1, a.membership.ring().members().size());
+		assertEquals(2, b.membership.ring().members().size());
+
+		ids.addAll(a.add(100)); // a still takes every id for its own
+		ids.addAll(b.add(100));
+		assertEquals(300, new HashSet<>(ids).size());
+
+		assertTrue(a.membership.refresh());
+		assertTrue(a.rebalancer.rebalance(a.membership.ring()) > 0);
+		assertEquals(0, b.rebalancer.rebalance(b.membership.ring()));
+
+		assertEquals(300, a.store.size() + b.store.size());
+		Function<Shard, Member> memberOf = shard -> shard.id().equals("a") ? a : b;
+		for (long id : ids) {
+			Member owner = memberOf.apply(a.membership.ring().owner(id));
+			Member other = owner == a ? b : a;
+			assertNotNull(owner.store.findById(id));
+			assertNull(other.store.findById(id));
+		}
+	}
+
+	@Test
+	void membersSharingASlotRefuseNewBooks() throws IOException {
+		Member a = new Member("a", 3);
+		Member b = new Member("b", 3);
+		a.register();
+		b.register();
+		b.membership.refresh();
+		b.rebalancer.rebalance(b.membership.ring());
+
+		assertThrows(StoreBusyException.class, () -> b.add(1));
+		assertThrows(IllegalStateException.class,
+				() -> new ShardMembership(discovery, new Instance("c", 1, 0), SERVICE, new ShardProperties()));
+	}
+}
@@ -0,0 +1,60 @@
+package com.client.client.shard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ShardRingTests {
+
+	private static final int BOOKS = 30_000;
+
+	private static Shard shard(String id) {
+		return new Shard(id, URI.create("http://" + id));
+	}
+
+	@Test
+	void ownersDependOnlyOnTheMembers() {
+		ShardRing ring = ShardRing.of(List.of(shard("a"), shard("b"), shard("c")), 128);
+		ShardRing reordered = ShardRing.of(List.of(shard("c"), shard("a"), shard("b"), shard("a")), 128);
+
+		assertEquals(ring, reordered);
+		for (long id = 1; id <= 1000; id++) {
+			assertEquals(ring.owner(id), reordered.owner(id));
+		}
+	}
+
+	@Test
+	void spreadsIdsEvenly() {
+		ShardRing ring = ShardRing.of(List.of(shard("a"), shard("b"), shard("c"), shard("d")), 128);
+		Map<Shard, Integer> counts = new HashMap<>();
+		for (long id = 1; id <= BOOKS; id++) {
+			counts.merge(ring.owner(id), 1, Integer::sum);
+		}
+
+		assertEquals(4, counts.size());
+		counts.values().forEach(count -> assertTrue(Math.abs(count - BOOKS / 4) < BOOKS / 4 / 4, "Share of " + count));
+	}
+
+	@Test
+	void aNewShardOnlyTakesItsShare() {
+		ShardRing before = ShardRing.of(List.of(shard("a"), shard("b"), shard("c")), 128);
+		ShardRing after = ShardRing.of(List.of(shard("a"), shard("b"), shard("c"), shard("d")), 128);
+		int moved = 0;
+		for (long id = 1; id <= BOOKS; id++) {
+			Shard owner = after.owner(id);
+			if (!owner.equals(before.owner(id))) {
+				assertEquals("d", owner.id()); // Books only move to the new shard
+				moved++;
+			}
+		}
+
+		assertTrue(Math.abs(moved - BOOKS / 4) < BOOKS / 4 / 4, "Moved " + moved);
+	}
+
+}
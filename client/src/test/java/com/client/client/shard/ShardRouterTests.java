@@ -0,0 +1,267 @@
+package com.client.client.shard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import com.client.client.model.BookChange;
+import com.client.client.model.BookChanges;
+import com.client.client.model.BookDataModel;
+import com.client.client.model.BookOperation;
+import com.client.client.model.BookPage;
+import com.client.client.search.BookTextIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ShardRouterTests {
+
+	private static final int BOOKS = 20;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private ShardStub a;
+	private ShardStub b;
+	private ShardMembership membership;
+	private ShardRouter router;
+	private ShardRouter otherRouter; // The router of the second instance, as the load balancer may pick either
+	private final List<BookDataModel> catalog = new ArrayList<>(); // Every book, as a single catalog would hold them
+
+	static DiscoveryClient discovery(List<ServiceInstance> instances) {
+		return new DiscoveryClient() {
+			@Override
+			public String description() {
+				return "test registry";
+			}
+
+			@Override
+			public List<ServiceInstance> getInstances(String serviceId) {
+				return ShardStub.SERVICE.equals(serviceId) ? instances : List.of();
+			}
+
+			@Override
+			public List<String> getServices() {
+				return List.of(ShardStub.SERVICE);
+			}
+		};
+	}
+
+	static ShardRouter router(ShardMembership membership, ObjectMapper objectMapper) {
+		return new ShardRouter(membership, new ShardClient(objectMapper, new ShardProperties()), objectMapper);
+	}
+
+	static ShardMembership membership(ShardStub self, int slot, List<ServiceInstance> instances) {
+		ShardProperties properties = new ShardProperties();
+		properties.setInstanceSlot(slot);
+		ShardMembership membership = new ShardMembership(discovery(instances), self.registration(slot), ShardStub.SERVICE, properties);
+		membership.start();
+		return membership;
+	}
+
+	@BeforeEach
+	void setUp() throws IOException {
+		a = new ShardStub("a", objectMapper);
+		b = new ShardStub("b", objectMapper);
+		membership = membership(a, 0, List.of(a.registration(0), b.registration(1)));
+		router = router(membership, objectMapper);
+		otherRouter = router(membership(b, 1, List.of(a.registration(0), b.registration(1))), objectMapper);
+
+		// Names alternate between the shards, so every sort by name has to interleave them
+		List<Long> onA = new ArrayList<>();
+		List<Long> onB = new ArrayList<>();
+		for (long id = 1; id <= BOOKS; id++) {
+			(membership.ring().owner(id).id().equals("a") ? onA : onB).add(id);
+		}
+		assertTrue(onA.size() >= 3 && onB.size() >= 3, "Both shards need books");
+		List<Long> alternating = new ArrayList<>();
+		for (int i = 0; i < Math.max(onA.size(), onB.size()); i++) {
+			if (i < onA.size()) {
+				alternating.add(onA.get(i));
+			}
+			if (i < onB.size()) {
+				alternating.add(onB.get(i));
+			}
+		}
+		for (int i = 0; i < alternating.size(); i++) {
+			long id = alternating.get(i);
+			String name = String.format("%s %02d", i % 3 == 0 ? "River Title" : "Title", i);
+			BookDataModel book = new BookDataModel(name, i % 4 == 0 ? "River Author" : "Author", "Publisher");
+			book.id = id;
+			book.version = 1;
+			catalog.add(book);
+			ShardStub owner = onA.contains(id) ? a : b;
+			owner.store().adoptAll(List.of(copy(book)));
+		}
+		a.store().skipIdsThrough(BOOKS);
+		b.store().skipIdsThrough(1000); // Adds on either shard get ids of their own, as instance slots ensure
+	}
+
+	@AfterEach
+	void tearDown() {
+		a.close();
+		b.close();
+	}
+
+	private static BookDataModel copy(BookDataModel book) {
+		BookDataModel copy = new BookDataModel(book.bookName, book.bookAuthor, book.publicationName);
+		copy.id = book.id;
+		copy.version = book.version;
+		return copy;
+	}
+
+	private static List<String> names(List<BookDataModel> books) {
+		return books.stream().map(book -> book.bookName).toList();
+	}
+
+	private List<String> namesInOrder(boolean descending) {
+		Comparator<String> byName = Comparator.comparing(name -> name.toLowerCase());
+		return names(catalog).stream().sorted(descending ? byName.reversed() : byName).toList();
+	}
+
+	// Follows the cursors from the first page to the last, the way a caller pages through
+	private List<BookDataModel> readAll(String sort, boolean descending, int limit) {
+		List<BookDataModel> books = new ArrayList<>();
+		String after = null;
+		do {
+			BookPage page = router.page(sort, descending, after, 0, limit, null, null, null);
+			assertEquals(BOOKS, page.total());
+			assertTrue(page.items().size() <= limit);
+			books.addAll(page.items());
+			after = page.nextCursor();
+		} while (after != null);
+		return books;
+	}
+
+	@Test
+	void cursorsWalkBothShardsInOneSortOrder() {
+		assertEquals(namesInOrder(false), names(readAll("bookName", false, 3)));
+		assertEquals(namesInOrder(true), names(readAll("bookName", true, 4)));
+		assertEquals(catalog.stream().map(book -> book.id).sorted().toList(),
+				readAll("id", false, 7).stream().map(book -> book.id).toList());
+	}
+
+	@Test
+	void offsetsSkipAcrossShards() {
+		List<String> expected = namesInOrder(false);
+		BookPage page = router.page("bookName", false, null, 5, 4, null, null, null);
+		assertEquals(expected.subList(5, 9), names(page.items()));
+		assertNotNull(page.nextCursor());
+
+		BookPage next = router.page("bookName", false, page.nextCursor(), 0, 4, null, null, null);
+		assertEquals(expected.subList(9, 13), names(next.items()));
+
+		BookPage last = router.page("bookName", false, null, BOOKS - 4, 10, null, null, null);
+		assertEquals(expected.subList(BOOKS - 4, BOOKS), names(last.items()));
+		assertNull(last.nextCursor());
+	}
+
+	@Test
+	void textHitsAreRankedOverTheUnion() {
+		BookTextIndex single = new BookTextIndex();
+		single.catalogLoaded(catalog);
+		for (int limit : List.of(1, 4, 10)) {
+			List<Long> expected = single.search("river", BookTextIndex.Mode.FUZZY, limit).stream().map(BookTextIndex.Hit::id).toList();
+			assertEquals(expected, router.searchText("river", "fuzzy", limit).stream().map(book -> book.id).toList());
+		}
+	}
+
+	@Test
+	void aBatchIsSplitAcrossShardsAndAnsweredInOrder() {
+		long a1 = a.store().findAll().get(0).id;
+		long a2 = a.store().findAll().get(1).id;
+		long b1 = b.store().findAll().get(0).id;
+		long b2 = b.store().findAll().get(1).id;
+		List<BookOperation> operations = List.of(
+				new BookOperation(BookOperation.Type.UPDATE, a1, null, 1, new BookDataModel("Godan", "Premchand", "Rajkamal")),
+				new BookOperation(BookOperation.Type.DELETE, b1, null, 1, null),
+				new BookOperation(BookOperation.Type.CREATE, null, null, 0, new BookDataModel("Gaban", "Premchand", "Rajkamal")),
+				new BookOperation(BookOperation.Type.UPDATE, b2, null, 1, new BookDataModel("Nirmala", "Premchand", "Rajkamal")),
+				new BookOperation(BookOperation.Type.DELETE, a2, null, 1, null));
+
+		List<BookDataModel> results = router.applyBatch(operations);
+
+		assertEquals(List.of(a1, b1, b2, a2), List.of(results.get(0).id, results.get(1).id, results.get(3).id, results.get(4).id));
+		assertEquals(List.of("Godan", "Gaban", "Nirmala"), List.of(results.get(0).bookName, results.get(2).bookName, results.get(3).bookName));
+		assertEquals("Godan", a.store().findById(a1).bookName);
+		assertNull(b.store().findById(b1));
+		assertEquals("Gaban", a.store().findById(results.get(2).id).bookName); // Creates stay on this instance
+		assertEquals("Nirmala", b.store().findById(b2).bookName);
+		assertNull(a.store().findById(a2));
+	}
+
+	@Test
+	void theShardsFeedsReadAsOneThroughEitherInstance() {
+		BookChanges start = router.changes(null, 0, 1000, Duration.ZERO);
+		assertFalse(start.reset());
+		assertTrue(start.changes().isEmpty());
+
+		BookDataModel onA = a.store().add(new BookDataModel("Godan", "Premchand", "Rajkamal"));
+		BookDataModel onB = b.store().add(new BookDataModel("Gaban", "Premchand", "Rajkamal"));
+		BookChanges read = otherRouter.changes(start.epoch(), start.cursor(), 1000, Duration.ofSeconds(1));
+		assertFalse(read.reset());
+		assertEquals(Set.of(onA.id, onB.id), Set.of(read.changes().get(0).id(), read.changes().get(1).id()));
+		assertEquals(List.of(start.cursor() + 1, start.cursor() + 2), read.changes().stream().map(BookChange::position).toList());
+		assertEquals(start.cursor() + 2, read.cursor());
+
+		BookChanges idle = router.changes(read.epoch(), read.cursor(), 1000, Duration.ZERO);
+		assertFalse(idle.reset());
+		assertTrue(idle.changes().isEmpty());
+		assertEquals(read.cursor(), idle.cursor());
+
+		// Changes left over by the limit come with the next read, whichever instance answers it
+		for (int i = 0; i < 3; i++) {
+			a.store().add(new BookDataModel("Nirmala " + i, "Premchand", "Rajkamal"));
+		}
+		b.store().add(new BookDataModel("Karmabhoomi", "Premchand", "Rajkamal"));
+		BookChanges first = otherRouter.changes(idle.epoch(), idle.cursor(), 2, Duration.ZERO);
+		assertEquals(2, first.changes().size());
+		assertEquals(Set.of("Karmabhoomi", "Nirmala 0"), Set.of(first.changes().get(0).book().bookName, first.changes().get(1).book().bookName));
+		BookChanges rest = router.changes(first.epoch(), first.cursor(), 1000, Duration.ZERO);
+		assertFalse(rest.reset());
+		assertEquals(List.of("Nirmala 1", "Nirmala 2"), rest.changes().stream().map(change -> change.book().bookName).toList());
+		assertEquals(idle.cursor() + 4, rest.cursor());
+	}
+
+	@Test
+	void aWaitingReadAnswersOnceEitherShardChanges() throws Exception {
+		BookChanges start = router.changes(null, 0, 1000, Duration.ZERO);
+		long began = System.nanoTime();
+		BookChanges idle = otherRouter.changes(start.epoch(), start.cursor(), 1000, Duration.ofSeconds(1));
+		assertTrue(System.nanoTime() - began >= TimeUnit.MILLISECONDS.toNanos(900), "Returned before the wait");
+		assertFalse(idle.reset());
+		assertTrue(idle.changes().isEmpty());
+
+		CompletableFuture<BookChanges> waiting = CompletableFuture.supplyAsync(
+				() -> router.changes(idle.epoch(), idle.cursor(), 1000, Duration.ofSeconds(20)));
+		Thread.sleep(200);
+		BookDataModel added = b.store().add(new BookDataModel("Godan", "Premchand", "Rajkamal"));
+		BookChanges read = waiting.get(10, TimeUnit.SECONDS);
+		assertFalse(read.reset());
+		assertEquals(List.of(added.id), read.changes().stream().map(BookChange::id).toList());
+	}
+
+	@Test
+	void anEpochFromElsewhereResets() {
+		BookChanges start = router.changes(null, 0, 1000, Duration.ZERO);
+		assertTrue(router.changes("not-a-combined-epoch", 0, 1000, Duration.ZERO).reset());
+		assertTrue(router.changes(start.epoch(), start.cursor() + 1, 1000, Duration.ZERO).reset());
+
+		BookChanges reset = router.changes(start.epoch(), start.cursor() + 1, 1000, Duration.ZERO);
+		BookChanges after = router.changes(reset.epoch(), reset.cursor(), 1000, Duration.ZERO);
+		assertFalse(after.reset()); // Following on from a reset works
+	}
+}
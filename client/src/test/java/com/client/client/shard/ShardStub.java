@@ -0,0 +1,164 @@
+package com.client.client.shard;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.serviceregistry.Registration;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.model.BookOperation;
+import com.client.client.search.BookPager;
+import com.client.client.search.BookSearchIndex;
+import com.client.client.search.BookSortIndex;
+import com.client.client.search.BookTextIndex;
+import com.client.client.store.BookChangeFeed;
+import com.client.client.store.BookStore;
+import com.client.client.store.BookStoreProperties;
+import com.client.client.store.TransientPersistence;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * One shard of a catalog: a store with its indexes and change feed, answering on a local port the
+ * requests the {@link ShardRouter} sends a shard, {@code /page}, {@code /search/text},
+ * {@code /changes} and {@code POST /batch}, the way the client service answers them from its own books.
+ */
+final class ShardStub implements AutoCloseable {
+
+	static final String SERVICE = "client";
+
+	// The registration of an instance, as the Eureka client would make it
+	static final class Instance extends DefaultServiceInstance implements Registration {
+		Instance(String id, URI uri, int slot) {
+			super(id, SERVICE, uri.getHost(), uri.getPort(), false, Map.of(ShardMembership.SLOT_METADATA, Integer.toString(slot)));
+		}
+	}
+
+	private final String id;
+	private final ObjectMapper objectMapper;
+	private final BookStore store;
+	private final BookChangeFeed feed;
+	private final BookPager pager;
+	private final BookTextIndex textIndex;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	ShardStub(String id, ObjectMapper objectMapper) throws IOException {
+		this.id = id;
+		this.objectMapper = objectMapper;
+		BookSearchIndex searchIndex = new BookSearchIndex();
+		BookSortIndex sortIndex = new BookSortIndex();
+		textIndex = new BookTextIndex();
+		feed = new BookChangeFeed(new BookStoreProperties());
+		store = new BookStore(new TransientPersistence(), new BookStoreProperties(), List.of(searchIndex, sortIndex, textIndex, feed));
+		store.start();
+		pager = new BookPager(store, searchIndex, sortIndex);
+		executor = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "shard-stub-" + id);
+			thread.setDaemon(true);
+			return thread;
+		});
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(executor); // Long polls mustn't hold up other requests
+		server.createContext("/", this::handle);
+		server.start();
+	}
+
+	URI uri() {
+		return URI.create("http://localhost:" + server.getAddress().getPort());
+	}
+
+	Instance registration(int slot) {
+		return new Instance(id, uri(), slot);
+	}
+
+	BookStore store() {
+		return store;
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+		store.stop();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getPath();
+		Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+		try {
+			switch (exchange.getRequestMethod() + " " + path) {
+				case "GET /page" -> {
+					Map<BookSearchIndex.Field, String> filter = new EnumMap<>(BookSearchIndex.Field.class);
+					filter.put(BookSearchIndex.Field.BOOK_NAME, query.get("bookName"));
+					filter.put(BookSearchIndex.Field.BOOK_AUTHOR, query.get("bookAuthor"));
+					filter.put(BookSearchIndex.Field.PUBLICATION_NAME, query.get("publicationName"));
+					writeJson(exchange, pager.page(query.getOrDefault("sort", "id"), "desc".equals(query.get("direction")),
+							query.get("after"), Integer.parseInt(query.getOrDefault("offset", "0")),
+							Integer.parseInt(query.getOrDefault("limit", "50")), filter));
+				}
+				case "GET /search/text" -> {
+					List<BookDataModel> books = new ArrayList<>();
+					for (BookTextIndex.Hit hit : textIndex.search(query.get("q"),
+							BookTextIndex.Mode.valueOf(query.getOrDefault("mode", "fuzzy").toUpperCase()),
+							Integer.parseInt(query.getOrDefault("limit", "20")))) {
+						books.add(store.findById(hit.id()));
+					}
+					writeJson(exchange, books);
+				}
+				case "GET /changes" -> writeJson(exchange, feed.read(query.get("epoch"),
+						Long.parseLong(query.getOrDefault("after", "0")), Integer.parseInt(query.getOrDefault("limit", "1000")),
+						Duration.ofSeconds(Long.parseLong(query.getOrDefault("wait", "0")))).join());
+				case "POST /batch" -> writeJson(exchange, store.applyBatch(
+						objectMapper.readValue(exchange.getRequestBody(), new TypeReference<List<BookOperation>>() { })));
+				default -> exchange.sendResponseHeaders(404, -1);
+			}
+		} catch (RuntimeException e) {
+			byte[] message = String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(400, message.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(message);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void writeJson(HttpExchange exchange, Object body) throws IOException {
+		byte[] json = objectMapper.writeValueAsBytes(body);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, json.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(json);
+		}
+	}
+
+	private static Map<String, String> query(String raw) {
+		Map<String, String> query = new HashMap<>();
+		if (raw != null) {
+			for (String pair : raw.split("&")) {
+				int equals = pair.indexOf('=');
+				if (equals > 0) {
+					query.put(pair.substring(0, equals), URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+				}
+			}
+		}
+		return query;
+	}
+}
@@ -0,0 +1,84 @@
+package com.client.client.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.client.client.model.BookChange;
+import com.client.client.model.BookChanges;
+import com.client.client.model.BookDataModel;
+
+class BookChangeFeedTests {
+
+	private static BookDataModel book(long id, String name) {
+		BookDataModel book = new BookDataModel(name, "Premchand", "Rajkamal");
+		book.id = id;
+		return book;
+	}
+
+	private static BookChangeFeed feed(int capacity) {
+		BookStoreProperties properties = new BookStoreProperties();
+		properties.setChangeFeedCapacity(capacity);
+		return new BookChangeFeed(properties);
+	}
+
+	@Test
+	void readsChangesAfterTheCursorInOrder() throws Exception {
+		BookChangeFeed feed = feed(10);
+		BookChanges start = feed.read(null, 0, 100, Duration.ZERO).get();
+		feed.bookAdded(book(1, "Godan"));
+		feed.bookUpdated(book(1, "Godan"), book(1, "Gaban"));
+		feed.bookRemoved(book(1, "Gaban"));
+
+		BookChanges changes = feed.read(start.epoch(), start.cursor(), 2, Duration.ZERO).get();
+		assertFalse(changes.reset());
+		assertEquals(List.of(BookChange.Type.ADD, BookChange.Type.UPDATE),
+				changes.changes().stream().map(BookChange::type).toList());
+		assertEquals("Gaban", changes.changes().get(1).book().bookName);
+
+		BookChanges rest = feed.read(changes.epoch(), changes.cursor(), 2, Duration.ZERO).get();
+		assertEquals(1, rest.changes().size());
+		assertEquals(BookChange.Type.DELETE, rest.changes().get(0).type());
+		assertEquals(3, rest.cursor());
+	}
+
+	@Test
+	void waitsForTheNextChange() throws Exception {
+		BookChangeFeed feed = feed(10);
+		BookChanges start = feed.read(null, 0, 100, Duration.ZERO).get();
+		CompletableFuture<BookChanges> waiting = feed.read(start.epoch(), start.cursor(), 100, Duration.ofSeconds(10));
+		assertFalse(waiting.isDone());
+
+		feed.bookAdded(book(1, "Godan"));
+		BookChanges changes = waiting.get(5, TimeUnit.SECONDS);
+		assertEquals(1, changes.changes().size());
+		assertEquals(1, changes.cursor());
+
+		BookChanges none = feed.read(changes.epoch(), changes.cursor(), 100, Duration.ofMillis(50)).get(5, TimeUnit.SECONDS);
+		assertEquals(List.of(), none.changes());
+		assertEquals(1, none.cursor());
+	}
+
+	@Test
+	void resetsFollowersItCannotServe() throws Exception {
+		BookChangeFeed feed = feed(2);
+		BookChanges start = feed.read(null, 0, 100, Duration.ZERO).get();
+		for (long id = 1; id <= 3; id++) {
+			feed.bookAdded(book(id, "Godan"));
+		}
+
+		assertTrue(feed.read(start.epoch(), start.cursor(), 100, Duration.ZERO).get().reset()); // Fell behind the ring
+		assertTrue(feed.read("elsewhere", 3, 100, Duration.ZERO).get().reset()); // From before a restart
+		BookChanges caughtUp = feed.read(start.epoch(), 1, 100, Duration.ZERO).get();
+		assertFalse(caughtUp.reset());
+		assertEquals(2, caughtUp.changes().size());
+	}
+
+}
@@ -0,0 +1,304 @@
+package com.client.client.store;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.client.client.model.BookDataModel;
+import com.client.client.model.BookOperation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class BookStoreTests {
+
+	@TempDir
+	Path dir;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private BookStoreProperties properties(BookStoreProperties.Persistence persistence) {
+		BookStoreProperties properties = new BookStoreProperties();
+		properties.setPersistence(persistence);
+		properties.setFile(dir.resolve("items.json").toString());
+		properties.setFlushInterval(Duration.ofHours(1)); // Only the shutdown flush runs during the test
+		properties.getWal().setFile(dir.resolve("items.wal").toString());
+		properties.getWal().setSnapshotFile(dir.resolve("items.snapshot.json").toString());
+		properties.getWal().setFsync(WriteAheadLog.FsyncPolicy.ALWAYS);
+		properties.getWal().setCompactionInterval(Duration.ofHours(1));
+		properties.getMapped().setFile(dir.resolve("items.books").toString());
+		properties.getMapped().setFsync(WriteAheadLog.FsyncPolicy.ALWAYS);
+		return properties;
+	}
+
+	private BookStore newStore(BookPersistence persistence) {
+		BookStore store = new BookStore(persistence, new BookStoreProperties(), List.of());
+		store.start();
+		return store;
+	}
+
+	@Test
+	void mutationsAreFlushedOnShutdownAndReloaded() {
+		BookStoreProperties properties = properties(BookStoreProperties.Persistence.SNAPSHOT);
+		BookStore store = newStore(new SnapshotPersistence(objectMapper, properties));
+		store.add(new BookDataModel("Mahabharat", "Ved Vyas", "Penguin"));
+		store.add(new BookDataModel("Godan", "Premchand", "Rajkamal"));
+		store.update(2, new BookDataModel("Gaban", "Premchand", "Rajkamal"));
+		assertFalse(Files.exists(Path.of(properties.getFile()))); // Nothing is written until the store flushes
+		store.stop();
+
+		BookStore reloaded = newStore(new SnapshotPersistence(objectMapper, properties));
+		assertEquals(2, reloaded.size());
+		assertEquals("Gaban", reloaded.findAll().get(1).bookName);
+		reloaded.stop();
+	}
+
+	@Test
+	void idsAreStableAndUnknownIdsAreRejected() {
+		BookStore store = newStore(new SnapshotPersistence(objectMapper, properties(BookStoreProperties.Persistence.SNAPSHOT)));
+		BookDataModel first = store.add(new BookDataModel("Mahabharat", "Ved Vyas", "Penguin"));
+		BookDataModel second = store.add(new BookDataModel("Godan", "Premchand", "Rajkamal"));
+		store.remove(first.id);
+		assertEquals("Godan", store.findById(second.id).bookName); // Removing a book does not shift the others
+		assertEquals(second.id, store.findIdAt(0));
+		assertNull(store.remove(first.id));
+		assertNull(store.update(99, new BookDataModel()));
+		assertNull(store.findIdAt(1));
+		store.stop();
+	}
+
+	@Test
+	void writeAheadLogIsReplayedAndCompacted() throws Exception {
+		BookStoreProperties properties = properties(BookStoreProperties.Persistence.WAL);
+		WalPersistence persistence = new WalPersistence(objectMapper, properties);
+		BookStore store = newStore(persistence);
+		store.add(new BookDataModel("Mahabharat", "Ved Vyas", "Penguin"));
+		store.add(new BookDataModel("Godan", "Premchand", "Rajkamal"));
+		persistence.compact();
+		store.remove(1);
+		store.add(new BookDataModel("Gaban", "Premchand", "Rajkamal"));
+		store.stop();
+
+		// Torn record left behind by a crash mid-append
+		Files.write(Path.of(properties.getWal().getFile()), new byte[] {0, 0, 1, 0, 42}, StandardOpenOption.APPEND);
+
+		BookStore reloaded = newStore(new WalPersistence(objectMapper, properties));
+		assertEquals(2, reloaded.size());
+		assertEquals("Godan", reloaded.findAll().get(0).bookName);
+		assertEquals("Gaban", reloaded.findById(3).bookName);
+		assertEquals(4, reloaded.snapshot().sequence());
+		assertTrue(Files.exists(Path.of(properties.getWal().getSnapshotFile())));
+		reloaded.stop();
+	}
+
+	@Test
+	void staleVersionsAreRejected() {
+		BookStore store = newStore(new SnapshotPersistence(objectMapper, properties(BookStoreProperties.Persistence.SNAPSHOT)));
+		long id = store.add(new BookDataModel("Godan", "Premchand", "Rajkamal")).id;
+
+		BookDataModel first = new BookDataModel("Gaban", "Premchand", "Rajkamal");
+		first.version = 1;
+		assertEquals(2, store.update(id, first).version);
+
+		BookDataModel stale = new BookDataModel("Nirmala", "Premchand", "Rajkamal");
+		stale.version = 1;
+		assertThrows(VersionConflictException.class, () -> store.update(id, stale));
+		assertThrows(VersionConflictException.class, () -> store.remove(id, 1));
+		assertEquals("Gaban", store.findById(id).bookName);
+		store.stop();
+	}
+
+	@Test
+	void concurrentWritersDoNotLoseUpdates() throws Exception {
+		BookStoreProperties properties = properties(BookStoreProperties.Persistence.WAL);
+		BookStore store = newStore(new WalPersistence(objectMapper, properties));
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		List<Future<?>> writers = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			writers.add(pool.submit(() -> {
+				for (int i = 0; i < 250; i++) {
+					BookDataModel book = store.add(new BookDataModel("Book " + i, "Author", "Publisher"));
+					store.update(book.id, new BookDataModel("Renamed " + i, "Author", "Publisher"));
+				}
+			}));
+		}
+		for (Future<?> writer : writers) {
+			writer.get();
+		}
+		pool.shutdown();
+		assertEquals(2000, store.size());
+		assertEquals(4000, store.sequence());
+		store.stop();
+
+		BookStore reloaded = newStore(new WalPersistence(objectMapper, properties));
+		assertEquals(2000, reloaded.size());
+		assertTrue(reloaded.findAll().stream().allMatch(book -> book.bookName.startsWith("Renamed") && book.version == 2));
+		reloaded.stop();
+	}
+
+	@Test
+	void batchesAreDurableOnceTheyReturn() {
+		BookStoreProperties properties = properties(BookStoreProperties.Persistence.WAL);
+		BookStore store = newStore(new WalPersistence(objectMapper, properties));
+		List<BookDataModel> batch = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			batch.add(new BookDataModel("Book " + i, "Author", "Publisher"));
+		}
+		store.addAll(batch);
+
+		BookDataModel known = new BookDataModel("Renamed", "Author", "Publisher");
+		known.id = 1L;
+		BookDataModel unknown = new BookDataModel("New", "Author", "Publisher");
+		unknown.id = 99_999L;
+		assertEquals(1, store.upsertAll(List.of(known, unknown)));
+		store.stop();
+
+		BookStore reloaded = newStore(new WalPersistence(objectMapper, properties));
+		assertEquals(3001, reloaded.size());
+		assertEquals("Renamed", reloaded.findById(1).bookName);
+		assertEquals("New", reloaded.findById(3001).bookName); // Unknown ids are added under a new one
+		reloaded.stop();
+	}
+
+	@Test
+	void batchesResolveIndexesUpFrontAndApplyAllOrNothing() {
+		BookStoreProperties properties = properties(BookStoreProperties.Persistence.WAL);
+		BookStore store = newStore(new WalPersistence(objectMapper, properties));
+		for (String name : List.of("Godan", "Gaban", "Nirmala", "Karmabhoomi")) {
+			store.add(new BookDataModel(name, "Premchand", "Rajkamal"));
+		}
+
+		// A stale version in the last operation rejects the whole batch
+		List<BookOperation> stale = List.of(
+				new BookOperation(BookOperation.Type.DELETE, 1L, null, 0, null),
+				new BookOperation(BookOperation.Type.UPDATE, 2L, null, 7, new BookDataModel("Sevasadan", "Premchand", "Rajkamal")));
+		assertThrows(VersionConflictException.class, () -> store.applyBatch(stale));
+		assertEquals(4, store.size());
+
+		// Indexes 0 and 1 are the first two books as they were before the batch, not after the first delete
+		store.applyBatch(List.of(
+				new BookOperation(BookOperation.Type.DELETE, null, 0, 0, null),
+				new BookOperation(BookOperation.Type.DELETE, null, 1, 0, null),
+				new BookOperation(BookOperation.Type.UPDATE, 3L, null, 1, new BookDataModel("Sevasadan", "Premchand", "Rajkamal")),
+				new BookOperation(BookOperation.Type.CREATE, null, null, 0, new BookDataModel("Rangbhoomi", "Premchand", "Rajkamal"))));
+		store.stop();
+
+		BookStore reloaded = newStore(new WalPersistence(objectMapper, properties));
+		assertEquals(List.of("Sevasadan", "Karmabhoomi", "Rangbhoomi"), reloaded.findAll().stream().map(book -> book.bookName).toList());
+		assertEquals(2, reloaded.findById(3).version);
+		reloaded.stop();
+	}
+
+	@Test
+	void jsonCatalogsAreMigratedToTheBinaryFormat() throws Exception {
+		BookStoreProperties properties = properties(BookStoreProperties.Persistence.SNAPSHOT);
+		Files.writeString(Path.of(properties.getFile()),
+				"[{\"bookName\":\"Godan\",\"bookAuthor\":\"Premchand\",\"publicationName\":\"Rajkamal\"},"
+						+ "{\"bookName\":\"Gaban\",\"bookAuthor\":\"Premchand\",\"publicationName\":null}]");
+		properties.setFormat(BookStoreProperties.Format.BINARY);
+		BookStore store = newStore(new SnapshotPersistence(objectMapper, properties));
+		store.add(new BookDataModel("Nirmala", "Premchand", "Rajkamal"));
+		store.stop();
+
+		byte[] head = Arrays.copyOf(Files.readAllBytes(Path.of(properties.getFile())), 4);
+		assertArrayEquals("BKCT".getBytes(StandardCharsets.US_ASCII), head);
+
+		properties.setFormat(BookStoreProperties.Format.JSON); // Either format is read whatever the setting
+		BookStore reloaded = newStore(new SnapshotPersistence(objectMapper, properties));
+		assertEquals(List.of("Godan", "Gaban", "Nirmala"), reloaded.findAll().stream().map(book -> book.bookName).toList());
+		assertNull(reloaded.findById(2).publicationName);
+		assertSame(reloaded.findById(1).bookAuthor, reloaded.findById(3).bookAuthor); // Dictionary entries are shared
+		assertEquals(3, reloaded.findById(3).id);
+		reloaded.stop();
+	}
+
+	@Test
+	void mappedTablesAreSeededOnceAndReopenedWithoutLoading() throws Exception {
+		BookStoreProperties properties = properties(BookStoreProperties.Persistence.MAPPED);
+		Files.writeString(Path.of(properties.getFile()),
+				"[{\"bookName\":\"Godan\",\"bookAuthor\":\"Premchand\",\"publicationName\":\"Rajkamal\"}]");
+		BookStore store = newStore(new MappedPersistence(objectMapper, properties));
+		store.add(new BookDataModel("Gaban", "Premchand", "Rajkamal"));
+		store.applyBatch(List.of(
+				new BookOperation(BookOperation.Type.UPDATE, 1L, null, 1, new BookDataModel("Sevasadan", "Premchand", "Rajkamal")),
+				new BookOperation(BookOperation.Type.UPDATE, 1L, null, 2, new BookDataModel("Nirmala", "Premchand", "Rajkamal"))));
+		store.stop();
+		Files.delete(Path.of(properties.getFile())); // The table no longer needs the seed
+
+		MappedPersistence persistence = new MappedPersistence(objectMapper, properties);
+		BookStore reloaded = newStore(persistence);
+		assertEquals(List.of("Nirmala", "Gaban"), reloaded.findAll().stream().map(book -> book.bookName).toList());
+		assertEquals(3, reloaded.findById(1).version);
+		assertEquals(3, reloaded.add(new BookDataModel("Karmabhoomi", "Premchand", "Rajkamal")).id);
+		reloaded.stop();
+		assertTrue(new MappedPersistence(objectMapper, properties).load().books().isEmpty());
+	}
+
+	@Test
+	void writersBeyondTheLimitAreTurnedAway() throws Exception {
+		CompletableFuture<Void> disk = new CompletableFuture<>(); // A persistence that has not finished writing yet
+		BookPersistence stalled = new BookPersistence() {
+			@Override
+			public CatalogSnapshot load() {
+				return new CatalogSnapshot(0, new ArrayList<>());
+			}
+
+			@Override
+			public void start(Supplier<CatalogSnapshot> state) {
+			}
+
+			@Override
+			public CompletableFuture<Void> append(BookMutation mutation) {
+				return disk;
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+		BookStoreProperties properties = new BookStoreProperties();
+		properties.setMaxPendingWrites(1);
+		properties.setPendingWriteTimeout(Duration.ofMillis(50));
+		BookStore store = new BookStore(stalled, properties, List.of());
+		store.start();
+
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		Future<BookDataModel> waiting = pool.submit(() -> store.add(new BookDataModel("Godan", "Premchand", "Rajkamal")));
+		while (store.size() == 0) {
+			Thread.onSpinWait(); // Until the first writer holds the only slot
+		}
+		assertThrows(StoreBusyException.class, () -> store.add(new BookDataModel("Gaban", "Premchand", "Rajkamal")));
+		// Asynchronous writers share the same slots
+		assertThrows(StoreBusyException.class,
+				() -> store.admit(() -> store.addAsync(new BookDataModel("Gaban", "Premchand", "Rajkamal"))));
+		assertEquals(1, store.size()); // The rejected writes never reached the catalog
+
+		disk.complete(null);
+		assertEquals("Godan", waiting.get().bookName);
+		CompletableFuture<BookDataModel> admitted = store.admit(() -> store.addAsync(new BookDataModel("Gaban", "Premchand", "Rajkamal")));
+		assertEquals("Gaban", admitted.get().bookName);
+		store.add(new BookDataModel("Nirmala", "Premchand", "Rajkamal")); // The admitted write gave its slot back
+		pool.shutdown();
+		store.stop();
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.client.client.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.client.client.model.BookDataModel;
+
+class MappedBookTableTests {
+
+	private static final int SEGMENT_SIZE = 4096;
+
+	@TempDir
+	Path dir;
+
+	private static BookMutation add(long sequence, long id, String name) {
+		BookDataModel book = new BookDataModel(name, "Premchand", null);
+		book.id = id;
+		book.version = 1;
+		return new BookMutation(sequence, BookMutation.Type.ADD, id, book);
+	}
+
+	private static List<String> names(MappedBookTable table, boolean descending, Long after) {
+		List<String> names = new ArrayList<>();
+		table.iterate(descending, after).forEachRemaining(book -> names.add(book.bookName));
+		return names;
+	}
+
+	@Test
+	void booksSurviveACleanCloseAndSpanSegments() throws Exception {
+		Path file = dir.resolve("items.books");
+		MappedBookTable table = new MappedBookTable(file, SEGMENT_SIZE);
+		table.open();
+		for (int id = 1; id <= 200; id++) { // Several segments' worth
+			table.apply(add(id, id, "Book " + id));
+		}
+		table.apply(new BookMutation(201, BookMutation.Type.DELETE, 100, null));
+		assertThrows(IllegalArgumentException.class,
+				() -> table.apply(add(202, 7, "x".repeat(SEGMENT_SIZE)))); // Too large for any segment
+		table.close();
+
+		MappedBookTable reopened = new MappedBookTable(file, SEGMENT_SIZE);
+		reopened.open();
+		assertEquals(199, reopened.size());
+		assertEquals(201, reopened.lastSequence());
+		assertEquals(200, reopened.maxId());
+		assertNull(reopened.get(100));
+		assertEquals("Book 7", reopened.get(7).bookName);
+		assertNull(reopened.get(7).publicationName);
+		assertEquals(List.of("Book 101", "Book 99", "Book 98"), names(reopened, true, 102L).subList(0, 3));
+		assertEquals(List.of("Book 199", "Book 200"), names(reopened, false, 198L));
+		reopened.close();
+	}
+
+	@Test
+	void aCrashRebuildsTheIndexAndDropsATornBatch() throws Exception {
+		Path file = dir.resolve("items.books");
+		MappedBookTable table = new MappedBookTable(file, SEGMENT_SIZE);
+		table.open();
+		table.apply(add(1, 1, "Godan"));
+		table.applyAll(List.of(add(2, 2, "Gaban"), new BookMutation(3, BookMutation.Type.DELETE, 1, null)));
+		table.force(); // Never closed: the process dies here
+
+		// Tear the batch's last record by corrupting its final byte
+		ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+		int last = content.limit() - 1;
+		while (content.get(last) == 0) {
+			last--;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] {(byte) ~content.get(last)}), last);
+		}
+
+		MappedBookTable recovered = new MappedBookTable(file, SEGMENT_SIZE);
+		recovered.open();
+		assertEquals(1, recovered.size());
+		assertEquals(1, recovered.lastSequence());
+		assertEquals("Godan", recovered.get(1).bookName);
+		assertNull(recovered.get(2));
+
+		recovered.apply(add(2, 2, "Nirmala")); // Overwrites the wiped tail
+		recovered.close();
+		MappedBookTable reopened = new MappedBookTable(file, SEGMENT_SIZE);
+		reopened.open();
+		assertEquals(List.of("Godan", "Nirmala"), names(reopened, false, null));
+		reopened.close();
+	}
+
+	@Test
+	void deadRecordsAreCompactedAwayOnOpen() throws Exception {
+		Path file = dir.resolve("items.books");
+		MappedBookTable table = new MappedBookTable(file, SEGMENT_SIZE);
+		table.open();
+		long sequence = 0;
+		for (int round = 0; round < 100; round++) {
+			for (int id = 1; id <= 3; id++) {
+				table.apply(add(++sequence, id, "Round " + round));
+			}
+		}
+		table.apply(new BookMutation(++sequence, BookMutation.Type.DELETE, 3, null));
+		table.close();
+		long before = Files.size(file);
+
+		MappedBookTable compacted = new MappedBookTable(file, SEGMENT_SIZE);
+		compacted.open();
+		assertTrue(Files.size(file) < before);
+		assertEquals(2, compacted.size());
+		assertEquals(sequence, compacted.lastSequence());
+		assertEquals(List.of("Round 99", "Round 99"), names(compacted, false, null));
+		compacted.close();
+	}
+}
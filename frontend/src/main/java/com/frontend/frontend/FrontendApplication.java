@@ -3,8 +3,12 @@ package com.frontend.frontend;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import com.vaadin.flow.component.page.AppShellConfigurator;
+import com.vaadin.flow.component.page.Push;
+
+@Push // Lets changes read from the client service's feed reach open grids without a round trip from the browser
 @SpringBootApplication
-public class FrontendApplication {
+public class FrontendApplication implements AppShellConfigurator {
 
 	public static void main(String[] args) {
 		SpringApplication.run(FrontendApplication.class, args);
@@ -1,15 +1,96 @@
 package com.frontend.frontend.configuration;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import com.frontend.frontend.service.CatalogCacheProperties;
+import com.frontend.frontend.service.CatalogPosition;
+
 @Configuration
+@EnableConfigurationProperties({CatalogCacheProperties.class, BookClientProperties.class})
+@LoadBalancerClients(defaultConfiguration = BookInstanceSelection.class)
 public class AppConfig {
 
+    // Pooled HTTP client with bounded waits, so a slow client service can't hold UI threads indefinitely
+    @Bean
+    public CloseableHttpClient bookHttpClient(BookClientProperties properties) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(properties.getMaxConnections())
+            .setMaxConnPerRoute(properties.getMaxConnectionsPerRoute())
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                .setSocketTimeout(Timeout.of(properties.getReadTimeout()))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2)) // Check connections idle for a while before reuse
+                .build())
+            .build();
+
+        HttpClientBuilder builder = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                .setResponseTimeout(Timeout.of(properties.getReadTimeout()))
+                .setConnectionKeepAlive(TimeValue.of(properties.getKeepAlive())) // Used unless the server sends Keep-Alive
+                .build())
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.of(properties.getKeepAlive()));
+        if (!properties.isCompression()) {
+            builder.disableContentCompression();
+        }
+        return builder.build();
+    }
+
+    // Resolves the client service's Eureka id to one of its instances on every request, and in the performance
+    // profile retries a failed read on another; reads a replica serves are held to the catalog position this
+    // frontend has already seen
     @Bean
-    public RestTemplate restTemplate(){
-        return new RestTemplate();
+    @Primary
+    @LoadBalanced
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient bookHttpClient,
+                                     CatalogPosition catalogPosition) {
+        return builder
+            .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(bookHttpClient))
+            .additionalInterceptors(catalogPosition)
+            .build();
     }
-    
+
+    // Same pool, but a read of the change feed may wait for a change before the response starts
+    @Bean
+    @LoadBalanced
+    public RestTemplate changeFeedRestTemplate(RestTemplateBuilder builder, CloseableHttpClient bookHttpClient,
+                                               BookClientProperties properties) {
+        RequestConfig longPoll = RequestConfig.custom()
+            .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+            .setResponseTimeout(Timeout.of(properties.getChangeFeedWait().plus(properties.getReadTimeout())))
+            .setConnectionKeepAlive(TimeValue.of(properties.getKeepAlive()))
+            .build();
+        return builder
+            .requestFactory(() -> {
+                HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(bookHttpClient);
+                factory.setHttpContextFactory((method, uri) -> {
+                    HttpClientContext context = HttpClientContext.create();
+                    context.setRequestConfig(longPoll);
+                    return context;
+                });
+                return factory;
+            })
+            .build();
+    }
+
 }
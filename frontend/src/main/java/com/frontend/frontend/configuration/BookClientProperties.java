@@ -0,0 +1,104 @@
+package com.frontend.frontend.configuration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How the frontend reaches the client service, bound from {@code book-client.*}.
+ */
+@ConfigurationProperties("book-client")
+public class BookClientProperties {
+
+    private String baseUrl = "http://client"; // Service id registered in Eureka; resolved per request by the load balancer
+    private Duration connectTimeout = Duration.ofSeconds(2); // Time allowed to open a connection to an instance
+    private Duration readTimeout = Duration.ofSeconds(5); // Time allowed between response bytes
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2); // Time allowed to wait for a pooled connection
+    private int maxConnections = 200; // Pooled connections across all client instances
+    private int maxConnectionsPerRoute = 50; // Pooled connections to a single client instance
+    private Duration keepAlive = Duration.ofSeconds(15); // Idle time before a pooled connection is closed; below Tomcat's 20s
+    private boolean compression = true; // Ask for gzip responses and inflate them transparently
+    private Duration changeFeedWait = Duration.ofSeconds(20); // How long one read of the change feed waits for a change; 0 stops following it
+    // Check each client instance's health and leave out the ones that fail, every spring.cloud.loadbalancer.health-check.interval
+    private boolean healthChecks = false;
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public Duration getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(Duration keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    public Duration getChangeFeedWait() {
+        return changeFeedWait;
+    }
+
+    public void setChangeFeedWait(Duration changeFeedWait) {
+        this.changeFeedWait = changeFeedWait;
+    }
+
+    public boolean isHealthChecks() {
+        return healthChecks;
+    }
+
+    public void setHealthChecks(boolean healthChecks) {
+        this.healthChecks = healthChecks;
+    }
+}
@@ -0,0 +1,36 @@
+package com.frontend.frontend.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Which instances of the client service the load balancer chooses from, in the load balancer's
+ * own context for the service; not a {@code @Configuration}, so it stays out of the application's.
+ *
+ * Without {@code book-client.health-checks} it is the registry's list, cached for
+ * {@code spring.cloud.loadbalancer.cache.ttl}. With it, the list is taken from the registry every
+ * {@code spring.cloud.loadbalancer.health-check.refetch-instances-interval} and each instance's
+ * health endpoint is checked every {@code spring.cloud.loadbalancer.health-check.interval}; an
+ * instance that doesn't answer UP is left out until it does, so a dead instance stops getting
+ * requests long before the registry evicts it.
+ */
+public class BookInstanceSelection {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "book-client", name = "health-checks", havingValue = "true")
+    public ServiceInstanceListSupplier healthCheckedInstances(ConfigurableApplicationContext context,
+                                                              BookClientProperties properties) {
+        // Not the load-balanced template: health checks address an instance, not the service
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(properties.getConnectTimeout());
+        requestFactory.setReadTimeout(properties.getConnectTimeout()); // A health check answering slower fails anyway
+        return ServiceInstanceListSupplier.builder()
+            .withBlockingDiscoveryClient()
+            .withBlockingHealthChecks(new RestTemplate(requestFactory))
+            .build(context);
+    }
+}
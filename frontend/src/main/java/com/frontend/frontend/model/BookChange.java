@@ -0,0 +1,48 @@
+package com.frontend.frontend.model;
+
+/**
+ * One change to the catalog as published by the client service's change feed.
+ */
+public class BookChange {
+
+    public enum Type {
+        ADD, UPDATE, DELETE
+    }
+
+    private long position; // Number of the change in the feed
+    private Type type;
+    private long id; // Id of the changed book
+    private BookDataModel book; // The book as it is after the change; null for a delete
+
+    public long getPosition() {
+        return position;
+    }
+
+    public void setPosition(long position) {
+        this.position = position;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public BookDataModel getBook() {
+        return book;
+    }
+
+    public void setBook(BookDataModel book) {
+        this.book = book;
+    }
+}
@@ -0,0 +1,47 @@
+package com.frontend.frontend.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A read from the client service's change feed.
+ */
+public class BookChanges {
+
+    private String epoch; // Identifies the run of the client service the cursor belongs to
+    private long cursor; // Position to read on from
+    private boolean reset; // The changes since the previous cursor are lost; reread the books
+    private List<BookChange> changes = new ArrayList<>(); // Oldest first
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(String epoch) {
+        this.epoch = epoch;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(long cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    public void setReset(boolean reset) {
+        this.reset = reset;
+    }
+
+    public List<BookChange> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<BookChange> changes) {
+        this.changes = changes;
+    }
+}
@@ -1,14 +1,24 @@
 package com.frontend.frontend.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
 /**
  * Represents a book with details such as name, author, and publication.
  */
 public class BookDataModel {
 
+    // Stable identifier assigned by the client service
+    private Long id;
+
+    // Version of the book this copy was read at; sent back so the client service can reject stale updates
+    private long version;
+
     // Fields to hold the details of the book
     private String bookName;        // Changed to private for encapsulation
-    private String bookAuthor;      // Changed to private for encapsulation
-    private String publicationName;  // Changed to private for encapsulation
+    @JsonDeserialize(using = PooledStringDeserializer.class)
+    private String bookAuthor;      // Pooled: every session's copy of a page shares one String per author
+    @JsonDeserialize(using = PooledStringDeserializer.class)
+    private String publicationName;  // Pooled, like the author
 
     /**
      * Default constructor that initializes the book details with default values.
@@ -32,6 +42,16 @@ public class BookDataModel {
         this.publicationName = publicationName; // Set the publication name
     }
     
+    // Getter for id
+    public Long getId() {
+        return id;
+    }
+
+    // Getter for version
+    public long getVersion() {
+        return version;
+    }
+
     // Getter for bookName
     public String getBookName() {
         return bookName;
@@ -48,6 +68,14 @@ public class BookDataModel {
     }
 
     // Optional: Setters can be added here for mutability
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public void setBookName(String bookName) {
         this.bookName = bookName;
     }
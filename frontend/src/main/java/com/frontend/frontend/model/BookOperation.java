@@ -0,0 +1,68 @@
+package com.frontend.frontend.model;
+
+/**
+ * One step of a batch of changes sent to the client service, which applies the whole batch or none of it.
+ */
+public class BookOperation {
+
+    private String op; // CREATE, UPDATE or DELETE
+    private Long id; // Id of the book to update or delete
+    private long version; // Version the book was read at, so the batch fails if someone changed it since
+    private BookDataModel book; // New details for creates and updates
+
+    public static BookOperation create(BookDataModel book) {
+        BookOperation operation = new BookOperation();
+        operation.setOp("CREATE");
+        operation.setBook(book);
+        return operation;
+    }
+
+    public static BookOperation update(BookDataModel book) {
+        BookOperation operation = new BookOperation();
+        operation.setOp("UPDATE");
+        operation.setId(book.getId());
+        operation.setVersion(book.getVersion());
+        operation.setBook(book);
+        return operation;
+    }
+
+    public static BookOperation delete(BookDataModel book) {
+        BookOperation operation = new BookOperation();
+        operation.setOp("DELETE");
+        operation.setId(book.getId());
+        operation.setVersion(book.getVersion());
+        return operation;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public BookDataModel getBook() {
+        return book;
+    }
+
+    public void setBook(BookDataModel book) {
+        this.book = book;
+    }
+}
@@ -0,0 +1,38 @@
+package com.frontend.frontend.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of books as served by the client service's paged endpoint.
+ */
+public class BookPage {
+
+    private List<BookDataModel> items = new ArrayList<>(); // Books on this page, in the requested order
+    private long total; // Number of books matching the request across all pages
+    private String nextCursor; // Opaque cursor for the following page, or null on the last page
+
+    public List<BookDataModel> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BookDataModel> items) {
+        this.items = items;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
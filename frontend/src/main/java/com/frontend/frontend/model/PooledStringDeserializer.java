@@ -0,0 +1,19 @@
+package com.frontend.frontend.model;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+
+/**
+ * Deserializes a string field through {@link StringPool#SHARED}, for fields whose values repeat
+ * across many books and across every session's copy of a catalog page.
+ */
+public class PooledStringDeserializer extends StringDeserializer {
+
+    @Override
+    public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        return StringPool.SHARED.canonicalize(super.deserialize(parser, context));
+    }
+}
@@ -0,0 +1,177 @@
+package com.frontend.frontend.service;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.frontend.frontend.configuration.BookClientProperties;
+import com.frontend.frontend.model.BookChanges;
+import com.vaadin.flow.shared.Registration;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Follows the client service's change feed, once for this frontend, and hands every change to the
+ * subscribed UI sessions.
+ *
+ * A single thread long-polls the feed: each read returns as soon as there are changes, or empty
+ * after {@code book-client.change-feed-wait}. Changes also invalidate the {@link CatalogCache}, so
+ * reads that follow them see the new catalog whichever frontend made them, and move the
+ * {@link CatalogPosition} on, so read replicas serve those reads no older. Subscribers are called
+ * on the feed's thread and must hand the work to their own session. If the feed cannot be read,
+ * the thread retries with growing pauses and carries on from where it stopped; it also pauses
+ * when reads keep resetting, as each reset makes every session reread.
+ */
+@Component
+public class BookChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(BookChangeFeed.class);
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final RestTemplate restTemplate; // Allows for the feed's longer waits
+    private final CatalogCache cache;
+    private final CatalogPosition position;
+    private final String url;
+    private final Duration wait;
+    private final List<Consumer<BookChanges>> subscribers = new CopyOnWriteArrayList<>();
+    private Thread follower;
+    private volatile boolean stopped;
+
+    public BookChangeFeed(@Qualifier("changeFeedRestTemplate") RestTemplate restTemplate, CatalogCache cache,
+                          CatalogPosition position, BookClientProperties properties) {
+        this.restTemplate = restTemplate;
+        this.cache = cache;
+        this.position = position;
+        this.url = properties.getBaseUrl();
+        this.wait = properties.getChangeFeedWait();
+    }
+
+    /**
+     * Calls a subscriber with every batch of changes read from now on, and with every reset.
+     *
+     * @param subscriber Called on the feed's thread; must not block.
+     * @return Removes the subscriber.
+     */
+    public Registration subscribe(Consumer<BookChanges> subscriber) {
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    // Started once the application is up, rather than while the context is still being refreshed
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (follower == null && !wait.isZero()) {
+            follower = new Thread(this::follow, "book-change-feed");
+            follower.setDaemon(true);
+            follower.start();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        stopped = true;
+        if (follower != null) {
+            follower.interrupt(); // Ends a pause; a read in progress fails once the connection pool closes
+            follower = null;
+        }
+    }
+
+    private void follow() {
+        String epoch = null;
+        long cursor = 0;
+        Duration backoff = MIN_BACKOFF;
+        boolean warned = false;
+        boolean reset = false; // Whether the previous read reset
+        while (!stopped) {
+            try {
+                BookChanges read = restTemplate.getForObject(changesUri(epoch, cursor), BookChanges.class);
+                if (read == null) {
+                    throw new RestClientException("Empty response from the change feed");
+                }
+                position.observe(read.getEpoch(), read.getCursor()); // Before the reads the changes cause
+                if (epoch != null && (read.isReset() || !read.getChanges().isEmpty())) {
+                    cache.invalidateAll();
+                    publish(read);
+                }
+                epoch = read.getEpoch();
+                cursor = read.getCursor();
+                if (warned) {
+                    log.info("Following the change feed again");
+                    warned = false;
+                }
+                if (read.isReset() && reset) {
+                    // A feed that keeps resetting, such as instances answering with their own feeds, isn't read in a loop
+                    log.debug("The change feed reset again, pausing {}", backoff);
+                    if (!pause(backoff)) {
+                        return;
+                    }
+                    backoff = longer(backoff);
+                } else {
+                    backoff = MIN_BACKOFF;
+                }
+                reset = read.isReset();
+            } catch (RuntimeException e) { // Also the load balancer finding no instance, reported as IllegalStateException or IllegalArgumentException
+                if (stopped) {
+                    return;
+                }
+                if (!warned) {
+                    log.warn("Cannot read the change feed, retrying: {}", e.getMessage());
+                    warned = true;
+                } else {
+                    log.debug("Cannot read the change feed", e);
+                }
+                if (!pause(backoff)) {
+                    return;
+                }
+                backoff = longer(backoff);
+            }
+        }
+    }
+
+    // Returns false if the feed is being stopped
+    private static boolean pause(Duration pause) {
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException interrupted) {
+            return false;
+        }
+    }
+
+    private static Duration longer(Duration backoff) {
+        return backoff.multipliedBy(2).compareTo(MAX_BACKOFF) < 0 ? backoff.multipliedBy(2) : MAX_BACKOFF;
+    }
+
+    private void publish(BookChanges changes) {
+        for (Consumer<BookChanges> subscriber : subscribers) {
+            try {
+                subscriber.accept(changes);
+            } catch (RuntimeException e) {
+                log.warn("A change feed subscriber failed", e); // Others still get the changes
+            }
+        }
+    }
+
+    private URI changesUri(String epoch, long cursor) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(url).path("/changes");
+        if (epoch != null) { // Without one, the first read only returns where the feed stands
+            builder.queryParam("epoch", epoch)
+                .queryParam("after", cursor)
+                .queryParam("wait", Math.max(1, wait.toSeconds()));
+        }
+        return builder.encode().build().toUri();
+    }
+}
@@ -0,0 +1,185 @@
+package com.frontend.frontend.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.frontend.frontend.configuration.BookClientProperties;
+import com.frontend.frontend.model.BookDataModel;
+import com.frontend.frontend.model.BookOperation;
+import com.frontend.frontend.model.BookPage;
+
+/**
+ * Talks to the client service on behalf of every UI session.
+ *
+ * Reads go through the shared {@link CatalogCache}; every change made through this service
+ * invalidates it, so a session sees its own changes on its next read.
+ */
+@Service
+public class BookService {
+
+    private static final TypeReference<List<BookDataModel>> BOOK_LIST = new TypeReference<>() {};
+
+    private final RestTemplate restTemplate; // REST client for API calls
+    private final ObjectMapper objectMapper; // Turns cached response bodies into fresh objects per caller
+    private final CatalogCache cache;
+    private final String url; // Base URL for API requests
+
+    public BookService(RestTemplate restTemplate, ObjectMapper objectMapper, CatalogCache cache,
+                       BookClientProperties properties) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.cache = cache;
+        this.url = properties.getBaseUrl();
+    }
+
+    /**
+     * Reads one page of books, sorted and filtered by the client service.
+     *
+     * @param sort            The field to sort by: id, bookName, bookAuthor or publicationName.
+     * @param descending      Whether to sort in descending order.
+     * @param offset          The number of books to skip.
+     * @param limit           The maximum number of books on the page; 0 only counts the matches.
+     * @param bookName        Exact book name to filter by, or blank.
+     * @param bookAuthor      Exact author to filter by, or blank.
+     * @param publicationName Exact publication to filter by, or blank.
+     * @return The page.
+     */
+    public BookPage page(String sort, boolean descending, int offset, int limit,
+                         String bookName, String bookAuthor, String publicationName) {
+        URI pageUri = UriComponentsBuilder.fromHttpUrl(url).path("/page")
+            .queryParam("sort", sort)
+            .queryParam("direction", descending ? "desc" : "asc")
+            .queryParam("offset", offset)
+            .queryParam("limit", limit)
+            .queryParam("bookName", bookName != null ? bookName : "")
+            .queryParam("bookAuthor", bookAuthor != null ? bookAuthor : "")
+            .queryParam("publicationName", publicationName != null ? publicationName : "")
+            .encode().build().toUri();
+        return read(pageUri, objectMapper.getTypeFactory().constructType(BookPage.class));
+    }
+
+    /**
+     * Finds the books whose fields equal the given values, ignoring case; blank values are ignored.
+     *
+     * @return The matching books.
+     */
+    public List<BookDataModel> search(String bookName, String bookAuthor, String publicationName) {
+        URI searchUri = UriComponentsBuilder.fromHttpUrl(url).path("/search")
+            .queryParam("bookName", bookName != null ? bookName : "")
+            .queryParam("bookAuthor", bookAuthor != null ? bookAuthor : "")
+            .queryParam("publicationName", publicationName != null ? publicationName : "")
+            .encode().build().toUri();
+        return read(searchUri, objectMapper.getTypeFactory().constructType(BOOK_LIST));
+    }
+
+    /**
+     * Runs a ranked, typo-tolerant free-text search.
+     *
+     * @param text  The text to search for.
+     * @param limit The maximum number of books to return.
+     * @return The best matching books, best first.
+     */
+    public List<BookDataModel> textSearch(String text, int limit) {
+        URI searchUri = UriComponentsBuilder.fromHttpUrl(url).path("/search/text")
+            .queryParam("q", text != null ? text : "")
+            .queryParam("mode", "fuzzy")
+            .queryParam("limit", limit)
+            .encode().build().toUri();
+        return read(searchUri, objectMapper.getTypeFactory().constructType(BOOK_LIST));
+    }
+
+    /**
+     * Adds a book.
+     *
+     * @return The client service's response, carrying the added book.
+     */
+    public ResponseEntity<BookDataModel> add(BookDataModel book) {
+        return invalidatingAfter(() -> restTemplate.postForEntity(url, book, BookDataModel.class));
+    }
+
+    /**
+     * Deletes a book, provided it is still at the version it was read at.
+     *
+     * @return The client service's response.
+     * @throws HttpClientErrorException.Conflict If someone else changed the book in the meantime.
+     */
+    public ResponseEntity<Void> delete(BookDataModel book) {
+        return invalidatingAfter(() -> restTemplate.exchange(url + "/" + book.getId() + "?version=" + book.getVersion(),
+            HttpMethod.DELETE, null, Void.class));
+    }
+
+    /**
+     * Replaces a book, provided it is still at the version it was read at.
+     *
+     * @return The client service's response, carrying the stored book.
+     * @throws HttpClientErrorException.Conflict If someone else changed the book in the meantime.
+     */
+    public ResponseEntity<BookDataModel> update(BookDataModel book) {
+        return invalidatingAfter(() -> restTemplate.exchange(url + "/" + book.getId(), HttpMethod.PUT,
+            new HttpEntity<>(book), BookDataModel.class));
+    }
+
+    /**
+     * Applies creates, updates and deletes in one request; the client service applies all of them or none.
+     *
+     * @return The client service's response, carrying the resulting book of each operation.
+     * @throws HttpClientErrorException.Conflict If someone else changed one of the books in the meantime.
+     */
+    public ResponseEntity<List<BookDataModel>> applyBatch(List<BookOperation> operations) {
+        return invalidatingAfter(() -> restTemplate.exchange(url + "/batch", HttpMethod.POST,
+            new HttpEntity<>(operations), new ParameterizedTypeReference<List<BookDataModel>>() {}));
+    }
+
+    private <T> T read(URI uri, JavaType type) {
+        byte[] body = cache.get(uri, this::fetch);
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable response from " + uri, e);
+        }
+    }
+
+    // Fetches a response, or only confirms the cached one when the client service still has the same entity tag
+    private CatalogCache.Entry fetch(URI uri, CatalogCache.Entry cached) {
+        HttpHeaders headers = new HttpHeaders();
+        if (cached != null && cached.etag() != null) {
+            headers.setIfNoneMatch(cached.etag());
+        }
+        ResponseEntity<byte[]> response = restTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && cached != null) {
+            return cached.revalidated();
+        }
+        byte[] body = response.getBody() != null ? response.getBody() : new byte[0];
+        return new CatalogCache.Entry(body, response.getHeaders().getETag(), System.nanoTime());
+    }
+
+    private <T> ResponseEntity<T> invalidatingAfter(Supplier<ResponseEntity<T>> change) {
+        try {
+            ResponseEntity<T> response = change.get();
+            if (response.getStatusCode().is2xxSuccessful()) {
+                cache.invalidateAll();
+            }
+            return response;
+        } catch (HttpClientErrorException.Conflict e) {
+            cache.invalidateAll(); // The cached copy was evidently stale
+            throw e;
+        }
+    }
+}
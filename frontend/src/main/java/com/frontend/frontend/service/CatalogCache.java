@@ -0,0 +1,147 @@
+package com.frontend.frontend.service;
+
+import java.net.URI;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Read-through cache of client service responses, shared by every UI session of this frontend.
+ *
+ * Responses are kept as raw bytes keyed by request URI, so sessions never share mutable objects.
+ * A response younger than the TTL is served as is; an older one is revalidated with its entity
+ * tag, which costs a bodiless 304 when the catalog has not changed. Concurrent misses for the same
+ * URI wait for a single fetch. {@link #invalidateAll()} starts a new generation: fetches begun
+ * before it are neither cached nor shared with requests made after it.
+ */
+@Component
+public class CatalogCache {
+
+    /**
+     * A cached response.
+     *
+     * @param body      The response body.
+     * @param etag      The entity tag the client service sent with it, or null.
+     * @param fetchedAt When the body was last fetched or confirmed current, in {@link System#nanoTime()} units.
+     */
+    public record Entry(byte[] body, String etag, long fetchedAt) {
+
+        /**
+         * @return This entry, confirmed current as of now.
+         */
+        public Entry revalidated() {
+            return new Entry(body, etag, System.nanoTime());
+        }
+    }
+
+    /**
+     * Fetches a response from the client service.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        /**
+         * @param uri    The request URI.
+         * @param cached The previously cached entry, to revalidate, or null.
+         * @return The fresh entry, or {@code cached.revalidated()} if the client service confirmed it.
+         */
+        Entry load(URI uri, Entry cached);
+    }
+
+    private record Key(URI uri, long generation) {
+    }
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final ConcurrentHashMap<URI, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Key, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>(); // Fetches to join
+    private final AtomicLong generation = new AtomicLong(); // Bumped by every invalidation
+
+    public CatalogCache(CatalogCacheProperties properties) {
+        this.ttlNanos = properties.getTtl().toNanos();
+        this.maxEntries = Math.max(1, properties.getMaxEntries());
+    }
+
+    /**
+     * Returns the response body for a URI, from the cache while it is fresh and from the loader otherwise.
+     *
+     * @param uri    The request URI.
+     * @param loader Fetches or revalidates the response on a miss.
+     * @return The response body.
+     */
+    public byte[] get(URI uri, Loader loader) {
+        Entry cached = entries.get(uri);
+        if (cached != null && System.nanoTime() - cached.fetchedAt() < ttlNanos) {
+            return cached.body();
+        }
+
+        long fetchGeneration = generation.get();
+        Key key = new Key(uri, fetchGeneration);
+        CompletableFuture<Entry> fetch = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(key, fetch);
+        if (running != null) {
+            return await(running).body(); // Someone is already fetching this URI
+        }
+
+        try {
+            Entry loaded = loader.load(uri, cached);
+            if (generation.get() == fetchGeneration) { // Don't resurrect data from before an invalidation
+                entries.put(uri, loaded);
+                evictIfFull();
+            }
+            fetch.complete(loaded);
+            return loaded.body();
+        } catch (RuntimeException e) {
+            fetch.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, fetch);
+        }
+    }
+
+    /**
+     * Forgets every cached response, e.g. after this frontend changed the catalog.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * @return The number of cached responses.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictIfFull() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        // Drop the least recently fetched tenth at once, so the scan is paid rarely
+        List<Map.Entry<URI, Entry>> oldestFirst = entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().fetchedAt()))
+                .toList();
+        int excess = entries.size() - maxEntries + maxEntries / 10;
+        for (int i = 0; i < excess && i < oldestFirst.size(); i++) {
+            entries.remove(oldestFirst.get(i).getKey(), oldestFirst.get(i).getValue());
+        }
+    }
+
+    private static Entry await(CompletableFuture<Entry> fetch) {
+        try {
+            return fetch.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause; // Report the same error the fetching request got
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.frontend.frontend.service;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the catalog cache shared by all UI sessions, bound from {@code catalog-cache.*}.
+ */
+@ConfigurationProperties("catalog-cache")
+public class CatalogCacheProperties {
+
+    private Duration ttl = Duration.ofSeconds(5); // How long a response is served without asking the client service
+    private int maxEntries = 1000; // Upper bound on the number of cached responses
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+}
@@ -0,0 +1,63 @@
+package com.frontend.frontend.service;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+/**
+ * The latest point in the client service's history this frontend has seen, so reads served by a
+ * read replica are never older than what its sessions already saw.
+ *
+ * The primary answers each write with its position in the change feed, and the change feed
+ * reports one with every read. As an interceptor of the client service's {@code RestTemplate},
+ * this records the position of every write and asks every read for a catalog at least that
+ * recent; a replica that lags waits or hands the read to the primary. The primary itself ignores
+ * the request, so the header is harmless without replicas.
+ */
+@Component
+public class CatalogPosition implements ClientHttpRequestInterceptor {
+
+    static final String HEADER = "X-Book-Position";
+    static final String MIN_HEADER = "X-Book-Min-Position";
+
+    private record Position(String epoch, long cursor) {
+    }
+
+    private volatile Position latest; // Null until a write or the change feed reports one
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Position position = latest;
+        if (position != null && request.getMethod() == HttpMethod.GET) {
+            request.getHeaders().set(MIN_HEADER, position.epoch() + ":" + position.cursor());
+        }
+        ClientHttpResponse response = execution.execute(request, body);
+        String reported = response.getHeaders().getFirst(HEADER);
+        if (reported != null) {
+            int separator = reported.lastIndexOf(':');
+            if (separator > 0) {
+                observe(reported.substring(0, separator), Long.parseLong(reported.substring(separator + 1)));
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Records a position, unless one later in the same run was already seen.
+     *
+     * @param epoch  The run of the primary the position belongs to.
+     * @param cursor The position in the primary's change feed.
+     */
+    public synchronized void observe(String epoch, long cursor) {
+        Position current = latest;
+        if (current == null || !current.epoch().equals(epoch) || current.cursor() < cursor) {
+            latest = new Position(epoch, cursor); // A new epoch means the primary restarted
+        }
+    }
+}
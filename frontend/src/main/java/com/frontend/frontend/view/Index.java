@@ -1,36 +1,66 @@
 package com.frontend.frontend.view;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
+import com.frontend.frontend.model.BookChange;
+import com.frontend.frontend.model.BookChanges;
 import com.frontend.frontend.model.BookDataModel;
-import com.frontend.frontend.utils.SearchUtils;
+import com.frontend.frontend.model.BookOperation;
+import com.frontend.frontend.model.BookPage;
+import com.frontend.frontend.service.BookChangeFeed;
+import com.frontend.frontend.service.BookService;
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.DetachEvent;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.dataview.GridLazyDataView;
+import com.vaadin.flow.component.grid.dataview.GridListDataView;
 import com.vaadin.flow.component.html.H5;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+import com.vaadin.flow.data.provider.SortDirection;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.shared.Registration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Route("/") // This annotation maps this class to the root route
 public class Index extends VerticalLayout { // Extends VerticalLayout for stacking UI components
 
     private Grid<BookDataModel> grid = new Grid<>(); // Grid to display book data
-    private final RestTemplate restTemplate; // REST client for API calls
-    private final String url = "http://client:8080"; // Base URL for API requests
-
-    @Autowired // Dependency injection for RestTemplate
-    public Index(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    private final BookService bookService; // Shared, cached access to the client service
+    private final BookChangeFeed changeFeed; // Changes to the catalog, pushed to the grid as they happen
+    private Registration changeFeedRegistration; // Held while the view is attached
+    private final Timer countTimer; // Time to count the rows behind the grid, the first fetch of every refresh
+    private final Timer pageTimer; // Time to fetch a window of rows
+
+    // Exact-match filter applied by the client service to every page the grid fetches
+    private String filterBookName = "";
+    private String filterBookAuthor = "";
+    private String filterPublicationName = "";
+
+    private List<BookDataModel> textResults; // The hits shown by the last free-text search, or null while the grid pages the catalog
+
+    @Autowired // Dependency injection for BookService
+    public Index(BookService bookService, BookChangeFeed changeFeed, MeterRegistry meters) {
+        this.bookService = bookService;
+        this.changeFeed = changeFeed;
+        this.countTimer = Timer.builder("frontend.grid.fetch").tag("query", "count").register(meters);
+        this.pageTimer = Timer.builder("frontend.grid.fetch").tag("query", "page").register(meters);
 
         // Create main layout with two columns
         HorizontalLayout mainLayout = new HorizontalLayout();
@@ -65,17 +95,21 @@ public class Index extends VerticalLayout { // Extends VerticalLayout for stacki
         Button btnToSearch = new Button("Search");
 
         btnToSearch.addClickListener(event -> {
-            String bookName = bookNameToSearch.getValue();
-            String bookAuthor = bookAuthorToSearch.getValue();
-            String publicationName = publicationNameToSearch.getValue();
+            filterBookName = bookNameToSearch.getValue();
+            filterBookAuthor = bookAuthorToSearch.getValue();
+            filterPublicationName = publicationNameToSearch.getValue();
 
-            List<BookDataModel> dataList = getData();
-            List<BookDataModel> searchResultGrid = linearSearch(dataList, bookName, bookAuthor, publicationName);
-            grid.setItems(searchResultGrid);
+            showCatalog(); // The client service filters, sorts and pages the matches
         });
 
+        // Free-text search tolerates partial words and typos across all three fields; it shows at most 100 ranked hits
+        TextField textToFind = new TextField("Title, author or publisher");
+        Button btnToFind = new Button("Find", event -> showTextResults(textSearchData(textToFind.getValue())));
+
         HorizontalLayout hLayoutToSearchBook = new HorizontalLayout(bookNameToSearch, bookAuthorToSearch, publicationNameToSearch);
-        crudLayout.add(headingToSearchBook, hLayoutToSearchBook, btnToSearch);
+        HorizontalLayout hLayoutToFindBook = new HorizontalLayout(textToFind, btnToFind);
+        hLayoutToFindBook.setDefaultVerticalComponentAlignment(Alignment.BASELINE);
+        crudLayout.add(headingToSearchBook, hLayoutToSearchBook, btnToSearch, hLayoutToFindBook);
     }
 
     private void setupAddSection(VerticalLayout crudLayout) {
@@ -104,8 +138,12 @@ public class Index extends VerticalLayout { // Extends VerticalLayout for stacki
             deleteData(bookName, bookAuthor, publicationName);
         });
 
+        // Deletes every match with a single batch request
+        Button btnToDeleteAll = new Button("Delete All Matches", event -> deleteAllData(
+            bookNameTextFieldToDeleField.getValue(), bookAuthorTextFieldToDeleField.getValue(), publisherNameTextFieldToDeleField.getValue()));
+
         HorizontalLayout hLayoutToDeleteBook = new HorizontalLayout(bookNameTextFieldToDeleField, bookAuthorTextFieldToDeleField, publisherNameTextFieldToDeleField);
-        crudLayout.add(headingToDelete, hLayoutToDeleteBook, btnToDelete);
+        crudLayout.add(headingToDelete, hLayoutToDeleteBook, new HorizontalLayout(btnToDelete, btnToDeleteAll));
     }
 
     private void setupUpdateSection(VerticalLayout crudLayout) {
@@ -135,42 +173,149 @@ public class Index extends VerticalLayout { // Extends VerticalLayout for stacki
             updateData(bookName, bookAuthor, publicationName, oldDataToChange, newDataToChangeTo);
         });
 
-        VerticalLayout updateLayout = new VerticalLayout(hLayoutToUpdateFirstLayer, hLayoutToUpdateSecondLayer, btnToUpdate);
+        // Updates every match with a single batch request
+        Button btnToUpdateAll = new Button("Update All Matches", event -> updateAllData(
+            bookNameTextFieldToUpdate.getValue(), bookAuthorTextFieldToUpdate.getValue(), publisherNameTextFieldToUpdate.getValue(),
+            oldData.getValue(), newData.getValue()));
+
+        VerticalLayout updateLayout = new VerticalLayout(hLayoutToUpdateFirstLayer, hLayoutToUpdateSecondLayer,
+            new HorizontalLayout(btnToUpdate, btnToUpdateAll));
         crudLayout.add(headingToUpdate, updateLayout);
     }
 
     private void setupGrid() {
         grid.setWidth("50%"); // Set the grid width to take equal space
-        grid.addColumn(BookDataModel::getBookName).setHeader("Book Name");
-        grid.addColumn(BookDataModel::getBookAuthor).setHeader("Author");
-        grid.addColumn(BookDataModel::getPublicationName).setHeader("Publication");
+        // Sort properties are the client service's sort fields, so clicking a header sorts on the server
+        grid.addColumn(BookDataModel::getBookName).setHeader("Book Name").setSortProperty("bookName");
+        grid.addColumn(BookDataModel::getBookAuthor).setHeader("Author").setSortProperty("bookAuthor");
+        grid.addColumn(BookDataModel::getPublicationName).setHeader("Publication").setSortProperty("publicationName");
         grid.getElement().getStyle().set("border-bottom", "none"); // Remove bottom border
     }
 
-    private List<BookDataModel> linearSearch(List<BookDataModel> dataList, String bookName, String bookAuthor, String publicationName) {
-        return SearchUtils.linearSearch(dataList, bookName, bookAuthor, publicationName);
-    }
-
     // Method to load existing book data from the server
     private void loadBookData() {
+        showCatalog();
+    }
+
+    // Method to back the grid with a lazy data provider: only the rows in view are fetched and kept in the session
+    private void showCatalog() {
+        textResults = null;
+        GridLazyDataView<BookDataModel> dataView = grid.setItems(
+            query -> fetchWindow(query),
+            query -> {
+                // A zero-sized page only carries the number of matching books
+                BookPage page = countTimer.record(() -> pageData(query, 0, 0));
+                return page != null ? (int) Math.min(page.getTotal(), Integer.MAX_VALUE) : 0;
+            });
+        dataView.setIdentifierProvider(BookDataModel::getId); // A changed book replaces the row of the same id
+    }
+
+    // Method to show the hits of a free-text search; they stay as found, apart from updates and deletes
+    private void showTextResults(List<BookDataModel> hits) {
+        textResults = new ArrayList<>(hits);
+        GridListDataView<BookDataModel> dataView = grid.setItems(textResults);
+        dataView.setIdentifierProvider(BookDataModel::getId);
+    }
+
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        super.onAttach(attachEvent);
+        UI ui = attachEvent.getUI();
+        changeFeedRegistration = changeFeed.subscribe(changes -> {
+            try {
+                ui.access(() -> applyChanges(changes)); // Runs with the session locked, then pushed to the browser
+            } catch (UIDetachedException e) {
+                // Closed since; onDetach unsubscribes
+            }
+        });
+    }
+
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        if (changeFeedRegistration != null) {
+            changeFeedRegistration.remove();
+            changeFeedRegistration = null;
+        }
+        super.onDetach(detachEvent);
+    }
+
+    // Method to bring the grid up to date with changes to the catalog, made here or anywhere else
+    private void applyChanges(BookChanges changes) {
+        if (textResults != null) {
+            applyToTextResults(changes);
+            return;
+        }
+        // An edit leaves a row where it is only when the grid is unfiltered and in id order
+        boolean inPlace = !changes.isReset() && grid.getSortOrder().isEmpty()
+            && isBlank(filterBookName) && isBlank(filterBookAuthor) && isBlank(filterPublicationName);
+        boolean refetch = !inPlace;
+        for (BookChange change : changes.getChanges()) {
+            if (change.getType() != BookChange.Type.UPDATE) {
+                refetch = true; // Rows shift, and the count changes
+            } else if (inPlace) {
+                grid.getDataProvider().refreshItem(change.getBook()); // Only sent if the row is in view
+            }
+        }
+        if (refetch) {
+            grid.getDataProvider().refreshAll(); // Refetches the count and the rows in view
+        }
+    }
+
+    // Method to update or drop the free-text hits that changed; new books don't join a search already run
+    private void applyToTextResults(BookChanges changes) {
+        boolean removed = false;
+        for (BookChange change : changes.getChanges()) {
+            for (int i = 0; i < textResults.size(); i++) {
+                if (textResults.get(i).getId() == change.getId()) {
+                    if (change.getType() == BookChange.Type.DELETE) {
+                        textResults.remove(i);
+                        removed = true;
+                    } else {
+                        textResults.set(i, change.getBook());
+                        grid.getDataProvider().refreshItem(change.getBook());
+                    }
+                    break;
+                }
+            }
+        }
+        if (removed) {
+            grid.getDataProvider().refreshAll();
+        }
+    }
+
+    // Method to fetch the rows of the grid's current window
+    private Stream<BookDataModel> fetchWindow(Query<BookDataModel, Void> query) {
+        BookPage page = pageTimer.record(() -> pageData(query, query.getOffset(), query.getLimit()));
+        return page != null ? page.getItems().stream() : Stream.empty();
+    }
+
+    // Method to fetch one page of books, sorted and filtered by the client service
+    private BookPage pageData(Query<BookDataModel, Void> query, int offset, int limit) {
+        String sort = "id";
+        boolean descending = false;
+        List<QuerySortOrder> sortOrders = query.getSortOrders();
+        if (!sortOrders.isEmpty()) { // The client service sorts on a single field
+            sort = sortOrders.get(0).getSorted();
+            descending = sortOrders.get(0).getDirection() == SortDirection.DESCENDING;
+        }
+
         try {
-            List<BookDataModel> bookData = getData();
-            setupUI(bookData);
+            return bookService.page(sort, descending, offset, limit, filterBookName, filterBookAuthor, filterPublicationName);
         } catch (RestClientException e) {
             Notification.show("Failed to fetch book data: " + e.getMessage(), 3000, Notification.Position.MIDDLE);
             e.printStackTrace();
+            return null;
         }
     }
 
-    // Method to perform a GET request to retrieve book data
-    private List<BookDataModel> getData() {
-        return restTemplate.exchange(url, HttpMethod.GET, null,
-            new ParameterizedTypeReference<List<BookDataModel>>() {}).getBody();
+    // Method to let the client service's indexes find matching books
+    private List<BookDataModel> searchData(String bookName, String bookAuthor, String publicationName) {
+        return bookService.search(bookName, bookAuthor, publicationName);
     }
 
-    // Method to set up the grid with book data
-    private void setupUI(List<BookDataModel> bookDataModels) {
-        grid.setItems(bookDataModels);
+    // Method to run a ranked, typo-tolerant free-text search
+    private List<BookDataModel> textSearchData(String text) {
+        return bookService.textSearch(text, 100);
     }
 
     // Method to add new book data through a POST request
@@ -181,10 +326,9 @@ public class Index extends VerticalLayout { // Extends VerticalLayout for stacki
         newBookData.setPublicationName(publicationName);
 
         try {
-            ResponseEntity<BookDataModel> response = restTemplate.postForEntity(url, newBookData, BookDataModel.class);
+            ResponseEntity<BookDataModel> response = bookService.add(newBookData);
             if (response.getStatusCode().is2xxSuccessful()) {
                 Notification.show("Book added successfully: " + newBookData.getBookName(), 3000, Notification.Position.MIDDLE);
-                refreshGrid();
             } else {
                 Notification.show("Failed to add the book: " + response.getStatusCode(), 3000, Notification.Position.MIDDLE);
             }
@@ -195,101 +339,116 @@ public class Index extends VerticalLayout { // Extends VerticalLayout for stacki
     }
 
     public void deleteData(String bookName, String bookAuthor, String publicationName) {
-        List<BookDataModel> bookData = getData();
-        String trimmedBookName = bookName != null ? bookName.trim() : null;
-        String trimmedBookAuthor = bookAuthor != null ? bookAuthor.trim() : null;
-        String trimmedPublicationName = publicationName != null ? publicationName.trim() : null;
-    
-        boolean bookFound = false;
-    
-        for (int i = 0; i < bookData.size(); i++) {
-            BookDataModel currentBook = bookData.get(i);
-            boolean matches = true;
-    
-            if (trimmedBookName != null && !trimmedBookName.isEmpty() && !currentBook.getBookName().equalsIgnoreCase(trimmedBookName)) {
-                matches = false;
-            }
-            if (trimmedBookAuthor != null && !trimmedBookAuthor.isEmpty() && !currentBook.getBookAuthor().equalsIgnoreCase(trimmedBookAuthor)) {
-                matches = false;
-            }
-            if (trimmedPublicationName != null && !trimmedPublicationName.isEmpty() && !currentBook.getPublicationName().equalsIgnoreCase(trimmedPublicationName)) {
-                matches = false;
-            }
-    
-            if (matches) {
-                bookFound = true;
-    
-                try {
-                    // Send a DELETE request using the index in the URL
-                    ResponseEntity<Void> response = restTemplate.exchange(url + "/" + i, HttpMethod.DELETE, null, Void.class);
-    
-                    if (response.getStatusCode().is2xxSuccessful()) {
-                        Notification.show("The Book has been deleted successfully");
-                        refreshGrid(); // Refresh the grid to show updated data
-                    } else {
-                        Notification.show("Failed to delete the book. Server response: " + response.getStatusCode());
-                    }
-                } catch (RestClientException e) {
-                    Notification.show("Error occurred while deleting the book: " + e.getMessage(), 3000, Notification.Position.MIDDLE);
-                    e.printStackTrace();
-                }
-    
-                return; // Exit after handling the deletion
-            }
-        }
-    
-        if (!bookFound) {
+        // Let the client service find the matching books instead of scanning the whole catalog here
+        List<BookDataModel> matches = searchData(bookName, bookAuthor, publicationName);
+        if (matches.isEmpty()) {
             Notification.show("Book not found");
+            return;
+        }
+
+        BookDataModel currentBook = matches.get(0);
+        try {
+            // Delete the book by its stable id, as long as it is still the version we found
+            ResponseEntity<Void> response = bookService.delete(currentBook);
+
+            if (response.getStatusCode().is2xxSuccessful()) {
+                Notification.show("The Book has been deleted successfully");
+            } else {
+                Notification.show("Failed to delete the book. Server response: " + response.getStatusCode());
+            }
+        } catch (HttpClientErrorException.Conflict e) {
+            Notification.show("The book was changed by someone else, please try again", 3000, Notification.Position.MIDDLE);
+        } catch (RestClientException e) {
+            Notification.show("Error occurred while deleting the book: " + e.getMessage(), 3000, Notification.Position.MIDDLE);
+            e.printStackTrace();
         }
     }
 
     public void updateData(String bookName, String bookAuthor, String publicationName, String oldData, String newData) {
-        // Get the complete book data
-        List<BookDataModel> originalData = getData();
-        
-        // Search for the books matching the criteria
-        List<BookDataModel> resultSetFromSearch = SearchUtils.linearSearch(originalData, bookName, bookAuthor, publicationName);
+        // Search for the books matching the criteria on the client service
+        List<BookDataModel> resultSetFromSearch = searchData(bookName, bookAuthor, publicationName);
         
         for (BookDataModel foundBook : resultSetFromSearch) {
-            int originalIndex = originalData.indexOf(foundBook); // Find the original index in the full data
-    
-            boolean updated = false;
-    
-            // Check if the oldData matches and set new data accordingly
-            if (foundBook.getBookName().equals(oldData)) {
-                foundBook.setBookName(newData);
-                updated = true;
-            } else if (foundBook.getBookAuthor().equals(oldData)) {
-                foundBook.setBookAuthor(newData);
-                updated = true;
-            } else if (foundBook.getPublicationName().equals(oldData)) {
-                foundBook.setPublicationName(newData);
-                updated = true;
-            }
-    
-            if (updated) {
+            if (replaceField(foundBook, oldData, newData)) {
                 try {
-                    // Send a PUT request to update the book on the server using the correct index
-                    ResponseEntity<BookDataModel> response = restTemplate.exchange(url + "/" + originalIndex, HttpMethod.PUT, new HttpEntity<>(foundBook), BookDataModel.class);
+                    // Update the book on the server using its stable id
+                    ResponseEntity<BookDataModel> response = bookService.update(foundBook);
                     
                     if (response.getStatusCode().is2xxSuccessful()) {
                         Notification.show("Updated book information successfully.");
                     } else {
                         Notification.show("Failed to update the book: " + response.getStatusCode(), 3000, Notification.Position.MIDDLE);
                     }
+                } catch (HttpClientErrorException.Conflict e) {
+                    Notification.show("The book was changed by someone else, please try again", 3000, Notification.Position.MIDDLE);
                 } catch (RestClientException e) {
                     Notification.show("Error occurred while updating the book: " + e.getMessage(), 3000, Notification.Position.MIDDLE);
                 }
                 break; // Exit after the first successful update
             }
         }
-    
-        refreshGrid(); // Refresh the grid to show updated data
     }
 
-    // Method to refresh the grid with the latest book data
-    private void refreshGrid() {
-        List<BookDataModel> updatedData = getData();
-        grid.setItems(updatedData);
+    public void deleteAllData(String bookName, String bookAuthor, String publicationName) {
+        if (isBlank(bookName) && isBlank(bookAuthor) && isBlank(publicationName)) {
+            Notification.show("Enter at least one field to match", 3000, Notification.Position.MIDDLE);
+            return; // An empty search matches the whole catalog
+        }
+        List<BookDataModel> matches = searchData(bookName, bookAuthor, publicationName);
+        if (matches.isEmpty()) {
+            Notification.show("Book not found");
+            return;
+        }
+
+        List<BookOperation> operations = matches.stream().map(BookOperation::delete).toList();
+        applyBatch(operations, "Deleted " + operations.size() + " books", "deleting the books");
+    }
+
+    public void updateAllData(String bookName, String bookAuthor, String publicationName, String oldData, String newData) {
+        if (isBlank(bookName) && isBlank(bookAuthor) && isBlank(publicationName)) {
+            Notification.show("Enter at least one field to match", 3000, Notification.Position.MIDDLE);
+            return;
+        }
+        List<BookOperation> operations = new ArrayList<>();
+        for (BookDataModel foundBook : searchData(bookName, bookAuthor, publicationName)) {
+            if (replaceField(foundBook, oldData, newData)) {
+                operations.add(BookOperation.update(foundBook));
+            }
+        }
+        if (operations.isEmpty()) {
+            Notification.show("Book not found");
+            return;
+        }
+        applyBatch(operations, "Updated " + operations.size() + " books", "updating the books");
+    }
+
+    // Method to send a batch that the client service applies completely or not at all
+    private void applyBatch(List<BookOperation> operations, String successMessage, String action) {
+        try {
+            bookService.applyBatch(operations);
+            Notification.show(successMessage);
+        } catch (HttpClientErrorException.Conflict | HttpClientErrorException.NotFound e) {
+            Notification.show("Some of the books were changed by someone else, nothing was changed, please try again", 3000, Notification.Position.MIDDLE);
+        } catch (RestClientException e) {
+            Notification.show("Error occurred while " + action + ": " + e.getMessage(), 3000, Notification.Position.MIDDLE);
+        }
+    }
+
+    // Method to replace whichever field of the book equals oldData; returns whether one did
+    private static boolean replaceField(BookDataModel book, String oldData, String newData) {
+        if (book.getBookName().equals(oldData)) {
+            book.setBookName(newData);
+        } else if (book.getBookAuthor().equals(oldData)) {
+            book.setBookAuthor(newData);
+        } else if (book.getPublicationName().equals(oldData)) {
+            book.setPublicationName(newData);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
 }
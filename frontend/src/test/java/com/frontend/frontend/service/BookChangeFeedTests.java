@@ -0,0 +1,83 @@
+package com.frontend.frontend.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.frontend.frontend.configuration.BookClientProperties;
+import com.frontend.frontend.model.BookChanges;
+
+class BookChangeFeedTests {
+
+	private static BookChanges changes(long cursor, boolean reset) {
+		BookChanges changes = new BookChanges();
+		changes.setEpoch("e");
+		changes.setCursor(cursor);
+		changes.setReset(reset);
+		return changes;
+	}
+
+	@Test
+	void keepsFollowingAfterTheLoadBalancerFindsNoInstance() throws Exception {
+		AtomicInteger reads = new AtomicInteger();
+		RestTemplate restTemplate = new RestTemplate() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public <T> T getForObject(URI url, Class<T> responseType) {
+				int read = reads.incrementAndGet();
+				if (read == 1) {
+					throw new IllegalArgumentException("Service Instance cannot be null"); // What the retrying load balancer throws
+				}
+				if (read > 3) {
+					try {
+						Thread.sleep(100); // A long poll with nothing new
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return (T) changes(read, read == 3);
+			}
+		};
+		BookClientProperties properties = new BookClientProperties();
+		BookChangeFeed feed = new BookChangeFeed(restTemplate, new CatalogCache(new CatalogCacheProperties()),
+				new CatalogPosition(), properties);
+		CountDownLatch published = new CountDownLatch(1);
+		feed.subscribe(changes -> published.countDown());
+
+		feed.start();
+		try {
+			assertTrue(published.await(10, TimeUnit.SECONDS), "No changes after the failed read");
+		} finally {
+			feed.stop();
+		}
+	}
+
+	@Test
+	void pausesWhenReadsKeepResetting() throws Exception {
+		AtomicInteger reads = new AtomicInteger();
+		RestTemplate restTemplate = new RestTemplate() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public <T> T getForObject(URI url, Class<T> responseType) {
+				int read = reads.incrementAndGet();
+				return (T) changes(read, true); // As when each read lands on an instance with another epoch
+			}
+		};
+		BookChangeFeed feed = new BookChangeFeed(restTemplate, new CatalogCache(new CatalogCacheProperties()),
+				new CatalogPosition(), new BookClientProperties());
+
+		feed.start();
+		try {
+			Thread.sleep(1500);
+		} finally {
+			feed.stop();
+		}
+		assertTrue(reads.get() <= 4, () -> reads.get() + " reads");
+	}
+}
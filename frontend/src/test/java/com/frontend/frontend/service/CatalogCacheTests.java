@@ -0,0 +1,83 @@
+package com.frontend.frontend.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class CatalogCacheTests {
+
+	private static final URI PAGE = URI.create("http://client/page");
+
+	private static CatalogCache cache(Duration ttl) {
+		CatalogCacheProperties properties = new CatalogCacheProperties();
+		properties.setTtl(ttl);
+		return new CatalogCache(properties);
+	}
+
+	@Test
+	void concurrentMissesShareOneFetch() throws Exception {
+		CatalogCache cache = cache(Duration.ofMinutes(1));
+		AtomicInteger fetches = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		CatalogCache.Loader slowLoader = (uri, cached) -> {
+			fetches.incrementAndGet();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return new CatalogCache.Entry(new byte[] {1}, "\"1\"", System.nanoTime());
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			Future<?>[] readers = new Future<?>[8];
+			for (int i = 0; i < readers.length; i++) {
+				readers[i] = executor.submit(() -> cache.get(PAGE, slowLoader));
+			}
+			Thread.sleep(200); // Let every reader miss while the first fetch is blocked
+			release.countDown();
+			for (Future<?> reader : readers) {
+				assertArrayEquals(new byte[] {1}, (byte[]) reader.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, fetches.get());
+	}
+
+	@Test
+	void staleEntriesAreRevalidatedAndInvalidationForgetsThem() {
+		CatalogCache cache = cache(Duration.ZERO);
+		AtomicReference<CatalogCache.Entry> revalidating = new AtomicReference<>();
+		cache.get(PAGE, (uri, cached) -> new CatalogCache.Entry(new byte[] {1}, "\"1\"", System.nanoTime()));
+
+		byte[] body = cache.get(PAGE, (uri, cached) -> {
+			revalidating.set(cached);
+			return cached.revalidated(); // As if the client service answered 304
+		});
+		assertArrayEquals(new byte[] {1}, body);
+		assertEquals("\"1\"", revalidating.get().etag());
+
+		cache.invalidateAll();
+		revalidating.set(null);
+		cache.get(PAGE, (uri, cached) -> {
+			revalidating.set(cached);
+			return new CatalogCache.Entry(new byte[] {2}, "\"2\"", System.nanoTime());
+		});
+		assertNull(revalidating.get());
+	}
+
+}
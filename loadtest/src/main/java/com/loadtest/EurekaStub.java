@@ -0,0 +1,166 @@
+package com.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Just enough of Eureka's REST API, in-process, for the services under test to register and find
+ * each other: registration, heartbeats, status changes, cancellation and full registry fetches.
+ *
+ * Instances are kept as registered, without leases: nothing expires during a test. Delta fetches
+ * are refused, which makes Eureka clients fall back to a full fetch.
+ */
+public class EurekaStub implements AutoCloseable {
+
+    private static final String PREFIX = "/eureka/apps";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Map<String, ObjectNode>> applications = new ConcurrentHashMap<>(); // app -> instance id -> instance
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    /**
+     * Starts serving.
+     *
+     * @param port The port to listen on, or 0 for any free one.
+     */
+    public EurekaStub(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext(PREFIX, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return The URL to set as {@code eureka.client.service-url.defaultZone}.
+     */
+    public String serviceUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/eureka/";
+    }
+
+    /**
+     * @param app An application name, in any case.
+     * @return The number of its instances whose status is UP.
+     */
+    public int upInstances(String app) {
+        return (int) applications.getOrDefault(app.toUpperCase(Locale.ROOT), Map.of()).values().stream()
+                .filter(instance -> "UP".equals(instance.path("status").asText()))
+                .count();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String[] path = exchange.getRequestURI().getPath().substring(PREFIX.length()).split("/");
+            String method = exchange.getRequestMethod();
+            String app = path.length > 1 ? path[1].toUpperCase(Locale.ROOT) : "";
+            int status;
+            if (method.equals("GET") && app.isEmpty()) {
+                respond(exchange, registry());
+                return;
+            } else if (method.equals("GET") && app.equals("DELTA")) {
+                status = 403; // Not kept; clients fetch the full registry instead
+            } else if (method.equals("POST") && path.length == 2) {
+                status = register(app, exchange.getRequestBody());
+            } else if (method.equals("PUT") && path.length == 3) {
+                status = update(app, path[2], query(exchange).get("status")); // Heartbeat
+            } else if (method.equals("PUT") && path.length == 4 && path[3].equals("status")) {
+                status = update(app, path[2], query(exchange).get("value"));
+            } else if (method.equals("DELETE") && path.length == 3) {
+                Map<String, ObjectNode> instances = applications.get(app);
+                status = instances != null && instances.remove(path[2]) != null ? 200 : 404;
+            } else {
+                status = 404;
+            }
+            exchange.sendResponseHeaders(status, status == 204 ? -1 : 0); // An empty chunked body: with -1 the JDK server drops the kept-alive connection
+        }
+    }
+
+    private int register(String app, InputStream body) throws IOException {
+        JsonNode instance = objectMapper.readTree(body).path("instance");
+        if (!instance.isObject() || !instance.hasNonNull("instanceId")) {
+            return 400;
+        }
+        applications.computeIfAbsent(app, name -> new ConcurrentHashMap<>())
+                .put(instance.get("instanceId").asText(), (ObjectNode) instance);
+        return 204;
+    }
+
+    private int update(String app, String instanceId, String status) {
+        Map<String, ObjectNode> instances = applications.getOrDefault(app, Map.of());
+        ObjectNode instance = instances.get(instanceId);
+        if (instance == null) {
+            return 404; // Makes the instance register again
+        }
+        if (status != null && !status.equals(instance.path("status").asText())) {
+            ObjectNode updated = instance.deepCopy(); // Registry fetches may be serializing the old one
+            updated.put("status", status);
+            instances.put(instanceId, updated);
+        }
+        return 200;
+    }
+
+    private ObjectNode registry() {
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode registry = root.putObject("applications");
+        registry.put("versions__delta", "1");
+        ArrayNode list = registry.putArray("application");
+        Map<String, Integer> statusCounts = new TreeMap<>();
+        applications.forEach((app, instances) -> {
+            if (instances.isEmpty()) {
+                return;
+            }
+            ObjectNode application = list.addObject();
+            application.put("name", app);
+            ArrayNode array = application.putArray("instance");
+            instances.values().forEach(instance -> {
+                array.add(instance);
+                statusCounts.merge(instance.path("status").asText("UNKNOWN"), 1, Integer::sum);
+            });
+        });
+        StringBuilder hashCode = new StringBuilder(); // Same form as Eureka's: STATUS_count_ per status, sorted
+        statusCounts.forEach((status, count) -> hashCode.append(status).append('_').append(count).append('_'));
+        registry.put("apps__hashcode", hashCode.toString());
+        return root;
+    }
+
+    private void respond(HttpExchange exchange, JsonNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new TreeMap<>();
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int equals = pair.indexOf('=');
+                if (equals > 0) {
+                    parameters.put(pair.substring(0, equals), pair.substring(equals + 1));
+                }
+            }
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,141 @@
+package com.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Throughput and latency percentiles of the requests of a load test, per operation and overall.
+ *
+ * Latencies are kept in HdrHistograms at microsecond resolution with three significant digits,
+ * so percentiles as far out as p99.9 stay exact enough without keeping every sample. Only
+ * successful requests count towards latency; failed ones are counted as errors.
+ */
+public class LatencyReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final LongAdder booksWritten = new LongAdder();
+
+    public LatencyReport() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * @param operation The kind of request.
+     * @param nanos     Time from when the request was due to its complete response.
+     * @param succeeded Whether the response had the expected status.
+     * @param books     Books the request added, if it succeeded.
+     */
+    public void record(Operation operation, long nanos, boolean succeeded, int books) {
+        if (succeeded) {
+            latencies.get(operation).recordValue(Math.max(1, nanos / 1_000));
+            booksWritten.add(books);
+        } else {
+            errors.get(operation).increment();
+        }
+    }
+
+    /**
+     * Prints a table of the results, one operation per line.
+     *
+     * @param measured The length of the measurement.
+     */
+    public void print(PrintStream out, Duration measured) {
+        double seconds = measured.toNanos() / 1e9;
+        out.printf("%-9s %9s %8s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            long failed = errors.get(operation).sum();
+            if (histogram.getTotalCount() + failed > 0) {
+                printLine(out, operation.label(), histogram, failed, seconds);
+            }
+        }
+        printLine(out, "all", total(), totalErrors(), seconds);
+        out.printf("%nbooks written: %d (%.1f per second)%n", booksWritten.sum(), booksWritten.sum() / seconds);
+    }
+
+    /**
+     * Writes the results as JSON, with the settings they were measured under.
+     */
+    public void write(Path file, LoadTestOptions options, Duration measured) throws IOException {
+        double seconds = measured.toNanos() / 1e9;
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode settings = root.putObject("settings");
+        settings.put("clientUrl", options.clientUrl);
+        settings.put("frontendUrl", options.frontendUrl);
+        settings.put("concurrency", options.concurrency);
+        settings.put("rate", options.rate);
+        settings.put("warmupSeconds", options.warmup.toSeconds());
+        settings.put("durationSeconds", seconds);
+        settings.put("writeBatch", options.writeBatch);
+        ObjectNode mix = settings.putObject("mix");
+        options.mix.forEach((operation, weight) -> mix.put(operation.label(), weight));
+
+        ObjectNode operations = root.putObject("operations");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            long failed = errors.get(operation).sum();
+            if (histogram.getTotalCount() + failed > 0) {
+                summarize(operations.putObject(operation.label()), histogram, failed, seconds);
+            }
+        }
+        summarize(root.putObject("all"), total(), totalErrors(), seconds);
+        root.put("booksWritten", booksWritten.sum());
+        root.put("booksPerSecond", booksWritten.sum() / seconds);
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        objectMapper.writeValue(file.toFile(), root);
+    }
+
+    private Histogram total() {
+        Histogram total = new Histogram(3);
+        latencies.values().forEach(total::add);
+        return total;
+    }
+
+    private long totalErrors() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    private static void printLine(PrintStream out, String label, Histogram histogram, long failed, double seconds) {
+        out.printf("%-9s %9d %8d %9.1f", label, histogram.getTotalCount(), failed, histogram.getTotalCount() / seconds);
+        for (double percentile : PERCENTILES) {
+            out.printf(" %9.2f", histogram.getValueAtPercentile(percentile) / 1e3);
+        }
+        out.printf(" %9.2f%n", histogram.getMaxValue() / 1e3);
+    }
+
+    private static void summarize(ObjectNode node, Histogram histogram, long failed, double seconds) {
+        node.put("requests", histogram.getTotalCount());
+        node.put("errors", failed);
+        node.put("requestsPerSecond", histogram.getTotalCount() / seconds);
+        ObjectNode millis = node.putObject("latencyMillis");
+        millis.put("mean", histogram.getMean() / 1e3);
+        for (double percentile : PERCENTILES) {
+            millis.put("p" + (percentile % 1 == 0 ? String.valueOf((int) percentile) : String.valueOf(percentile)),
+                    histogram.getValueAtPercentile(percentile) / 1e3);
+        }
+        millis.put("max", histogram.getMaxValue() / 1e3);
+    }
+}
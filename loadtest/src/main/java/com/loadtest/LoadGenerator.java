@@ -0,0 +1,303 @@
+package com.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Issues the mixed workload of a load test from {@code --concurrency} workers.
+ *
+ * Without a target rate each worker sends its next request as soon as the previous one returns.
+ * With one, each worker sends on a fixed schedule and latency is measured from when a request was
+ * due rather than when it was sent, so a stalled service shows up in the percentiles instead of
+ * just lowering the request rate.
+ */
+public class LoadGenerator {
+
+    private static final String[] FIRST_NAMES = {"Ada", "Basil", "Clara", "Dmitri", "Elif", "Farid", "Greta", "Hugo",
+            "Ines", "Jonas", "Kaito", "Lena", "Mateo", "Nadia", "Oskar", "Priya", "Quentin", "Rosa", "Soren", "Tove"};
+    private static final String[] LAST_NAMES = {"Abernathy", "Bjornsson", "Castellano", "Dubois", "Eriksen", "Fontaine",
+            "Gallagher", "Haddad", "Ivanova", "Jaramillo", "Kowalski", "Lindqvist", "Moreau", "Novak", "Okafor",
+            "Petrov", "Quintero", "Rasmussen", "Sato", "Thornton", "Umarov", "Valdez", "Whitfield", "Xu", "Yilmaz",
+            "Zelenko"};
+    private static final String[] TITLE_WORDS = {"Silent", "River", "Empire", "Garden", "Winter", "Machine", "Harbor",
+            "Shadow", "Letters", "Mountain", "Glass", "Orchard", "Signal", "Lantern", "Atlas", "Ember", "Meridian",
+            "Compass", "Tide", "Archive"};
+    private static final String[] SORTS = {"id", "bookName", "bookAuthor", "publicationName"};
+    private static final int PAGE_SIZE = 50; // The frontend's page size
+
+    private final LoadTestOptions options;
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Operation[] operations; // Cumulative weights pick from these
+    private final int[] cumulativeWeights;
+    private final LongAdder completed = new LongAdder(); // Responses so far, for progress lines
+    private final LongAdder failed = new LongAdder();
+    private volatile long maxId; // Highest book id when the test began; reads pick ids up to it
+
+    public LoadGenerator(LoadTestOptions options) {
+        this.options = options;
+        List<Map.Entry<Operation, Integer>> weighted = options.mix.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .toList();
+        this.operations = new Operation[weighted.size()];
+        this.cumulativeWeights = new int[weighted.size()];
+        int sum = 0;
+        for (int i = 0; i < weighted.size(); i++) {
+            operations[i] = weighted.get(i).getKey();
+            sum += weighted.get(i).getValue();
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    /**
+     * Adds {@code --books} books through the bulk import, then reads back the highest book id.
+     */
+    public void seed(PrintStream out) throws IOException, InterruptedException {
+        Random random = new Random(1);
+        int remaining = options.books;
+        while (remaining > 0) {
+            int count = Math.min(remaining, 5_000);
+            HttpResponse<Void> response = http.send(bulkImport(books(random, count)), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Seeding the catalog failed with status " + response.statusCode());
+            }
+            remaining -= count;
+        }
+
+        HttpResponse<String> last = http.send(HttpRequest.newBuilder(URI.create(options.clientUrl + "/page?sort=id&direction=desc&limit=1"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (last.statusCode() != 200) {
+            throw new IllegalStateException("Reading the catalog failed with status " + last.statusCode());
+        }
+        JsonNode page = objectMapper.readTree(last.body());
+        maxId = page.path("items").path(0).path("id").asLong(0);
+        out.printf("Catalog holds %d books, ids up to %d%n", page.path("total").asLong(), maxId);
+    }
+
+    /**
+     * Runs the warmup and then the measurement.
+     *
+     * @return The requests sent during the measurement.
+     */
+    public LatencyReport run(PrintStream out) throws InterruptedException {
+        LatencyReport report = new LatencyReport();
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup.toNanos();
+        long end = measureFrom + options.duration.toNanos();
+        long interval = options.rate > 0 ? (long) (options.concurrency * 1e9 / options.rate) : 0; // Per worker
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < options.concurrency; i++) {
+            long first = start + (interval * i / options.concurrency); // Staggered, so scheduled requests don't arrive together
+            Thread worker = new Thread(() -> work(report, first, interval, measureFrom, end), "load-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+
+        long previous = 0;
+        long previousFailed = 0;
+        for (long tick = start + 5_000_000_000L; tick < end; tick += 5_000_000_000L) {
+            Thread.sleep(Math.max(0, (tick - System.nanoTime()) / 1_000_000));
+            long now = completed.sum();
+            long nowFailed = failed.sum();
+            out.printf("%4ds %s %8.1f req/s %6d errors%n", (tick - start) / 1_000_000_000L,
+                    tick <= measureFrom ? "warmup " : "measure", (now - previous) / 5.0, nowFailed - previousFailed);
+            previous = now;
+            previousFailed = nowFailed;
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return report;
+    }
+
+    private void work(LatencyReport report, long first, long interval, long measureFrom, long end) {
+        Random random = ThreadLocalRandom.current();
+        String[] session = new String[1]; // The frontend session cookie of this worker, like one browser tab
+        long due = first;
+        while (true) {
+            long now = System.nanoTime();
+            if (interval > 0) {
+                if (due - now > 0) {
+                    LockSupport.parkNanos(due - now);
+                }
+            } else {
+                due = now;
+            }
+            if (due - end >= 0) {
+                return;
+            }
+
+            Operation operation = pick(random);
+            boolean succeeded;
+            try {
+                succeeded = send(operation, random, session);
+            } catch (IOException e) {
+                succeeded = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long latency = System.nanoTime() - due;
+            completed.increment();
+            if (!succeeded) {
+                failed.increment();
+            }
+            if (due - measureFrom >= 0) {
+                report.record(operation, latency, succeeded, operation == Operation.WRITE ? options.writeBatch : 0);
+            }
+            due += interval;
+        }
+    }
+
+    private Operation pick(Random random) {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; ; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+    }
+
+    private boolean send(Operation operation, Random random, String[] session) throws IOException, InterruptedException {
+        return switch (operation) {
+            case GET -> {
+                int status = status(get(options.clientUrl + "/" + (1 + random.nextLong(Math.max(1, maxId)))));
+                yield status == 200 || status == 404; // Ids of a running stack may have gaps
+            }
+            case PAGE -> status(get(options.clientUrl + "/page?sort=" + SORTS[random.nextInt(SORTS.length)]
+                    + "&offset=" + random.nextLong(Math.max(1, maxId - PAGE_SIZE)) + "&limit=" + PAGE_SIZE)) == 200;
+            case SEARCH -> status(get(options.clientUrl + "/search?bookAuthor=" + encode(author(random)))) == 200;
+            case TEXT -> status(get(options.clientUrl + "/search/text?mode=fuzzy&q="
+                    + encode(random.nextBoolean() ? LAST_NAMES[random.nextInt(LAST_NAMES.length)]
+                            : TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]))) == 200;
+            case WRITE -> options.writeBatch == 1
+                    ? status(HttpRequest.newBuilder(URI.create(options.clientUrl + "/"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(book(random))))
+                            .build()) == 201
+                    : status(bulkImport(books(random, options.writeBatch))) == 200;
+            case FRONTEND -> frontend(session);
+        };
+    }
+
+    /**
+     * Views the frontend's book list the way a browser tab does: loads the UI, navigates to the
+     * view, which reads its first page of books from the client service found through Eureka, and
+     * closes the UI again, so views don't pile up in the worker's session until it expires.
+     */
+    private boolean frontend(String[] session) throws IOException, InterruptedException {
+        HttpResponse<byte[]> init = http.send(withSession(HttpRequest.newBuilder(
+                URI.create(options.frontendUrl + "/?v-r=init&location=")), session).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        init.headers().firstValue("Set-Cookie")
+                .ifPresent(cookie -> session[0] = cookie.substring(0, cookie.indexOf(';') < 0 ? cookie.length() : cookie.indexOf(';')));
+        if (init.statusCode() != 200) {
+            return false;
+        }
+
+        JsonNode config = objectMapper.readTree(init.body()).path("appConfig");
+        String uidl = options.frontendUrl + "/?v-r=uidl&v-uiId=" + config.path("v-uiId").asInt();
+        ObjectNode navigate = objectMapper.createObjectNode()
+                .put("csrfToken", config.path("uidl").path("Vaadin-Security-Key").asText())
+                .put("syncId", 0)
+                .put("clientId", 0);
+        ObjectNode event = navigate.putArray("rpc").addObject()
+                .put("type", "event")
+                .put("node", 1) // The UI's root node
+                .put("event", "ui-navigate");
+        event.putObject("data")
+                .put("route", "")
+                .put("query", "")
+                .put("appShellTitle", "")
+                .put("trigger", "")
+                .putObject("historyState").put("idx", 0);
+        boolean shown = status(uidlRequest(uidl, navigate, session)) == 200;
+
+        ObjectNode unload = navigate.deepCopy()
+                .put("syncId", 1)
+                .put("clientId", 1)
+                .put("UNLOAD", true); // The beacon a closing tab sends
+        unload.putArray("rpc");
+        status(uidlRequest(uidl, unload, session));
+        return shown;
+    }
+
+    private HttpRequest uidlRequest(String url, ObjectNode body, String[] session) throws IOException {
+        return withSession(HttpRequest.newBuilder(URI.create(url)), session)
+                .header("Content-Type", "application/json; charset=UTF-8")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private static HttpRequest.Builder withSession(HttpRequest.Builder request, String[] session) {
+        return session[0] != null ? request.header("Cookie", session[0]) : request;
+    }
+
+    private HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).build();
+    }
+
+    private int status(HttpRequest request) throws IOException, InterruptedException {
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest bulkImport(ArrayNode books) throws IOException {
+        return HttpRequest.newBuilder(URI.create(options.clientUrl + "/bulk"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(books)))
+                .build();
+    }
+
+    private ArrayNode books(Random random, int count) {
+        ArrayNode books = objectMapper.createArrayNode();
+        for (int i = 0; i < count; i++) {
+            books.add(book(random));
+        }
+        return books;
+    }
+
+    private ObjectNode book(Random random) {
+        ObjectNode book = objectMapper.createObjectNode();
+        book.put("bookName", "The " + TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " "
+                + TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " " + random.nextInt(1000));
+        book.put("bookAuthor", author(random));
+        book.put("publicationName", LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " Press");
+        return book;
+    }
+
+    /**
+     * @return One of {@code --authors} authors; the same ones are searched for as are written.
+     */
+    private String author(Random random) {
+        int author = random.nextInt(options.authors);
+        return FIRST_NAMES[author % FIRST_NAMES.length] + " " + LAST_NAMES[(author / FIRST_NAMES.length) % LAST_NAMES.length]
+                + (author >= FIRST_NAMES.length * LAST_NAMES.length ? " " + author : "");
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,118 @@
+package com.loadtest;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.stream.Stream;
+
+/**
+ * Load test of the book services: starts an in-process stand-in for the Eureka server and the
+ * client and frontend jars registered with it, fills the catalog, runs a mixed workload and
+ * reports throughput and latency percentiles. Everything runs on this machine.
+ *
+ * With {@code --launch=false} it tests services that are already running instead, such as the
+ * docker-compose stack, and starts nothing. With {@code startup} as the first argument it runs the
+ * {@link StartupBenchmark} instead.
+ */
+public final class LoadTestApplication {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+    private LoadTestApplication() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("startup")) {
+            StartupBenchmark.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        Deque<AutoCloseable> started = new ConcurrentLinkedDeque<>(); // Stopped in reverse, services before Eureka
+        Thread stopper = new Thread(() -> stopAll(started), "load-test-shutdown");
+        Runtime.getRuntime().addShutdownHook(stopper); // Doesn't leave services running after Ctrl-C
+        if (options.launch) {
+            launch(options, started);
+        }
+
+        LoadGenerator generator = new LoadGenerator(options);
+        generator.seed(System.out);
+        System.out.printf("Running %s of warmup and %s of measurement with %d workers%s%n",
+                options.warmup, options.duration, options.concurrency,
+                options.rate > 0 ? " at " + options.rate + " requests per second" : "");
+        LatencyReport report = generator.run(System.out);
+
+        System.out.println();
+        report.print(System.out, options.duration);
+        report.write(options.report, options, options.duration);
+        System.out.println("Report written to " + options.report.toAbsolutePath());
+
+        Runtime.getRuntime().removeShutdownHook(stopper);
+        stopAll(started);
+    }
+
+    private static void launch(LoadTestOptions options, Deque<AutoCloseable> started) throws Exception {
+        Files.createDirectories(options.workDir);
+        Files.deleteIfExists(options.workDir.resolve("items.json")); // Every run starts from an empty catalog
+        EurekaStub eureka = new EurekaStub(options.eurekaPort);
+        started.push(eureka);
+        List<String> common = discoveryArguments(eureka);
+
+        System.out.println("Eureka stand-in at " + eureka.serviceUrl() + ", services logging to " + options.workDir.toAbsolutePath());
+        ServiceProcess client = new ServiceProcess("client", options.clientJar, options.workDir, options.clientUrl,
+                options.serviceJvmArgs, concat(common, "--server.port=" + options.clientPort));
+        started.push(client);
+        ServiceProcess frontend = new ServiceProcess("frontend", options.frontendJar, options.workDir, options.frontendUrl,
+                options.serviceJvmArgs, concat(common, "--server.port=" + options.frontendPort));
+        started.push(frontend);
+        client.awaitHealthy(STARTUP_TIMEOUT);
+        frontend.awaitHealthy(STARTUP_TIMEOUT);
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (eureka.upInstances("client") == 0) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("The client never registered with Eureka; see its log");
+            }
+            Thread.sleep(500); // Registered as UP only once fully started
+        }
+        System.out.println("Client and frontend are up");
+    }
+
+    /**
+     * @return Arguments of a service that register it with the Eureka stand-in.
+     */
+    static List<String> discoveryArguments(EurekaStub eureka) {
+        return List.of(
+                "--eureka.client.service-url.defaultZone=" + eureka.serviceUrl(),
+                "--eureka.client.registry-fetch-interval-seconds=5", // Find each other within seconds, not half a minute
+                "--eureka.instance.lease-renewal-interval-in-seconds=5",
+                "--eureka.instance.ip-address=127.0.0.1", // Reached over loopback, whatever the machine's interfaces
+                "--eureka.instance.hostname=localhost",
+                "--logging.level.com.netflix.eureka=INFO",
+                "--logging.level.com.netflix.discovery=INFO");
+    }
+
+    static List<String> concat(List<String> common, String... arguments) {
+        return Stream.concat(common.stream(), Stream.of(arguments)).toList();
+    }
+
+    static void stopAll(Deque<AutoCloseable> started) {
+        AutoCloseable next;
+        while ((next = started.poll()) != null) {
+            try {
+                next.close();
+            } catch (Exception e) {
+                System.err.println("Failed to stop " + next + ": " + e);
+            }
+        }
+    }
+}
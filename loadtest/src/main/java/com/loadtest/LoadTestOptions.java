@@ -0,0 +1,154 @@
+package com.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Settings of a load test, parsed from {@code --name=value} arguments.
+ */
+public final class LoadTestOptions {
+
+    private static final Set<String> NAMES = Set.of(
+            "launch", "client-jar", "frontend-jar", "eureka-port", "client-port", "frontend-port", "service-jvm-args",
+            "work-dir", "client-url", "frontend-url", "books", "authors", "concurrency", "rate", "warmup", "duration",
+            "mix", "write-batch", "report");
+
+    // Start the client and frontend jars here, registered with an in-process Eureka stand-in; otherwise test a running stack
+    public final boolean launch;
+    public final Path clientJar;
+    public final Path frontendJar;
+    public final int eurekaPort;
+    public final int clientPort;
+    public final int frontendPort;
+    public final List<String> serviceJvmArgs;
+    public final Path workDir; // Catalog files and logs of the launched services
+
+    public final String clientUrl;
+    public final String frontendUrl;
+
+    // Books added before the warmup; the launched client starts with an empty catalog
+    public final int books;
+    // Distinct authors among the added books, and the authors searched for
+    public final int authors;
+    // Workers issuing requests, each waiting for its response before the next request
+    public final int concurrency;
+    // Requests per second across all workers, or 0 to send each request as soon as the previous one returns
+    public final double rate;
+    public final Duration warmup;
+    public final Duration duration;
+    public final Map<Operation, Integer> mix;
+    // Books per write; more than one sends them to the bulk import in one request
+    public final int writeBatch;
+    public final Path report;
+
+    private LoadTestOptions(Map<String, String> values) {
+        launch = Boolean.parseBoolean(values.getOrDefault("launch", "true"));
+        clientJar = Path.of(values.getOrDefault("client-jar", "../client/target/client-0.0.1-SNAPSHOT.jar"));
+        frontendJar = Path.of(values.getOrDefault("frontend-jar", "../frontend/target/frontend-0.0.1-SNAPSHOT.jar"));
+        eurekaPort = Integer.parseInt(values.getOrDefault("eureka-port", "18761"));
+        clientPort = Integer.parseInt(values.getOrDefault("client-port", "18080"));
+        frontendPort = Integer.parseInt(values.getOrDefault("frontend-port", "18081"));
+        serviceJvmArgs = parseArguments(values.getOrDefault("service-jvm-args", "-Xmx1g"));
+        workDir = Path.of(values.getOrDefault("work-dir", "target/loadtest"));
+
+        // Without launching, the docker-compose stack's published ports
+        clientUrl = values.getOrDefault("client-url", "http://localhost:" + (launch ? clientPort : 8080));
+        frontendUrl = values.getOrDefault("frontend-url", "http://localhost:" + (launch ? frontendPort : 8081));
+
+        books = Integer.parseInt(values.getOrDefault("books", launch ? "10000" : "0"));
+        authors = Integer.parseInt(values.getOrDefault("authors", "1000"));
+        concurrency = Integer.parseInt(values.getOrDefault("concurrency", "16"));
+        rate = Double.parseDouble(values.getOrDefault("rate", "0"));
+        warmup = parseDuration(values.getOrDefault("warmup", "15s"));
+        duration = parseDuration(values.getOrDefault("duration", "60s"));
+        mix = parseMix(values.getOrDefault("mix", "get:35,page:20,search:15,text:10,write:15,frontend:5"));
+        writeBatch = Integer.parseInt(values.getOrDefault("write-batch", "1"));
+        report = Path.of(values.getOrDefault("report", "target/loadtest-report.json"));
+
+        if (concurrency < 1 || writeBatch < 1 || authors < 1 || books < 0 || rate < 0) {
+            throw new IllegalArgumentException("concurrency, write-batch and authors must be positive, books and rate not negative");
+        }
+    }
+
+    /**
+     * @param args Arguments of the form {@code --name=value}.
+     * @return The options, with defaults for the ones not given.
+     * @throws IllegalArgumentException If an argument is malformed or unknown.
+     */
+    public static LoadTestOptions parse(String... args) {
+        return new LoadTestOptions(parseValues(NAMES, args));
+    }
+
+    /**
+     * @param names The known option names.
+     * @param args  Arguments of the form {@code --name=value}.
+     * @return The value given for each option.
+     * @throws IllegalArgumentException If an argument is malformed or unknown.
+     */
+    static Map<String, String> parseValues(Set<String> names, String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, equals);
+            if (!names.contains(name)) {
+                throw new IllegalArgumentException("Unknown option --" + name + "; known options are " + names);
+            }
+            values.put(name, arg.substring(equals + 1));
+        }
+        return values;
+    }
+
+    /**
+     * @param value Arguments separated by whitespace; blank for none.
+     */
+    static List<String> parseArguments(String value) {
+        return value.isBlank() ? List.of() : List.of(value.trim().split("\\s+"));
+    }
+
+    /**
+     * @param value A number followed by ms, s, m or h, such as {@code 30s}.
+     */
+    static Duration parseDuration(String value) {
+        String number = value.replaceAll("[a-z]+$", "");
+        long amount = Long.parseLong(number);
+        return switch (value.substring(number.length())) {
+            case "ms" -> Duration.ofMillis(amount);
+            case "s" -> Duration.ofSeconds(amount);
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Expected a duration such as 30s, got " + value);
+        };
+    }
+
+    /**
+     * @param value Comma-separated {@code operation:weight} pairs, such as {@code get:80,write:20}.
+     * @return The relative weight of each operation; operations not named are not issued.
+     */
+    static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight, got " + entry);
+            }
+            int weight = Integer.parseInt(parts[1]);
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + parts[0]);
+            }
+            mix.put(Operation.valueOf(parts[0].toUpperCase(Locale.ROOT)), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("The mix has no operation with a positive weight");
+        }
+        return mix;
+    }
+}
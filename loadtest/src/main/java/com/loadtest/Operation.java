@@ -0,0 +1,25 @@
+package com.loadtest;
+
+import java.util.Locale;
+
+/**
+ * The kinds of request a load test mixes; named in lower case in {@code --mix}.
+ */
+public enum Operation {
+    /** GET /{id} of a random book. */
+    GET,
+    /** GET /page at a random offset, sorted by a random field. */
+    PAGE,
+    /** GET /search for a random author. */
+    SEARCH,
+    /** GET /search/text, fuzzy, for a random word of the names and authors. */
+    TEXT,
+    /** POST / of a new book, or POST /bulk of {@code --write-batch} new books. */
+    WRITE,
+    /** A view of the frontend's book list, which reads its first page of books through Eureka. */
+    FRONTEND;
+
+    public String label() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
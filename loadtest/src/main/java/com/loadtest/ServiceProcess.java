@@ -0,0 +1,150 @@
+package com.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * One of the Spring Boot services under test, running from its executable jar in a child JVM,
+ * or from a command of its own, with its output in a log file next to its catalog.
+ */
+public class ServiceProcess implements AutoCloseable {
+
+    private final String name;
+    private final String url;
+    private final Process process;
+
+    /**
+     * Starts the service.
+     *
+     * @param name      Name of the service, for logs and errors.
+     * @param jar       The executable jar.
+     * @param workDir   Working directory of the service, created beforehand.
+     * @param url       Base URL the service answers on once started.
+     * @param jvmArgs   Arguments for the JVM.
+     * @param arguments Arguments for the application, such as {@code --server.port=...}.
+     */
+    public ServiceProcess(String name, Path jar, Path workDir, String url, List<String> jvmArgs, List<String> arguments)
+            throws IOException {
+        this(name, javaCommand(jvmArgs, jar.toAbsolutePath().toString(), arguments), workDir,
+                workDir.resolve(name + ".log"), url);
+    }
+
+    /**
+     * Starts the service with a command of its own, such as a native executable or a jar that has
+     * to be run from its own directory.
+     *
+     * @param name      Name of the service, for logs and errors.
+     * @param command   The command and its arguments.
+     * @param directory Working directory of the command.
+     * @param log       File the service's output is written to.
+     * @param url       Base URL the service answers on once started.
+     */
+    public ServiceProcess(String name, List<String> command, Path directory, Path log, String url) throws IOException {
+        this.name = name;
+        this.url = url;
+        this.process = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    /**
+     * @return The command running an executable jar in a JVM of the same Java as this one.
+     */
+    public static List<String> javaCommand(List<String> jvmArgs, String jar, List<String> arguments) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-jar");
+        command.add(jar);
+        command.addAll(arguments);
+        return command;
+    }
+
+    /**
+     * Waits until the service's health endpoint reports it UP.
+     *
+     * @throws IllegalStateException If the service exits or isn't up within the timeout.
+     */
+    public void awaitHealthy(Duration timeout) throws InterruptedException {
+        awaitResponse("/actuator/health", response -> response.statusCode() == 200 && response.body().contains("\"UP\""),
+                timeout, Duration.ofMillis(500));
+    }
+
+    /**
+     * Waits until a request to the service gets an answer it accepts.
+     *
+     * @param path     Path and query of the request.
+     * @param accepted Whether an answer is the one waited for.
+     * @param timeout  How long to wait.
+     * @param interval How long to wait between requests.
+     * @throws IllegalStateException If the service exits or doesn't answer so within the timeout.
+     */
+    public void awaitResponse(String path, Predicate<HttpResponse<String>> accepted, Duration timeout, Duration interval)
+            throws InterruptedException {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with status " + process.exitValue() + "; see its log");
+            }
+            try {
+                if (accepted.test(http.send(request, HttpResponse.BodyHandlers.ofString()))) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(interval.toMillis());
+        }
+        throw new IllegalStateException(name + " did not answer " + path + " within " + timeout);
+    }
+
+    /**
+     * @return The resident set size of the service's process in bytes, or -1 where the system
+     *         doesn't report it in {@code /proc}.
+     */
+    public long residentBytes() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(process.pid()), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024; // Reported in kB
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not Linux, or the process is gone
+        }
+        return -1;
+    }
+
+    /**
+     * Stops the service the way a container stop would, so it flushes its catalog; kills it if it
+     * takes too long.
+     */
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
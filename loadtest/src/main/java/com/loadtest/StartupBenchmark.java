@@ -0,0 +1,225 @@
+package com.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Startup benchmark of the book services: starts each build of each service several times, one
+ * at a time, and reports how long it took from launch to answering its first request and how
+ * much memory it held then. The client and frontend register with an in-process Eureka
+ * stand-in, as in the load test.
+ *
+ * The builds compared are the executable jar, the jar extracted with a class data sharing archive
+ * (and, for the client and frontend, Spring AOT) by the {@code cds} profile, and the client's
+ * native image from the {@code native} profile. Builds that aren't there are skipped.
+ */
+public final class StartupBenchmark {
+
+    private static final Duration PROBE_INTERVAL = Duration.ofMillis(10);
+
+    /**
+     * A service under test: where its builds are and the request it is timed to.
+     */
+    public enum Service {
+        SERVER("server", "Server-0.0.1-SNAPSHOT.jar", "/eureka/apps", false, false),
+        CLIENT("client", "client-0.0.1-SNAPSHOT.jar", "/page?limit=1", true, true),
+        FRONTEND("frontend", "frontend-0.0.1-SNAPSHOT.jar", "/", true, false);
+
+        final String module;
+        final String jar;
+        final String firstRequest;
+        final boolean aot; // Whether the cds profile also runs Spring AOT; the Eureka server doesn't support it
+        final boolean nativeImage; // Whether the module has a native profile
+
+        Service(String module, String jar, String firstRequest, boolean aot, boolean nativeImage) {
+            this.module = module;
+            this.jar = jar;
+            this.firstRequest = firstRequest;
+            this.aot = aot;
+            this.nativeImage = nativeImage;
+        }
+
+        public String label() {
+            return module;
+        }
+    }
+
+    // One start of a service
+    private record Sample(long millisToFirstRequest, long residentBytes) {
+    }
+
+    // How to start one build of a service, or why it can't be
+    private record Launch(List<String> command, Path directory, String missing) {
+    }
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        StartupOptions options;
+        try {
+            options = StartupOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        Files.createDirectories(options.workDir);
+        Deque<AutoCloseable> started = new ConcurrentLinkedDeque<>();
+        Thread stopper = new Thread(() -> LoadTestApplication.stopAll(started), "startup-benchmark-shutdown");
+        Runtime.getRuntime().addShutdownHook(stopper);
+        EurekaStub eureka = new EurekaStub(options.eurekaPort);
+        started.push(eureka);
+
+        Map<String, List<Sample>> results = new LinkedHashMap<>(); // By service and variant, in the order run
+        for (Service service : options.services) {
+            for (StartupOptions.Variant variant : options.variants) {
+                Launch launch = launch(options, service, variant, eureka);
+                if (launch == null) {
+                    continue; // The service has no such build
+                }
+                if (launch.missing() != null) {
+                    System.out.printf("Skipping %s %s: %s%n", service.label(), variant.label(), launch.missing());
+                    continue;
+                }
+                List<Sample> samples = new ArrayList<>();
+                for (int run = 1; run <= options.runs; run++) {
+                    Sample sample = start(options, service, variant, launch, started);
+                    System.out.printf("%s %s run %d: first request after %d ms, resident %s MB%n", service.label(),
+                            variant.label(), run, sample.millisToFirstRequest(), megabytes(sample.residentBytes()));
+                    samples.add(sample);
+                }
+                results.put(service.label() + " " + variant.label(), samples);
+            }
+        }
+
+        System.out.println();
+        print(System.out, results);
+        write(options.report, options, results);
+        System.out.println("Report written to " + options.report.toAbsolutePath());
+
+        Runtime.getRuntime().removeShutdownHook(stopper);
+        LoadTestApplication.stopAll(started);
+    }
+
+    /**
+     * @return How to start the build, one saying why it can't be if it wasn't built, or null if
+     *         the service has no such build.
+     */
+    private static Launch launch(StartupOptions options, Service service, StartupOptions.Variant variant,
+                                 EurekaStub eureka) {
+        Path target = options.root.resolve(service.module).resolve("target").toAbsolutePath().normalize();
+        String port = "--server.port=" + options.port;
+        List<String> arguments = switch (service) {
+            case SERVER -> List.of(port);
+            case CLIENT -> LoadTestApplication.concat(LoadTestApplication.discoveryArguments(eureka), port,
+                    "--book-store.file=" + options.workDir.resolve("items.json").toAbsolutePath());
+            case FRONTEND -> LoadTestApplication.concat(LoadTestApplication.discoveryArguments(eureka), port);
+        };
+        return switch (variant) {
+            case JAR -> {
+                Path jar = target.resolve(service.jar);
+                yield new Launch(ServiceProcess.javaCommand(options.serviceJvmArgs, jar.toString(), arguments),
+                        options.workDir, Files.isRegularFile(jar) ? null : jar + " not built");
+            }
+            case CDS -> {
+                Path cds = target.resolve("cds");
+                List<String> jvmArgs = new ArrayList<>(options.serviceJvmArgs);
+                jvmArgs.add("-XX:SharedArchiveFile=application.jsa");
+                if (service.aot) {
+                    jvmArgs.add("-Dspring.aot.enabled=true");
+                }
+                // Run from its directory: the archive only matches the jar by the path it was recorded with
+                yield new Launch(ServiceProcess.javaCommand(jvmArgs, service.jar, arguments), cds,
+                        Files.isRegularFile(cds.resolve("application.jsa")) ? null
+                                : "no archive in " + cds + "; build with the cds profile");
+            }
+            case NATIVE -> {
+                if (!service.nativeImage) {
+                    yield null;
+                }
+                Path executable = target.resolve(service.module);
+                List<String> command = new ArrayList<>();
+                command.add(executable.toString());
+                command.addAll(arguments);
+                yield new Launch(command, options.workDir, Files.isExecutable(executable) ? null
+                        : executable + " not built; build with the native profile");
+            }
+        };
+    }
+
+    private static Sample start(StartupOptions options, Service service, StartupOptions.Variant variant, Launch launch,
+                                Deque<AutoCloseable> started) throws IOException, InterruptedException {
+        Files.deleteIfExists(options.workDir.resolve("items.json")); // Every start is with an empty catalog
+        Path log = options.workDir.resolve(service.label() + "-" + variant.label() + ".log").toAbsolutePath();
+        long launched = System.nanoTime();
+        ServiceProcess process = new ServiceProcess(service.label(), launch.command(), launch.directory(), log,
+                "http://localhost:" + options.port);
+        started.push(process);
+        try {
+            process.awaitResponse(service.firstRequest, response -> response.statusCode() == 200, options.timeout,
+                    PROBE_INTERVAL);
+            long millis = (System.nanoTime() - launched) / 1_000_000;
+            return new Sample(millis, process.residentBytes());
+        } finally {
+            started.remove(process);
+            process.close();
+        }
+    }
+
+    private static void print(PrintStream out, Map<String, List<Sample>> results) {
+        out.printf("%-18s %5s %26s %16s%n", "", "", "first request (ms)", "resident (MB)");
+        out.printf("%-18s %5s %8s %8s %8s %16s%n", "service", "runs", "median", "min", "max", "median");
+        results.forEach((name, samples) -> {
+            List<Long> millis = samples.stream().map(Sample::millisToFirstRequest).sorted().toList();
+            out.printf("%-18s %5d %8d %8d %8d %16s%n", name, samples.size(), median(millis), millis.get(0),
+                    millis.get(millis.size() - 1), megabytes(median(samples.stream().map(Sample::residentBytes).sorted().toList())));
+        });
+    }
+
+    private static void write(Path file, StartupOptions options, Map<String, List<Sample>> results) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode settings = root.putObject("settings");
+        settings.put("runs", options.runs);
+        settings.put("serviceJvmArgs", String.join(" ", options.serviceJvmArgs));
+        ObjectNode services = root.putObject("services");
+        results.forEach((name, samples) -> {
+            ObjectNode result = services.putObject(name);
+            result.put("medianMillisToFirstRequest", median(samples.stream().map(Sample::millisToFirstRequest).sorted().toList()));
+            result.put("medianResidentBytes", median(samples.stream().map(Sample::residentBytes).sorted().toList()));
+            ArrayNode runs = result.putArray("runs");
+            samples.forEach(sample -> runs.addObject()
+                    .put("millisToFirstRequest", sample.millisToFirstRequest())
+                    .put("residentBytes", sample.residentBytes()));
+        });
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        objectMapper.writeValue(file.toFile(), root);
+    }
+
+    // The middle value of a sorted list, the lower of the two middle ones if there are an even number
+    private static long median(List<Long> sorted) {
+        return sorted.get((sorted.size() - 1) / 2);
+    }
+
+    private static String megabytes(long bytes) {
+        return bytes < 0 ? "n/a" : Long.toString(bytes / (1024 * 1024));
+    }
+}
@@ -0,0 +1,79 @@
+package com.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Settings of a startup benchmark, parsed from {@code --name=value} arguments.
+ */
+public final class StartupOptions {
+
+    private static final Set<String> NAMES = Set.of(
+            "root", "services", "variants", "runs", "port", "eureka-port", "service-jvm-args", "timeout", "work-dir",
+            "report");
+
+    /**
+     * A service's build: its executable jar, the jar extracted with a class data sharing archive
+     * by the {@code cds} profile, or the native executable of the {@code native} profile.
+     */
+    public enum Variant {
+        JAR, CDS, NATIVE;
+
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public final Path root; // The directory of the service modules
+    public final List<StartupBenchmark.Service> services;
+    public final List<Variant> variants;
+    // Starts of each service and variant; the median is reported
+    public final int runs;
+    public final int port; // Every service is started on this port in turn
+    public final int eurekaPort;
+    public final List<String> serviceJvmArgs;
+    public final Duration timeout;
+    public final Path workDir;
+    public final Path report;
+
+    private StartupOptions(Map<String, String> values) {
+        root = Path.of(values.getOrDefault("root", ".."));
+        services = parseList(values.getOrDefault("services", "server,client,frontend"), StartupBenchmark.Service.class);
+        variants = parseList(values.getOrDefault("variants", "jar,cds,native"), Variant.class);
+        runs = Integer.parseInt(values.getOrDefault("runs", "3"));
+        port = Integer.parseInt(values.getOrDefault("port", "18090"));
+        eurekaPort = Integer.parseInt(values.getOrDefault("eureka-port", "18761"));
+        serviceJvmArgs = LoadTestOptions.parseArguments(values.getOrDefault("service-jvm-args", ""));
+        timeout = LoadTestOptions.parseDuration(values.getOrDefault("timeout", "3m"));
+        workDir = Path.of(values.getOrDefault("work-dir", "target/startup"));
+        report = Path.of(values.getOrDefault("report", "target/startup-report.json"));
+
+        if (runs < 1 || services.isEmpty() || variants.isEmpty()) {
+            throw new IllegalArgumentException("runs must be positive, services and variants not empty");
+        }
+    }
+
+    /**
+     * @param args Arguments of the form {@code --name=value}.
+     * @return The options, with defaults for the ones not given.
+     * @throws IllegalArgumentException If an argument is malformed or unknown.
+     */
+    public static StartupOptions parse(String... args) {
+        return new StartupOptions(LoadTestOptions.parseValues(NAMES, args));
+    }
+
+    private static <E extends Enum<E>> List<E> parseList(String value, Class<E> type) {
+        List<E> list = new ArrayList<>();
+        for (String entry : value.split(",")) {
+            if (!entry.isBlank()) {
+                list.add(Enum.valueOf(type, entry.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        return list;
+    }
+}
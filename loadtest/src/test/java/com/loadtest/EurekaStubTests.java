@@ -0,0 +1,68 @@
+package com.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class EurekaStubTests {
+
+	private final HttpClient http = HttpClient.newHttpClient();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private EurekaStub eureka;
+
+	@BeforeEach
+	void start() throws Exception {
+		eureka = new EurekaStub(0);
+	}
+
+	@AfterEach
+	void stop() {
+		eureka.close();
+	}
+
+	private HttpResponse<String> send(String method, String path, String body) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(eureka.serviceUrl() + path))
+			.header("Content-Type", "application/json")
+			.method(method, body != null ? HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody())
+			.build();
+		return http.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	@Test
+	void registeredInstancesAreFetchedWithTheirLatestStatus() throws Exception {
+		assertEquals(204, send("POST", "apps/CLIENT",
+			"{\"instance\":{\"instanceId\":\"localhost:client:8080\",\"app\":\"CLIENT\",\"status\":\"STARTING\"}}").statusCode());
+		assertEquals(0, eureka.upInstances("client"));
+
+		assertEquals(200, send("PUT", "apps/CLIENT/localhost:client:8080/status?value=UP", null).statusCode());
+		assertEquals(1, eureka.upInstances("client"));
+
+		JsonNode registry = objectMapper.readTree(send("GET", "apps/", null).body()).path("applications");
+		assertEquals("UP_1_", registry.path("apps__hashcode").asText());
+		JsonNode instance = registry.path("application").path(0).path("instance").path(0);
+		assertEquals("CLIENT", instance.path("app").asText());
+		assertEquals("UP", instance.path("status").asText());
+	}
+
+	@Test
+	void unknownInstancesAreToldToRegisterAndDeltasAreRefused() throws Exception {
+		assertEquals(404, send("PUT", "apps/CLIENT/localhost:client:8080?status=UP", null).statusCode());
+		assertEquals(403, send("GET", "apps/delta", null).statusCode());
+
+		send("POST", "apps/CLIENT", "{\"instance\":{\"instanceId\":\"a\",\"status\":\"UP\"}}");
+		assertEquals(200, send("DELETE", "apps/CLIENT/a", null).statusCode());
+		assertEquals(0, eureka.upInstances("client"));
+		assertTrue(objectMapper.readTree(send("GET", "apps/", null).body()).path("applications").path("application").isEmpty());
+	}
+}
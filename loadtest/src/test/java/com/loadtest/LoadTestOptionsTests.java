@@ -0,0 +1,32 @@
+package com.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class LoadTestOptionsTests {
+
+	@Test
+	void runningStacksAreReachedOnTheirPublishedPortsAndNotSeeded() {
+		LoadTestOptions options = LoadTestOptions.parse("--launch=false", "--duration=2m", "--mix=get:3,write:1");
+		assertFalse(options.launch);
+		assertEquals("http://localhost:8080", options.clientUrl);
+		assertEquals("http://localhost:8081", options.frontendUrl);
+		assertEquals(0, options.books);
+		assertEquals(Duration.ofMinutes(2), options.duration);
+		assertEquals(Map.of(Operation.GET, 3, Operation.WRITE, 1), options.mix);
+	}
+
+	@Test
+	void malformedArgumentsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--threads=8"));
+		assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--warmup=10"));
+		assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--mix=get:0"));
+		assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--mix=browse:1"));
+	}
+}
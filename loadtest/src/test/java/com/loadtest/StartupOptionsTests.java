@@ -0,0 +1,27 @@
+package com.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class StartupOptionsTests {
+
+	@Test
+	void servicesAndVariantsAreChosenByName() {
+		StartupOptions options = StartupOptions.parse("--services=client, frontend", "--variants=jar,cds", "--runs=5");
+		assertEquals(List.of(StartupBenchmark.Service.CLIENT, StartupBenchmark.Service.FRONTEND), options.services);
+		assertEquals(List.of(StartupOptions.Variant.JAR, StartupOptions.Variant.CDS), options.variants);
+		assertEquals(5, options.runs);
+		assertEquals(List.of(), options.serviceJvmArgs);
+	}
+
+	@Test
+	void malformedArgumentsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> StartupOptions.parse("--variants=graal"));
+		assertThrows(IllegalArgumentException.class, () -> StartupOptions.parse("--runs=0"));
+		assertThrows(IllegalArgumentException.class, () -> StartupOptions.parse("--concurrency=8"));
+	}
+}